@@ -0,0 +1,67 @@
+package com.aiworkflow.benchmark;
+
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.common.core.execution.NodeExecutor;
+import com.aiworkflow.common.core.spi.SPIManager;
+import com.aiworkflow.engine.core.graph.FlowGraph;
+import com.aiworkflow.service.engine.condition.SimpleConditionEvaluator;
+import com.aiworkflow.service.engine.runtime.FlowEngine;
+import com.aiworkflow.service.engine.runtime.RuntimeInstance;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合成流程端到端执行：启动实例直到完成，执行器为空操作，衡量引擎自身的调度开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlowExecutionBenchmark {
+
+    @Param({"LINEAR_50", "FAN_OUT_64", "NESTED_6"})
+    public String shape;
+
+    private FlowEngine engine;
+
+    private FlowGraph graph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SPIManager spiManager = new SPIManager();
+        spiManager.registerExecutor(new NodeExecutor() {
+            @Override
+            public String[] getSupportedNodeTypes() {
+                return new String[]{SyntheticFlows.TASK_TYPE};
+            }
+
+            @Override
+            public ExecutionResult execute(ExecutionContext context) {
+                return ExecutionResult.success();
+            }
+        });
+        engine = new FlowEngine(spiManager, new SimpleConditionEvaluator(), List.of());
+        graph = switch (shape) {
+            case "LINEAR_50" -> SyntheticFlows.linear(50);
+            case "FAN_OUT_64" -> SyntheticFlows.wideFanOut(64);
+            case "NESTED_6" -> SyntheticFlows.nestedGateways(6);
+            default -> throw new IllegalArgumentException("未知流程形态: " + shape);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public RuntimeInstance runToCompletion() {
+        return engine.start(graph, Map.of()).completion().join();
+    }
+}
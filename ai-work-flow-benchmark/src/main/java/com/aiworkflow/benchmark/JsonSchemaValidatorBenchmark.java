@@ -0,0 +1,117 @@
+package com.aiworkflow.benchmark;
+
+import com.aiworkflow.common.core.util.JsonSchemaValidator;
+import com.aiworkflow.common.core.validation.ValidationResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonSchemaValidator：warm 为 Schema 已编译缓存，cold 在每次调用前清空缓存(包含 Schema 解析编译)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSchemaValidatorBenchmark {
+
+    static final String SCHEMA = """
+            {
+              "type": "object",
+              "required": ["model", "prompt"],
+              "properties": {
+                "model": {"type": "string", "enum": ["gpt-4", "claude-3", "qwen-plus"]},
+                "prompt": {"type": "string", "minLength": 1},
+                "temperature": {"type": "number", "minimum": 0, "maximum": 2},
+                "maxTokens": {"type": "integer", "minimum": 1},
+                "tools": {"type": "array", "items": {"type": "string"}}
+              }
+            }
+            """;
+
+    @State(Scope.Benchmark)
+    public static class Data {
+
+        Map<String, Object> validConfig;
+
+        Map<String, Object> invalidConfig;
+
+        String configJson;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            validConfig = new HashMap<>();
+            validConfig.put("model", "gpt-4");
+            validConfig.put("prompt", "总结以下文档的要点");
+            validConfig.put("temperature", 0.2);
+            validConfig.put("maxTokens", 2000);
+            validConfig.put("tools", List.of("web_search", "pdf_parser"));
+
+            invalidConfig = new HashMap<>(validConfig);
+            invalidConfig.put("model", "unknown");
+            invalidConfig.put("temperature", 5.0);
+            invalidConfig.remove("prompt");
+
+            configJson = "{\"model\":\"gpt-4\",\"prompt\":\"总结以下文档的要点\",\"temperature\":0.2,"
+                    + "\"maxTokens\":2000,\"tools\":[\"web_search\",\"pdf_parser\"]}";
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WarmCache {
+
+        @Setup(Level.Trial)
+        public void setUp(Data data) {
+            JsonSchemaValidator.clearCache();
+            JsonSchemaValidator.validate(SCHEMA, data.validConfig);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ColdCache {
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            JsonSchemaValidator.clearCache();
+        }
+    }
+
+    @Benchmark
+    public boolean validateWarm(Data data, WarmCache cache) {
+        return JsonSchemaValidator.validate(SCHEMA, data.validConfig);
+    }
+
+    @Benchmark
+    public boolean validateCold(Data data, ColdCache cache) {
+        return JsonSchemaValidator.validate(SCHEMA, data.validConfig);
+    }
+
+    @Benchmark
+    public ValidationResult validateDetailedInvalidWarm(Data data, WarmCache cache) {
+        return JsonSchemaValidator.validateDetailed(SCHEMA, data.invalidConfig);
+    }
+
+    @Benchmark
+    public ValidationResult validateDetailedInvalidCold(Data data, ColdCache cache) {
+        return JsonSchemaValidator.validateDetailed(SCHEMA, data.invalidConfig);
+    }
+
+    @Benchmark
+    public ValidationResult validateNodeConfigMapWarm(Data data, WarmCache cache) {
+        return JsonSchemaValidator.validateNodeConfig(SCHEMA, data.validConfig);
+    }
+
+    @Benchmark
+    public ValidationResult validateNodeConfigStringWarm(Data data, WarmCache cache) {
+        return JsonSchemaValidator.validateNodeConfig(SCHEMA, data.configJson);
+    }
+
+    @Benchmark
+    public ValidationResult validateNodeConfigCold(Data data, ColdCache cache) {
+        return JsonSchemaValidator.validateNodeConfig(SCHEMA, data.validConfig);
+    }
+}
@@ -0,0 +1,81 @@
+package com.aiworkflow.benchmark;
+
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.common.core.execution.NodeExecutor;
+import com.aiworkflow.common.core.spi.DispatchTable;
+import com.aiworkflow.common.core.spi.ExecutorSlot;
+import com.aiworkflow.common.core.spi.SPIManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SPIManager 按节点类型查找执行器，以及按预先解析的编号从分派表取槽位
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpiDispatchBenchmark {
+
+    private static final String[] NODE_TYPES = {
+            "START_EVENT", "END_EVENT", "USER_TASK", "SERVICE_TASK", "LLM_AGENT",
+            "MCP_TOOL", "AI_DECISION", "EXCLUSIVE_GATEWAY", "PARALLEL_GATEWAY"
+    };
+
+    @Param({"LLM_AGENT", "PARALLEL_GATEWAY", "UNKNOWN_TYPE"})
+    public String nodeType;
+
+    private SPIManager spiManager;
+
+    private DispatchTable table;
+
+    private int ordinal;
+
+    private ExecutionContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        spiManager = new SPIManager();
+        for (String type : NODE_TYPES) {
+            spiManager.registerExecutor(new NodeExecutor() {
+                @Override
+                public String[] getSupportedNodeTypes() {
+                    return new String[]{type};
+                }
+
+                @Override
+                public ExecutionResult execute(ExecutionContext context) {
+                    return ExecutionResult.success();
+                }
+            });
+        }
+        spiManager.init();
+        table = spiManager.getDispatchTable();
+        ordinal = table.ordinalOf(nodeType);
+        context = new ExecutionContext();
+        context.setNodeType(nodeType);
+    }
+
+    @Benchmark
+    public Optional<NodeExecutor> getExecutorByNodeType() {
+        return spiManager.getExecutorByNodeType(nodeType);
+    }
+
+    @Benchmark
+    public ExecutorSlot slotByOrdinal() {
+        return ordinal >= 0 ? table.slot(ordinal) : null;
+    }
+
+    /**
+     * 通过槽位执行(含计时和计数)
+     */
+    @Benchmark
+    public ExecutionResult executeViaSlot() throws Exception {
+        return ordinal >= 0 ? table.slot(ordinal).execute(context) : null;
+    }
+}
@@ -0,0 +1,100 @@
+package com.aiworkflow.benchmark;
+
+import com.aiworkflow.engine.core.graph.FlowGraph;
+import com.aiworkflow.engine.core.graph.FlowGraphBuilder;
+import com.aiworkflow.engine.core.model.*;
+
+/**
+ * 基准测试用的合成流程，所有任务节点类型均为 SERVICE_TASK
+ */
+public final class SyntheticFlows {
+
+    public static final String TASK_TYPE = FlowElementType.SERVICE_TASK;
+
+    private SyntheticFlows() {
+    }
+
+    /**
+     * start -> t1 -> ... -> tn -> end
+     */
+    public static FlowGraph linear(int length) {
+        FlowGraphBuilder builder = new FlowGraphBuilder("linear_" + length);
+        builder.add(node(new StartEvent(), "start"));
+        String previous = "start";
+        for (int i = 0; i < length; i++) {
+            String key = "t" + i;
+            builder.add(task(key)).add(flow(previous, key));
+            previous = key;
+        }
+        return builder.add(node(new EndEvent(), "end")).add(flow(previous, "end")).build();
+    }
+
+    /**
+     * start -> fork -> (t1 .. tw) -> join -> end
+     */
+    public static FlowGraph wideFanOut(int width) {
+        FlowGraphBuilder builder = new FlowGraphBuilder("fan_out_" + width)
+                .add(node(new StartEvent(), "start"))
+                .add(node(new ParallelGateway(), "fork"))
+                .add(node(new ParallelGateway(), "join"))
+                .add(node(new EndEvent(), "end"))
+                .add(flow("start", "fork"))
+                .add(flow("join", "end"));
+        for (int i = 0; i < width; i++) {
+            String key = "t" + i;
+            builder.add(task(key)).add(flow("fork", key)).add(flow(key, "join"));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 深度为 depth 的二叉嵌套并行网关，共 2^depth 个任务
+     */
+    public static FlowGraph nestedGateways(int depth) {
+        FlowGraphBuilder builder = new FlowGraphBuilder("nested_" + depth)
+                .add(node(new StartEvent(), "start"))
+                .add(node(new EndEvent(), "end"));
+        int[] counter = new int[1];
+        String[] block = nest(builder, depth, counter);
+        return builder.add(flow("start", block[0])).add(flow(block[1], "end")).build();
+    }
+
+    /**
+     * 生成一个嵌套块，返回 [入口节点, 出口节点]
+     */
+    private static String[] nest(FlowGraphBuilder builder, int depth, int[] counter) {
+        int id = counter[0]++;
+        if (depth == 0) {
+            String key = "t" + id;
+            builder.add(task(key));
+            return new String[]{key, key};
+        }
+        String fork = "fork" + id;
+        String join = "join" + id;
+        builder.add(node(new ParallelGateway(), fork)).add(node(new ParallelGateway(), join));
+        for (int i = 0; i < 2; i++) {
+            String[] child = nest(builder, depth - 1, counter);
+            builder.add(flow(fork, child[0])).add(flow(child[1], join));
+        }
+        return new String[]{fork, join};
+    }
+
+    private static FlowNode node(FlowNode node, String key) {
+        node.setKey(key);
+        return node;
+    }
+
+    private static FlowNode task(String key) {
+        Task task = new Task();
+        task.setTaskType(TASK_TYPE);
+        return node(task, key);
+    }
+
+    private static SequenceFlow flow(String source, String target) {
+        SequenceFlow flow = new SequenceFlow();
+        flow.setKey(source + "->" + target);
+        flow.setSourceRef(source);
+        flow.setTargetRef(target);
+        return flow;
+    }
+}
@@ -0,0 +1,12 @@
+package com.aiworkflow.common.core.config;
+
+import com.aiworkflow.common.core.spi.SPIManager;
+import org.springframework.context.annotation.Bean;
+
+public class SPIConfig {
+
+    @Bean
+    public SPIManager spiManager() {
+        return new SPIManager();
+    }
+}
@@ -0,0 +1,62 @@
+package com.aiworkflow.common.core.execution;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 异步节点执行器，适用于长时间等待远程响应的节点(LLM_AGENT、MCP_TOOL、AI_DECISION 等)
+ * <p>
+ * 引擎调用 {@link #executeAsync(ExecutionContext)} 后挂起执行实例并释放线程，结果返回后再继续推进；
+ * 超时或实例被终止时引擎会取消返回的 future，实现方应在取消时中止远程调用。
+ * 与同步执行器一样通过 {@link com.aiworkflow.common.core.spi.ExecutorProvider} 提供，
+ * 也可以作为普通 {@link NodeExecutor} 被同步调用。
+ */
+public interface AsyncNodeExecutor extends NodeExecutor {
+
+    /**
+     * 发起执行，不应阻塞调用线程
+     */
+    CompletionStage<ExecutionResult> executeAsync(ExecutionContext context);
+
+    /**
+     * 单次执行的超时时间，null 表示不限；默认取节点配置中的 timeoutMs
+     */
+    default Duration getTimeout(ExecutionContext context) {
+        Object timeoutMs = context.getConfig() != null ? context.getConfig().get("timeoutMs") : null;
+        if (timeoutMs instanceof Number number && number.longValue() > 0) {
+            return Duration.ofMillis(number.longValue());
+        }
+        return null;
+    }
+
+    /**
+     * 同步适配：阻塞等待结果，超时或被中断时取消执行
+     */
+    @Override
+    default ExecutionResult execute(ExecutionContext context) throws Exception {
+        CompletableFuture<ExecutionResult> future = executeAsync(context).toCompletableFuture();
+        Duration timeout = getTimeout(context);
+        try {
+            return timeout != null ? future.get(timeout.toNanos(), TimeUnit.NANOSECONDS) : future.get();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return ExecutionResult.fail("节点执行超时(" + timeout.toMillis() + "ms)");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (CancellationException e) {
+            return ExecutionResult.fail("节点执行被取消");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.aiworkflow.common.core.execution;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 节点执行上下文
+ */
+@Data
+public class ExecutionContext {
+
+    private Long flowInstanceId;
+
+    private Long executionId;
+
+    private String nodeKey;
+
+    private String nodeName;
+
+    private String nodeType;
+
+    // 节点配置(config_data)
+    private Map<String, Object> config;
+
+    // 流程变量(只读视图)
+    private Map<String, Object> variables;
+}
@@ -0,0 +1,39 @@
+package com.aiworkflow.common.core.execution;
+
+import lombok.Data;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 节点执行结果
+ */
+@Data
+public class ExecutionResult {
+
+    private boolean success;
+
+    // 输出数据，成功后合并进流程变量
+    private Map<String, Object> outputs;
+
+    private String errorMessage;
+
+    public static ExecutionResult success() {
+        return success(Collections.emptyMap());
+    }
+
+    public static ExecutionResult success(Map<String, Object> outputs) {
+        ExecutionResult result = new ExecutionResult();
+        result.setSuccess(true);
+        result.setOutputs(outputs);
+        return result;
+    }
+
+    public static ExecutionResult fail(String errorMessage) {
+        ExecutionResult result = new ExecutionResult();
+        result.setSuccess(false);
+        result.setOutputs(Collections.emptyMap());
+        result.setErrorMessage(errorMessage);
+        return result;
+    }
+}
@@ -0,0 +1,17 @@
+package com.aiworkflow.common.core.execution;
+
+/**
+ * 节点执行器
+ */
+public interface NodeExecutor {
+
+    /**
+     * 支持的节点类型
+     */
+    String[] getSupportedNodeTypes();
+
+    /**
+     * 执行节点，可以阻塞(引擎在虚拟线程上调用)
+     */
+    ExecutionResult execute(ExecutionContext context) throws Exception;
+}
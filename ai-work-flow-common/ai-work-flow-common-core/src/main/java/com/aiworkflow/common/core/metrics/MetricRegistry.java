@@ -0,0 +1,229 @@
+package com.aiworkflow.common.core.metrics;
+
+import com.aiworkflow.common.core.spi.LatencyHistogram;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内指标注册表，以 Prometheus 文本格式输出
+ * <p>
+ * 计时统一使用 {@link LatencyHistogram}(无锁、无分配)，计数使用 LongAdder；也可以登记模块中已有的直方图和计数，
+ * 输出时读取，不重复记录。按名称和标签取指标需要一次哈希查找，热路径上应缓存返回的直方图或计数器。
+ * 标签以键值交替的形式传入，如 {@code histogram("aiworkflow_db_statement_seconds", "statement", "XxxMapper.selectById")}；
+ * 标签值的取值范围应当有限(节点类型、执行器、流程定义、Mapper 方法)，不要使用实例 ID 等无界的值。
+ */
+public final class MetricRegistry {
+
+    private static final MetricRegistry GLOBAL = new MetricRegistry();
+
+    // 输出的直方图桶：1µs 起每 4 倍一个，到约 67s，之后为 +Inf
+    private static final int[] EXPORTED_BUCKETS;
+
+    private static final String[] BUCKET_LABELS;
+
+    static {
+        List<Integer> buckets = new ArrayList<>();
+        for (int i = 0; i <= 26; i += 2) {
+            buckets.add(i);
+        }
+        EXPORTED_BUCKETS = buckets.stream().mapToInt(Integer::intValue).toArray();
+        BUCKET_LABELS = new String[EXPORTED_BUCKETS.length];
+        for (int i = 0; i < EXPORTED_BUCKETS.length; i++) {
+            BUCKET_LABELS[i] = seconds(LatencyHistogram.upperBoundMicros(EXPORTED_BUCKETS[i]) * 1000);
+        }
+    }
+
+    private final Map<MetricId, Object> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * 进程内共享的注册表，供不在 Spring 容器中创建的组件(分派表槽位、MyBatis 插件等)使用
+     */
+    public static MetricRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * 取或创建计时直方图，名称应以 _seconds 结尾
+     */
+    public LatencyHistogram histogram(String name, String... tags) {
+        return (LatencyHistogram) metrics.computeIfAbsent(MetricId.of(name, tags), id -> new LatencyHistogram());
+    }
+
+    /**
+     * 登记已有的直方图，同名同标签的旧指标被替换
+     */
+    public void register(String name, LatencyHistogram histogram, String... tags) {
+        metrics.put(MetricId.of(name, tags), histogram);
+    }
+
+    /**
+     * 取或创建计数器，名称应以 _total 结尾
+     */
+    public LongAdder counter(String name, String... tags) {
+        return (LongAdder) metrics.computeIfAbsent(MetricId.of(name, tags), id -> new LongAdder());
+    }
+
+    /**
+     * 登记由调用方维护的计数，输出时读取
+     */
+    public void counter(String name, LongSupplier value, String... tags) {
+        metrics.put(MetricId.of(name, tags), new FunctionCounter(value));
+    }
+
+    /**
+     * 登记瞬时值，输出时读取
+     */
+    public void gauge(String name, DoubleSupplier value, String... tags) {
+        metrics.put(MetricId.of(name, tags), value);
+    }
+
+    public int size() {
+        return metrics.size();
+    }
+
+    /**
+     * 以 Prometheus 文本格式(0.0.4)输出全部指标，同名指标按标签排序连续输出
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        List<Map.Entry<MetricId, Object>> entries = new ArrayList<>(metrics.entrySet());
+        entries.sort(Map.Entry.comparingByKey(Comparator.comparing(MetricId::name)
+                .thenComparing(id -> String.join(",", id.tags()))));
+        String current = null;
+        for (Map.Entry<MetricId, Object> entry : entries) {
+            MetricId id = entry.getKey();
+            Object metric = entry.getValue();
+            if (!id.name().equals(current)) {
+                current = id.name();
+                out.append("# TYPE ").append(current).append(' ').append(typeOf(metric)).append('\n');
+            }
+            if (metric instanceof LatencyHistogram histogram) {
+                writeHistogram(out, id, histogram);
+            } else {
+                sample(out, id.name(), id, null, null);
+                out.append(valueOf(metric)).append('\n');
+            }
+        }
+    }
+
+    private static void writeHistogram(Appendable out, MetricId id, LatencyHistogram histogram) throws IOException {
+        long[] counts = histogram.bucketCounts();
+        long cumulative = 0;
+        int next = 0;
+        for (int i = 0; i < EXPORTED_BUCKETS.length; i++) {
+            for (; next <= EXPORTED_BUCKETS[i]; next++) {
+                cumulative += counts[next];
+            }
+            sample(out, id.name() + "_bucket", id, "le", BUCKET_LABELS[i]);
+            out.append(Long.toString(cumulative)).append('\n');
+        }
+        long total = cumulative;
+        for (; next < counts.length; next++) {
+            total += counts[next];
+        }
+        sample(out, id.name() + "_bucket", id, "le", "+Inf");
+        out.append(Long.toString(total)).append('\n');
+        sample(out, id.name() + "_sum", id, null, null);
+        out.append(seconds(histogram.totalNanos())).append('\n');
+        sample(out, id.name() + "_count", id, null, null);
+        out.append(Long.toString(total)).append('\n');
+    }
+
+    private static void sample(Appendable out, String name, MetricId id, String extraKey, String extraValue)
+            throws IOException {
+        out.append(name);
+        List<String> tags = id.tags();
+        if (!tags.isEmpty() || extraKey != null) {
+            out.append('{');
+            boolean first = true;
+            for (int i = 0; i < tags.size(); i += 2) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                label(out, tags.get(i), tags.get(i + 1));
+            }
+            if (extraKey != null) {
+                if (!first) {
+                    out.append(',');
+                }
+                label(out, extraKey, extraValue);
+            }
+            out.append('}');
+        }
+        out.append(' ');
+    }
+
+    private static void label(Appendable out, String key, String value) throws IOException {
+        out.append(key).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static String typeOf(Object metric) {
+        if (metric instanceof LatencyHistogram) {
+            return "histogram";
+        }
+        return metric instanceof LongAdder || metric instanceof FunctionCounter ? "counter" : "gauge";
+    }
+
+    private static String valueOf(Object metric) {
+        if (metric instanceof LongAdder adder) {
+            return Long.toString(adder.sum());
+        }
+        if (metric instanceof FunctionCounter counter) {
+            return Long.toString(counter.value().getAsLong());
+        }
+        double value = ((DoubleSupplier) metric).getAsDouble();
+        return Double.isNaN(value) ? "NaN" : Double.toString(value);
+    }
+
+    private static String seconds(long nanos) {
+        return BigDecimal.valueOf(nanos).movePointLeft(9).stripTrailingZeros().toPlainString();
+    }
+
+    private record FunctionCounter(LongSupplier value) {
+    }
+
+    /**
+     * 指标名和标签(键值交替，按键排序)
+     */
+    record MetricId(String name, List<String> tags) {
+
+        static MetricId of(String name, String... tags) {
+            if (tags.length % 2 != 0) {
+                throw new IllegalArgumentException("标签必须是键值对: " + name);
+            }
+            // 按键排序，保证同一组标签不论传入顺序都对应同一个指标；空值记为 unknown
+            List<String[]> pairs = new ArrayList<>(tags.length / 2);
+            for (int i = 0; i < tags.length; i += 2) {
+                pairs.add(new String[]{tags[i], tags[i + 1] != null ? tags[i + 1] : "unknown"});
+            }
+            if (pairs.size() > 1) {
+                pairs.sort(Comparator.comparing(pair -> pair[0]));
+            }
+            List<String> sorted = new ArrayList<>(tags.length);
+            for (String[] pair : pairs) {
+                sorted.add(pair[0]);
+                sorted.add(pair[1]);
+            }
+            return new MetricId(name, List.copyOf(sorted));
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.aiworkflow.common.core.metrics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按流程实例记录的轻量追踪
+ * <p>
+ * 每个实例一条 trace(trace ID 即实例 ID)，根跨度为实例本身，任务执行是它的子跨度；只保存在本进程内，
+ * 按最近使用保留最多 {@code maxTraces} 条，每条最多 {@code maxSpans} 个子跨度，超出的跨度只计数不保存。
+ * 子跨度结束时才加入 trace。只有任务跨度、没有收到实例开始的 trace(如任务执行服务中)同样保存，
+ * 根跨度的起止取子跨度的范围。
+ * <p>
+ * 任务执行路径上只按实例查找 trace 并在该 trace 上同步，不同实例之间没有共享锁；
+ * 只有新建 trace 使总数超出容量时才扫描一次，淘汰最久未使用的。
+ */
+public final class TraceRecorder {
+
+    private static final TraceRecorder GLOBAL = new TraceRecorder(1000, 500);
+
+    private final int maxTraces;
+
+    private final int maxSpans;
+
+    private final Map<Long, Trace> traces = new ConcurrentHashMap<>();
+
+    private final LongAdder droppedSpans = new LongAdder();
+
+    public TraceRecorder(int maxTraces, int maxSpans) {
+        this.maxTraces = maxTraces;
+        this.maxSpans = maxSpans;
+    }
+
+    public static TraceRecorder global() {
+        return GLOBAL;
+    }
+
+    /**
+     * 实例开始，name 通常为流程定义标识
+     */
+    public void beginTrace(long instanceId, String name) {
+        Trace trace = trace(instanceId);
+        synchronized (trace) {
+            trace.name = name;
+            trace.startNanos = System.nanoTime();
+            trace.startTime = Instant.now();
+        }
+    }
+
+    /**
+     * 实例进入终态
+     */
+    public void endTrace(long instanceId, String status, String error) {
+        Trace trace = trace(instanceId);
+        synchronized (trace) {
+            trace.endNanos = System.nanoTime();
+            trace.status = status;
+            trace.error = error;
+        }
+    }
+
+    /**
+     * 开始一个子跨度，调用方负责结束
+     */
+    public Span startSpan(long instanceId, String name) {
+        return new Span(trace(instanceId), name, System.nanoTime());
+    }
+
+    /**
+     * 实例的 trace，不存在时返回 null
+     */
+    public Map<String, Object> getTrace(long instanceId) {
+        Trace trace = traces.get(instanceId);
+        if (trace == null) {
+            return null;
+        }
+        trace.touch();
+        synchronized (trace) {
+            Map<String, Object> result = trace.summary();
+            long origin = trace.originNanos();
+            List<Map<String, Object>> spans = new ArrayList<>(trace.spans.size());
+            for (Span span : trace.spans) {
+                spans.add(span.toMap(origin));
+            }
+            result.put("spans", spans);
+            return result;
+        }
+    }
+
+    /**
+     * 最近的 trace 摘要，新的在前
+     */
+    public List<Map<String, Object>> recentTraces(int limit) {
+        List<Trace> snapshot = new ArrayList<>(traces.values());
+        snapshot.sort(Comparator.comparingLong((Trace trace) -> trace.lastAccessNanos).reversed());
+        List<Map<String, Object>> result = new ArrayList<>(Math.min(limit, snapshot.size()));
+        for (int i = 0; i < snapshot.size() && result.size() < limit; i++) {
+            Trace trace = snapshot.get(i);
+            synchronized (trace) {
+                result.add(trace.summary());
+            }
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("traces", traces.size());
+        stats.put("maxTraces", maxTraces);
+        stats.put("maxSpans", maxSpans);
+        stats.put("droppedSpans", droppedSpans.sum());
+        return stats;
+    }
+
+    private Trace trace(long instanceId) {
+        Trace trace = traces.get(instanceId);
+        if (trace != null) {
+            trace.touch();
+            return trace;
+        }
+        trace = traces.computeIfAbsent(instanceId, Trace::new);
+        if (traces.size() > maxTraces) {
+            evictEldest();
+        }
+        return trace;
+    }
+
+    /**
+     * 淘汰最久未使用的 trace 直到不超过容量；只在新建 trace 时调用，并发新建时串行
+     */
+    private synchronized void evictEldest() {
+        while (traces.size() > maxTraces) {
+            Trace eldest = null;
+            for (Trace trace : traces.values()) {
+                if (eldest == null || trace.lastAccessNanos - eldest.lastAccessNanos < 0) {
+                    eldest = trace;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            traces.remove(eldest.id, eldest);
+        }
+    }
+
+    private static final class Trace {
+
+        private final long id;
+
+        private String name;
+
+        // 根跨度起止，未收到实例开始/结束时为 0
+        private long startNanos;
+
+        private Instant startTime;
+
+        private long endNanos;
+
+        private String status;
+
+        private String error;
+
+        private final List<Span> spans = new ArrayList<>();
+
+        // 最近一次使用，淘汰和最近列表按它排序
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        Trace(long id) {
+            this.id = id;
+        }
+
+        void touch() {
+            lastAccessNanos = System.nanoTime();
+        }
+
+        long originNanos() {
+            long origin = startNanos;
+            for (Span span : spans) {
+                if (origin == 0 || span.startNanos - origin < 0) {
+                    origin = span.startNanos;
+                }
+            }
+            return origin;
+        }
+
+        Map<String, Object> summary() {
+            long origin = originNanos();
+            long end = endNanos;
+            if (end == 0) {
+                for (Span span : spans) {
+                    if (end == 0 || span.endNanos - end > 0) {
+                        end = span.endNanos;
+                    }
+                }
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("traceId", id);
+            result.put("name", name);
+            result.put("startTime", startTime != null ? startTime.toString() : null);
+            result.put("status", status != null ? status : endNanos == 0 ? "RUNNING" : null);
+            result.put("error", error);
+            result.put("durationMicros", origin != 0 && end != 0 ? (end - origin) / 1000 : null);
+            result.put("spanCount", spans.size());
+            return result;
+        }
+    }
+
+    /**
+     * 子跨度，结束前可以附加属性；线程安全
+     */
+    public final class Span {
+
+        private final Trace trace;
+
+        private final String name;
+
+        private final long startNanos;
+
+        private long endNanos;
+
+        private String status;
+
+        private Map<String, Object> attributes;
+
+        private Span(Trace trace, String name, long startNanos) {
+            this.trace = trace;
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        public Span attribute(String key, Object value) {
+            synchronized (trace) {
+                if (attributes == null) {
+                    attributes = new LinkedHashMap<>();
+                }
+                attributes.put(key, value);
+            }
+            return this;
+        }
+
+        public void end() {
+            finish("OK", null);
+        }
+
+        public void fail(String error) {
+            finish("ERROR", error);
+        }
+
+        private void finish(String status, String error) {
+            long now = System.nanoTime();
+            synchronized (trace) {
+                if (endNanos != 0) {
+                    return;
+                }
+                endNanos = now;
+                this.status = status;
+                if (error != null) {
+                    if (attributes == null) {
+                        attributes = new LinkedHashMap<>();
+                    }
+                    attributes.put("error", error);
+                }
+                if (trace.spans.size() < maxSpans) {
+                    trace.spans.add(this);
+                } else {
+                    droppedSpans.increment();
+                }
+            }
+        }
+
+        private Map<String, Object> toMap(long originNanos) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("name", name);
+            result.put("status", status);
+            result.put("offsetMicros", (startNanos - originNanos) / 1000);
+            result.put("durationMicros", (endNanos - startNanos) / 1000);
+            if (attributes != null) {
+                result.put("attributes", new LinkedHashMap<>(attributes));
+            }
+            return result;
+        }
+    }
+}
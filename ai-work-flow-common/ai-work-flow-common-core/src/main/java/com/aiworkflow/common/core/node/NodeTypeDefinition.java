@@ -0,0 +1,22 @@
+package com.aiworkflow.common.core.node;
+
+import lombok.Data;
+
+/**
+ * 节点类型定义
+ */
+@Data
+public class NodeTypeDefinition {
+
+    private TaskType taskType;
+
+    private String displayName;
+
+    // 分类：EVENT、TASK、AI、GATEWAY 等
+    private String category;
+
+    private String description;
+
+    // 节点配置的 JSON Schema，用于校验 config_data
+    private String configSchema;
+}
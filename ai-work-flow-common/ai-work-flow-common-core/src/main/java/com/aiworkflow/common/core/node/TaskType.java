@@ -0,0 +1,17 @@
+package com.aiworkflow.common.core.node;
+
+/**
+ * 任务类型，code 与 ai_task_instance.task_type 一致；SPI 扩展的节点类型直接 new TaskType("XXX")
+ */
+public record TaskType(String code) {
+
+    public static final TaskType START_EVENT = new TaskType("START_EVENT");
+    public static final TaskType END_EVENT = new TaskType("END_EVENT");
+    public static final TaskType USER_TASK = new TaskType("USER_TASK");
+    public static final TaskType SERVICE_TASK = new TaskType("SERVICE_TASK");
+    public static final TaskType LLM_AGENT = new TaskType("LLM_AGENT");
+    public static final TaskType MCP_TOOL = new TaskType("MCP_TOOL");
+    public static final TaskType AI_DECISION = new TaskType("AI_DECISION");
+    public static final TaskType EXCLUSIVE_GATEWAY = new TaskType("EXCLUSIVE_GATEWAY");
+    public static final TaskType PARALLEL_GATEWAY = new TaskType("PARALLEL_GATEWAY");
+}
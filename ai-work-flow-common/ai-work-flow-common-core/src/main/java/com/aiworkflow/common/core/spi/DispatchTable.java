@@ -0,0 +1,90 @@
+package com.aiworkflow.common.core.spi;
+
+import com.aiworkflow.common.core.execution.NodeExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * 冻结的执行器分派表
+ * <p>
+ * 节点类型按名称排序后编号(ordinal)，槽位存放在数组中。调用方可以先用 {@link #ordinalOf(String)}
+ * 把节点类型解析为编号并缓存(例如按流程图缓存)，之后按编号直接取槽位，不再做字符串查找。
+ * 注册或重新加载执行器时整表重建并整体替换，编号只在同一张表内有效。
+ */
+public final class DispatchTable {
+
+    static final DispatchTable EMPTY = new DispatchTable(new TreeMap<>(), nodeType -> new ExecutorMetrics());
+
+    private final ExecutorSlot[] slots;
+
+    private final Map<String, ExecutorSlot> slotsByType;
+
+    private final Set<String> nodeTypes;
+
+    private final List<NodeExecutor> executors;
+
+    DispatchTable(TreeMap<String, NodeExecutor> registry, Function<String, ExecutorMetrics> metrics) {
+        this.slots = new ExecutorSlot[registry.size()];
+        Map<String, ExecutorSlot> byType = new HashMap<>(registry.size() * 2);
+        Map<NodeExecutor, Boolean> distinct = new IdentityHashMap<>();
+        List<NodeExecutor> executorList = new ArrayList<>();
+        int ordinal = 0;
+        for (Map.Entry<String, NodeExecutor> entry : registry.entrySet()) {
+            ExecutorSlot slot = new ExecutorSlot(ordinal, entry.getKey(), entry.getValue(),
+                    metrics.apply(entry.getKey()));
+            slots[ordinal++] = slot;
+            byType.put(entry.getKey(), slot);
+            if (distinct.put(entry.getValue(), Boolean.TRUE) == null) {
+                executorList.add(entry.getValue());
+            }
+        }
+        this.slotsByType = byType;
+        this.nodeTypes = Collections.unmodifiableSet(registry.keySet());
+        this.executors = Collections.unmodifiableList(executorList);
+    }
+
+    /**
+     * 节点类型的编号，没有对应执行器时返回 -1
+     */
+    public int ordinalOf(String nodeType) {
+        ExecutorSlot slot = slotsByType.get(nodeType);
+        return slot != null ? slot.getOrdinal() : -1;
+    }
+
+    public ExecutorSlot slot(int ordinal) {
+        return slots[ordinal];
+    }
+
+    /**
+     * 按节点类型取槽位，没有时返回 null
+     */
+    public ExecutorSlot slot(String nodeType) {
+        return slotsByType.get(nodeType);
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    /**
+     * 有执行器的节点类型(只读)
+     */
+    public Set<String> nodeTypes() {
+        return nodeTypes;
+    }
+
+    /**
+     * 去重后的执行器(只读)
+     */
+    public List<NodeExecutor> executors() {
+        return executors;
+    }
+}
@@ -0,0 +1,45 @@
+package com.aiworkflow.common.core.spi;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个节点类型的执行统计，执行器重新注册后继续累计
+ */
+public final class ExecutorMetrics {
+
+    private final LongAdder invocations = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public void record(long nanos, boolean success) {
+        invocations.increment();
+        if (!success) {
+            failures.increment();
+        }
+        latency.record(nanos);
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("invocations", invocations.sum());
+        result.put("failures", failures.sum());
+        result.put("latency", latency.snapshot());
+        return result;
+    }
+}
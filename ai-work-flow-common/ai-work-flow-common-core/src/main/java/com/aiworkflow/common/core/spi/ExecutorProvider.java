@@ -10,7 +10,7 @@ import java.util.List;
 public interface ExecutorProvider {
 
     /**
-     * 获取提供的执行器列表
+     * 获取提供的执行器列表，可以混合同步执行器和 {@link com.aiworkflow.common.core.execution.AsyncNodeExecutor}
      */
     List<NodeExecutor> getProvidedExecutors();
 
@@ -0,0 +1,147 @@
+package com.aiworkflow.common.core.spi;
+
+import com.aiworkflow.common.core.execution.AsyncNodeExecutor;
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.common.core.execution.NodeExecutor;
+import com.aiworkflow.common.core.metrics.MetricRegistry;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 分派表中的一个槽位：节点类型、执行器及其统计
+ */
+public final class ExecutorSlot {
+
+    private final int ordinal;
+
+    private final String nodeType;
+
+    private final NodeExecutor executor;
+
+    // 预先创建，查找时不再分配 Optional
+    private final Optional<NodeExecutor> optional;
+
+    private final ExecutorMetrics metrics;
+
+    // 按执行器实现类汇总的延迟，多个节点类型共用一个执行器时合并计入
+    private final LatencyHistogram executorLatency;
+
+    ExecutorSlot(int ordinal, String nodeType, NodeExecutor executor, ExecutorMetrics metrics) {
+        this.ordinal = ordinal;
+        this.nodeType = nodeType;
+        this.executor = executor;
+        this.optional = Optional.of(executor);
+        this.metrics = metrics;
+        Class<?> type = executor.getClass();
+        this.executorLatency = MetricRegistry.global().histogram("aiworkflow_executor_seconds",
+                "executor", type.getSimpleName().isEmpty() ? type.getName() : type.getSimpleName());
+    }
+
+    /**
+     * 执行并计入统计：抛出异常或返回失败结果都算失败
+     */
+    public ExecutionResult execute(ExecutionContext context) throws Exception {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            ExecutionResult result = executor.execute(context);
+            success = result != null && result.isSuccess();
+            return result;
+        } finally {
+            record(System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * 异步执行并计入统计
+     * <p>
+     * 异步执行器直接发起调用，超过 {@link AsyncNodeExecutor#getTimeout(ExecutionContext)} 时返回失败结果并取消底层调用；
+     * 同步执行器在当前线程执行，返回已完成的 future。取消返回的 future 会一并取消底层调用。
+     */
+    public CompletableFuture<ExecutionResult> executeAsync(ExecutionContext context) {
+        long start = System.nanoTime();
+        if (!(executor instanceof AsyncNodeExecutor async)) {
+            CompletableFuture<ExecutionResult> done;
+            try {
+                done = CompletableFuture.completedFuture(executor.execute(context));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                done = CompletableFuture.failedFuture(e);
+            } catch (Exception e) {
+                done = CompletableFuture.failedFuture(e);
+            }
+            return record(done, start);
+        }
+
+        Duration timeout = async.getTimeout(context);
+        CompletableFuture<ExecutionResult> source;
+        try {
+            source = async.executeAsync(context).toCompletableFuture();
+        } catch (Exception e) {
+            return record(CompletableFuture.failedFuture(e), start);
+        }
+        // 在副本上施加超时，不影响执行器持有的 future；超时、失败或被取消时取消底层调用
+        CompletableFuture<ExecutionResult> attempt = source.copy();
+        if (timeout != null) {
+            attempt.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        CompletableFuture<ExecutionResult> handle = attempt.handle((result, error) -> {
+            if (error == null) {
+                return result;
+            }
+            source.cancel(true);
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause instanceof TimeoutException && timeout != null) {
+                return ExecutionResult.fail("节点执行超时(" + timeout.toMillis() + "ms)");
+            }
+            throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+        });
+        handle.whenComplete((result, error) -> {
+            if (error != null) {
+                source.cancel(true);
+            }
+        });
+        return record(handle, start);
+    }
+
+    public boolean isAsync() {
+        return executor instanceof AsyncNodeExecutor;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public String getNodeType() {
+        return nodeType;
+    }
+
+    public NodeExecutor getExecutor() {
+        return executor;
+    }
+
+    public ExecutorMetrics getMetrics() {
+        return metrics;
+    }
+
+    private CompletableFuture<ExecutionResult> record(CompletableFuture<ExecutionResult> future, long start) {
+        future.whenComplete((result, error) ->
+                record(System.nanoTime() - start, error == null && result != null && result.isSuccess()));
+        return future;
+    }
+
+    private void record(long nanos, boolean success) {
+        metrics.record(nanos, success);
+        executorLatency.record(nanos);
+    }
+
+    Optional<NodeExecutor> asOptional() {
+        return optional;
+    }
+}
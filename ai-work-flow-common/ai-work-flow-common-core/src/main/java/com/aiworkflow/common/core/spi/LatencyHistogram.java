@@ -0,0 +1,94 @@
+package com.aiworkflow.common.core.spi;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 以 2 为底的对数延迟直方图(微秒)，记录无锁、无分配
+ * <p>
+ * 桶 0 为 [0, 1)µs，桶 i 为 [2^(i-1), 2^i)µs，最后一个桶收纳更大的值；分位数取所在桶的上界。
+ */
+public final class LatencyHistogram {
+
+    public static final int BUCKETS = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos) / 1000;
+        int bucket = micros == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * 分位数(0~1)的近似值，单位微秒
+     */
+    public long percentileMicros(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBoundMicros(i);
+            }
+        }
+        return upperBoundMicros(BUCKETS - 1);
+    }
+
+    /**
+     * 各桶计数的快照，下标与 {@link #upperBoundMicros(int)} 对应
+     */
+    public long[] bucketCounts() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    public Map<String, Object> snapshot() {
+        long count = count();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", count);
+        result.put("meanMicros", count == 0 ? 0 : totalNanos.sum() / count / 1000);
+        result.put("p50Micros", percentileMicros(0.50));
+        result.put("p90Micros", percentileMicros(0.90));
+        result.put("p99Micros", percentileMicros(0.99));
+        result.put("maxMicros", maxNanos.get() / 1000);
+        return result;
+    }
+
+    public static long upperBoundMicros(int bucket) {
+        return 1L << bucket;
+    }
+}
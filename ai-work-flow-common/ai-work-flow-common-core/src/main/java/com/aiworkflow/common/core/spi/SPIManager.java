@@ -1,6 +1,7 @@
 package com.aiworkflow.common.core.spi;
 
 import com.aiworkflow.common.core.execution.NodeExecutor;
+import com.aiworkflow.common.core.metrics.MetricRegistry;
 import com.aiworkflow.common.core.node.NodeTypeDefinition;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +18,16 @@ public class SPIManager {
 
     private final Map<String, NodeExecutor> executorRegistry = new ConcurrentHashMap<>();
 
+    // 按节点类型累计的执行统计，分派表重建后继续沿用
+    private final Map<String, ExecutorMetrics> executorMetrics = new ConcurrentHashMap<>();
+
+    // 以下为注册表的冻结快照，注册变化时整体替换，读取时不加锁、不复制
+    private volatile DispatchTable dispatchTable = DispatchTable.EMPTY;
+
+    private volatile List<NodeTypeDefinition> nodeTypeSnapshot = List.of();
+
+    private volatile Set<String> nodeTypeKeys = Set.of();
+
     private List<NodeTypeProvider> nodeTypeProviders = new ArrayList<>();
 
     private List<ExecutorProvider> executorProviders = new ArrayList<>();
@@ -35,6 +46,7 @@ public class SPIManager {
     public void init() {
         loadNodeTypes();
         loadExecutors();
+        freeze();
         logRegistryStatus();
     }
 
@@ -88,6 +100,27 @@ public class SPIManager {
         }
     }
 
+    /**
+     * 根据当前注册表重建只读快照和分派表
+     */
+    private synchronized void freeze() {
+        nodeTypeSnapshot = List.copyOf(nodeTypeRegistry.values());
+        nodeTypeKeys = Set.copyOf(nodeTypeRegistry.keySet());
+        dispatchTable = new DispatchTable(new TreeMap<>(executorRegistry),
+                nodeType -> executorMetrics.computeIfAbsent(nodeType, SPIManager::newMetrics));
+    }
+
+    /**
+     * 节点类型的统计同时登记到指标注册表，按 node_type 输出
+     */
+    private static ExecutorMetrics newMetrics(String nodeType) {
+        ExecutorMetrics metrics = new ExecutorMetrics();
+        MetricRegistry registry = MetricRegistry.global();
+        registry.register("aiworkflow_node_execution_seconds", metrics.getLatency(), "node_type", nodeType);
+        registry.counter("aiworkflow_node_execution_failures_total", metrics::getFailures, "node_type", nodeType);
+        return metrics;
+    }
+
     private void logRegistryStatus() {
         log.info("=== SPI注册完成 ===");
         log.info("节点类型提供者数量: {}", nodeTypeProviders.size());
@@ -101,7 +134,7 @@ public class SPIManager {
      * 获取所有节点类型定义
      */
     public List<NodeTypeDefinition> getAllNodeTypes() {
-        return new ArrayList<>(nodeTypeRegistry.values());
+        return nodeTypeSnapshot;
     }
 
     /**
@@ -115,28 +148,36 @@ public class SPIManager {
      * 获取所有执行器
      */
     public List<NodeExecutor> getAllExecutors() {
-        return new ArrayList<>(executorRegistry.values());
+        return dispatchTable.executors();
     }
 
     /**
      * 根据节点类型获取执行器
      */
     public Optional<NodeExecutor> getExecutorByNodeType(String nodeType) {
-        return Optional.ofNullable(executorRegistry.get(nodeType));
+        ExecutorSlot slot = dispatchTable.slot(nodeType);
+        return slot != null ? slot.asOptional() : Optional.empty();
+    }
+
+    /**
+     * 获取当前分派表；热路径上应缓存节点类型编号，按编号取槽位并通过槽位执行以计入统计
+     */
+    public DispatchTable getDispatchTable() {
+        return dispatchTable;
     }
 
     /**
      * 获取所有支持的节点类型
      */
     public Set<String> getSupportedNodeTypes() {
-        return new HashSet<>(nodeTypeRegistry.keySet());
+        return nodeTypeKeys;
     }
 
     /**
      * 检查节点类型是否支持
      */
     public boolean isNodeTypeSupported(String nodeType) {
-        return nodeTypeRegistry.containsKey(nodeType) && executorRegistry.containsKey(nodeType);
+        return nodeTypeKeys.contains(nodeType) && dispatchTable.ordinalOf(nodeType) >= 0;
     }
 
     /**
@@ -156,6 +197,19 @@ public class SPIManager {
                 ));
         stats.put("categoryStats", categoryStats);
 
+        // 各节点类型的执行次数、失败次数和延迟分布
+        DispatchTable table = dispatchTable;
+        Map<String, Object> executorStats = new TreeMap<>();
+        for (int i = 0; i < table.size(); i++) {
+            ExecutorSlot slot = table.slot(i);
+            Map<String, Object> slotStats = new LinkedHashMap<>();
+            slotStats.put("executor", slot.getExecutor().getClass().getSimpleName());
+            slotStats.put("async", slot.isAsync());
+            slotStats.putAll(slot.getMetrics().snapshot());
+            executorStats.put(slot.getNodeType(), slotStats);
+        }
+        stats.put("executorStats", executorStats);
+
         return stats;
     }
 
@@ -167,6 +221,7 @@ public class SPIManager {
         executorRegistry.clear();
         loadNodeTypes();
         loadExecutors();
+        freeze();
         logRegistryStatus();
         log.info("SPI重新加载完成");
     }
@@ -177,6 +232,7 @@ public class SPIManager {
     public void registerNodeType(NodeTypeDefinition nodeType) {
         String taskType = nodeType.getTaskType().code();
         nodeTypeRegistry.put(taskType, nodeType);
+        freeze();
         log.info("动态注册节点类型: {} -> {}", taskType, nodeType.getDisplayName());
     }
 
@@ -189,5 +245,6 @@ public class SPIManager {
             executorRegistry.put(nodeType, executor);
             log.info("动态注册执行器: {} -> {}", nodeType, executor.getClass().getSimpleName());
         }
+        freeze();
     }
 }
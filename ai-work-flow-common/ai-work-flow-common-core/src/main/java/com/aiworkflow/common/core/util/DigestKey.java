@@ -0,0 +1,51 @@
+package com.aiworkflow.common.core.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 内容的 SHA-256 摘要，256 位拆成 4 个 long，用作缓存键
+ * <p>
+ * 比较和取哈希时不涉及数组和字符串；计算时克隆预先创建的 MessageDigest，避免每次查找算法提供者。
+ */
+public record DigestKey(long h0, long h1, long h2, long h3) {
+
+    private static final MessageDigest PROTOTYPE = newDigest();
+
+    public static DigestKey of(byte[] content) {
+        MessageDigest digest;
+        try {
+            digest = (MessageDigest) PROTOTYPE.clone();
+        } catch (CloneNotSupportedException e) {
+            digest = newDigest();
+        }
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest(content));
+        return new DigestKey(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+
+    /**
+     * 字符串按 UTF-8 编码后的摘要
+     */
+    public static DigestKey of(String content) {
+        return of(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 64 位十六进制表示
+     */
+    public String hex() {
+        HexFormat hex = HexFormat.of();
+        return hex.toHexDigits(h0) + hex.toHexDigits(h1) + hex.toHexDigits(h2) + hex.toHexDigits(h3);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.aiworkflow.common.core.util;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.networknt.schema.JsonSchema;
 import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.SpecVersion;
@@ -10,9 +13,9 @@ import com.aiworkflow.common.core.validation.ValidationResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JSON Schema 验证工具
@@ -23,8 +26,14 @@ public class JsonSchemaValidator {
     private static final ObjectMapper objectMapper = new ObjectMapper();
     private static final JsonSchemaFactory factory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
 
-    // 缓存已编译的 Schema，避免重复解析
-    private static final Map<String, JsonSchema> schemaCache = new ConcurrentHashMap<>();
+    // Schema 缓存容量上限，可通过系统属性调整
+    private static final long MAX_CACHE_SIZE = Long.getLong("aiworkflow.schema.cache.max-size", 1024);
+
+    // 缓存已编译的 Schema，键为 schema 内容的 SHA-256 摘要，按容量淘汰
+    private static final Cache<DigestKey, JsonSchema> schemaCache = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHE_SIZE)
+            .recordStats()
+            .build();
 
     /**
      * 验证 JSON 数据是否符合 Schema
@@ -35,9 +44,23 @@ public class JsonSchemaValidator {
      */
     public static boolean validate(String schemaJson, Map<String, Object> data) {
         try {
-            JsonSchema schema = getOrCreateSchema(schemaJson);
-            JsonNode dataNode = objectMapper.valueToTree(data);
+            return validate(schemaJson, (JsonNode) objectMapper.valueToTree(data));
+        } catch (Exception e) {
+            log.error("JSON Schema validation failed", e);
+            return false;
+        }
+    }
 
+    /**
+     * 直接验证已解析的 JsonNode，不再做对象到树的转换
+     *
+     * @param schemaJson Schema JSON 字符串
+     * @param dataNode 待验证的数据
+     * @return 是否验证通过
+     */
+    public static boolean validate(String schemaJson, JsonNode dataNode) {
+        try {
+            JsonSchema schema = getOrCreateSchema(schemaJson);
             Set<ValidationMessage> errors = schema.validate(dataNode);
             return errors.isEmpty();
 
@@ -55,91 +78,88 @@ public class JsonSchemaValidator {
      * @return 详细的验证结果
      */
     public static ValidationResult validateDetailed(String schemaJson, Map<String, Object> data) {
-        ValidationResult result = new ValidationResult();
-
         try {
-            JsonSchema schema = getOrCreateSchema(schemaJson);
-            JsonNode dataNode = objectMapper.valueToTree(data);
-
-            Set<ValidationMessage> validationMessages = schema.validate(dataNode);
-
-            if (validationMessages.isEmpty()) {
-                // 验证通过
-                result.setValid(true);
-            } else {
-                // 验证失败，添加错误信息
-                result.setValid(false);
-                for (ValidationMessage message : validationMessages) {
-                    result.addError(formatValidationMessage(message));
-                }
-            }
+            return validateDetailed(schemaJson, (JsonNode) objectMapper.valueToTree(data));
+        } catch (Exception e) {
+            log.error("JSON Schema validation failed", e);
+            return error("Schema validation error: " + e.getMessage());
+        }
+    }
 
+    /**
+     * 详细验证已解析的 JsonNode
+     *
+     * @param schemaJson Schema JSON 字符串
+     * @param dataNode 待验证的数据
+     * @return 详细的验证结果
+     */
+    public static ValidationResult validateDetailed(String schemaJson, JsonNode dataNode) {
+        try {
+            return toResult(getOrCreateSchema(schemaJson).validate(dataNode));
         } catch (Exception e) {
             log.error("JSON Schema validation failed", e);
-            result.setValid(false);
-            result.addError("Schema validation error: " + e.getMessage());
+            return error("Schema validation error: " + e.getMessage());
         }
+    }
 
-        return result;
+    /**
+     * 详细验证 UTF-8 编码的 JSON 字节(如数据库或请求体中的原始内容)，直接解析为树，不经过 String
+     *
+     * @param schemaJson Schema JSON 字符串
+     * @param json UTF-8 编码的 JSON 数据
+     * @return 详细的验证结果
+     */
+    public static ValidationResult validateDetailed(String schemaJson, byte[] json) {
+        try {
+            return validateDetailed(schemaJson, objectMapper.readTree(json));
+        } catch (Exception e) {
+            log.error("JSON Schema validation failed", e);
+            return error("Schema validation error: " + e.getMessage());
+        }
     }
 
     /**
      * 验证节点配置 - 针对任务实例的配置验证
      *
      * @param schemaJson Schema JSON 字符串
-     * @param configData 配置数据 (对应 ai_task_instance.config_data)
+     * @param configData 配置数据 (对应 ai_task_instance.config_data)，
+     *                   支持 Map、JSON 字符串、UTF-8 字节、JsonNode 以及任意可序列化对象
      * @return 验证结果
      */
     public static ValidationResult validateNodeConfig(String schemaJson, Object configData) {
-        ValidationResult result = new ValidationResult();
-
         if (configData == null) {
-            result.setValid(false);
-            result.addError("Configuration data cannot be null");
-            return result;
+            return error("Configuration data cannot be null");
         }
 
         try {
             JsonSchema schema = getOrCreateSchema(schemaJson);
             JsonNode dataNode;
 
-            // 处理不同类型的配置数据
-            if (configData instanceof Map) {
-                dataNode = objectMapper.valueToTree(configData);
-            } else if (configData instanceof String) {
-                dataNode = objectMapper.readTree((String) configData);
+            // 处理不同类型的配置数据，已是树或原始 JSON 时不做额外转换
+            if (configData instanceof JsonNode node) {
+                dataNode = node;
+            } else if (configData instanceof String text) {
+                dataNode = objectMapper.readTree(text);
+            } else if (configData instanceof byte[] bytes) {
+                dataNode = objectMapper.readTree(bytes);
             } else {
                 dataNode = objectMapper.valueToTree(configData);
             }
 
-            Set<ValidationMessage> validationMessages = schema.validate(dataNode);
-
-            if (validationMessages.isEmpty()) {
-                result.setValid(true);
-            } else {
-                result.setValid(false);
-                for (ValidationMessage message : validationMessages) {
-                    result.addError(formatValidationMessage(message));
-                }
-            }
+            return toResult(schema.validate(dataNode));
 
         } catch (Exception e) {
             log.error("Node config validation failed", e);
-            result.setValid(false);
-            result.addError("Config validation error: " + e.getMessage());
+            return error("Config validation error: " + e.getMessage());
         }
-
-        return result;
     }
 
     /**
      * 获取或创建 Schema，带缓存机制
      */
-    private static JsonSchema getOrCreateSchema(String schemaJson) throws Exception {
-        // 使用 schema 内容的 hash 作为缓存键
-        String cacheKey = String.valueOf(schemaJson.hashCode());
-
-        return schemaCache.computeIfAbsent(cacheKey, k -> {
+    private static JsonSchema getOrCreateSchema(String schemaJson) {
+        // 使用 schema 内容的 SHA-256 摘要作为缓存键，不同 schema 不会共用编译结果
+        return schemaCache.get(DigestKey.of(schemaJson), k -> {
             try {
                 JsonNode schemaNode = objectMapper.readTree(schemaJson);
                 return factory.getSchema(schemaNode);
@@ -150,6 +170,28 @@ public class JsonSchemaValidator {
         });
     }
 
+    private static ValidationResult toResult(Set<ValidationMessage> validationMessages) {
+        ValidationResult result = new ValidationResult();
+        if (validationMessages.isEmpty()) {
+            // 验证通过
+            result.setValid(true);
+        } else {
+            // 验证失败，添加错误信息
+            result.setValid(false);
+            for (ValidationMessage message : validationMessages) {
+                result.addError(formatValidationMessage(message));
+            }
+        }
+        return result;
+    }
+
+    private static ValidationResult error(String message) {
+        ValidationResult result = new ValidationResult();
+        result.setValid(false);
+        result.addError(message);
+        return result;
+    }
+
     /**
      * 格式化验证错误信息
      */
@@ -168,13 +210,31 @@ public class JsonSchemaValidator {
      * 清空 Schema 缓存
      */
     public static void clearCache() {
-        schemaCache.clear();
+        schemaCache.invalidateAll();
+        schemaCache.cleanUp();
     }
 
     /**
      * 获取缓存大小
      */
     public static int getCacheSize() {
-        return schemaCache.size();
+        schemaCache.cleanUp();
+        return (int) schemaCache.estimatedSize();
+    }
+
+    /**
+     * 获取缓存统计：命中、未命中、编译失败、淘汰次数
+     */
+    public static Map<String, Object> getCacheStats() {
+        CacheStats stats = schemaCache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", schemaCache.estimatedSize());
+        result.put("maxSize", MAX_CACHE_SIZE);
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("loadFailureCount", stats.loadFailureCount());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package com.aiworkflow.common.core.metrics;
+
+import com.aiworkflow.common.core.spi.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MetricRegistry 与 TraceRecorder 测试
+ */
+class MetricRegistryTest {
+
+    @Test
+    void testPrometheusOutput() throws Exception {
+        MetricRegistry registry = new MetricRegistry();
+        LatencyHistogram histogram = registry.histogram("aiworkflow_test_seconds", "node_type", "LLM_AGENT", "flow", "a\"b");
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(3));
+        histogram.record(TimeUnit.SECONDS.toNanos(2));
+        // 标签顺序不同也是同一个指标
+        assertSame(histogram, registry.histogram("aiworkflow_test_seconds", "flow", "a\"b", "node_type", "LLM_AGENT"));
+        registry.counter("aiworkflow_test_total", "status", null).add(5);
+        registry.gauge("aiworkflow_test_queued", () -> 7);
+
+        StringBuilder out = new StringBuilder();
+        registry.writePrometheus(out);
+        String text = out.toString();
+
+        assertTrue(text.contains("# TYPE aiworkflow_test_seconds histogram\n"), text);
+        assertTrue(text.contains("aiworkflow_test_seconds_bucket{flow=\"a\\\"b\",node_type=\"LLM_AGENT\",le=\"0.000001\"} 0\n"), text);
+        assertTrue(text.contains("aiworkflow_test_seconds_bucket{flow=\"a\\\"b\",node_type=\"LLM_AGENT\",le=\"0.000004\"} 1\n"), text);
+        assertTrue(text.contains("aiworkflow_test_seconds_bucket{flow=\"a\\\"b\",node_type=\"LLM_AGENT\",le=\"+Inf\"} 2\n"), text);
+        assertTrue(text.contains("aiworkflow_test_seconds_count{flow=\"a\\\"b\",node_type=\"LLM_AGENT\"} 2\n"), text);
+        assertTrue(text.contains("aiworkflow_test_seconds_sum{flow=\"a\\\"b\",node_type=\"LLM_AGENT\"} 2.000003\n"), text);
+        assertTrue(text.contains("# TYPE aiworkflow_test_total counter\naiworkflow_test_total{status=\"unknown\"} 5\n"), text);
+        assertTrue(text.contains("# TYPE aiworkflow_test_queued gauge\naiworkflow_test_queued 7.0\n"), text);
+
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("aiworkflow_test_total", "status"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testTraceSpans() {
+        TraceRecorder tracer = new TraceRecorder(2, 1);
+        tracer.beginTrace(1L, "order-flow");
+        TraceRecorder.Span span = tracer.startSpan(1L, "approve").attribute("nodeType", "SERVICE_TASK");
+        // 未结束的跨度不出现在 trace 中
+        assertEquals(List.of(), tracer.getTrace(1L).get("spans"));
+        span.fail("超时");
+        span.end();
+        tracer.startSpan(1L, "notify").end();
+        tracer.endTrace(1L, "FAILED", "超时");
+
+        Map<String, Object> trace = tracer.getTrace(1L);
+        assertEquals("order-flow", trace.get("name"));
+        assertEquals("FAILED", trace.get("status"));
+        List<Map<String, Object>> spans = (List<Map<String, Object>>) trace.get("spans");
+        assertEquals(1, spans.size());
+        assertEquals("ERROR", spans.get(0).get("status"));
+        assertEquals(Map.of("nodeType", "SERVICE_TASK", "error", "超时"), spans.get(0).get("attributes"));
+        assertEquals(1L, tracer.getStats().get("droppedSpans"));
+
+        // 只有任务跨度的 trace 同样保留，超出容量时淘汰最久未使用的
+        tracer.startSpan(2L, "a").end();
+        tracer.startSpan(3L, "b").end();
+        assertNull(tracer.getTrace(1L));
+        assertEquals(List.of(3L, 2L), tracer.recentTraces(10).stream().map(t -> t.get("traceId")).toList());
+        assertEquals("RUNNING", tracer.getTrace(2L).get("status"));
+    }
+}
@@ -0,0 +1,174 @@
+package com.aiworkflow.common.core.spi;
+
+import com.aiworkflow.common.core.execution.AsyncNodeExecutor;
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.common.core.execution.NodeExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SPIManager 分派表与执行统计测试
+ */
+class SPIManagerTest {
+
+    @Test
+    void testDispatchByOrdinal() throws Exception {
+        SPIManager spiManager = new SPIManager();
+        spiManager.registerExecutor(executor(ExecutionResult.success(), "SERVICE_TASK", "LLM_AGENT"));
+        spiManager.init();
+
+        DispatchTable table = spiManager.getDispatchTable();
+        assertEquals(2, table.size());
+        // 按名称排序编号
+        assertEquals(0, table.ordinalOf("LLM_AGENT"));
+        assertEquals(1, table.ordinalOf("SERVICE_TASK"));
+        assertEquals(-1, table.ordinalOf("UNKNOWN"));
+        assertNull(table.slot("UNKNOWN"));
+
+        ExecutorSlot slot = table.slot(table.ordinalOf("LLM_AGENT"));
+        assertEquals("LLM_AGENT", slot.getNodeType());
+        assertTrue(slot.execute(new ExecutionContext()).isSuccess());
+        assertSame(slot.getExecutor(), spiManager.getExecutorByNodeType("LLM_AGENT").orElseThrow());
+        // 查找不再每次创建 Optional
+        assertSame(spiManager.getExecutorByNodeType("LLM_AGENT"), spiManager.getExecutorByNodeType("LLM_AGENT"));
+        assertTrue(spiManager.getExecutorByNodeType("UNKNOWN").isEmpty());
+    }
+
+    @Test
+    void testViewsAreSharedAndReadOnly() {
+        SPIManager spiManager = new SPIManager();
+        spiManager.registerExecutor(executor(ExecutionResult.success(), "SERVICE_TASK", "LLM_AGENT"));
+
+        List<NodeExecutor> executors = spiManager.getAllExecutors();
+        // 同一执行器支持多个类型时只出现一次
+        assertEquals(1, executors.size());
+        assertSame(executors, spiManager.getAllExecutors());
+        assertThrows(UnsupportedOperationException.class, () -> executors.add(null));
+        assertThrows(UnsupportedOperationException.class, () -> spiManager.getSupportedNodeTypes().add("X"));
+        assertThrows(UnsupportedOperationException.class, () -> spiManager.getAllNodeTypes().clear());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMetricsCountFailures() throws Exception {
+        SPIManager spiManager = new SPIManager();
+        spiManager.registerExecutor(executor(ExecutionResult.fail("boom"), "FAILING"));
+        spiManager.registerExecutor(new NodeExecutor() {
+            @Override
+            public String[] getSupportedNodeTypes() {
+                return new String[]{"THROWING"};
+            }
+
+            @Override
+            public ExecutionResult execute(ExecutionContext context) {
+                throw new IllegalStateException("boom");
+            }
+        });
+
+        DispatchTable table = spiManager.getDispatchTable();
+        table.slot("FAILING").execute(new ExecutionContext());
+        assertThrows(IllegalStateException.class, () -> table.slot("THROWING").execute(new ExecutionContext()));
+
+        ExecutorMetrics failing = table.slot("FAILING").getMetrics();
+        assertEquals(1, failing.getInvocations());
+        assertEquals(1, failing.getFailures());
+        assertEquals(1, table.slot("THROWING").getMetrics().getFailures());
+
+        Map<String, Object> executorStats = (Map<String, Object>) spiManager.getRegistryStats().get("executorStats");
+        Map<String, Object> throwingStats = (Map<String, Object>) executorStats.get("THROWING");
+        assertEquals(1L, throwingStats.get("invocations"));
+        assertEquals(1L, throwingStats.get("failures"));
+    }
+
+    @Test
+    void testRebuildKeepsMetrics() throws Exception {
+        SPIManager spiManager = new SPIManager();
+        spiManager.registerExecutor(executor(ExecutionResult.success(), "SERVICE_TASK"));
+        DispatchTable before = spiManager.getDispatchTable();
+        before.slot("SERVICE_TASK").execute(new ExecutionContext());
+
+        spiManager.registerExecutor(executor(ExecutionResult.success(), "AI_DECISION"));
+        DispatchTable after = spiManager.getDispatchTable();
+
+        assertNotSame(before, after);
+        assertEquals(2, after.size());
+        // 新类型插入后编号变化，统计仍按类型延续
+        assertEquals(0, before.ordinalOf("SERVICE_TASK"));
+        assertEquals(1, after.ordinalOf("SERVICE_TASK"));
+        assertSame(before.slot("SERVICE_TASK").getMetrics(), after.slot("SERVICE_TASK").getMetrics());
+        assertEquals(1, after.slot("SERVICE_TASK").getMetrics().getInvocations());
+    }
+
+    @Test
+    void testAsyncExecutorAdapters() throws Exception {
+        CompletableFuture<ExecutionResult> pending = new CompletableFuture<>();
+        AsyncNodeExecutor async = new AsyncNodeExecutor() {
+            @Override
+            public String[] getSupportedNodeTypes() {
+                return new String[]{"LLM_AGENT"};
+            }
+
+            @Override
+            public CompletionStage<ExecutionResult> executeAsync(ExecutionContext context) {
+                return pending;
+            }
+        };
+        SPIManager spiManager = new SPIManager();
+        spiManager.registerExecutor(async);
+        spiManager.registerExecutor(executor(ExecutionResult.success(), "SERVICE_TASK"));
+        DispatchTable table = spiManager.getDispatchTable();
+
+        // 同步执行器适配为已完成的 future
+        assertFalse(table.slot("SERVICE_TASK").isAsync());
+        assertTrue(table.slot("SERVICE_TASK").executeAsync(new ExecutionContext()).isDone());
+
+        // 异步执行器：超时返回失败结果并取消底层调用
+        ExecutionContext context = new ExecutionContext();
+        context.setConfig(Map.of("timeoutMs", 50));
+        ExecutorSlot slot = table.slot("LLM_AGENT");
+        assertTrue(slot.isAsync());
+        CompletableFuture<ExecutionResult> call = slot.executeAsync(context);
+        assertFalse(call.isDone());
+        ExecutionResult result = call.get(5, TimeUnit.SECONDS);
+        assertFalse(result.isSuccess());
+        assertTrue(pending.isCancelled());
+        assertEquals(1, slot.getMetrics().getFailures());
+
+        // 异步执行器被同步调用时阻塞等待结果
+        CompletableFuture<ExecutionResult> completed = CompletableFuture.completedFuture(ExecutionResult.success());
+        AsyncNodeExecutor ready = new AsyncNodeExecutor() {
+            @Override
+            public String[] getSupportedNodeTypes() {
+                return new String[]{"MCP_TOOL"};
+            }
+
+            @Override
+            public CompletionStage<ExecutionResult> executeAsync(ExecutionContext ctx) {
+                return completed;
+            }
+        };
+        assertTrue(ready.execute(new ExecutionContext()).isSuccess());
+    }
+
+    private static NodeExecutor executor(ExecutionResult result, String... types) {
+        return new NodeExecutor() {
+            @Override
+            public String[] getSupportedNodeTypes() {
+                return types;
+            }
+
+            @Override
+            public ExecutionResult execute(ExecutionContext context) {
+                return result;
+            }
+        };
+    }
+}
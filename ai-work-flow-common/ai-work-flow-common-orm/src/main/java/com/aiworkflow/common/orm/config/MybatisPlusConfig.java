@@ -1,5 +1,6 @@
 package com.aiworkflow.common.orm.config;
 
+import com.aiworkflow.common.core.metrics.MetricRegistry;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
@@ -10,11 +11,17 @@ public class MybatisPlusConfig {
     @Bean
     public MybatisPlusInterceptor mybatisPlusInterceptor() {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
-        // 分页插件
+        // OFFSET 分页插件，只适合小表；实例、任务等大表列表使用 page.KeysetPager 游标分页
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
         return interceptor;
     }
 
+    // 按 Mapper 方法统计 SQL 耗时
+    @Bean
+    public StatementTimingInterceptor statementTimingInterceptor() {
+        return new StatementTimingInterceptor(MetricRegistry.global());
+    }
+
     // 注册元对象处理器
     @Bean
     public MetaObjectHandler metaObjectHandler() {
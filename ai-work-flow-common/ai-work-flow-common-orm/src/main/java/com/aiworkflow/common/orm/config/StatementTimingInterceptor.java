@@ -0,0 +1,78 @@
+package com.aiworkflow.common.orm.config;
+
+import com.aiworkflow.common.core.metrics.MetricRegistry;
+import com.aiworkflow.common.core.spi.LatencyHistogram;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 Mapper 方法统计 SQL 耗时的 MyBatis 插件
+ * <p>
+ * 拦截 Executor 的 update 和 query，耗时包括执行 SQL 和映射结果，输出为
+ * aiworkflow_db_statement_seconds{statement="XxxMapper.method"}，抛出异常的次数计入 aiworkflow_db_statement_errors_total。
+ * 与分页插件(MybatisPlusInterceptor)同时存在时两者的包装顺序不影响结果，每次调用只计一次。
+ * 游标查询只在打开时经过 Executor，不统计。
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class StatementTimingInterceptor implements Interceptor {
+
+    private final MetricRegistry registry;
+
+    // MappedStatement ID -> 指标，语句数量有限
+    private final Map<String, Timing> timings = new ConcurrentHashMap<>();
+
+    public StatementTimingInterceptor(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        Timing timing = timings.computeIfAbsent(statement.getId(), this::newTiming);
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            timing.errors.increment();
+            throw e;
+        } finally {
+            timing.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    private Timing newTiming(String statementId) {
+        String name = shortName(statementId);
+        return new Timing(registry.histogram("aiworkflow_db_statement_seconds", "statement", name),
+                registry.counter("aiworkflow_db_statement_errors_total", "statement", name));
+    }
+
+    /**
+     * com.x.mapper.AiFlowInstanceMapper.selectById -> AiFlowInstanceMapper.selectById
+     */
+    static String shortName(String statementId) {
+        int method = statementId.lastIndexOf('.');
+        int type = method > 0 ? statementId.lastIndexOf('.', method - 1) : -1;
+        return statementId.substring(type + 1);
+    }
+
+    private record Timing(LatencyHistogram latency, LongAdder errors) {
+    }
+}
@@ -0,0 +1,199 @@
+package com.aiworkflow.common.orm.handler;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * JSON 负载的二进制编码
+ * <p>
+ * 格式：魔数(0xAF 'W') + 版本(1) + 布局(1 字节)，之后
+ * <ul>
+ *     <li>SECTIONS：顶层为对象，varint 字段数，每个字段为 varint 键长 + UTF-8 键 + varint 值长 + CBOR 值</li>
+ *     <li>VALUE：其他值，直接跟一个 CBOR 值</li>
+ * </ul>
+ * 每个顶层字段的值是独立的 CBOR 文档，读取时可以只解码被访问的字段。
+ * 不带魔数的内容按 UTF-8 文本 JSON 解析，兼容迁移前写入的行。
+ */
+public final class BinaryJsonCodec {
+
+    static final byte MAGIC_0 = (byte) 0xAF;
+    static final byte MAGIC_1 = 'W';
+    static final byte VERSION = 1;
+    static final byte LAYOUT_SECTIONS = 1;
+    static final byte LAYOUT_VALUE = 2;
+
+    private static final int HEADER_LENGTH = 4;
+
+    private static final CBORMapper cborMapper = new CBORMapper();
+    private static final ObjectMapper jsonMapper = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private BinaryJsonCodec() {
+    }
+
+    public static byte[] encode(Object value) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            out.write(MAGIC_0);
+            out.write(MAGIC_1);
+            out.write(VERSION);
+            if (value instanceof LazyJsonMap lazy && lazy.isPristine()) {
+                out.write(LAYOUT_SECTIONS);
+                writeRawSections(out, lazy);
+            } else if (value instanceof Map<?, ?> map) {
+                out.write(LAYOUT_SECTIONS);
+                writeSections(out, map);
+            } else if (isPojo(value)) {
+                // 实体对象(如 FlowModel)先转成 Map，读回时同样可按字段延迟解码
+                out.write(LAYOUT_SECTIONS);
+                writeSections(out, jsonMapper.convertValue(value, MAP_TYPE));
+            } else {
+                out.write(LAYOUT_VALUE);
+                out.write(cborMapper.writeValueAsBytes(value));
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("JSON 负载编码失败", e);
+        }
+    }
+
+    /**
+     * 解码：二进制格式的对象返回 {@link LazyJsonMap}，旧的文本 JSON 整体解析
+     */
+    public static Object decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (!isBinary(bytes)) {
+            return parseText(bytes);
+        }
+        if (bytes[2] != VERSION) {
+            throw new IllegalArgumentException("不支持的负载版本: " + bytes[2]);
+        }
+        return switch (bytes[3]) {
+            case LAYOUT_SECTIONS -> readSections(bytes);
+            case LAYOUT_VALUE -> decodeSection(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+            default -> throw new IllegalArgumentException("未知的负载布局: " + bytes[3]);
+        };
+    }
+
+    public static boolean isBinary(byte[] bytes) {
+        return bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+    static Object decodeSection(byte[] buffer, int offset, int length) {
+        try {
+            return cborMapper.readValue(buffer, offset, length, Object.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("JSON 负载解码失败", e);
+        }
+    }
+
+    /**
+     * 把一个字段的 CBOR 值按事件流转写到生成器(通常是 JSON)，不构建中间对象
+     */
+    static void transcodeSection(byte[] buffer, int offset, int length, JsonGenerator gen) throws IOException {
+        try (JsonParser parser = cborMapper.getFactory().createParser(buffer, offset, length)) {
+            parser.nextToken();
+            gen.copyCurrentStructure(parser);
+        }
+    }
+
+    private static Object parseText(byte[] bytes) {
+        try {
+            return jsonMapper.readValue(bytes, Object.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("JSON 负载解析失败", e);
+        }
+    }
+
+    private static void writeSections(ByteArrayOutputStream out, Map<?, ?> map) throws IOException {
+        writeVarint(out, map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeBytes(out, String.valueOf(entry.getKey()).getBytes(StandardCharsets.UTF_8));
+            writeBytes(out, cborMapper.writeValueAsBytes(entry.getValue()));
+        }
+    }
+
+    /**
+     * 未解码的字段复用原始字节；已交给调用方的嵌套对象和数组可能被就地修改过，按当前值重新编码
+     */
+    private static void writeRawSections(ByteArrayOutputStream out, LazyJsonMap lazy) throws IOException {
+        int size = lazy.size();
+        writeVarint(out, size);
+        for (int i = 0; i < size; i++) {
+            writeBytes(out, lazy.keyAt(i).getBytes(StandardCharsets.UTF_8));
+            if (lazy.isRawReusable(i)) {
+                writeVarint(out, lazy.lengthAt(i));
+                out.write(lazy.buffer(), lazy.offsetAt(i), lazy.lengthAt(i));
+            } else {
+                writeBytes(out, cborMapper.writeValueAsBytes(lazy.decodedAt(i)));
+            }
+        }
+    }
+
+    private static LazyJsonMap readSections(byte[] bytes) {
+        int[] position = {HEADER_LENGTH};
+        int count = readVarint(bytes, position);
+        String[] keys = new String[count];
+        int[] offsets = new int[count];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            int keyLength = readVarint(bytes, position);
+            keys[i] = new String(bytes, position[0], keyLength, StandardCharsets.UTF_8);
+            position[0] += keyLength;
+            lengths[i] = readVarint(bytes, position);
+            offsets[i] = position[0];
+            position[0] += lengths[i];
+        }
+        if (position[0] != bytes.length) {
+            throw new IllegalArgumentException("负载长度不一致: " + position[0] + " != " + bytes.length);
+        }
+        return new LazyJsonMap(keys, bytes, offsets, lengths);
+    }
+
+    private static boolean isPojo(Object value) {
+        return value != null && !(value instanceof Collection) && !(value instanceof CharSequence)
+                && !(value instanceof Number) && !(value instanceof Boolean) && !value.getClass().isArray();
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] bytes, int[] position) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            if (position[0] >= bytes.length || shift > 28) {
+                throw new IllegalArgumentException("负载已损坏: 非法的长度字段");
+            }
+            byte b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.aiworkflow.common.orm.handler;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedJdbcTypes;
+import org.apache.ibatis.type.MappedTypes;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 二进制 JSON 负载类型处理器，替代 JacksonTypeHandler 用于 blob 列
+ * <p>
+ * 写入 {@link BinaryJsonCodec} 格式；读取时对象按顶层字段延迟解码，
+ * 迁移前的文本 JSON 仍可读出，下次写入时自动转为二进制。
+ * 需要在 SQL 中用 JSON 函数访问的列(如 context_data 上的虚拟列)不能使用此处理器。
+ */
+@MappedTypes(Object.class)
+@MappedJdbcTypes(JdbcType.LONGVARBINARY)
+public class BinaryJsonTypeHandler extends BaseTypeHandler<Object> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Object parameter, JdbcType jdbcType) throws SQLException {
+        ps.setBytes(i, BinaryJsonCodec.encode(parameter));
+    }
+
+    @Override
+    public Object getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return BinaryJsonCodec.decode(rs.getBytes(columnName));
+    }
+
+    @Override
+    public Object getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return BinaryJsonCodec.decode(rs.getBytes(columnIndex));
+    }
+
+    @Override
+    public Object getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return BinaryJsonCodec.decode(cs.getBytes(columnIndex));
+    }
+}
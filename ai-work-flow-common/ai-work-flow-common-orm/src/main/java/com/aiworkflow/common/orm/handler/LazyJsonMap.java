@@ -0,0 +1,225 @@
+package com.aiworkflow.common.orm.handler;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 按顶层字段延迟解码的 Map
+ * <p>
+ * 从二进制负载读出时只拆分顶层字段，每个字段的值保留为原始 CBOR 字节片段，第一次访问时才解码；
+ * 从未被解码的字段写回数据库时直接复用原始字节；解码出的对象和数组可能被调用方就地修改，写回时重新编码。
+ * 发生修改后退化为普通 LinkedHashMap。
+ * 实现 {@link JsonSerializable}：序列化时未解码的字段从 CBOR 直接转写，不会因此被解码。
+ * 与 LinkedHashMap 一样不是线程安全的。
+ */
+public class LazyJsonMap extends AbstractMap<String, Object> implements JsonSerializable {
+
+    private static final Object UNDECODED = new Object();
+
+    private final String[] keys;
+
+    private final byte[] buffer;
+
+    private final int[] offsets;
+
+    private final int[] lengths;
+
+    private final Object[] values;
+
+    // 第一次修改后的完整副本，之后所有操作都委托给它
+    private Map<String, Object> materialized;
+
+    LazyJsonMap(String[] keys, byte[] buffer, int[] offsets, int[] lengths) {
+        this.keys = keys;
+        this.buffer = buffer;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.values = new Object[keys.length];
+        Arrays.fill(values, UNDECODED);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (materialized != null) {
+            return materialized.get(key);
+        }
+        int index = indexOf(key);
+        return index >= 0 ? valueAt(index) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return materialized != null ? materialized.containsKey(key) : indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return materialized != null ? materialized.size() : keys.length;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return materialize().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return materialize().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        materialize().clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (materialized != null) {
+            return materialized.entrySet();
+        }
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < keys.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (next >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++;
+                        return new SimpleImmutableEntry<>(keys[index], valueAt(index));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    /**
+     * 字段是否已被解码(用于观察延迟解码效果)
+     */
+    public boolean isDecoded(String key) {
+        if (materialized != null) {
+            return true;
+        }
+        int index = indexOf(key);
+        return index >= 0 && values[index] != UNDECODED;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (materialized != null) {
+            serializers.defaultSerializeValue(materialized, gen);
+            return;
+        }
+        gen.writeStartObject(this);
+        for (int i = 0; i < keys.length; i++) {
+            gen.writeFieldName(keys[i]);
+            if (values[i] == UNDECODED) {
+                BinaryJsonCodec.transcodeSection(buffer, offsets[i], lengths[i], gen);
+            } else {
+                serializers.defaultSerializeValue(values[i], gen);
+            }
+        }
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        // 负载是无类型的 JSON，不写类型信息
+        serialize(gen, serializers);
+    }
+
+    /**
+     * 顶层字段是否仍是读出时的那些(未增删、未替换)，是时可以按字段复用原始字节
+     */
+    boolean isPristine() {
+        return materialized == null;
+    }
+
+    /**
+     * 字段的原始字节能否原样写回：未解码，或解码结果是不可变的标量
+     */
+    boolean isRawReusable(int index) {
+        Object value = values[index];
+        return value == UNDECODED || value == null || value instanceof String || value instanceof Number
+                || value instanceof Boolean;
+    }
+
+    /**
+     * 已解码字段的当前值
+     */
+    Object decodedAt(int index) {
+        return values[index];
+    }
+
+    String keyAt(int index) {
+        return keys[index];
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    int offsetAt(int index) {
+        return offsets[index];
+    }
+
+    int lengthAt(int index) {
+        return lengths[index];
+    }
+
+    private Object valueAt(int index) {
+        Object value = values[index];
+        if (value == UNDECODED) {
+            value = BinaryJsonCodec.decodeSection(buffer, offsets[index], lengths[index]);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    private int indexOf(Object key) {
+        // 顶层字段通常只有十几个，线性查找比建索引更省
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Map<String, Object> materialize() {
+        if (materialized == null) {
+            Map<String, Object> copy = new LinkedHashMap<>(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                copy.put(keys[i], valueAt(i));
+            }
+            materialized = copy;
+        }
+        return materialized;
+    }
+}
@@ -0,0 +1,72 @@
+package com.aiworkflow.common.orm.handler;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 未解析的 JSON 文本
+ * <p>
+ * {@link RawJsonTypeHandler} 读出的列值。序列化时原样输出，不经过解析再生成；
+ * 需要按结构访问时调用 {@link #parse()}。写回数据库时同样原样写入。
+ */
+public final class RawJson implements JsonSerializable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String json;
+
+    private RawJson(String json) {
+        this.json = json;
+    }
+
+    public static RawJson of(String json) {
+        return json != null ? new RawJson(json) : null;
+    }
+
+    /**
+     * 解析为 Map / List / 标量，每次调用都重新解析
+     */
+    public Object parse() {
+        try {
+            return objectMapper.readValue(json, Object.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("JSON 列解析失败", e);
+        }
+    }
+
+    public String json() {
+        return json;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RawJson other && json.equals(other.json);
+    }
+
+    @Override
+    public int hashCode() {
+        return json.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+}
@@ -0,0 +1,55 @@
+package com.aiworkflow.common.orm.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedJdbcTypes;
+import org.apache.ibatis.type.MappedTypes;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 文本 JSON 列类型处理器，替代 JacksonTypeHandler 用于只做透传的列
+ * <p>
+ * 读取时不解析，返回 {@link RawJson}，响应序列化时原样输出；
+ * 写入时 RawJson 原样写回，其他对象(Map、实体等)按 Jackson 序列化，与 JacksonTypeHandler 一致。
+ * 仍是文本列，SQL 中的 JSON 函数和虚拟列不受影响。
+ */
+@MappedTypes(Object.class)
+@MappedJdbcTypes(JdbcType.VARCHAR)
+public class RawJsonTypeHandler extends BaseTypeHandler<Object> {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Object parameter, JdbcType jdbcType) throws SQLException {
+        if (parameter instanceof RawJson raw) {
+            ps.setString(i, raw.json());
+            return;
+        }
+        try {
+            ps.setString(i, objectMapper.writeValueAsString(parameter));
+        } catch (JsonProcessingException e) {
+            throw new SQLException("JSON 列序列化失败", e);
+        }
+    }
+
+    @Override
+    public Object getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return RawJson.of(rs.getString(columnName));
+    }
+
+    @Override
+    public Object getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return RawJson.of(rs.getString(columnIndex));
+    }
+
+    @Override
+    public Object getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return RawJson.of(cs.getString(columnIndex));
+    }
+}
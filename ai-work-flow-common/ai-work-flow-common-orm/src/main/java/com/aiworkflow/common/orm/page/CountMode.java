@@ -0,0 +1,22 @@
+package com.aiworkflow.common.orm.page;
+
+/**
+ * 游标分页的总数统计方式
+ */
+public enum CountMode {
+
+    /**
+     * 不统计，只返回是否还有下一页
+     */
+    NONE,
+
+    /**
+     * 精确 COUNT(*)，大表上代价与匹配行数成正比
+     */
+    EXACT,
+
+    /**
+     * 最多数到上限，超过上限时返回上限并标记 totalCapped
+     */
+    CAPPED
+}
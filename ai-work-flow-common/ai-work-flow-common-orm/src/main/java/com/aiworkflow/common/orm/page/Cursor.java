@@ -0,0 +1,43 @@
+package com.aiworkflow.common.orm.page;
+
+import java.util.Objects;
+
+/**
+ * 游标位置：上一页最后一行的排序键和主键，下一页从严格小于该位置处继续
+ * <p>
+ * 排序键支持 LocalDateTime、Long 和 String。
+ */
+public final class Cursor {
+
+    private final Object key;
+
+    private final long id;
+
+    public Cursor(Object key, long id) {
+        this.key = Objects.requireNonNull(key, "排序键不能为空");
+        this.id = id;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Cursor other && id == other.id && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * key.hashCode() + Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "Cursor(" + key + ", " + id + ")";
+    }
+}
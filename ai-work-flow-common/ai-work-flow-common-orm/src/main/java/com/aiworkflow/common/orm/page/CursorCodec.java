@@ -0,0 +1,113 @@
+package com.aiworkflow.common.orm.page;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+/**
+ * 游标令牌编码
+ * <p>
+ * 格式：版本(1) + 查询范围校验(4，CRC32) + 键类型(1) + 排序键 + 主键(8)，整体 Base64URL 编码。
+ * 查询范围由调用方给出(通常是过滤条件和排序列)，令牌只能用于产生它的同一查询。
+ * 令牌对客户端不透明，但不加密，不要在排序键中放敏感数据。
+ */
+public final class CursorCodec {
+
+    private static final byte VERSION = 1;
+
+    private static final byte TYPE_DATETIME = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_STRING = 3;
+
+    private CursorCodec() {
+    }
+
+    public static String encode(Cursor cursor, String scope) {
+        Object key = cursor.getKey();
+        byte type;
+        byte[] keyBytes;
+        if (key instanceof LocalDateTime time) {
+            type = TYPE_DATETIME;
+            keyBytes = ByteBuffer.allocate(12)
+                    .putLong(time.toEpochSecond(ZoneOffset.UTC))
+                    .putInt(time.getNano())
+                    .array();
+        } else if (key instanceof Long || key instanceof Integer) {
+            type = TYPE_LONG;
+            keyBytes = ByteBuffer.allocate(8).putLong(((Number) key).longValue()).array();
+        } else if (key instanceof String text) {
+            type = TYPE_STRING;
+            keyBytes = text.getBytes(StandardCharsets.UTF_8);
+        } else {
+            throw new IllegalArgumentException("不支持的排序键类型: " + key.getClass().getName());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 1 + keyBytes.length + 8)
+                .put(VERSION)
+                .putInt(checksum(scope))
+                .put(type)
+                .put(keyBytes)
+                .putLong(cursor.getId());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * 解码令牌，空令牌返回 null(第一页)
+     */
+    public static Cursor decode(String token, String scope) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("游标格式错误");
+        }
+        if (buffer.remaining() < 1 + 4 + 1 + 8 || buffer.get() != VERSION) {
+            throw new InvalidCursorException("游标格式错误");
+        }
+        if (buffer.getInt() != checksum(scope)) {
+            throw new InvalidCursorException("游标与当前查询条件不匹配");
+        }
+        byte type = buffer.get();
+        int keyLength = buffer.remaining() - 8;
+        try {
+            return new Cursor(readKey(buffer, type, keyLength), buffer.getLong());
+        } catch (DateTimeException e) {
+            throw new InvalidCursorException("游标格式错误");
+        }
+    }
+
+    private static Object readKey(ByteBuffer buffer, byte type, int keyLength) {
+        return switch (type) {
+            case TYPE_DATETIME -> {
+                if (keyLength != 12) {
+                    throw new InvalidCursorException("游标格式错误");
+                }
+                yield LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            }
+            case TYPE_LONG -> {
+                if (keyLength != 8) {
+                    throw new InvalidCursorException("游标格式错误");
+                }
+                yield buffer.getLong();
+            }
+            case TYPE_STRING -> {
+                byte[] bytes = new byte[keyLength];
+                buffer.get(bytes);
+                yield new String(bytes, StandardCharsets.UTF_8);
+            }
+            default -> throw new InvalidCursorException("游标格式错误");
+        };
+    }
+
+    private static int checksum(String scope) {
+        CRC32 crc = new CRC32();
+        crc.update(scope.getBytes(StandardCharsets.UTF_8));
+        return (int) crc.getValue();
+    }
+}
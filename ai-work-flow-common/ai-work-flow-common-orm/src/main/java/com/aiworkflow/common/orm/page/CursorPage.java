@@ -0,0 +1,25 @@
+package com.aiworkflow.common.orm.page;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ */
+@Data
+public class CursorPage<T> {
+
+    private List<T> items;
+
+    // 下一页的游标，没有下一页时为 null
+    private String nextCursor;
+
+    private boolean hasMore;
+
+    // 按 CountMode 统计的总数，NONE 时为 null
+    private Long total;
+
+    // CAPPED 模式下总数达到上限，实际可能更多
+    private boolean totalCapped;
+}
@@ -0,0 +1,45 @@
+package com.aiworkflow.common.orm.page;
+
+import lombok.Data;
+
+/**
+ * 游标分页请求
+ */
+@Data
+public class CursorRequest {
+
+    public static final int DEFAULT_SIZE = 20;
+
+    public static final int MAX_SIZE = 200;
+
+    public static final int DEFAULT_COUNT_CAP = 10_000;
+
+    // 上一页返回的 nextCursor，为空时取第一页
+    private String cursor;
+
+    private int size = DEFAULT_SIZE;
+
+    private CountMode countMode = CountMode.NONE;
+
+    // CAPPED 模式下的计数上限
+    private int countCap = DEFAULT_COUNT_CAP;
+
+    public static CursorRequest of(String cursor, Integer size, CountMode countMode) {
+        CursorRequest request = new CursorRequest();
+        request.setCursor(cursor);
+        if (size != null) {
+            request.setSize(size);
+        }
+        if (countMode != null) {
+            request.setCountMode(countMode);
+        }
+        return request;
+    }
+
+    /**
+     * 限制在 [1, MAX_SIZE] 内的页大小
+     */
+    public int pageSize() {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+}
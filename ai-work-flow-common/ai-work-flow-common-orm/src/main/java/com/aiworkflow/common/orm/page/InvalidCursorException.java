@@ -0,0 +1,11 @@
+package com.aiworkflow.common.orm.page;
+
+/**
+ * 游标无法解析，或与当前查询条件不匹配
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
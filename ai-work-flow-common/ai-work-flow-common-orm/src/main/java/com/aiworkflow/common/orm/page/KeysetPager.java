@@ -0,0 +1,57 @@
+package com.aiworkflow.common.orm.page;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 键集(seek)分页
+ * <p>
+ * 按 (排序键, id) 定位下一页，SQL 形如
+ * <pre>
+ * WHERE ... AND (sort_key &lt; #{after.key} OR (sort_key = #{after.key} AND id &lt; #{after.id}))
+ * ORDER BY sort_key DESC, id DESC LIMIT #{limit}
+ * </pre>
+ * 配合 (过滤列, 排序键) 索引，每页代价只与页大小有关，与翻到第几页无关。多取一行判断是否还有下一页；
+ * 总数按 {@link CountMode} 决定是否统计。排序键列不能为 NULL。
+ */
+public final class KeysetPager {
+
+    private KeysetPager() {
+    }
+
+    /**
+     * @param scope 查询范围(过滤条件和排序列的规范化描述)，游标只能在相同范围内使用
+     * @param keyOf 取行的排序键
+     * @param idOf  取行的主键
+     */
+    public static <T> CursorPage<T> page(CursorRequest request, String scope, KeysetQuery<T> query,
+                                         Function<T, Object> keyOf, ToLongFunction<T> idOf) {
+        Cursor after = CursorCodec.decode(request.getCursor(), scope);
+        int size = request.pageSize();
+        List<T> rows = query.select(after, size + 1);
+
+        CursorPage<T> page = new CursorPage<>();
+        boolean hasMore = rows.size() > size;
+        List<T> items = hasMore ? rows.subList(0, size) : rows;
+        page.setItems(items);
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            T last = items.get(items.size() - 1);
+            page.setNextCursor(CursorCodec.encode(new Cursor(keyOf.apply(last), idOf.applyAsLong(last)), scope));
+        }
+
+        switch (request.getCountMode()) {
+            case EXACT -> page.setTotal(query.count(null));
+            case CAPPED -> {
+                int cap = Math.max(1, request.getCountCap());
+                long total = query.count(cap);
+                page.setTotal(total);
+                page.setTotalCapped(total >= cap);
+            }
+            case NONE -> {
+            }
+        }
+        return page;
+    }
+}
@@ -0,0 +1,19 @@
+package com.aiworkflow.common.orm.page;
+
+import java.util.List;
+
+/**
+ * 一次键集分页查询：由 Mapper 实现按游标定位和计数
+ */
+public interface KeysetQuery<T> {
+
+    /**
+     * 按 (排序键, id) 降序取严格位于 after 之后的最多 limit 行；after 为 null 时从头开始
+     */
+    List<T> select(Cursor after, int limit);
+
+    /**
+     * 统计匹配行数，cap 不为空时最多数到 cap
+     */
+    long count(Integer cap);
+}
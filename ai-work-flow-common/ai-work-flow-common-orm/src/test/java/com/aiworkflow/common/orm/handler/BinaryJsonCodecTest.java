@@ -0,0 +1,133 @@
+package com.aiworkflow.common.orm.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BinaryJsonCodec 测试
+ */
+class BinaryJsonCodecTest {
+
+    @Test
+    void testSectionsDecodeLazily() {
+        Map<String, Object> payload = samplePayload();
+        Object decoded = BinaryJsonCodec.decode(BinaryJsonCodec.encode(payload));
+
+        LazyJsonMap map = assertInstanceOf(LazyJsonMap.class, decoded);
+        assertEquals(3, map.size());
+        assertFalse(map.isDecoded("history"));
+        assertEquals("order_review", map.get("flowKey"));
+        assertTrue(map.isDecoded("flowKey"));
+        assertFalse(map.isDecoded("history"));
+
+        // 整体比较会解码全部字段
+        assertEquals(payload, map);
+    }
+
+    @Test
+    void testUntouchedSectionsReuseRawBytes() {
+        byte[] encoded = BinaryJsonCodec.encode(samplePayload());
+        LazyJsonMap map = (LazyJsonMap) BinaryJsonCodec.decode(encoded);
+        map.get("flowKey");
+
+        assertArrayEquals(encoded, BinaryJsonCodec.encode(map));
+        assertFalse(map.isDecoded("history"));
+
+        map.put("status", "DONE");
+        LazyJsonMap updated = (LazyJsonMap) BinaryJsonCodec.decode(BinaryJsonCodec.encode(map));
+        assertEquals("DONE", updated.get("status"));
+        assertEquals(4, updated.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testNestedMutationSurvivesRoundTrip() {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("result", Map.of("x", 1));
+        payload.put("items", List.of("a"));
+        payload.put("untouched", Map.of("y", 1));
+        LazyJsonMap map = (LazyJsonMap) BinaryJsonCodec.decode(BinaryJsonCodec.encode(payload));
+
+        // 只通过 get() 拿到嵌套对象并就地修改，顶层字段没有变化
+        ((Map<String, Object>) map.get("result")).put("x", 2);
+        ((List<Object>) map.get("items")).add("b");
+
+        Map<String, Object> reread = (Map<String, Object>) BinaryJsonCodec.decode(BinaryJsonCodec.encode(map));
+        assertEquals(Map.of("x", 2), reread.get("result"));
+        assertEquals(List.of("a", "b"), reread.get("items"));
+        assertEquals(Map.of("y", 1), reread.get("untouched"));
+    }
+
+    @Test
+    void testReadsLegacyTextJson() {
+        byte[] text = "{\"amount\": 12, \"tags\": [\"a\", \"b\"]}".getBytes(StandardCharsets.UTF_8);
+        assertFalse(BinaryJsonCodec.isBinary(text));
+        assertEquals(Map.of("amount", 12, "tags", List.of("a", "b")), BinaryJsonCodec.decode(text));
+    }
+
+    @Test
+    void testNonObjectValues() {
+        assertEquals(List.of(1, 2, 3), BinaryJsonCodec.decode(BinaryJsonCodec.encode(List.of(1, 2, 3))));
+        assertEquals("text", BinaryJsonCodec.decode(BinaryJsonCodec.encode("text")));
+        assertNull(BinaryJsonCodec.decode(null));
+    }
+
+    @Test
+    void testSmallerThanTextJson() throws Exception {
+        Map<String, Object> payload = samplePayload();
+        byte[] text = new ObjectMapper().writeValueAsBytes(payload);
+        assertTrue(BinaryJsonCodec.encode(payload).length < text.length);
+    }
+
+    @Test
+    void testSerializeWithoutDecoding() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, Object> payload = samplePayload();
+        LazyJsonMap map = (LazyJsonMap) BinaryJsonCodec.decode(BinaryJsonCodec.encode(payload));
+        map.get("flowKey");
+
+        // 未访问的字段直接从 CBOR 转写，输出与原对象一致
+        assertEquals(mapper.writeValueAsString(payload), mapper.writeValueAsString(map));
+        assertFalse(map.isDecoded("history"));
+
+        map.put("status", "DONE");
+        payload.put("status", "DONE");
+        assertEquals(mapper.writeValueAsString(payload), mapper.writeValueAsString(map));
+    }
+
+    @Test
+    void testRawJsonPassThrough() throws Exception {
+        RawJson raw = RawJson.of("{\"variables\":{\"amount\":12}}");
+        assertEquals("{\"context\":{\"variables\":{\"amount\":12}}}",
+                new ObjectMapper().writeValueAsString(Map.of("context", raw)));
+        assertEquals(Map.of("variables", Map.of("amount", 12)), raw.parse());
+        assertNull(RawJson.of(null));
+    }
+
+    @Test
+    void testUnsupportedVersion() {
+        byte[] encoded = BinaryJsonCodec.encode(Map.of("a", 1));
+        encoded[2] = 9;
+        assertThrows(IllegalArgumentException.class, () -> BinaryJsonCodec.decode(encoded));
+    }
+
+    private static Map<String, Object> samplePayload() {
+        List<Map<String, Object>> history = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            history.add(Map.of("taskKey", "task_" + i, "status", "COMPLETED", "durationMs", 1500 + i, "retry", false));
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("flowKey", "order_review");
+        payload.put("variables", Map.of("amount", 5000, "level", "VIP"));
+        payload.put("history", history);
+        return payload;
+    }
+}
@@ -0,0 +1,120 @@
+package com.aiworkflow.common.orm.page;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KeysetPager / CursorCodec 测试
+ */
+class KeysetPagerTest {
+
+    private record Row(long id, LocalDateTime createAt) {
+    }
+
+    /**
+     * 模拟 ORDER BY create_at DESC, id DESC 的键集查询
+     */
+    private static KeysetQuery<Row> query(List<Row> table) {
+        List<Row> sorted = new ArrayList<>(table);
+        sorted.sort(Comparator.comparing(Row::createAt).thenComparingLong(Row::id).reversed());
+        return new KeysetQuery<>() {
+            @Override
+            public List<Row> select(Cursor after, int limit) {
+                return sorted.stream()
+                        .filter(r -> after == null || isAfter(r, after))
+                        .limit(limit)
+                        .toList();
+            }
+
+            @Override
+            public long count(Integer cap) {
+                return cap == null ? sorted.size() : Math.min(sorted.size(), cap);
+            }
+        };
+    }
+
+    private static boolean isAfter(Row row, Cursor cursor) {
+        LocalDateTime key = (LocalDateTime) cursor.getKey();
+        return row.createAt().isBefore(key) || (row.createAt().equals(key) && row.id() < cursor.getId());
+    }
+
+    @Test
+    void testWalksAllRowsWithTiedSortKeys() {
+        // 每 3 行共用一个 create_at，游标必须靠 id 区分
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0, 0, 123_000_000);
+        List<Row> table = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            table.add(new Row(i, base.plusSeconds(i / 3)));
+        }
+        KeysetQuery<Row> query = query(table);
+
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorRequest request = CursorRequest.of(cursor, 7, null);
+            CursorPage<Row> page = KeysetPager.page(request, "rows", query, Row::createAt, Row::id);
+            page.getItems().forEach(r -> assertTrue(seen.add(r.id()), "重复行 " + r.id()));
+            assertNull(page.getTotal());
+            cursor = page.getNextCursor();
+            assertEquals(cursor != null, page.isHasMore());
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(50, seen.size());
+        assertEquals(8, pages);
+    }
+
+    @Test
+    void testCountModes() {
+        List<Row> table = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            table.add(new Row(i, LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i)));
+        }
+        KeysetQuery<Row> query = query(table);
+
+        CursorPage<Row> exact = KeysetPager.page(CursorRequest.of(null, 10, CountMode.EXACT), "rows", query,
+                Row::createAt, Row::id);
+        assertEquals(30L, exact.getTotal());
+        assertFalse(exact.isTotalCapped());
+
+        CursorRequest capped = CursorRequest.of(null, 10, CountMode.CAPPED);
+        capped.setCountCap(20);
+        CursorPage<Row> page = KeysetPager.page(capped, "rows", query, Row::createAt, Row::id);
+        assertEquals(20L, page.getTotal());
+        assertTrue(page.isTotalCapped());
+        // 最新的在前
+        assertEquals(30L, page.getItems().get(0).id());
+    }
+
+    @Test
+    void testCursorBoundToScope() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 6, 7, 8, 9, 987_654_321);
+        String token = CursorCodec.encode(new Cursor(time, 42L), "instance|RUNNING|null");
+
+        Cursor decoded = CursorCodec.decode(token, "instance|RUNNING|null");
+        assertEquals(new Cursor(time, 42L), decoded);
+        assertEquals(new Cursor("abc", 7L), CursorCodec.decode(CursorCodec.encode(new Cursor("abc", 7L), "s"), "s"));
+        assertEquals(new Cursor(5L, 1L), CursorCodec.decode(CursorCodec.encode(new Cursor(5L, 1L), "s"), "s"));
+        assertNull(CursorCodec.decode(null, "s"));
+
+        assertThrows(InvalidCursorException.class, () -> CursorCodec.decode(token, "instance|FAILED|null"));
+        assertThrows(InvalidCursorException.class, () -> CursorCodec.decode("not-a-cursor!", "s"));
+        assertThrows(InvalidCursorException.class, () -> CursorCodec.decode("AAAA", "s"));
+    }
+
+    @Test
+    void testPageSizeClamped() {
+        assertEquals(CursorRequest.MAX_SIZE, CursorRequest.of(null, 100_000, null).pageSize());
+        assertEquals(1, CursorRequest.of(null, 0, null).pageSize());
+        assertEquals(CursorRequest.DEFAULT_SIZE, CursorRequest.of(null, null, null).pageSize());
+    }
+}
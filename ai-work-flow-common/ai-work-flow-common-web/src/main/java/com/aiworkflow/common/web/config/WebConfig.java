@@ -1,9 +1,10 @@
 package com.aiworkflow.common.web.config;
 
 import com.aiworkflow.common.web.handler.GlobalExceptionHandler;
+import com.aiworkflow.common.web.json.StreamingJsonHttpMessageConverter;
+import com.aiworkflow.common.web.metrics.MetricsController;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import com.alibaba.fastjson.support.config.FastJsonConfig;
-import com.alibaba.fastjson.support.spring.FastJsonHttpMessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
@@ -14,10 +15,10 @@ import java.util.List;
 
 public class WebConfig implements WebMvcConfigurer {
 
-    // 使用阿里 FastJson 作为JSON MessageConverter
+    // 使用阿里 FastJson 作为JSON MessageConverter，响应流式写出并支持 fields/exclude 字段投影
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        FastJsonHttpMessageConverter converter = new FastJsonHttpMessageConverter();
+        StreamingJsonHttpMessageConverter converter = new StreamingJsonHttpMessageConverter();
         FastJsonConfig config = new FastJsonConfig();
         // 保留空的字段
         config.setSerializerFeatures(SerializerFeature.WriteMapNullValue);
@@ -31,4 +32,10 @@ public class WebConfig implements WebMvcConfigurer {
     public GlobalExceptionHandler exceptionHandler() {
         return new GlobalExceptionHandler();
     }
+
+    // 指标与追踪查询端点
+    @Bean
+    public MetricsController metricsController() {
+        return new MetricsController();
+    }
 }
@@ -0,0 +1,89 @@
+package com.aiworkflow.common.web.json;
+
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.writer.FieldWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 响应字段投影，由请求参数指定
+ * <ul>
+ *     <li>fields=a,b：只保留列出的属性。只作用于声明了其中至少一个属性的类，
+ *     Result、分页结果等外层包装不受影响，如 GET /api/instances/1?fields=id,status</li>
+ *     <li>exclude=a,b：去掉列出的属性，作用于所有层级的对象，如 exclude=contextData,outputData</li>
+ * </ul>
+ * 属性名按输出的 JSON 名匹配；Map 的键(变量、负载内容)不参与投影。一个实例只用于一次响应。
+ */
+final class FieldProjection {
+
+    static final String FIELDS_PARAM = "fields";
+
+    static final String EXCLUDE_PARAM = "exclude";
+
+    private final Set<String> fields;
+
+    private final Set<String> excluded;
+
+    // 类是否声明了 fields 中的属性
+    private final Map<Class<?>, Boolean> projected = new HashMap<>();
+
+    FieldProjection(Set<String> fields, Set<String> excluded) {
+        this.fields = fields;
+        this.excluded = excluded;
+    }
+
+    /**
+     * 从当前请求的参数构造，没有投影参数或不在请求线程中时返回 null
+     */
+    static FieldProjection fromCurrentRequest() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return null;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        return of(request.getParameter(FIELDS_PARAM), request.getParameter(EXCLUDE_PARAM));
+    }
+
+    static FieldProjection of(String fields, String exclude) {
+        Set<String> fieldSet = split(fields);
+        Set<String> excludeSet = split(exclude);
+        return fieldSet.isEmpty() && excludeSet.isEmpty() ? null : new FieldProjection(fieldSet, excludeSet);
+    }
+
+    boolean include(JSONWriter writer, Object source, String name) {
+        if (source instanceof Map) {
+            return true;
+        }
+        if (excluded.contains(name)) {
+            return false;
+        }
+        return fields.isEmpty() || fields.contains(name) || !declaresAnyField(writer, source.getClass());
+    }
+
+    private boolean declaresAnyField(JSONWriter writer, Class<?> type) {
+        return projected.computeIfAbsent(type, t -> {
+            for (FieldWriter<?> fieldWriter : writer.getContext().getObjectWriter(t).getFieldWriters()) {
+                if (fields.contains(fieldWriter.fieldName)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private static Set<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -0,0 +1,145 @@
+package com.aiworkflow.common.web.json;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializeConfig;
+import com.alibaba.fastjson.support.config.FastJsonConfig;
+import com.alibaba.fastjson.support.spring.FastJsonHttpMessageConverter;
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONPObject;
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.filter.PropertyPreFilter;
+import com.alibaba.fastjson2.filter.ValueFilter;
+import com.alibaba.fastjson2.modules.ObjectWriterModule;
+import com.alibaba.fastjson2.writer.ObjectWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * 流式 JSON 消息转换器
+ * <p>
+ * 输出与 FastJsonHttpMessageConverter 相同(同样的 FastJsonConfig 特性、日期格式和空值处理)，区别在于写出方式：
+ * <ul>
+ *     <li>直接写响应输出流，缓冲区超过 {@link #FLUSH_THRESHOLD} 就刷出，不在内存中拼出整个响应再复制，
+ *     缓冲区保持在 fastjson 可复用的大小内；因此不再设置 Content-Length，响应按分块传输</li>
+ *     <li>实现了 Jackson {@link JsonSerializable} 的值(数据库 JSON 列读出的 LazyJsonMap、RawJson)由值自己写出：
+ *     二进制负载未解码的字段直接转码、文本列原样输出，不先还原成 Map 再序列化</li>
+ *     <li>支持 fields / exclude 请求参数裁剪响应字段，见 {@link FieldProjection}</li>
+ * </ul>
+ * 读取沿用父类实现。配置了序列化过滤器时退回父类的整体写出。
+ */
+public class StreamingJsonHttpMessageConverter extends FastJsonHttpMessageConverter {
+
+    static final int FLUSH_THRESHOLD = 32 * 1024;
+
+    // 当前线程正在写的响应输出流，JsonSerializable 的值直接写到这里
+    private static final ThreadLocal<OutputStream> CURRENT_OUTPUT = new ThreadLocal<>();
+
+    private final SerializeConfig serializeConfig = new SerializeConfig();
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+
+    public StreamingJsonHttpMessageConverter() {
+        // 独立的 writer provider，不影响全局 fastjson 配置
+        ObjectWriter<Object> passThrough = this::writeJsonSerializable;
+        serializeConfig.getProvider().register(new ObjectWriterModule() {
+            @Override
+            public ObjectWriter getObjectWriter(Type objectType, Class objectClass) {
+                return objectClass == PassThrough.class
+                        || objectClass != null && JsonSerializable.class.isAssignableFrom(objectClass) ? passThrough : null;
+            }
+        });
+    }
+
+    @Override
+    protected void writeInternal(Object object, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        FastJsonConfig config = getFastJsonConfig();
+        if (object instanceof String || object instanceof byte[] || object instanceof JSONPObject
+                || config.getSerializeFilters().length > 0) {
+            super.writeInternal(object, outputMessage);
+            return;
+        }
+
+        OutputStream out = outputMessage.getBody();
+        JSONWriter.Context context = JSON.createWriteContext(serializeConfig, JSON.DEFAULT_GENERATE_FEATURE,
+                config.getSerializerFeatures());
+        context.setPropertyPreFilter(new StreamingFilter(out, FieldProjection.fromCurrentRequest()));
+        // 属性值是 Map 时 fastjson 直接使用内置的 Map 写出器，不经过 provider，先包一层
+        context.setValueFilter(WRAP_MAP_VALUES);
+        CURRENT_OUTPUT.set(out);
+        try (JSONWriter writer = JSONWriter.ofUTF8(context)) {
+            if (object == null) {
+                writer.writeNull();
+            } else {
+                writer.setRootObject(object);
+                context.getObjectWriter(object.getClass()).write(writer, object, null, null, 0);
+            }
+            writer.flushTo(out);
+        } catch (JSONException | UncheckedIOException e) {
+            // 客户端断开等写出错误原样抛出，与直接写流时一致
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException io) {
+                    throw io;
+                }
+            }
+            throw new HttpMessageNotWritableException("Could not write JSON: " + e.getMessage(), e);
+        } finally {
+            CURRENT_OUTPUT.remove();
+        }
+    }
+
+    private void writeJsonSerializable(JSONWriter writer, Object object, Object fieldName, Type fieldType, long features) {
+        JsonSerializable value = object instanceof PassThrough wrapped ? wrapped.value() : (JsonSerializable) object;
+        OutputStream out = CURRENT_OUTPUT.get();
+        try {
+            if (out == null) {
+                writer.writeRaw(objectMapper.writeValueAsString(value));
+                return;
+            }
+            // 先把 fastjson 缓冲区里已有的内容(包括字段名)写出，再由 Jackson 接着写同一个流
+            writer.flushTo(out);
+            SerializerProvider serializers = objectMapper.getSerializerProviderInstance();
+            try (JsonGenerator gen = objectMapper.createGenerator(out)) {
+                value.serialize(gen, serializers);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final ValueFilter WRAP_MAP_VALUES = (source, name, value) ->
+            value instanceof Map<?, ?> && value instanceof JsonSerializable serializable ? new PassThrough(serializable) : value;
+
+    private record PassThrough(JsonSerializable value) {
+    }
+
+    /**
+     * 每写一个属性前检查缓冲区大小并刷出，同时做字段投影
+     */
+    private record StreamingFilter(OutputStream out, FieldProjection projection) implements PropertyPreFilter {
+
+        @Override
+        public boolean process(JSONWriter writer, Object source, String name) {
+            if (writer.size() >= FLUSH_THRESHOLD) {
+                try {
+                    writer.flushTo(out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return projection == null || projection.include(writer, source, name);
+        }
+    }
+}
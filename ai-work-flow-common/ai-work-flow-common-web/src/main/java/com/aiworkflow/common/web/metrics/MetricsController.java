@@ -0,0 +1,66 @@
+package com.aiworkflow.common.web.metrics;
+
+import com.aiworkflow.common.core.metrics.MetricRegistry;
+import com.aiworkflow.common.core.metrics.TraceRecorder;
+import com.aiworkflow.common.web.exception.BusinessException;
+import com.aiworkflow.common.web.result.Result;
+import com.aiworkflow.common.web.result.ResultCode;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 指标与追踪查询
+ * <p>
+ * GET /metrics 以 Prometheus 文本格式输出本进程的全部指标，供 Prometheus 抓取；
+ * GET /metrics/traces 查看最近流程实例的执行追踪。
+ */
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final int MAX_TRACE_LIMIT = 200;
+
+    /**
+     * 消息转换器只支持 JSON，文本直接写入响应
+     */
+    @GetMapping
+    public void scrape(HttpServletResponse response) throws IOException {
+        response.setContentType(PROMETHEUS_CONTENT_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Writer writer = response.getWriter();
+        MetricRegistry.global().writePrometheus(writer);
+        writer.flush();
+    }
+
+    /**
+     * 最近的追踪摘要，新的在前
+     */
+    @GetMapping("/traces")
+    public Result<List<Map<String, Object>>> recentTraces(@RequestParam(defaultValue = "20") int limit) {
+        return Result.success(TraceRecorder.global().recentTraces(Math.max(1, Math.min(limit, MAX_TRACE_LIMIT))));
+    }
+
+    /**
+     * 单个流程实例的追踪，含各任务跨度
+     */
+    @GetMapping("/traces/{instanceId}")
+    public Result<Map<String, Object>> getTrace(@PathVariable Long instanceId) {
+        Map<String, Object> trace = TraceRecorder.global().getTrace(instanceId);
+        if (trace == null) {
+            throw new BusinessException(ResultCode.TRACE_NOT_FOUND);
+        }
+        return Result.success(trace);
+    }
+}
@@ -14,7 +14,17 @@ import lombok.Getter;
 public enum ResultCode {
 
     SUCCESS(200, "操作成功"),
-    SERVER_ERROR(500, "服务端错误");
+    BAD_REQUEST(400, "请求参数错误"),
+    SERVER_ERROR(500, "服务端错误"),
+
+    FLOW_DEFINITION_NOT_FOUND(1001, "流程定义不存在"),
+    FLOW_DEFINITION_INVALID(1002, "流程定义不合法"),
+    FLOW_INSTANCE_NOT_FOUND(1003, "流程实例不存在"),
+    FILE_NOT_FOUND(1004, "文件不存在"),
+    UPLOAD_NOT_FOUND(1005, "上传会话不存在"),
+    UPLOAD_INVALID(1006, "上传数据不合法"),
+    TRACE_NOT_FOUND(1007, "追踪记录不存在"),
+    FLOW_DEFINITION_VERSION_CONFLICT(1008, "流程定义版本冲突");
     private final int code;
     private final String message;
 
@@ -0,0 +1,167 @@
+package com.aiworkflow.common.web.json;
+
+import com.aiworkflow.common.web.result.Result;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.alibaba.fastjson.support.config.FastJsonConfig;
+import com.alibaba.fastjson.support.spring.FastJsonHttpMessageConverter;
+import com.alibaba.fastjson2.JSON;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import lombok.Data;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StreamingJsonHttpMessageConverter 测试
+ */
+class StreamingJsonHttpMessageConverterTest {
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testSameOutputAsFastJsonConverter() throws Exception {
+        List<Instance> instances = new ArrayList<>();
+        // 超过刷出阈值，覆盖中途刷出的路径
+        for (long i = 0; i < 2000; i++) {
+            instances.add(instance(i, Map.of("note", "第 " + i + " 个实例")));
+        }
+        Result<List<Instance>> result = Result.success(instances);
+
+        String expected = write(configure(new FastJsonHttpMessageConverter()), result);
+        String actual = write(configure(new StreamingJsonHttpMessageConverter()), result);
+        assertTrue(actual.length() > StreamingJsonHttpMessageConverter.FLUSH_THRESHOLD);
+        assertEquals(expected, actual);
+        assertTrue(actual.contains("\"outputData\":null"));
+    }
+
+    @Test
+    void testJsonSerializableWrittenByItself() throws Exception {
+        Instance instance = instance(1L, new RawValue("{\"variables\":{\"amount\":12}}"));
+        String json = write(configure(new StreamingJsonHttpMessageConverter()), Result.success(instance));
+
+        assertTrue(json.contains("\"contextData\":{\"variables\":{\"amount\":12}}"), json);
+        Map<?, ?> parsed = JSON.parseObject(json, Map.class);
+        assertEquals(1, ((Map<?, ?>) parsed.get("data")).get("id"));
+
+        // 同时是 Map 的值(如 LazyJsonMap)也由值自己写出，而不是逐项遍历
+        instance.setOutputData(new LazyValue());
+        json = write(configure(new StreamingJsonHttpMessageConverter()), instance);
+        assertTrue(json.contains("\"outputData\":{\"lazy\":true}"), json);
+        StreamingJsonHttpMessageConverter converter = configure(new StreamingJsonHttpMessageConverter());
+        assertEquals("[{\"lazy\":true}]", write(converter, List.of(new LazyValue())));
+        assertEquals("{\"item\":{\"lazy\":true}}", write(converter, Map.of("item", new LazyValue())));
+    }
+
+    @Test
+    void testFieldProjection() throws Exception {
+        Instance instance = instance(7L, Map.of("status", "kept in map"));
+        StreamingJsonHttpMessageConverter converter = configure(new StreamingJsonHttpMessageConverter());
+
+        bindRequest("fields", "id,status");
+        Map<?, ?> projected = (Map<?, ?>) JSON.parseObject(write(converter, Result.success(instance)), Map.class).get("data");
+        assertEquals(List.of("id", "status"), List.copyOf(projected.keySet()));
+
+        bindRequest("exclude", "contextData,outputData");
+        String json = write(converter, Result.success(instance));
+        assertFalse(json.contains("contextData"));
+        assertTrue(json.contains("\"code\":200"), json);
+        assertTrue(json.contains("\"createTime\""));
+
+        // Map 的键不参与投影
+        bindRequest("exclude", "status");
+        assertTrue(write(converter, Map.of("status", "RUNNING")).contains("RUNNING"));
+    }
+
+    private static String write(FastJsonHttpMessageConverter converter, Object value) throws Exception {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(value, MediaType.APPLICATION_JSON, message);
+        return message.getBodyAsString(StandardCharsets.UTF_8);
+    }
+
+    private static <T extends FastJsonHttpMessageConverter> T configure(T converter) {
+        FastJsonConfig config = new FastJsonConfig();
+        config.setSerializerFeatures(SerializerFeature.WriteMapNullValue);
+        converter.setFastJsonConfig(config);
+        return converter;
+    }
+
+    private static void bindRequest(String name, String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter(name, value);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static Instance instance(long id, Object contextData) {
+        Instance instance = new Instance();
+        instance.setId(id);
+        instance.setStatus("RUNNING");
+        instance.setCreateTime(LocalDateTime.of(2024, 5, 1, 8, 30));
+        instance.setContextData(contextData);
+        Map<String, Object> input = new LinkedHashMap<>();
+        input.put("amount", 5000);
+        input.put("empty", null);
+        instance.setInputData(input);
+        return instance;
+    }
+
+    @Data
+    public static class Instance {
+        private Long id;
+        private String status;
+        private LocalDateTime createTime;
+        private Object inputData;
+        private Object outputData;
+        private Object contextData;
+    }
+
+    static class LazyValue extends LinkedHashMap<String, Object> implements JsonSerializable {
+
+        @Override
+        public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeRawValue("{\"lazy\":true}");
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+                throws IOException {
+            serialize(gen, serializers);
+        }
+    }
+
+    /**
+     * 模拟数据库 JSON 列读出的值
+     */
+    record RawValue(String json) implements JsonSerializable {
+
+        @Override
+        public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeRawValue(json);
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+                throws IOException {
+            serialize(gen, serializers);
+        }
+    }
+}
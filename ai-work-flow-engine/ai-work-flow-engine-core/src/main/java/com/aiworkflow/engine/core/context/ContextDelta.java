@@ -0,0 +1,123 @@
+package com.aiworkflow.engine.core.context;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 流程变量在两个版本之间的变化：写入的键和删除的键
+ * <p>
+ * 持久化时只写出这些键(如 JSON_SET / JSON_REMOVE)，而不是整个上下文文档。不可变。
+ */
+public final class ContextDelta {
+
+    public static final ContextDelta EMPTY = new ContextDelta(Collections.emptyMap(), Collections.emptySet());
+
+    private final Map<String, Object> set;
+
+    private final Set<String> removed;
+
+    private ContextDelta(Map<String, Object> set, Set<String> removed) {
+        this.set = set;
+        this.removed = removed;
+    }
+
+    /**
+     * 计算 base 到 current 的变化，共享的子树不参与比较
+     */
+    public static ContextDelta between(PersistentMap<String, Object> base, PersistentMap<String, Object> current) {
+        if (base == current) {
+            return EMPTY;
+        }
+        Map<String, Object> set = new LinkedHashMap<>();
+        Set<String> removed = new LinkedHashSet<>();
+        PersistentMap.diff(base, current, (key, oldValue, newValue) -> {
+            if (newValue == null) {
+                removed.add(key);
+            } else {
+                set.put(key, newValue);
+            }
+        });
+        return wrap(set, removed);
+    }
+
+    /**
+     * 由写入和删除的键构造(如从事件日志读回)，同一个键同时出现时以删除为准
+     */
+    public static ContextDelta of(Map<String, Object> set, Collection<String> removed) {
+        Map<String, Object> copy = new LinkedHashMap<>(set);
+        Set<String> removedCopy = new LinkedHashSet<>(removed);
+        removedCopy.forEach(copy::remove);
+        return wrap(copy, removedCopy);
+    }
+
+    /**
+     * 合并先后两次变化，后一次覆盖前一次
+     */
+    public ContextDelta then(ContextDelta later) {
+        if (isEmpty()) {
+            return later;
+        }
+        if (later.isEmpty()) {
+            return this;
+        }
+        Map<String, Object> mergedSet = new LinkedHashMap<>(set);
+        Set<String> mergedRemoved = new LinkedHashSet<>(removed);
+        later.set.forEach((key, value) -> {
+            mergedRemoved.remove(key);
+            mergedSet.put(key, value);
+        });
+        later.removed.forEach(key -> {
+            mergedSet.remove(key);
+            mergedRemoved.add(key);
+        });
+        return wrap(mergedSet, mergedRemoved);
+    }
+
+    private static ContextDelta wrap(Map<String, Object> set, Set<String> removed) {
+        if (set.isEmpty() && removed.isEmpty()) {
+            return EMPTY;
+        }
+        return new ContextDelta(Collections.unmodifiableMap(set), Collections.unmodifiableSet(removed));
+    }
+
+    /**
+     * 新增或修改的变量
+     */
+    public Map<String, Object> getSet() {
+        return set;
+    }
+
+    /**
+     * 被删除的变量
+     */
+    public Set<String> getRemoved() {
+        return removed;
+    }
+
+    public boolean isEmpty() {
+        return set.isEmpty() && removed.isEmpty();
+    }
+
+    public int size() {
+        return set.size() + removed.size();
+    }
+
+    /**
+     * 合成一个 Map，删除的键值为 null
+     */
+    public Map<String, Object> changes() {
+        Map<String, Object> changes = new HashMap<>(set);
+        removed.forEach(key -> changes.put(key, null));
+        return changes;
+    }
+
+    @Override
+    public String toString() {
+        return "ContextDelta(set=" + set.keySet() + ", removed=" + removed + ")";
+    }
+}
@@ -0,0 +1,578 @@
+package com.aiworkflow.engine.core.context;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 不可变的持久化 Map(CHAMP 结构的哈希数组映射字典树)
+ * <p>
+ * {@link #plus} / {@link #minus} 返回新版本，只复制从根到被修改叶子路径上的节点(最多 7 层)，其余子树与旧版本共享。
+ * 同一内容的树形状唯一，{@link #diff} 遇到引用相同的子树直接跳过，代价只与变化的键数和树高有关，与总大小无关。
+ * 不允许 null 键和 null 值；实现 {@link Map} 只读接口，修改方法抛出 UnsupportedOperationException。
+ * 实例不可变，可在线程间自由共享。
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    // 32 位哈希最多 7 层，第 8 层只可能是冲突节点
+    private static final int MAX_DEPTH = 8;
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node<K, V> root;
+
+    private final int size;
+
+    private PersistentMap(Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * 复制普通 Map，值为 null 的键被忽略
+     */
+    public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap<?, ?>) {
+            @SuppressWarnings("unchecked")
+            PersistentMap<K, V> persistent = (PersistentMap<K, V>) map;
+            return persistent;
+        }
+        return PersistentMap.<K, V>empty().plusAll(map);
+    }
+
+    /**
+     * 写入一个键，值与原值为同一引用时返回自身
+     */
+    public PersistentMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        boolean[] added = new boolean[1];
+        Node<K, V> newRoot = root.put(key, value, hash(key), 0, added);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * 批量写入，值为 null 的键被删除
+     */
+    public PersistentMap<K, V> plusAll(Map<? extends K, ? extends V> values) {
+        PersistentMap<K, V> result = this;
+        for (Map.Entry<? extends K, ? extends V> entry : values.entrySet()) {
+            result = entry.getValue() == null ? result.minus(entry.getKey()) : result.plus(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * 删除一个键，键不存在时返回自身
+     */
+    public PersistentMap<K, V> minus(Object key) {
+        if (key == null) {
+            return this;
+        }
+        Node<K, V> newRoot = root.remove(key, hash(key), 0);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, size - 1);
+    }
+
+    @Override
+    public V get(Object key) {
+        return key == null ? null : root.get(key, hash(key), 0);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * 比较两个版本，对每个新增、修改、删除的键回调一次；共享的子树不会被访问
+     *
+     * @param base    旧版本
+     * @param current 新版本
+     */
+    public static <K, V> void diff(PersistentMap<K, V> base, PersistentMap<K, V> current,
+                                   DiffVisitor<? super K, ? super V> visitor) {
+        diff(base.root, current.root, visitor);
+    }
+
+    /**
+     * 差异回调：oldValue 为 null 表示新增，newValue 为 null 表示删除
+     */
+    @FunctionalInterface
+    public interface DiffVisitor<K, V> {
+
+        void onChange(K key, V oldValue, V newValue);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static boolean changed(Object oldValue, Object newValue) {
+        return oldValue != newValue && !oldValue.equals(newValue);
+    }
+
+    private static <K, V> Node<K, V> mergeTwo(K k1, int h1, V v1, K k2, int h2, V v2, int shift) {
+        if (shift >= 32) {
+            return new CollisionNode<>(h1, new Object[]{k1, v1, k2, v2});
+        }
+        int bit1 = bitpos(h1, shift);
+        int bit2 = bitpos(h2, shift);
+        if (bit1 != bit2) {
+            // 第 31 位是符号位，按无符号比较位序
+            Object[] content = Integer.compareUnsigned(bit1, bit2) < 0
+                    ? new Object[]{k1, v1, k2, v2} : new Object[]{k2, v2, k1, v1};
+            return new BitmapNode<>(bit1 | bit2, 0, content);
+        }
+        return new BitmapNode<>(0, bit1, new Object[]{mergeTwo(k1, h1, v1, k2, h2, v2, shift + BITS)});
+    }
+
+    private static <K, V> void diff(Node<K, V> a, Node<K, V> b, DiffVisitor<? super K, ? super V> visitor) {
+        if (a == b) {
+            return;
+        }
+        if (!(a instanceof BitmapNode<K, V> x) || !(b instanceof BitmapNode<K, V> y)) {
+            diffEntries(collect(a, new HashMap<>()), collect(b, new HashMap<>()), visitor);
+            return;
+        }
+        int bits = x.dataMap | x.nodeMap | y.dataMap | y.nodeMap;
+        while (bits != 0) {
+            int bit = Integer.lowestOneBit(bits);
+            bits &= ~bit;
+            if ((x.nodeMap & bit) != 0 && (y.nodeMap & bit) != 0) {
+                diff(x.nodeAt(bit), y.nodeAt(bit), visitor);
+            } else if ((x.dataMap & bit) != 0 && (y.dataMap & bit) != 0) {
+                int i = x.dataIndex(bit);
+                int j = y.dataIndex(bit);
+                K ka = x.keyAt(i);
+                K kb = y.keyAt(j);
+                if (ka.equals(kb)) {
+                    if (changed(x.valueAt(i), y.valueAt(j))) {
+                        visitor.onChange(ka, x.valueAt(i), y.valueAt(j));
+                    }
+                } else {
+                    visitor.onChange(ka, x.valueAt(i), null);
+                    visitor.onChange(kb, null, y.valueAt(j));
+                }
+            } else {
+                // 一侧是单个条目、另一侧是子树，或只有一侧存在：展开该槽位逐个比较
+                diffEntries(x.collectSlot(bit, new HashMap<>()), y.collectSlot(bit, new HashMap<>()), visitor);
+            }
+        }
+    }
+
+    private static <K, V> void diffEntries(Map<K, V> a, Map<K, V> b, DiffVisitor<? super K, ? super V> visitor) {
+        for (Map.Entry<K, V> entry : a.entrySet()) {
+            V newValue = b.get(entry.getKey());
+            if (newValue == null) {
+                visitor.onChange(entry.getKey(), entry.getValue(), null);
+            } else if (changed(entry.getValue(), newValue)) {
+                visitor.onChange(entry.getKey(), entry.getValue(), newValue);
+            }
+        }
+        for (Map.Entry<K, V> entry : b.entrySet()) {
+            if (!a.containsKey(entry.getKey())) {
+                visitor.onChange(entry.getKey(), null, entry.getValue());
+            }
+        }
+    }
+
+    private static <K, V> Map<K, V> collect(Node<K, V> node, Map<K, V> out) {
+        for (int i = 0; i < node.payloadArity(); i++) {
+            out.put(node.keyAt(i), node.valueAt(i));
+        }
+        for (int i = 0; i < node.nodeArity(); i++) {
+            collect(node.nodeAtIndex(i), out);
+        }
+        return out;
+    }
+
+    private abstract static class Node<K, V> {
+
+        abstract V get(Object key, int hash, int shift);
+
+        /**
+         * 写入后返回新节点，未变化时返回自身；新增键时 added[0] 置为 true
+         */
+        abstract Node<K, V> put(K key, V value, int hash, int shift, boolean[] added);
+
+        abstract Node<K, V> remove(Object key, int hash, int shift);
+
+        abstract int payloadArity();
+
+        abstract int nodeArity();
+
+        abstract K keyAt(int index);
+
+        abstract V valueAt(int index);
+
+        abstract Node<K, V> nodeAtIndex(int index);
+
+        /**
+         * 只剩一个条目且没有子节点，可以内联到父节点
+         */
+        boolean isSingleton() {
+            return payloadArity() == 1 && nodeArity() == 0;
+        }
+    }
+
+    /**
+     * 位图索引节点：content 前部为 [键, 值] 对(按位序)，尾部为子节点(按位序)
+     */
+    private static final class BitmapNode<K, V> extends Node<K, V> {
+
+        static final BitmapNode<?, ?> EMPTY = new BitmapNode<>(0, 0, new Object[0]);
+
+        final int dataMap;
+
+        final int nodeMap;
+
+        final Object[] content;
+
+        BitmapNode(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        int nodeSlot(int bit) {
+            return 2 * Integer.bitCount(dataMap) + Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<K, V> nodeAt(int bit) {
+            return (Node<K, V>) content[nodeSlot(bit)];
+        }
+
+        @Override
+        V get(Object key, int hash, int shift) {
+            int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                return keyAt(i).equals(key) ? valueAt(i) : null;
+            }
+            if ((nodeMap & bit) != 0) {
+                return nodeAt(bit).get(key, hash, shift + BITS);
+            }
+            return null;
+        }
+
+        @Override
+        Node<K, V> put(K key, V value, int hash, int shift, boolean[] added) {
+            int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                K existing = keyAt(i);
+                if (existing.equals(key)) {
+                    if (valueAt(i) == value) {
+                        return this;
+                    }
+                    Object[] copy = content.clone();
+                    copy[2 * i + 1] = value;
+                    return new BitmapNode<>(dataMap, nodeMap, copy);
+                }
+                added[0] = true;
+                Node<K, V> sub = mergeTwo(existing, PersistentMap.hash(existing), valueAt(i), key, hash, value,
+                        shift + BITS);
+                return migrateToNode(bit, sub);
+            }
+            if ((nodeMap & bit) != 0) {
+                Node<K, V> sub = nodeAt(bit);
+                Node<K, V> newSub = sub.put(key, value, hash, shift + BITS, added);
+                return newSub == sub ? this : withNode(bit, newSub);
+            }
+            added[0] = true;
+            int index = 2 * dataIndex(bit);
+            Object[] copy = new Object[content.length + 2];
+            System.arraycopy(content, 0, copy, 0, index);
+            copy[index] = key;
+            copy[index + 1] = value;
+            System.arraycopy(content, index, copy, index + 2, content.length - index);
+            return new BitmapNode<>(dataMap | bit, nodeMap, copy);
+        }
+
+        @Override
+        Node<K, V> remove(Object key, int hash, int shift) {
+            int bit = bitpos(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                if (!keyAt(i).equals(key)) {
+                    return this;
+                }
+                if (content.length == 2) {
+                    return empty();
+                }
+                Object[] copy = new Object[content.length - 2];
+                System.arraycopy(content, 0, copy, 0, 2 * i);
+                System.arraycopy(content, 2 * i + 2, copy, 2 * i, content.length - 2 * i - 2);
+                return new BitmapNode<>(dataMap ^ bit, nodeMap, copy);
+            }
+            if ((nodeMap & bit) != 0) {
+                Node<K, V> sub = nodeAt(bit);
+                Node<K, V> newSub = sub.remove(key, hash, shift + BITS);
+                if (newSub == sub) {
+                    return this;
+                }
+                // 子树只剩一个条目时上提到本层，保持同一内容只有一种树形状
+                return newSub.isSingleton() ? migrateToInline(bit, newSub) : withNode(bit, newSub);
+            }
+            return this;
+        }
+
+        private Node<K, V> withNode(int bit, Node<K, V> node) {
+            Object[] copy = content.clone();
+            copy[nodeSlot(bit)] = node;
+            return new BitmapNode<>(dataMap, nodeMap, copy);
+        }
+
+        private Node<K, V> migrateToNode(int bit, Node<K, V> node) {
+            int oldIndex = 2 * dataIndex(bit);
+            int newIndex = content.length - 2 - Integer.bitCount(nodeMap & ~(bit - 1));
+            Object[] copy = new Object[content.length - 1];
+            System.arraycopy(content, 0, copy, 0, oldIndex);
+            System.arraycopy(content, oldIndex + 2, copy, oldIndex, newIndex - oldIndex);
+            copy[newIndex] = node;
+            System.arraycopy(content, newIndex + 2, copy, newIndex + 1, content.length - newIndex - 2);
+            return new BitmapNode<>(dataMap ^ bit, nodeMap | bit, copy);
+        }
+
+        private Node<K, V> migrateToInline(int bit, Node<K, V> node) {
+            int oldIndex = nodeSlot(bit);
+            int newIndex = 2 * dataIndex(bit);
+            Object[] copy = new Object[content.length + 1];
+            System.arraycopy(content, 0, copy, 0, newIndex);
+            copy[newIndex] = node.keyAt(0);
+            copy[newIndex + 1] = node.valueAt(0);
+            System.arraycopy(content, newIndex, copy, newIndex + 2, oldIndex - newIndex);
+            System.arraycopy(content, oldIndex + 1, copy, oldIndex + 2, content.length - oldIndex - 1);
+            return new BitmapNode<>(dataMap | bit, nodeMap ^ bit, copy);
+        }
+
+        Map<K, V> collectSlot(int bit, Map<K, V> out) {
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                out.put(keyAt(i), valueAt(i));
+            } else if ((nodeMap & bit) != 0) {
+                collect(nodeAt(bit), out);
+            }
+            return out;
+        }
+
+        @Override
+        int payloadArity() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        int nodeArity() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        K keyAt(int index) {
+            return (K) content[2 * index];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        V valueAt(int index) {
+            return (V) content[2 * index + 1];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Node<K, V> nodeAtIndex(int index) {
+            return (Node<K, V>) content[2 * payloadArity() + index];
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <K, V> Node<K, V> empty() {
+            return (Node<K, V>) EMPTY;
+        }
+    }
+
+    /**
+     * 32 位哈希完全相同的键，线性存放
+     */
+    private static final class CollisionNode<K, V> extends Node<K, V> {
+
+        final int hash;
+
+        // [键, 值] 对
+        final Object[] content;
+
+        CollisionNode(int hash, Object[] content) {
+            this.hash = hash;
+            this.content = content;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < content.length; i += 2) {
+                if (content[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        V get(Object key, int hash, int shift) {
+            int i = this.hash == hash ? indexOf(key) : -1;
+            return i >= 0 ? (V) content[i + 1] : null;
+        }
+
+        @Override
+        Node<K, V> put(K key, V value, int hash, int shift, boolean[] added) {
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (content[i + 1] == value) {
+                    return this;
+                }
+                Object[] copy = content.clone();
+                copy[i + 1] = value;
+                return new CollisionNode<>(hash, copy);
+            }
+            added[0] = true;
+            Object[] copy = new Object[content.length + 2];
+            System.arraycopy(content, 0, copy, 0, content.length);
+            copy[content.length] = key;
+            copy[content.length + 1] = value;
+            return new CollisionNode<>(hash, copy);
+        }
+
+        @Override
+        Node<K, V> remove(Object key, int hash, int shift) {
+            int i = this.hash == hash ? indexOf(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            Object[] copy = new Object[content.length - 2];
+            System.arraycopy(content, 0, copy, 0, i);
+            System.arraycopy(content, i + 2, copy, i, content.length - i - 2);
+            return new CollisionNode<>(hash, copy);
+        }
+
+        @Override
+        int payloadArity() {
+            return content.length / 2;
+        }
+
+        @Override
+        int nodeArity() {
+            return 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        K keyAt(int index) {
+            return (K) content[2 * index];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        V valueAt(int index) {
+            return (V) content[2 * index + 1];
+        }
+
+        @Override
+        Node<K, V> nodeAtIndex(int index) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    /**
+     * 深度优先遍历，栈深度固定为树的最大高度
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        @SuppressWarnings("unchecked")
+        private final Node<K, V>[] nodes = new Node[MAX_DEPTH];
+
+        private final int[] dataCursor = new int[MAX_DEPTH];
+
+        private final int[] nodeCursor = new int[MAX_DEPTH];
+
+        private int depth = -1;
+
+        EntryIterator(Node<K, V> root) {
+            push(root);
+        }
+
+        private void push(Node<K, V> node) {
+            depth++;
+            nodes[depth] = node;
+            dataCursor[depth] = 0;
+            nodeCursor[depth] = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (depth >= 0) {
+                Node<K, V> node = nodes[depth];
+                if (dataCursor[depth] < node.payloadArity()) {
+                    return true;
+                }
+                if (nodeCursor[depth] < node.nodeArity()) {
+                    push(node.nodeAtIndex(nodeCursor[depth]++));
+                    continue;
+                }
+                nodes[depth--] = null;
+            }
+            return false;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> node = nodes[depth];
+            int index = dataCursor[depth]++;
+            return new SimpleImmutableEntry<>(node.keyAt(index), node.valueAt(index));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.aiworkflow.engine.core.exception;
+
+/**
+ * 流程模型编译失败(结构不合法)
+ */
+public class FlowCompileException extends RuntimeException {
+
+    public FlowCompileException(String message) {
+        super(message);
+    }
+
+    public FlowCompileException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
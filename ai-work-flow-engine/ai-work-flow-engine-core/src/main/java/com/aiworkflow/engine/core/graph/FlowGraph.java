@@ -0,0 +1,175 @@
+package com.aiworkflow.engine.core.graph;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 编译后的不可变流程图
+ * <p>
+ * 节点编号为 0..nodeCount-1 的稠密整数，连线按源节点排序编号，
+ * 节点 v 的出线为 [outOffset(v), outOffset(v + 1))，入线通过 inEdges 间接索引(CSR 结构)。
+ * 运行期只按下标访问数组，不再做字符串查找；画布坐标等设计期信息不进入运行期结构。
+ */
+public final class FlowGraph {
+
+    private final String flowKey;
+
+    private final String[] nodeKeys;
+
+    private final String[] nodeNames;
+
+    private final String[] nodeTypes;
+
+    private final NodeKind[] nodeKinds;
+
+    private final Map<String, Object>[] nodeConfigs;
+
+    private final int[] outOffsets;
+
+    private final int[] edgeSources;
+
+    private final int[] edgeTargets;
+
+    private final String[] edgeKeys;
+
+    private final String[] edgeConditions;
+
+    private final int[] inOffsets;
+
+    private final int[] inEdges;
+
+    private final int[] joinCounts;
+
+    private final int startNode;
+
+    private final Map<String, Integer> keyIndex;
+
+    FlowGraph(String flowKey, String[] nodeKeys, String[] nodeNames, String[] nodeTypes, NodeKind[] nodeKinds,
+              Map<String, Object>[] nodeConfigs, int[] outOffsets, int[] edgeSources, int[] edgeTargets,
+              String[] edgeKeys, String[] edgeConditions, int[] inOffsets, int[] inEdges, int[] joinCounts,
+              int startNode, Map<String, Integer> keyIndex) {
+        this.flowKey = flowKey;
+        this.nodeKeys = nodeKeys;
+        this.nodeNames = nodeNames;
+        this.nodeTypes = nodeTypes;
+        this.nodeKinds = nodeKinds;
+        this.nodeConfigs = nodeConfigs;
+        this.outOffsets = outOffsets;
+        this.edgeSources = edgeSources;
+        this.edgeTargets = edgeTargets;
+        this.edgeKeys = edgeKeys;
+        this.edgeConditions = edgeConditions;
+        this.inOffsets = inOffsets;
+        this.inEdges = inEdges;
+        this.joinCounts = joinCounts;
+        this.startNode = startNode;
+        this.keyIndex = keyIndex;
+    }
+
+    public String flowKey() {
+        return flowKey;
+    }
+
+    public int nodeCount() {
+        return nodeKeys.length;
+    }
+
+    public int edgeCount() {
+        return edgeTargets.length;
+    }
+
+    public int startNode() {
+        return startNode;
+    }
+
+    public String nodeKey(int node) {
+        return nodeKeys[node];
+    }
+
+    public String nodeName(int node) {
+        return nodeNames[node];
+    }
+
+    /**
+     * 节点类型编码(START_EVENT、LLM_AGENT 等)，用于执行器分发
+     */
+    public String nodeType(int node) {
+        return nodeTypes[node];
+    }
+
+    public NodeKind nodeKind(int node) {
+        return nodeKinds[node];
+    }
+
+    public Map<String, Object> nodeConfig(int node) {
+        Map<String, Object> config = nodeConfigs[node];
+        return config != null ? config : Collections.emptyMap();
+    }
+
+    /**
+     * 节点第一条出线的编号
+     */
+    public int outStart(int node) {
+        return outOffsets[node];
+    }
+
+    /**
+     * 节点最后一条出线之后的编号
+     */
+    public int outEnd(int node) {
+        return outOffsets[node + 1];
+    }
+
+    public int outDegree(int node) {
+        return outOffsets[node + 1] - outOffsets[node];
+    }
+
+    public int inDegree(int node) {
+        return inOffsets[node + 1] - inOffsets[node];
+    }
+
+    /**
+     * 节点的第 i 条入线编号
+     */
+    public int inEdge(int node, int i) {
+        return inEdges[inOffsets[node] + i];
+    }
+
+    public int edgeSource(int edge) {
+        return edgeSources[edge];
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public String edgeKey(int edge) {
+        return edgeKeys[edge];
+    }
+
+    /**
+     * 连线条件表达式，无条件时为 null
+     */
+    public String edgeCondition(int edge) {
+        return edgeConditions[edge];
+    }
+
+    /**
+     * 汇聚所需到达的令牌数：并行网关为入线数，其余节点为 1
+     */
+    public int joinCount(int node) {
+        return joinCounts[node];
+    }
+
+    public boolean isJoin(int node) {
+        return joinCounts[node] > 1;
+    }
+
+    /**
+     * 按节点 key 查找编号，不存在时返回 -1；仅用于边界处(恢复、外部信号)，不要在热路径上调用
+     */
+    public int indexOf(String nodeKey) {
+        Integer index = keyIndex.get(nodeKey);
+        return index != null ? index : -1;
+    }
+}
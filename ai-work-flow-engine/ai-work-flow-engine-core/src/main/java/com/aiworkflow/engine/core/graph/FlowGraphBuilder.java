@@ -0,0 +1,210 @@
+package com.aiworkflow.engine.core.graph;
+
+import com.aiworkflow.engine.core.exception.FlowCompileException;
+import com.aiworkflow.engine.core.model.FlowElement;
+import com.aiworkflow.engine.core.model.FlowElementType;
+import com.aiworkflow.engine.core.model.FlowNode;
+import com.aiworkflow.engine.core.model.SequenceFlow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流程图构建器，可逐个接收流程元素(连线可先于节点出现)，build 时统一解析引用并生成 CSR 结构
+ */
+public class FlowGraphBuilder {
+
+    private final String flowKey;
+
+    private final Map<String, Integer> keyIndex = new HashMap<>();
+
+    private final List<String> nodeKeys = new ArrayList<>();
+
+    private final List<String> nodeNames = new ArrayList<>();
+
+    private final List<String> nodeTypes = new ArrayList<>();
+
+    private final List<Map<String, Object>> nodeConfigs = new ArrayList<>();
+
+    private final List<String> edgeKeys = new ArrayList<>();
+
+    private final List<String> edgeSourceKeys = new ArrayList<>();
+
+    private final List<String> edgeTargetKeys = new ArrayList<>();
+
+    private final List<String> edgeConditions = new ArrayList<>();
+
+    public FlowGraphBuilder(String flowKey) {
+        this.flowKey = flowKey;
+    }
+
+    public FlowGraphBuilder add(FlowElement element) {
+        if (element instanceof SequenceFlow flow) {
+            addSequenceFlow(flow);
+        } else if (element instanceof FlowNode node) {
+            addNode(node);
+        } else {
+            throw new FlowCompileException("不支持的流程元素: " + element.getKey());
+        }
+        return this;
+    }
+
+    public FlowGraphBuilder addAll(Iterable<? extends FlowElement> elements) {
+        for (FlowElement element : elements) {
+            add(element);
+        }
+        return this;
+    }
+
+    private void addNode(FlowNode node) {
+        String key = node.getKey();
+        if (key == null || key.isEmpty()) {
+            throw new FlowCompileException("节点 key 不能为空");
+        }
+        if (node.type() == null || node.type().isEmpty()) {
+            throw new FlowCompileException("节点 " + key + " 缺少类型");
+        }
+        if (keyIndex.putIfAbsent(key, nodeKeys.size()) != null) {
+            throw new FlowCompileException("节点 key 重复: " + key);
+        }
+        nodeKeys.add(key);
+        nodeNames.add(node.getName());
+        nodeTypes.add(node.type());
+        nodeConfigs.add(node.getConfig());
+    }
+
+    private void addSequenceFlow(SequenceFlow flow) {
+        if (flow.getSourceRef() == null || flow.getTargetRef() == null) {
+            throw new FlowCompileException("连线 " + flow.getKey() + " 缺少 sourceRef 或 targetRef");
+        }
+        edgeKeys.add(flow.getKey());
+        edgeSourceKeys.add(flow.getSourceRef());
+        edgeTargetKeys.add(flow.getTargetRef());
+        String condition = flow.getConditionExpression();
+        edgeConditions.add(condition == null || condition.isBlank() ? null : condition.trim());
+    }
+
+    @SuppressWarnings("unchecked")
+    public FlowGraph build() {
+        int n = nodeKeys.size();
+        int m = edgeKeys.size();
+
+        NodeKind[] kinds = new NodeKind[n];
+        int startNode = -1;
+        boolean hasEnd = false;
+        for (int v = 0; v < n; v++) {
+            kinds[v] = kindOf(nodeTypes.get(v));
+            if (kinds[v] == NodeKind.START_EVENT) {
+                if (startNode >= 0) {
+                    throw new FlowCompileException("流程只能有一个开始事件: " + nodeKeys.get(startNode) + ", " + nodeKeys.get(v));
+                }
+                startNode = v;
+            } else if (kinds[v] == NodeKind.END_EVENT) {
+                hasEnd = true;
+            }
+        }
+        if (startNode < 0) {
+            throw new FlowCompileException("流程缺少开始事件");
+        }
+        if (!hasEnd) {
+            throw new FlowCompileException("流程缺少结束事件");
+        }
+
+        // 解析连线引用
+        int[] sources = new int[m];
+        int[] targets = new int[m];
+        for (int e = 0; e < m; e++) {
+            sources[e] = resolve(edgeSourceKeys.get(e), edgeKeys.get(e));
+            targets[e] = resolve(edgeTargetKeys.get(e), edgeKeys.get(e));
+        }
+
+        // 按源节点计数排序，出线在数组中连续
+        int[] outOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            outOffsets[sources[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            outOffsets[v + 1] += outOffsets[v];
+        }
+        int[] cursor = new int[n];
+        int[] edgeSources = new int[m];
+        int[] edgeTargets = new int[m];
+        String[] sortedKeys = new String[m];
+        String[] sortedConditions = new String[m];
+        for (int e = 0; e < m; e++) {
+            int slot = outOffsets[sources[e]] + cursor[sources[e]]++;
+            edgeSources[slot] = sources[e];
+            edgeTargets[slot] = targets[e];
+            sortedKeys[slot] = edgeKeys.get(e);
+            sortedConditions[slot] = edgeConditions.get(e);
+        }
+
+        // 入线按目标节点分组，存储的是排序后的连线编号
+        int[] inOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            inOffsets[edgeTargets[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        Arrays.fill(cursor, 0);
+        int[] inEdges = new int[m];
+        for (int e = 0; e < m; e++) {
+            inEdges[inOffsets[edgeTargets[e]] + cursor[edgeTargets[e]]++] = e;
+        }
+
+        int[] joinCounts = new int[n];
+        for (int v = 0; v < n; v++) {
+            int in = inOffsets[v + 1] - inOffsets[v];
+            int out = outOffsets[v + 1] - outOffsets[v];
+            switch (kinds[v]) {
+                case START_EVENT -> {
+                    if (in > 0) {
+                        throw new FlowCompileException("开始事件不能有入线: " + nodeKeys.get(v));
+                    }
+                }
+                case END_EVENT -> {
+                    if (out > 0) {
+                        throw new FlowCompileException("结束事件不能有出线: " + nodeKeys.get(v));
+                    }
+                }
+                default -> {
+                    if (out == 0) {
+                        throw new FlowCompileException("节点缺少出线: " + nodeKeys.get(v));
+                    }
+                }
+            }
+            joinCounts[v] = kinds[v] == NodeKind.PARALLEL_GATEWAY && in > 1 ? in : 1;
+        }
+
+        return new FlowGraph(flowKey,
+                nodeKeys.toArray(new String[0]),
+                nodeNames.toArray(new String[0]),
+                nodeTypes.toArray(new String[0]),
+                kinds,
+                nodeConfigs.toArray(new Map[0]),
+                outOffsets, edgeSources, edgeTargets, sortedKeys, sortedConditions,
+                inOffsets, inEdges, joinCounts, startNode, Map.copyOf(keyIndex));
+    }
+
+    private int resolve(String nodeKey, String edgeKey) {
+        Integer index = keyIndex.get(nodeKey);
+        if (index == null) {
+            throw new FlowCompileException("连线 " + edgeKey + " 引用了不存在的节点: " + nodeKey);
+        }
+        return index;
+    }
+
+    private static NodeKind kindOf(String type) {
+        return switch (type) {
+            case FlowElementType.START_EVENT -> NodeKind.START_EVENT;
+            case FlowElementType.END_EVENT -> NodeKind.END_EVENT;
+            case FlowElementType.EXCLUSIVE_GATEWAY -> NodeKind.EXCLUSIVE_GATEWAY;
+            case FlowElementType.PARALLEL_GATEWAY -> NodeKind.PARALLEL_GATEWAY;
+            default -> NodeKind.TASK;
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.aiworkflow.engine.core.graph;
+
+import com.aiworkflow.engine.core.exception.FlowCompileException;
+import com.aiworkflow.engine.core.model.FlowModel;
+import com.aiworkflow.engine.core.model.SearchableVariable;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 流程模型编译器：FlowModel -> FlowGraph
+ */
+public final class FlowGraphCompiler {
+
+    private FlowGraphCompiler() {
+    }
+
+    public static FlowGraph compile(FlowModel model) {
+        validateSearchableVariables(model);
+        return new FlowGraphBuilder(model.getKey())
+                .addAll(model.getFlowElements())
+                .build();
+    }
+
+    private static void validateSearchableVariables(FlowModel model) {
+        if (model.getSearchableVariables() == null) {
+            return;
+        }
+        Set<String> names = new HashSet<>();
+        for (SearchableVariable variable : model.getSearchableVariables()) {
+            if (variable.getName() == null || variable.getName().isEmpty() || variable.getType() == null) {
+                throw new FlowCompileException("可检索变量声明缺少名称或类型");
+            }
+            if (!names.add(variable.getName())) {
+                throw new FlowCompileException("可检索变量重复声明: " + variable.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.aiworkflow.engine.core.graph;
+
+/**
+ * 节点在图上的结构角色，引擎按角色决定令牌如何流转
+ */
+public enum NodeKind {
+    START_EVENT,
+    END_EVENT,
+    EXCLUSIVE_GATEWAY,
+    PARALLEL_GATEWAY,
+    TASK
+}
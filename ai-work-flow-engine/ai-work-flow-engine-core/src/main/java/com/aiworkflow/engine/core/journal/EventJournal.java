@@ -0,0 +1,40 @@
+package com.aiworkflow.engine.core.journal;
+
+import java.util.List;
+
+/**
+ * 实例事件日志：只追加的事件流加定期快照，实例状态可由最近快照加其后的事件重放得到
+ */
+public interface EventJournal {
+
+    /**
+     * 追加一批事件(一个引擎步骤产生的全部事件)，seq 已分配且连续，实现需整批原子写入
+     */
+    void append(long instanceId, List<JournalEvent> events);
+
+    /**
+     * 读取 seq 大于 afterSeq 的事件，按 seq 升序
+     */
+    List<JournalEvent> read(long instanceId, long afterSeq);
+
+    void saveSnapshot(InstanceState state);
+
+    /**
+     * 最近的快照，没有时返回 null
+     */
+    InstanceState loadSnapshot(long instanceId);
+
+    /**
+     * 从最近快照重放出当前状态，没有任何记录时返回 null
+     */
+    default InstanceState recover(long instanceId) {
+        InstanceState snapshot = loadSnapshot(instanceId);
+        InstanceState state = snapshot != null ? snapshot : new InstanceState(instanceId);
+        List<JournalEvent> events = read(instanceId, state.getLastSeq());
+        if (snapshot == null && events.isEmpty()) {
+            return null;
+        }
+        events.forEach(state::apply);
+        return state;
+    }
+}
@@ -0,0 +1,50 @@
+package com.aiworkflow.engine.core.journal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存事件日志，用于测试和单机无持久化部署
+ */
+public class InMemoryEventJournal implements EventJournal {
+
+    private final Map<Long, List<JournalEvent>> events = new ConcurrentHashMap<>();
+
+    private final Map<Long, InstanceState> snapshots = new ConcurrentHashMap<>();
+
+    @Override
+    public void append(long instanceId, List<JournalEvent> batch) {
+        List<JournalEvent> stream = events.computeIfAbsent(instanceId, id -> new ArrayList<>());
+        synchronized (stream) {
+            long expected = stream.isEmpty() ? 1 : stream.get(stream.size() - 1).getSeq() + 1;
+            if (!batch.isEmpty() && batch.get(0).getSeq() != expected) {
+                throw new IllegalStateException("事件序号不连续: 期望 " + expected + "，实际 " + batch.get(0).getSeq());
+            }
+            stream.addAll(batch);
+        }
+    }
+
+    @Override
+    public List<JournalEvent> read(long instanceId, long afterSeq) {
+        List<JournalEvent> stream = events.get(instanceId);
+        if (stream == null) {
+            return List.of();
+        }
+        synchronized (stream) {
+            return stream.stream().filter(event -> event.getSeq() > afterSeq).toList();
+        }
+    }
+
+    @Override
+    public void saveSnapshot(InstanceState state) {
+        snapshots.put(state.getInstanceId(), state.copy());
+    }
+
+    @Override
+    public InstanceState loadSnapshot(long instanceId) {
+        InstanceState snapshot = snapshots.get(instanceId);
+        return snapshot != null ? snapshot.copy() : null;
+    }
+}
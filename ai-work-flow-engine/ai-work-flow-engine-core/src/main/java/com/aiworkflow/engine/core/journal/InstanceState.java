@@ -0,0 +1,133 @@
+package com.aiworkflow.engine.core.journal;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 由事件重放得到的实例状态，也是快照的内容
+ * <p>
+ * apply 是幂等的：seq 不大于 lastSeq 的事件被忽略，快照之后重复读到的事件不会重复生效。
+ * 并行分支的事件按写入顺序交错，子执行在汇聚后到达的迟到事件会被忽略。非线程安全。
+ */
+@Data
+@NoArgsConstructor
+public class InstanceState {
+
+    private long instanceId;
+
+    private long lastSeq;
+
+    private String flowKey;
+
+    // RUNNING / COMPLETED / FAILED / TERMINATED
+    private String status;
+
+    private Map<String, Object> variables = new LinkedHashMap<>();
+
+    // 执行 ID -> 当前所在节点
+    private Map<Long, String> executions = new LinkedHashMap<>();
+
+    // 执行 ID -> 正在执行的任务节点
+    private Map<Long, String> runningTasks = new LinkedHashMap<>();
+
+    // 父执行 ID -> 分叉出的子执行 ID
+    private Map<Long, Collection<Long>> forks = new LinkedHashMap<>();
+
+    // 已汇聚结束的子执行
+    private Set<Long> finishedExecutions = new HashSet<>();
+
+    private String errorMessage;
+
+    private long startTime;
+
+    private long endTime;
+
+    public InstanceState(long instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void apply(JournalEvent event) {
+        if (event.getSeq() <= lastSeq) {
+            return;
+        }
+        lastSeq = event.getSeq();
+        Map<String, Object> payload = event.getPayload() != null ? event.getPayload() : Map.of();
+        Long executionId = event.getExecutionId();
+        switch (event.getType()) {
+            case INSTANCE_STARTED -> {
+                status = "RUNNING";
+                flowKey = (String) payload.get("flowKey");
+                startTime = event.getTimestamp();
+                if (payload.get("variables") instanceof Map<?, ?> initial) {
+                    variables.putAll((Map<String, Object>) initial);
+                }
+            }
+            case TOKEN_MOVED -> {
+                if (!finishedExecutions.contains(executionId)) {
+                    executions.put(executionId, event.getNodeKey());
+                }
+            }
+            case TASK_STARTED -> runningTasks.put(executionId, event.getNodeKey());
+            case TASK_COMPLETED -> runningTasks.remove(executionId);
+            case TASK_FAILED -> {
+                runningTasks.remove(executionId);
+                errorMessage = (String) payload.get("error");
+            }
+            case VARIABLES_SET -> {
+                if (payload.get("set") instanceof Map<?, ?> set) {
+                    variables.putAll((Map<String, Object>) set);
+                }
+                if (payload.get("removed") instanceof Collection<?> removed) {
+                    removed.forEach(variables::remove);
+                }
+            }
+            case EXECUTION_FORKED -> {
+                executions.remove(executionId);
+                if (payload.get("children") instanceof Collection<?> children) {
+                    Collection<Long> ids = children.stream().map(id -> ((Number) id).longValue()).toList();
+                    forks.put(executionId, ids);
+                }
+            }
+            case EXECUTION_JOINED -> {
+                Collection<Long> children = forks.remove(executionId);
+                if (children != null) {
+                    children.forEach(executions::remove);
+                    finishedExecutions.addAll(children);
+                }
+                executions.put(executionId, event.getNodeKey());
+            }
+            case INSTANCE_ENDED -> {
+                status = (String) payload.get("status");
+                errorMessage = (String) payload.get("error");
+                endTime = event.getTimestamp();
+                runningTasks.clear();
+            }
+        }
+    }
+
+    /**
+     * 快照用的副本，变量值本身不复制
+     */
+    public InstanceState copy() {
+        InstanceState copy = new InstanceState(instanceId);
+        copy.lastSeq = lastSeq;
+        copy.flowKey = flowKey;
+        copy.status = status;
+        copy.variables = new LinkedHashMap<>(variables);
+        copy.executions = new LinkedHashMap<>(executions);
+        copy.runningTasks = new LinkedHashMap<>(runningTasks);
+        copy.forks = new LinkedHashMap<>(forks);
+        copy.finishedExecutions = new HashSet<>(finishedExecutions);
+        copy.errorMessage = errorMessage;
+        copy.startTime = startTime;
+        copy.endTime = endTime;
+        return copy;
+    }
+}
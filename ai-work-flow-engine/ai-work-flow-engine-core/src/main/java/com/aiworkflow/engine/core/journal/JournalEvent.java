@@ -0,0 +1,42 @@
+package com.aiworkflow.engine.core.journal;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 实例事件，同一实例内 seq 从 1 开始连续递增，只追加不修改
+ */
+@Data
+@NoArgsConstructor
+public class JournalEvent {
+
+    private long instanceId;
+
+    // 写入日志时分配
+    private long seq;
+
+    private JournalEventType type;
+
+    private Long executionId;
+
+    private String nodeKey;
+
+    private Map<String, Object> payload;
+
+    // 事件发生时间(毫秒时间戳)
+    private long timestamp;
+
+    public static JournalEvent of(JournalEventType type, long instanceId, Long executionId, String nodeKey,
+                                  Map<String, Object> payload) {
+        JournalEvent event = new JournalEvent();
+        event.setType(type);
+        event.setInstanceId(instanceId);
+        event.setExecutionId(executionId);
+        event.setNodeKey(nodeKey);
+        event.setPayload(payload);
+        event.setTimestamp(System.currentTimeMillis());
+        return event;
+    }
+}
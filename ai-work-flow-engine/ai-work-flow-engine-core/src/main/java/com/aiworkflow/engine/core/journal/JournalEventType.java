@@ -0,0 +1,25 @@
+package com.aiworkflow.engine.core.journal;
+
+/**
+ * 实例事件类型
+ */
+public enum JournalEventType {
+
+    // payload: flowKey, variables
+    INSTANCE_STARTED,
+    // 令牌进入节点
+    TOKEN_MOVED,
+    // payload: name, taskType
+    TASK_STARTED,
+    TASK_COMPLETED,
+    // payload: error
+    TASK_FAILED,
+    // payload: set(变量 -> 值), removed(变量名列表)
+    VARIABLES_SET,
+    // payload: children(子执行 ID 列表)
+    EXECUTION_FORKED,
+    // 汇聚完成，父执行在该节点重新激活
+    EXECUTION_JOINED,
+    // payload: status, error
+    INSTANCE_ENDED
+}
@@ -0,0 +1,12 @@
+package com.aiworkflow.engine.core.model;
+
+/**
+ * 结束事件
+ */
+public class EndEvent extends FlowNode {
+
+    @Override
+    public String type() {
+        return FlowElementType.END_EVENT;
+    }
+}
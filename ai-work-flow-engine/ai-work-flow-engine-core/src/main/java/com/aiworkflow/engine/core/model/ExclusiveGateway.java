@@ -0,0 +1,12 @@
+package com.aiworkflow.engine.core.model;
+
+/**
+ * 排他网关，选择第一个条件成立的分支
+ */
+public class ExclusiveGateway extends FlowNode {
+
+    @Override
+    public String type() {
+        return FlowElementType.EXCLUSIVE_GATEWAY;
+    }
+}
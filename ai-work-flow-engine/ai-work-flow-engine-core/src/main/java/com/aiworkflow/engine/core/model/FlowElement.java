@@ -1,10 +1,24 @@
 package com.aiworkflow.engine.core.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import lombok.Data;
 
 import java.io.Serializable;
 
 @Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.EXISTING_PROPERTY,
+        property = "type", visible = true, defaultImpl = Task.class)
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = StartEvent.class, name = FlowElementType.START_EVENT),
+        @JsonSubTypes.Type(value = EndEvent.class, name = FlowElementType.END_EVENT),
+        @JsonSubTypes.Type(value = ExclusiveGateway.class, name = FlowElementType.EXCLUSIVE_GATEWAY),
+        @JsonSubTypes.Type(value = ParallelGateway.class, name = FlowElementType.PARALLEL_GATEWAY),
+        @JsonSubTypes.Type(value = SequenceFlow.class, name = FlowElementType.SEQUENCE_FLOW)
+})
 public abstract class FlowElement implements Serializable {
 
     private String key;
@@ -17,6 +31,7 @@ public abstract class FlowElement implements Serializable {
     // 画布上的坐标
     private int y;
 
+    @JsonProperty("type")
     public abstract String type();
 
     
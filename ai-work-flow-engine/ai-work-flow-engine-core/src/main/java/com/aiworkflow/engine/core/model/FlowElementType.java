@@ -0,0 +1,21 @@
+package com.aiworkflow.engine.core.model;
+
+/**
+ * 流程元素类型，与 ai_task_instance.task_type 取值保持一致
+ */
+public final class FlowElementType {
+
+    public static final String START_EVENT = "START_EVENT";
+    public static final String END_EVENT = "END_EVENT";
+    public static final String USER_TASK = "USER_TASK";
+    public static final String SERVICE_TASK = "SERVICE_TASK";
+    public static final String LLM_AGENT = "LLM_AGENT";
+    public static final String MCP_TOOL = "MCP_TOOL";
+    public static final String AI_DECISION = "AI_DECISION";
+    public static final String EXCLUSIVE_GATEWAY = "EXCLUSIVE_GATEWAY";
+    public static final String PARALLEL_GATEWAY = "PARALLEL_GATEWAY";
+    public static final String SEQUENCE_FLOW = "SEQUENCE_FLOW";
+
+    private FlowElementType() {
+    }
+}
@@ -0,0 +1,25 @@
+package com.aiworkflow.engine.core.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流程模型(对应 ai_flow_definition.flow_model)
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FlowModel implements Serializable {
+
+    private String key;
+
+    private String name;
+
+    private List<FlowElement> flowElements = new ArrayList<>();
+
+    // 可检索变量声明
+    private List<SearchableVariable> searchableVariables = new ArrayList<>();
+}
@@ -0,0 +1,17 @@
+package com.aiworkflow.engine.core.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.Map;
+
+/**
+ * 流程节点(除连线外的所有元素)
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public abstract class FlowNode extends FlowElement {
+
+    // 节点配置(对应 ai_task_instance.config_data)
+    private Map<String, Object> config;
+}
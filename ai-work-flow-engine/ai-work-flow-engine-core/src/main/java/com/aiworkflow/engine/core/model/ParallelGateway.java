@@ -0,0 +1,12 @@
+package com.aiworkflow.engine.core.model;
+
+/**
+ * 并行网关，多个出线时分叉，多个入线时汇聚
+ */
+public class ParallelGateway extends FlowNode {
+
+    @Override
+    public String type() {
+        return FlowElementType.PARALLEL_GATEWAY;
+    }
+}
@@ -0,0 +1,22 @@
+package com.aiworkflow.engine.core.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 流程声明的可检索变量，变量值会同步到 ai_instance_variable_index 供按变量查询实例
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SearchableVariable implements Serializable {
+
+    private String name;
+
+    private VariableType type = VariableType.STRING;
+}
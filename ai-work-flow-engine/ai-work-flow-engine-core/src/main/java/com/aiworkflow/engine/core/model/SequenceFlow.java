@@ -0,0 +1,24 @@
+package com.aiworkflow.engine.core.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 连线
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class SequenceFlow extends FlowElement {
+
+    private String sourceRef;
+
+    private String targetRef;
+
+    // 条件表达式，为空表示无条件(排他网关的默认分支)
+    private String conditionExpression;
+
+    @Override
+    public String type() {
+        return FlowElementType.SEQUENCE_FLOW;
+    }
+}
@@ -0,0 +1,12 @@
+package com.aiworkflow.engine.core.model;
+
+/**
+ * 开始事件
+ */
+public class StartEvent extends FlowNode {
+
+    @Override
+    public String type() {
+        return FlowElementType.START_EVENT;
+    }
+}
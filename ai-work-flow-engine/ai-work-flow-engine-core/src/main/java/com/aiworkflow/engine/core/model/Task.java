@@ -0,0 +1,21 @@
+package com.aiworkflow.engine.core.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 任务节点，taskType 为 USER_TASK、SERVICE_TASK、LLM_AGENT、MCP_TOOL、AI_DECISION 或 SPI 扩展的节点类型
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class Task extends FlowNode {
+
+    @JsonProperty("type")
+    private String taskType;
+
+    @Override
+    public String type() {
+        return taskType;
+    }
+}
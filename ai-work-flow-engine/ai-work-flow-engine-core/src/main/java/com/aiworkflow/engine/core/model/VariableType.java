@@ -0,0 +1,15 @@
+package com.aiworkflow.engine.core.model;
+
+/**
+ * 可检索变量的值类型，决定写入变量索引表的哪一列
+ */
+public enum VariableType {
+
+    STRING,
+
+    LONG,
+
+    DECIMAL,
+
+    DATE
+}
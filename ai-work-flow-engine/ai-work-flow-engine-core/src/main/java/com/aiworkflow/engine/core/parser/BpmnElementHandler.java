@@ -0,0 +1,26 @@
+package com.aiworkflow.engine.core.parser;
+
+import com.aiworkflow.engine.core.model.FlowElement;
+import com.aiworkflow.engine.core.model.SearchableVariable;
+
+/**
+ * BPMN 流式导入回调，元素按文档顺序逐个到达
+ */
+public interface BpmnElementHandler {
+
+    /**
+     * 读到 process 开始标签，先于该流程的所有元素
+     */
+    void onProcess(String key, String name);
+
+    /**
+     * 读完一个节点或连线
+     */
+    void onElement(FlowElement element);
+
+    /**
+     * 读到 process 级 extensionElements 下的可检索变量声明
+     */
+    default void onSearchableVariable(SearchableVariable variable) {
+    }
+}
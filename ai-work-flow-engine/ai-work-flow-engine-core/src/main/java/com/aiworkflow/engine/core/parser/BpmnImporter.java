@@ -0,0 +1,341 @@
+package com.aiworkflow.engine.core.parser;
+
+import com.aiworkflow.engine.core.exception.FlowCompileException;
+import com.aiworkflow.engine.core.graph.FlowGraph;
+import com.aiworkflow.engine.core.graph.FlowGraphBuilder;
+import com.aiworkflow.engine.core.model.*;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于 StAX 的流式 BPMN 导入器
+ * <p>
+ * 逐个读取 process 下的节点和连线，读完一个元素立即交给回调(通常直接进入 {@link FlowGraphBuilder})，
+ * 不构建整棵文档树，内存占用只与元素数量有关；BPMNDI 图形信息整段跳过。
+ * 任务节点的类型取自任意命名空间下的 type 属性(如 aiflow:type="LLM_AGENT")，缺省时 userTask 为 USER_TASK，
+ * 其余任务为 SERVICE_TASK；节点配置来自 extensionElements 下的 config(JSON 文本)和 property(name/value)。
+ * process 级 extensionElements 下的 searchableVariable(name/type)声明可检索变量，type 缺省为 STRING。
+ * <p>
+ * 实例线程安全，可作为单例复用。
+ */
+public class BpmnImporter {
+
+    private static final TypeReference<Map<String, Object>> CONFIG_TYPE = new TypeReference<>() {
+    };
+
+    private static final Set<String> TASK_ELEMENTS = Set.of(
+            "task", "userTask", "serviceTask", "scriptTask", "sendTask", "receiveTask", "manualTask", "businessRuleTask");
+
+    // process 下可以忽略的非流程元素
+    private static final Set<String> IGNORED_ELEMENTS = Set.of(
+            "documentation", "laneSet", "textAnnotation", "association",
+            "dataObject", "dataObjectReference", "dataStoreReference", "ioSpecification", "property");
+
+    private final XMLInputFactory inputFactory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public BpmnImporter() {
+        this.inputFactory = XMLInputFactory.newFactory();
+        // 禁止 DTD 和外部实体，避免 XXE
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    /**
+     * 导入并编译为 FlowGraph，元素直接进入构建器，不保留中间模型
+     */
+    public FlowGraph importGraph(InputStream in) {
+        GraphHandler handler = new GraphHandler();
+        parse(in, handler);
+        if (handler.builder == null) {
+            throw new BpmnParseException("文档中没有 process 元素", -1, -1);
+        }
+        return handler.builder.build();
+    }
+
+    /**
+     * 导入为 FlowModel(用于保存到 ai_flow_definition.flow_model)
+     */
+    public FlowModel importModel(InputStream in) {
+        FlowModel model = new FlowModel();
+        parse(in, new BpmnElementHandler() {
+            @Override
+            public void onProcess(String key, String name) {
+                model.setKey(key);
+                model.setName(name);
+            }
+
+            @Override
+            public void onElement(FlowElement element) {
+                model.getFlowElements().add(element);
+            }
+
+            @Override
+            public void onSearchableVariable(SearchableVariable variable) {
+                model.getSearchableVariables().add(variable);
+            }
+        });
+        if (model.getKey() == null) {
+            throw new BpmnParseException("文档中没有 process 元素", -1, -1);
+        }
+        return model;
+    }
+
+    /**
+     * 流式解析，每读完一个元素回调一次；回调抛出的 FlowCompileException 会补上当前元素的位置
+     */
+    public void parse(InputStream in, BpmnElementHandler handler) {
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(in);
+            boolean processSeen = false;
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String local = reader.getLocalName();
+                if ("process".equals(local)) {
+                    if (processSeen) {
+                        throw error(reader.getLocation(), "只支持单个 process");
+                    }
+                    processSeen = true;
+                    handler.onProcess(attr(reader, "id"), attr(reader, "name"));
+                    readProcess(reader, handler);
+                } else if ("BPMNDiagram".equals(local)) {
+                    skip(reader);
+                }
+            }
+        } catch (XMLStreamException e) {
+            Location location = e.getLocation();
+            throw new BpmnParseException(e.getMessage(), location != null ? location.getLineNumber() : -1,
+                    location != null ? location.getColumnNumber() : -1, e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // 关闭失败不影响解析结果
+                }
+            }
+        }
+    }
+
+    private void readProcess(XMLStreamReader reader, BpmnElementHandler handler) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                // process 结束
+                return;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+
+            Location location = reader.getLocation();
+            int line = location.getLineNumber();
+            int column = location.getColumnNumber();
+            String local = reader.getLocalName();
+            FlowElement element = switch (local) {
+                case "startEvent" -> readNode(reader, new StartEvent());
+                case "endEvent" -> readNode(reader, new EndEvent());
+                case "exclusiveGateway" -> readNode(reader, new ExclusiveGateway());
+                case "parallelGateway" -> readNode(reader, new ParallelGateway());
+                case "sequenceFlow" -> readSequenceFlow(reader);
+                case "extensionElements" -> {
+                    readProcessExtensions(reader, handler);
+                    yield null;
+                }
+                default -> {
+                    if (TASK_ELEMENTS.contains(local)) {
+                        Task task = new Task();
+                        String type = attr(reader, "type");
+                        task.setTaskType(type != null ? type
+                                : "userTask".equals(local) ? FlowElementType.USER_TASK : FlowElementType.SERVICE_TASK);
+                        yield readNode(reader, task);
+                    }
+                    if (IGNORED_ELEMENTS.contains(local)) {
+                        skip(reader);
+                        yield null;
+                    }
+                    throw error(location, "不支持的 BPMN 元素: " + local);
+                }
+            };
+            if (element == null) {
+                continue;
+            }
+            try {
+                handler.onElement(element);
+            } catch (BpmnParseException e) {
+                throw e;
+            } catch (FlowCompileException e) {
+                throw new BpmnParseException(e.getMessage(), line, column, e);
+            }
+        }
+    }
+
+    /**
+     * 读取节点属性和子元素，返回时 reader 停在节点的结束标签
+     */
+    private FlowNode readNode(XMLStreamReader reader, FlowNode node) throws XMLStreamException {
+        readCommon(reader, node);
+        Map<String, Object> config = null;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("extensionElements".equals(reader.getLocalName())) {
+                config = readExtensions(reader, config);
+            } else {
+                // incoming / outgoing / documentation 等
+                skip(reader);
+            }
+        }
+        node.setConfig(config);
+        return node;
+    }
+
+    private SequenceFlow readSequenceFlow(XMLStreamReader reader) throws XMLStreamException {
+        SequenceFlow flow = new SequenceFlow();
+        readCommon(reader, flow);
+        flow.setSourceRef(attr(reader, "sourceRef"));
+        flow.setTargetRef(attr(reader, "targetRef"));
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("conditionExpression".equals(reader.getLocalName())) {
+                flow.setConditionExpression(reader.getElementText().trim());
+            } else {
+                skip(reader);
+            }
+        }
+        return flow;
+    }
+
+    private Map<String, Object> readExtensions(XMLStreamReader reader, Map<String, Object> config) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String local = reader.getLocalName();
+            if ("config".equals(local)) {
+                Location location = reader.getLocation();
+                String json = reader.getElementText().trim();
+                if (!json.isEmpty()) {
+                    config = merge(config, parseConfig(json, location));
+                }
+            } else if ("property".equals(local)) {
+                String name = attr(reader, "name");
+                if (name == null) {
+                    throw error(reader.getLocation(), "property 缺少 name 属性");
+                }
+                config = merge(config, Map.of(name, attrOrEmpty(reader, "value")));
+                skip(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return config;
+    }
+
+    private void readProcessExtensions(XMLStreamReader reader, BpmnElementHandler handler) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("searchableVariable".equals(reader.getLocalName())) {
+                String name = attr(reader, "name");
+                if (name == null || name.isEmpty()) {
+                    throw error(reader.getLocation(), "searchableVariable 缺少 name 属性");
+                }
+                String type = attr(reader, "type");
+                VariableType variableType;
+                try {
+                    variableType = type != null ? VariableType.valueOf(type.toUpperCase()) : VariableType.STRING;
+                } catch (IllegalArgumentException e) {
+                    throw error(reader.getLocation(), "不支持的变量类型: " + type);
+                }
+                handler.onSearchableVariable(new SearchableVariable(name, variableType));
+            }
+            skip(reader);
+        }
+    }
+
+    private Map<String, Object> parseConfig(String json, Location location) {
+        try {
+            return objectMapper.readValue(json, CONFIG_TYPE);
+        } catch (Exception e) {
+            throw new BpmnParseException("节点配置不是合法的 JSON 对象: " + e.getMessage(),
+                    location.getLineNumber(), location.getColumnNumber(), e);
+        }
+    }
+
+    private static Map<String, Object> merge(Map<String, Object> config, Map<String, Object> values) {
+        if (config == null) {
+            config = new LinkedHashMap<>();
+        }
+        config.putAll(values);
+        return config;
+    }
+
+    private static void readCommon(XMLStreamReader reader, FlowElement element) {
+        String id = attr(reader, "id");
+        if (id == null || id.isEmpty()) {
+            throw error(reader.getLocation(), reader.getLocalName() + " 缺少 id 属性");
+        }
+        element.setKey(id);
+        element.setName(attr(reader, "name"));
+    }
+
+    /**
+     * 按本地名取属性，不区分命名空间(BPMN 属性通常无前缀，扩展属性带前缀)
+     */
+    private static String attr(XMLStreamReader reader, String localName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (localName.equals(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private static String attrOrEmpty(XMLStreamReader reader, String localName) {
+        String value = attr(reader, localName);
+        return value != null ? value : "";
+    }
+
+    /**
+     * 跳过当前元素的整个子树，返回时 reader 停在该元素的结束标签
+     */
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static BpmnParseException error(Location location, String message) {
+        return new BpmnParseException(message, location.getLineNumber(), location.getColumnNumber());
+    }
+
+    private static class GraphHandler implements BpmnElementHandler {
+
+        private FlowGraphBuilder builder;
+
+        @Override
+        public void onProcess(String key, String name) {
+            builder = new FlowGraphBuilder(key);
+        }
+
+        @Override
+        public void onElement(FlowElement element) {
+            builder.add(element);
+        }
+    }
+}
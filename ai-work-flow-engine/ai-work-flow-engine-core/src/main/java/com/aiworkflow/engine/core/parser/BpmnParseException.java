@@ -0,0 +1,31 @@
+package com.aiworkflow.engine.core.parser;
+
+import com.aiworkflow.engine.core.exception.FlowCompileException;
+
+/**
+ * BPMN 导入失败，带出错位置(行号、列号从 1 开始，未知时为 -1)
+ */
+public class BpmnParseException extends FlowCompileException {
+
+    private final int line;
+
+    private final int column;
+
+    public BpmnParseException(String message, int line, int column) {
+        this(message, line, column, null);
+    }
+
+    public BpmnParseException(String message, int line, int column, Throwable cause) {
+        super("第 " + line + " 行第 " + column + " 列: " + message, cause);
+        this.line = line;
+        this.column = column;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+}
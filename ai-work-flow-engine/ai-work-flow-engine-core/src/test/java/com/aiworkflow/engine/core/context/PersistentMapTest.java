@@ -0,0 +1,98 @@
+package com.aiworkflow.engine.core.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PersistentMap / ContextDelta 测试
+ */
+class PersistentMapTest {
+
+    @Test
+    void testRandomOperationsMatchHashMap() {
+        Random random = new Random(42);
+        Map<Object, Integer> expected = new HashMap<>();
+        PersistentMap<Object, Integer> map = PersistentMap.empty();
+        for (int i = 0; i < 20_000; i++) {
+            Object key = random.nextInt(4) == 0 ? new Colliding(random.nextInt(50)) : random.nextInt(3_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                int value = random.nextInt();
+                expected.put(key, value);
+                map = map.plus(key, value);
+            }
+        }
+        assertEquals(expected, map);
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.size(), map.entrySet().stream().count());
+    }
+
+    @Test
+    void testOldVersionIsUnchangedAndSharedWhenValueIsSame() {
+        PersistentMap<String, Object> v1 = PersistentMap.<String, Object>empty().plus("a", 1).plus("b", "x");
+        PersistentMap<String, Object> v2 = v1.plus("a", 2).minus("b");
+
+        assertEquals(Map.of("a", 1, "b", "x"), v1);
+        assertEquals(Map.of("a", 2), v2);
+        assertSame(v2, v2.plus("a", v2.get("a")));
+        assertSame(v2, v2.minus("missing"));
+    }
+
+    @Test
+    void testDiffReportsOnlyChangedKeys() {
+        Map<String, Object> initial = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            initial.put("k" + i, i);
+        }
+        PersistentMap<String, Object> base = PersistentMap.copyOf(initial);
+        PersistentMap<String, Object> current = base.plus("k1", "changed").minus("k2").plus("new", true)
+                .plus("k3", 3);
+
+        ContextDelta delta = ContextDelta.between(base, current);
+
+        assertEquals(Map.of("k1", "changed", "new", true), delta.getSet());
+        assertEquals(Set.of("k2"), delta.getRemoved());
+        assertTrue(ContextDelta.between(current, current).isEmpty());
+    }
+
+    @Test
+    void testDiffAcrossCollisionsAndRemovalToEmpty() {
+        PersistentMap<Object, Object> base = PersistentMap.empty().plus(new Colliding(1), "a").plus(new Colliding(2), "b");
+        PersistentMap<Object, Object> current = base.minus(new Colliding(1)).plus(new Colliding(3), "c");
+        Map<Object, Object> changes = new HashMap<>();
+        PersistentMap.diff(base, current, (key, oldValue, newValue) -> changes.put(key, String.valueOf(newValue)));
+
+        assertEquals(Map.of(new Colliding(1), "null", new Colliding(3), "c"), changes);
+        assertTrue(current.minus(new Colliding(2)).minus(new Colliding(3)).isEmpty());
+    }
+
+    @Test
+    void testThenMergesLaterOverEarlier() {
+        PersistentMap<String, Object> v0 = PersistentMap.<String, Object>empty().plus("a", 1);
+        PersistentMap<String, Object> v1 = v0.minus("a").plus("b", 1);
+        PersistentMap<String, Object> v2 = v1.plus("a", 2).minus("b");
+
+        ContextDelta merged = ContextDelta.between(v0, v1).then(ContextDelta.between(v1, v2));
+
+        assertEquals(Map.of("a", 2), merged.getSet());
+        assertEquals(Set.of("b"), merged.getRemoved());
+    }
+
+    /**
+     * 所有实例哈希相同，用于覆盖冲突节点
+     */
+    private record Colliding(int id) {
+        @Override
+        public int hashCode() {
+            return 7;
+        }
+    }
+}
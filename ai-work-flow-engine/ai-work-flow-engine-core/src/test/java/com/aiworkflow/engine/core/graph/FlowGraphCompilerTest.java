@@ -0,0 +1,98 @@
+package com.aiworkflow.engine.core.graph;
+
+import com.aiworkflow.engine.core.exception.FlowCompileException;
+import com.aiworkflow.engine.core.model.FlowElementType;
+import com.aiworkflow.engine.core.model.FlowModel;
+import com.aiworkflow.engine.core.model.Task;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FlowGraphCompiler 测试
+ */
+class FlowGraphCompilerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // start -> fork -> (a, b) -> join -> end
+    private static final String FORK_JOIN_MODEL = """
+            {
+              "key": "fork_join",
+              "name": "并行示例",
+              "flowElements": [
+                {"type": "START_EVENT", "key": "start", "x": 10, "y": 10},
+                {"type": "PARALLEL_GATEWAY", "key": "fork"},
+                {"type": "LLM_AGENT", "key": "a", "name": "分析", "config": {"model": "gpt-4"}},
+                {"type": "MCP_TOOL", "key": "b"},
+                {"type": "PARALLEL_GATEWAY", "key": "join"},
+                {"type": "END_EVENT", "key": "end"},
+                {"type": "SEQUENCE_FLOW", "key": "f5", "sourceRef": "join", "targetRef": "end"},
+                {"type": "SEQUENCE_FLOW", "key": "f1", "sourceRef": "start", "targetRef": "fork"},
+                {"type": "SEQUENCE_FLOW", "key": "f2", "sourceRef": "fork", "targetRef": "a"},
+                {"type": "SEQUENCE_FLOW", "key": "f3", "sourceRef": "fork", "targetRef": "b"},
+                {"type": "SEQUENCE_FLOW", "key": "f4", "sourceRef": "a", "targetRef": "join"},
+                {"type": "SEQUENCE_FLOW", "key": "f6", "sourceRef": "b", "targetRef": "join"}
+              ]
+            }
+            """;
+
+    @Test
+    void testCompileForkJoin() throws Exception {
+        FlowModel model = objectMapper.readValue(FORK_JOIN_MODEL, FlowModel.class);
+        FlowGraph graph = FlowGraphCompiler.compile(model);
+
+        assertEquals(6, graph.nodeCount());
+        assertEquals(6, graph.edgeCount());
+        assertEquals("start", graph.nodeKey(graph.startNode()));
+
+        int fork = graph.indexOf("fork");
+        int join = graph.indexOf("join");
+        int a = graph.indexOf("a");
+        assertEquals(2, graph.outDegree(fork));
+        assertEquals(1, graph.joinCount(fork));
+        assertEquals(2, graph.joinCount(join));
+        assertTrue(graph.isJoin(join));
+        assertEquals(NodeKind.TASK, graph.nodeKind(a));
+        assertEquals(FlowElementType.LLM_AGENT, graph.nodeType(a));
+        assertEquals("gpt-4", graph.nodeConfig(a).get("model"));
+
+        // 出线连续存储，目标按模型中的顺序
+        int e = graph.outStart(fork);
+        assertEquals(a, graph.edgeTarget(e));
+        assertEquals(graph.indexOf("b"), graph.edgeTarget(e + 1));
+
+        // 入线指回源节点
+        for (int i = 0; i < graph.inDegree(join); i++) {
+            assertEquals(join, graph.edgeTarget(graph.inEdge(join, i)));
+        }
+        assertEquals(-1, graph.indexOf("missing"));
+    }
+
+    @Test
+    void testTaskTypeRoundTrip() throws Exception {
+        FlowModel model = objectMapper.readValue(FORK_JOIN_MODEL, FlowModel.class);
+        String json = objectMapper.writeValueAsString(model);
+        FlowModel copy = objectMapper.readValue(json, FlowModel.class);
+
+        Task task = (Task) copy.getFlowElements().get(2);
+        assertEquals(FlowElementType.LLM_AGENT, task.getTaskType());
+        assertEquals(model.getFlowElements(), copy.getFlowElements());
+    }
+
+    @Test
+    void testDanglingReference() throws Exception {
+        FlowModel model = objectMapper.readValue(FORK_JOIN_MODEL.replace("\"targetRef\": \"end\"", "\"targetRef\": \"nowhere\""),
+                FlowModel.class);
+        FlowCompileException e = assertThrows(FlowCompileException.class, () -> FlowGraphCompiler.compile(model));
+        assertTrue(e.getMessage().contains("nowhere"));
+    }
+
+    @Test
+    void testMissingOutgoing() throws Exception {
+        FlowModel model = objectMapper.readValue(FORK_JOIN_MODEL.replace("\"sourceRef\": \"b\"", "\"sourceRef\": \"a\""),
+                FlowModel.class);
+        assertThrows(FlowCompileException.class, () -> FlowGraphCompiler.compile(model));
+    }
+}
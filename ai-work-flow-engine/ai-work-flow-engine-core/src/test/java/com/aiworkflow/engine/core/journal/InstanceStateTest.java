@@ -0,0 +1,81 @@
+package com.aiworkflow.engine.core.journal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InstanceState 重放测试
+ */
+class InstanceStateTest {
+
+    @Test
+    void testSnapshotPlusTailEqualsFullReplay() {
+        List<JournalEvent> events = forkJoinEvents();
+        InstanceState full = replay(new InstanceState(1L), events);
+
+        for (int cut = 0; cut <= events.size(); cut++) {
+            InstanceState snapshot = replay(new InstanceState(1L), events.subList(0, cut)).copy();
+            InstanceState recovered = replay(snapshot, events.subList(cut, events.size()));
+            assertEquals(full, recovered, "快照位置 " + cut);
+        }
+        assertEquals("COMPLETED", full.getStatus());
+        assertEquals(Map.of("input", "x", "a", 1, "b", 2), full.getVariables());
+        assertEquals(Map.of(1L, "end"), full.getExecutions());
+        assertTrue(full.getRunningTasks().isEmpty());
+    }
+
+    @Test
+    void testApplyIsIdempotent() {
+        List<JournalEvent> events = forkJoinEvents();
+        InstanceState once = replay(new InstanceState(1L), events);
+        InstanceState twice = replay(replay(new InstanceState(1L), events), events);
+        assertEquals(once, twice);
+        assertEquals(events.size(), once.getLastSeq());
+    }
+
+    @Test
+    void testLateEventOfJoinedBranchIsIgnored() {
+        List<JournalEvent> events = new ArrayList<>(forkJoinEvents().subList(0, 10));
+        // 汇聚之后子执行 2 的迟到移动
+        events.add(event(JournalEventType.TOKEN_MOVED, 2L, "b", null));
+        InstanceState state = replay(new InstanceState(1L), events);
+        assertFalse(state.getExecutions().containsKey(2L));
+    }
+
+    private static InstanceState replay(InstanceState state, List<JournalEvent> events) {
+        events.forEach(state::apply);
+        return state;
+    }
+
+    private static List<JournalEvent> forkJoinEvents() {
+        List<JournalEvent> events = new ArrayList<>();
+        events.add(event(JournalEventType.INSTANCE_STARTED, 1L, null, Map.of("flowKey", "fork_join", "variables", Map.of("input", "x"))));
+        events.add(event(JournalEventType.TOKEN_MOVED, 1L, "fork", null));
+        events.add(event(JournalEventType.EXECUTION_FORKED, 1L, "fork", Map.of("children", List.of(2, 3))));
+        events.add(event(JournalEventType.TOKEN_MOVED, 2L, "a", null));
+        events.add(event(JournalEventType.TOKEN_MOVED, 3L, "b", null));
+        events.add(event(JournalEventType.TASK_STARTED, 2L, "a", null));
+        events.add(event(JournalEventType.TASK_STARTED, 3L, "b", null));
+        events.add(event(JournalEventType.VARIABLES_SET, 3L, null, Map.of("set", Map.of("b", 2), "removed", List.of())));
+        events.add(event(JournalEventType.TASK_COMPLETED, 3L, "b", null));
+        events.add(event(JournalEventType.EXECUTION_JOINED, 1L, "join", null));
+        events.add(event(JournalEventType.VARIABLES_SET, 2L, null, Map.of("set", Map.of("a", 1, "tmp", 0), "removed", List.of())));
+        events.add(event(JournalEventType.VARIABLES_SET, 2L, null, Map.of("set", Map.of(), "removed", List.of("tmp"))));
+        events.add(event(JournalEventType.TASK_COMPLETED, 2L, "a", null));
+        events.add(event(JournalEventType.TOKEN_MOVED, 1L, "end", null));
+        events.add(event(JournalEventType.INSTANCE_ENDED, null, null, Map.of("status", "COMPLETED")));
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).setSeq(i + 1);
+        }
+        return events;
+    }
+
+    private static JournalEvent event(JournalEventType type, Long executionId, String nodeKey, Map<String, Object> payload) {
+        return JournalEvent.of(type, 1L, executionId, nodeKey, payload);
+    }
+}
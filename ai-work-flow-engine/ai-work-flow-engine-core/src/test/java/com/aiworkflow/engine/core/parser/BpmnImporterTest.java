@@ -0,0 +1,148 @@
+package com.aiworkflow.engine.core.parser;
+
+import com.aiworkflow.engine.core.graph.FlowGraph;
+import com.aiworkflow.engine.core.graph.FlowGraphCompiler;
+import com.aiworkflow.engine.core.graph.NodeKind;
+import com.aiworkflow.engine.core.model.FlowModel;
+import com.aiworkflow.engine.core.model.SearchableVariable;
+import com.aiworkflow.engine.core.model.VariableType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BpmnImporter 测试
+ */
+class BpmnImporterTest {
+
+    private final BpmnImporter importer = new BpmnImporter();
+
+    private static final String ORDER_BPMN = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <bpmn:definitions xmlns:bpmn="http://www.omg.org/spec/BPMN/20100524/MODEL"
+                              xmlns:bpmndi="http://www.omg.org/spec/BPMN/20100524/DI"
+                              xmlns:dc="http://www.omg.org/spec/DD/20100524/DC"
+                              xmlns:aiflow="http://aiworkflow.com/schema/bpmn">
+              <bpmn:process id="order_review" name="订单审核">
+                <bpmn:documentation>示例流程</bpmn:documentation>
+                <bpmn:extensionElements>
+                  <aiflow:searchableVariable name="customer_id"/>
+                  <aiflow:searchableVariable name="amount" type="decimal"/>
+                </bpmn:extensionElements>
+                <bpmn:sequenceFlow id="f1" sourceRef="start" targetRef="review"/>
+                <bpmn:startEvent id="start"><bpmn:outgoing>f1</bpmn:outgoing></bpmn:startEvent>
+                <bpmn:serviceTask id="review" name="AI 审核" aiflow:type="LLM_AGENT">
+                  <bpmn:extensionElements>
+                    <aiflow:config><![CDATA[{"model": "gpt-4", "temperature": 0.2}]]></aiflow:config>
+                    <aiflow:property name="prompt" value="审核订单"/>
+                  </bpmn:extensionElements>
+                </bpmn:serviceTask>
+                <bpmn:exclusiveGateway id="gw"/>
+                <bpmn:userTask id="manual" name="人工复核"/>
+                <bpmn:endEvent id="end"/>
+                <bpmn:sequenceFlow id="f2" sourceRef="review" targetRef="gw"/>
+                <bpmn:sequenceFlow id="f3" sourceRef="gw" targetRef="manual">
+                  <bpmn:conditionExpression>${amount > 1000}</bpmn:conditionExpression>
+                </bpmn:sequenceFlow>
+                <bpmn:sequenceFlow id="f4" sourceRef="gw" targetRef="end"/>
+                <bpmn:sequenceFlow id="f5" sourceRef="manual" targetRef="end"/>
+              </bpmn:process>
+              <bpmndi:BPMNDiagram id="diagram">
+                <bpmndi:BPMNPlane id="plane" bpmnElement="order_review">
+                  <bpmndi:BPMNShape id="start_di" bpmnElement="start"><dc:Bounds x="10" y="10" width="36" height="36"/></bpmndi:BPMNShape>
+                </bpmndi:BPMNPlane>
+              </bpmndi:BPMNDiagram>
+            </bpmn:definitions>
+            """;
+
+    @Test
+    void testImportGraph() {
+        FlowGraph graph = importer.importGraph(stream(ORDER_BPMN));
+
+        assertEquals("order_review", graph.flowKey());
+        assertEquals(5, graph.nodeCount());
+        assertEquals(5, graph.edgeCount());
+        int review = graph.indexOf("review");
+        assertEquals("LLM_AGENT", graph.nodeType(review));
+        assertEquals(NodeKind.TASK, graph.nodeKind(review));
+        assertEquals(Map.of("model", "gpt-4", "temperature", 0.2, "prompt", "审核订单"), graph.nodeConfig(review));
+        assertEquals("USER_TASK", graph.nodeType(graph.indexOf("manual")));
+
+        int gw = graph.indexOf("gw");
+        String condition = null;
+        for (int e = graph.outStart(gw); e < graph.outEnd(gw); e++) {
+            if ("f3".equals(graph.edgeKey(e))) {
+                condition = graph.edgeCondition(e);
+            }
+        }
+        assertEquals("${amount > 1000}", condition);
+    }
+
+    @Test
+    void testImportModelRoundTripsThroughJson() throws Exception {
+        FlowModel model = importer.importModel(stream(ORDER_BPMN));
+        assertEquals("订单审核", model.getName());
+        assertEquals(10, model.getFlowElements().size());
+        assertEquals(List.of(new SearchableVariable("customer_id", VariableType.STRING),
+                new SearchableVariable("amount", VariableType.DECIMAL)), model.getSearchableVariables());
+
+        // 导入结果以 JSON 保存到 flow_model，读回后仍能编译
+        ObjectMapper objectMapper = new ObjectMapper();
+        FlowModel restored = objectMapper.readValue(objectMapper.writeValueAsString(model), FlowModel.class);
+        assertEquals("LLM_AGENT", FlowGraphCompiler.compile(restored).nodeType(1));
+        assertEquals(model.getSearchableVariables(), restored.getSearchableVariables());
+    }
+
+    @Test
+    void testMalformedXmlReportsLocation() {
+        String xml = """
+                <definitions>
+                  <process id="p">
+                    <startEvent id="start">
+                  </process>
+                </definitions>
+                """;
+        BpmnParseException e = assertThrows(BpmnParseException.class, () -> importer.importGraph(stream(xml)));
+        assertEquals(4, e.getLine());
+        assertTrue(e.getColumn() > 0);
+    }
+
+    @Test
+    void testDuplicateKeyReportsLocation() {
+        String xml = """
+                <definitions>
+                  <process id="p">
+                    <startEvent id="start"/>
+                    <endEvent id="start"/>
+                  </process>
+                </definitions>
+                """;
+        BpmnParseException e = assertThrows(BpmnParseException.class, () -> importer.importGraph(stream(xml)));
+        assertEquals(4, e.getLine());
+        assertTrue(e.getMessage().contains("节点 key 重复"));
+    }
+
+    @Test
+    void testUnsupportedElement() {
+        String xml = """
+                <definitions>
+                  <process id="p">
+                    <subProcess id="sub"/>
+                  </process>
+                </definitions>
+                """;
+        BpmnParseException e = assertThrows(BpmnParseException.class, () -> importer.importGraph(stream(xml)));
+        assertEquals(3, e.getLine());
+    }
+
+    private static InputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.strip().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,110 @@
+package com.aiworkflow.engine.journal;
+
+import com.aiworkflow.engine.core.journal.EventJournal;
+import com.aiworkflow.engine.core.journal.InstanceState;
+import com.aiworkflow.engine.core.journal.JournalEvent;
+import com.aiworkflow.engine.core.journal.JournalEventType;
+import com.aiworkflow.engine.journal.entity.AiInstanceEvent;
+import com.aiworkflow.engine.journal.entity.AiInstanceSnapshot;
+import com.aiworkflow.engine.journal.mapper.InstanceJournalMapper;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于 ai_instance_event / ai_instance_snapshot 的事件日志
+ * <p>
+ * 一批事件用一条多行 INSERT 写入，(instance_id, seq) 唯一键保证同一序号不会写两次；
+ * 快照只保留最近 snapshotsToKeep 个，更早的事件仍保留在日志中，供投影和审计使用。
+ * 引擎服务用它追加事件和保存快照，定义服务用它读取日志并投影到读模型，两边通过同一组表交换数据。
+ */
+public class JdbcEventJournal implements EventJournal {
+
+    public static final int DEFAULT_SNAPSHOTS_TO_KEEP = 2;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final InstanceJournalMapper journalMapper;
+
+    private final int snapshotsToKeep;
+
+    public JdbcEventJournal(InstanceJournalMapper journalMapper) {
+        this(journalMapper, DEFAULT_SNAPSHOTS_TO_KEEP);
+    }
+
+    public JdbcEventJournal(InstanceJournalMapper journalMapper, int snapshotsToKeep) {
+        this.journalMapper = journalMapper;
+        this.snapshotsToKeep = Math.max(1, snapshotsToKeep);
+    }
+
+    @Override
+    public void append(long instanceId, List<JournalEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<AiInstanceEvent> rows = new ArrayList<>(events.size());
+        for (JournalEvent event : events) {
+            rows.add(toRow(event));
+        }
+        journalMapper.insertEvents(rows);
+    }
+
+    @Override
+    public List<JournalEvent> read(long instanceId, long afterSeq) {
+        List<AiInstanceEvent> rows = journalMapper.selectEvents(instanceId, afterSeq);
+        List<JournalEvent> events = new ArrayList<>(rows.size());
+        for (AiInstanceEvent row : rows) {
+            events.add(toEvent(row));
+        }
+        return events;
+    }
+
+    @Override
+    public void saveSnapshot(InstanceState state) {
+        journalMapper.insertSnapshot(state.getInstanceId(), state.getLastSeq(), state);
+        journalMapper.deleteOldSnapshots(state.getInstanceId(), snapshotsToKeep);
+    }
+
+    @Override
+    public InstanceState loadSnapshot(long instanceId) {
+        AiInstanceSnapshot snapshot = journalMapper.selectLatestSnapshot(instanceId);
+        if (snapshot == null || snapshot.getState() == null) {
+            return null;
+        }
+        return objectMapper.convertValue(snapshot.getState(), InstanceState.class);
+    }
+
+    static AiInstanceEvent toRow(JournalEvent event) {
+        AiInstanceEvent row = new AiInstanceEvent();
+        row.setInstanceId(event.getInstanceId());
+        row.setSeq(event.getSeq());
+        row.setEventType(event.getType().name());
+        row.setExecutionId(event.getExecutionId());
+        row.setNodeKey(event.getNodeKey());
+        row.setPayload(event.getPayload());
+        row.setEventTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(event.getTimestamp()), ZoneId.systemDefault()));
+        return row;
+    }
+
+    @SuppressWarnings("unchecked")
+    static JournalEvent toEvent(AiInstanceEvent row) {
+        JournalEvent event = new JournalEvent();
+        event.setInstanceId(row.getInstanceId());
+        event.setSeq(row.getSeq());
+        event.setType(JournalEventType.valueOf(row.getEventType()));
+        event.setExecutionId(row.getExecutionId());
+        event.setNodeKey(row.getNodeKey());
+        event.setPayload((Map<String, Object>) row.getPayload());
+        if (row.getEventTime() != null) {
+            event.setTimestamp(row.getEventTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        return event;
+    }
+}
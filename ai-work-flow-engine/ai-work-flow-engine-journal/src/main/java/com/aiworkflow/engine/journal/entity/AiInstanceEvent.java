@@ -0,0 +1,33 @@
+package com.aiworkflow.engine.journal.entity;
+
+import com.aiworkflow.common.orm.handler.BinaryJsonTypeHandler;
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@TableName(value = "ai_instance_event", autoResultMap = true)
+@Data
+public class AiInstanceEvent {
+
+    @TableId(type = IdType.AUTO)
+    private Long id; // 主键ID(全局追加顺序)
+
+    private Long instanceId; // 流程实例ID
+
+    private Long seq; // 实例内序号
+
+    private String eventType; // 事件类型
+
+    private Long executionId; // 执行ID
+
+    private String nodeKey; // 节点标识
+
+    @TableField(typeHandler = BinaryJsonTypeHandler.class)
+    private Object payload; // 事件数据
+
+    private LocalDateTime eventTime; // 事件发生时间
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createAt; // 创建时间
+}
@@ -0,0 +1,24 @@
+package com.aiworkflow.engine.journal.entity;
+
+import com.aiworkflow.common.orm.handler.BinaryJsonTypeHandler;
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@TableName(value = "ai_instance_snapshot", autoResultMap = true)
+@Data
+public class AiInstanceSnapshot {
+
+    private Long instanceId; // 流程实例ID
+
+    private Long seq; // 快照包含的最后一个事件序号
+
+    @TableField(typeHandler = BinaryJsonTypeHandler.class)
+    private Object state; // 重放状态
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createAt; // 创建时间
+}
@@ -0,0 +1,66 @@
+package com.aiworkflow.engine.journal.mapper;
+
+import com.aiworkflow.engine.journal.entity.AiInstanceEvent;
+import com.aiworkflow.engine.journal.entity.AiInstanceSnapshot;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 实例事件日志(ai_instance_event)、快照(ai_instance_snapshot)和投影进度(ai_journal_checkpoint)
+ */
+@Mapper
+public interface InstanceJournalMapper {
+
+    /**
+     * 一条多行 INSERT 写入一批事件，(instance_id, seq) 冲突时整条失败
+     */
+    int insertEvents(@Param("events") List<AiInstanceEvent> events);
+
+    List<AiInstanceEvent> selectEvents(@Param("instanceId") long instanceId, @Param("afterSeq") long afterSeq);
+
+    /**
+     * 按全局追加顺序读取，供投影器使用
+     */
+    List<AiInstanceEvent> selectEventsAfterId(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 多个实例中指定类型的事件，按实例和序号排序
+     */
+    List<AiInstanceEvent> selectEventsByType(@Param("instanceIds") Collection<Long> instanceIds,
+                                             @Param("eventType") String eventType);
+
+    int insertSnapshot(@Param("instanceId") long instanceId, @Param("seq") long seq, @Param("state") Object state);
+
+    /**
+     * 最近一个快照，没有时返回 null
+     */
+    AiInstanceSnapshot selectLatestSnapshot(@Param("instanceId") long instanceId);
+
+    /**
+     * 只保留 seq 最大的 keep 个快照
+     */
+    int deleteOldSnapshots(@Param("instanceId") long instanceId, @Param("keep") int keep);
+
+    /**
+     * 投影进度行不存在时插入(从 0 开始)，已存在时不修改
+     */
+    int insertCheckpointIfAbsent(@Param("name") String name);
+
+    /**
+     * 读取并锁定投影进度行，锁持续到当前事务结束；多个节点上的投影器借此串行
+     */
+    Long selectCheckpointForUpdate(@Param("name") String name);
+
+    int updateCheckpoint(@Param("name") String name, @Param("lastEventId") long lastEventId);
+
+    /**
+     * (afterId, upToId] 范围内写入时间早于 settleSeconds 秒前的最大事件 ID，没有时返回 null
+     * <p>
+     * 自增 ID 在插入时分配、提交时才可见，ID 更小的事件可能晚提交；写入已超过该时长的事件之前的 ID 都已提交或回滚。
+     */
+    Long selectSettledEventId(@Param("afterId") long afterId, @Param("upToId") long upToId,
+                              @Param("settleSeconds") long settleSeconds);
+}
@@ -0,0 +1,17 @@
+package com.aiworkflow.service.agent;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+
+@Slf4j
+@SpringBootApplication
+@EnableDiscoveryClient
+public class AiAgentApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(AiAgentApplication.class, args);
+        log.info("server start");
+    }
+}
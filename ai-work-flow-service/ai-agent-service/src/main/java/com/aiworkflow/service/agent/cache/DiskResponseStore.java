@@ -0,0 +1,229 @@
+package com.aiworkflow.service.agent.cache;
+
+import com.aiworkflow.common.core.util.DigestKey;
+import com.aiworkflow.service.agent.llm.LlmResponse;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 响应缓存的本地磁盘层
+ * <p>
+ * 每个条目一个 JSON 文件，路径为 {directory}/{摘要前两位}/{摘要}.json，先写临时文件再原子改名，
+ * 读到的要么是完整旧值要么是完整新值。条目的写入时间即文件修改时间，超过 ttl 视为过期；
+ * 过期和超出占用上限的文件由 {@link #sweep()} 删除。多个进程共用同一目录是安全的。
+ */
+@Slf4j
+public class DiskResponseStore {
+
+    private static final String SUFFIX = ".json";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Path directory;
+
+    private final Duration ttl;
+
+    private final long maxBytes;
+
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    private final LongAdder writeFailures = new LongAdder();
+
+    private final LongAdder corruptEntries = new LongAdder();
+
+    private final LongAdder expiredDeleted = new LongAdder();
+
+    private final LongAdder evictedDeleted = new LongAdder();
+
+    private volatile long entryCount;
+
+    private volatile long totalBytes;
+
+    public DiskResponseStore(Path directory, Duration ttl, long maxBytes) {
+        this.directory = directory;
+        this.ttl = ttl;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建缓存目录: " + directory, e);
+        }
+    }
+
+    /**
+     * 读取未过期的条目，不存在、已过期或文件损坏时返回 null
+     */
+    public LlmResponse get(DigestKey digest) {
+        Path file = pathOf(digest);
+        try {
+            if (isExpired(Files.getLastModifiedTime(file).toMillis())) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            return objectMapper.readValue(file.toFile(), LlmResponse.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            corruptEntries.increment();
+            log.warn("缓存文件损坏，已删除: {}", file, e);
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    /**
+     * 写入条目，失败只记日志(缓存写失败不影响本次调用)
+     */
+    public void put(DigestKey digest, LlmResponse response) {
+        Path file = pathOf(digest);
+        Path temp = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            Files.createDirectories(file.getParent());
+            objectMapper.writeValue(temp.toFile(), response);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            writeFailures.increment();
+            log.warn("写入缓存文件失败: {}", file, e);
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * 删除过期条目和残留的临时文件，再按写入时间从旧到新删除直到占用不超过上限；返回删除的条目数。
+     * 已有一轮在运行时直接返回 0
+     */
+    public int sweep() {
+        if (!sweepLock.tryLock()) {
+            return 0;
+        }
+        try {
+            List<Entry> live = new ArrayList<>();
+            int deleted = 0;
+            try (Stream<Path> files = Files.walk(directory, 2)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    boolean entry = name.endsWith(SUFFIX);
+                    if (!entry && !name.endsWith(TEMP_SUFFIX)) {
+                        continue;
+                    }
+                    BasicFileAttributes attributes = readAttributes(file);
+                    if (attributes == null || !attributes.isRegularFile()) {
+                        continue;
+                    }
+                    long modified = attributes.lastModifiedTime().toMillis();
+                    if (isExpired(modified)) {
+                        if (deleteQuietly(file) && entry) {
+                            deleted++;
+                            expiredDeleted.increment();
+                        }
+                    } else if (entry) {
+                        live.add(new Entry(file, modified, attributes.size()));
+                    }
+                }
+            }
+
+            long bytes = live.stream().mapToLong(Entry::size).sum();
+            if (bytes > maxBytes) {
+                live.sort(Comparator.comparingLong(Entry::modified));
+                int index = 0;
+                while (bytes > maxBytes && index < live.size()) {
+                    Entry oldest = live.get(index++);
+                    if (deleteQuietly(oldest.file())) {
+                        bytes -= oldest.size();
+                        deleted++;
+                        evictedDeleted.increment();
+                    }
+                }
+                live = live.subList(index, live.size());
+            }
+            entryCount = live.size();
+            totalBytes = bytes;
+            return deleted;
+        } catch (IOException e) {
+            throw new UncheckedIOException("清理缓存目录失败: " + directory, e);
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * 删除所有条目
+     */
+    public void clear() {
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            files.filter(Files::isRegularFile).forEach(DiskResponseStore::deleteQuietly);
+        } catch (IOException e) {
+            throw new UncheckedIOException("清空缓存目录失败: " + directory, e);
+        }
+        entryCount = 0;
+        totalBytes = 0;
+    }
+
+    /**
+     * 磁盘层统计；条目数和占用取自最近一次清理
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("directory", directory.toString());
+        stats.put("entryCount", entryCount);
+        stats.put("totalBytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("expiredDeleted", expiredDeleted.sum());
+        stats.put("evictedDeleted", evictedDeleted.sum());
+        stats.put("corruptEntries", corruptEntries.sum());
+        stats.put("writeFailures", writeFailures.sum());
+        return stats;
+    }
+
+    Path pathOf(DigestKey digest) {
+        String hex = digest.hex();
+        return directory.resolve(hex.substring(0, 2)).resolve(hex + SUFFIX);
+    }
+
+    private boolean isExpired(long modifiedMillis) {
+        return System.currentTimeMillis() - modifiedMillis > ttl.toMillis();
+    }
+
+    private static BasicFileAttributes readAttributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // 并发清理或改名时文件可能已消失
+            return null;
+        }
+    }
+
+    private static boolean deleteQuietly(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除缓存文件失败: {}", file, e);
+            return false;
+        }
+    }
+
+    private record Entry(Path file, long modified, long size) {
+    }
+}
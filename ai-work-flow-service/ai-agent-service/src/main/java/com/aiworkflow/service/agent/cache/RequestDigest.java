@@ -0,0 +1,67 @@
+package com.aiworkflow.service.agent.cache;
+
+import com.aiworkflow.common.core.util.DigestKey;
+import com.aiworkflow.service.agent.llm.LlmRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 解析后请求的规范化摘要({@link DigestKey})
+ * <p>
+ * 只取影响模型输出的字段，按键排序序列化为 JSON 后取 SHA-256；数值统一为最简十进制(0 与 0.0 相同)，
+ * 空字段不参与。字段集合或规范化规则变化时递增 {@link #FORMAT}，旧的缓存条目自然失效。
+ */
+public final class RequestDigest {
+
+    static final int FORMAT = 1;
+
+    private static final ObjectMapper canonicalMapper = new ObjectMapper();
+
+    private RequestDigest() {
+    }
+
+    public static DigestKey of(LlmRequest request) {
+        return DigestKey.of(canonicalBytes(request));
+    }
+
+    /**
+     * 规范化后的请求内容(用于排查两个请求为何没有命中同一条目)
+     */
+    static byte[] canonicalBytes(LlmRequest request) {
+        // TreeMap 保证字段按键排序
+        Map<String, Object> canonical = new TreeMap<>();
+        canonical.put("format", FORMAT);
+        putIfPresent(canonical, "model", request.getModel());
+        putIfPresent(canonical, "systemPrompt", emptyToNull(request.getSystemPrompt()));
+        putIfPresent(canonical, "prompt", request.getPrompt());
+        putIfPresent(canonical, "temperature", normalize(request.getTemperature()));
+        putIfPresent(canonical, "topP", normalize(request.getTopP()));
+        putIfPresent(canonical, "maxTokens", request.getMaxTokens());
+        if (request.getStop() != null && !request.getStop().isEmpty()) {
+            canonical.put("stop", request.getStop());
+        }
+        try {
+            return canonicalMapper.writeValueAsBytes(canonical);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("请求规范化失败", e);
+        }
+    }
+
+    private static void putIfPresent(Map<String, Object> canonical, String key, Object value) {
+        if (value != null) {
+            canonical.put(key, value);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static String normalize(Double value) {
+        return value != null ? BigDecimal.valueOf(value).stripTrailingZeros().toPlainString() : null;
+    }
+}
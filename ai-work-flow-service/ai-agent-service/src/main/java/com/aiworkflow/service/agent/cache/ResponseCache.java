@@ -0,0 +1,209 @@
+package com.aiworkflow.service.agent.cache;
+
+import com.aiworkflow.common.core.util.DigestKey;
+import com.aiworkflow.service.agent.llm.LlmClient;
+import com.aiworkflow.service.agent.llm.LlmRequest;
+import com.aiworkflow.service.agent.llm.LlmResponse;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 模型响应缓存
+ * <p>
+ * 按解析后请求的规范化摘要({@link RequestDigest})缓存，分两层：
+ * <ul>
+ *     <li>内存层：Caffeine 异步缓存，按条目数淘汰、写入后 ttl 过期。缓存的是 future，
+ *     相同请求并发到达时只有第一个发起加载，其余等待同一个 future(single-flight)</li>
+ *     <li>磁盘层：内存未命中时先查本地文件，仍未命中才调用模型，成功后异步写回磁盘</li>
+ * </ul>
+ * 调用失败的 future 会被 Caffeine 自动移除，失败结果不缓存。返回给调用方的是共享 future 的副本，
+ * 单个调用方超时取消不会影响其他等待者，也不会中止已经发出的模型请求。
+ */
+@Slf4j
+@Component
+public class ResponseCache {
+
+    private final LlmClient client;
+
+    private final ResponseCacheProperties properties;
+
+    private final AsyncCache<DigestKey, LlmResponse> memory;
+
+    // 未启用磁盘层时为 null
+    private final DiskResponseStore disk;
+
+    // 磁盘读写在虚拟线程上进行，不占用调用线程和 HttpClient 的回调线程
+    private final ExecutorService ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ScheduledExecutorService sweeper;
+
+    private final LongAdder memoryHits = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder diskHits = new LongAdder();
+
+    private final LongAdder modelCalls = new LongAdder();
+
+    private final LongAdder modelFailures = new LongAdder();
+
+    private final LongAdder bypassed = new LongAdder();
+
+    private final LongAdder tokensSaved = new LongAdder();
+
+    public ResponseCache(LlmClient client, ResponseCacheProperties properties) {
+        this.client = client;
+        this.properties = properties;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .buildAsync();
+        this.disk = properties.isPersistent()
+                ? new DiskResponseStore(Path.of(properties.getDirectory()), properties.getTtl(), properties.getMaxDiskBytes())
+                : null;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "llm-cache-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (disk != null) {
+            long interval = properties.getSweepInterval().toMillis();
+            // 启动后先清理一次，统计出已有的条目数和占用
+            sweeper.scheduleWithFixedDelay(this::sweepQuietly, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 请求是否可以缓存：总开关打开且 temperature 已指定并不超过 maxTemperature
+     */
+    public boolean accepts(LlmRequest request) {
+        return properties.isEnabled() && request.getTemperature() != null
+                && request.getTemperature() <= properties.getMaxTemperature();
+    }
+
+    /**
+     * 经缓存调用模型；不可缓存的请求直接调用
+     */
+    public CompletableFuture<LlmResponse> complete(LlmRequest request) {
+        if (!accepts(request)) {
+            bypassed.increment();
+            return client.complete(request);
+        }
+        DigestKey digest = RequestDigest.of(request);
+        boolean[] loading = {false};
+        CompletableFuture<LlmResponse> shared = memory.get(digest, (key, executor) -> {
+            loading[0] = true;
+            return load(key, request);
+        });
+        if (!loading[0]) {
+            if (shared.isDone()) {
+                memoryHits.increment();
+            } else {
+                coalesced.increment();
+            }
+            shared.thenAccept(response -> tokensSaved.add(response.totalTokens()));
+        }
+        return shared.copy();
+    }
+
+    /**
+     * 清空两层缓存
+     */
+    public void invalidateAll() {
+        memory.synchronous().invalidateAll();
+        if (disk != null) {
+            disk.clear();
+        }
+        log.info("已清空模型响应缓存");
+    }
+
+    /**
+     * 清理磁盘层，返回删除的条目数；未启用磁盘层时返回 0
+     */
+    public int sweep() {
+        return disk != null ? disk.sweep() : 0;
+    }
+
+    /**
+     * 缓存统计：各层命中、合并的并发请求、实际模型调用次数以及命中所节省的 token 数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("memoryHits", memoryHits.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("diskHits", diskHits.sum());
+        stats.put("modelCalls", modelCalls.sum());
+        stats.put("modelFailures", modelFailures.sum());
+        stats.put("bypassed", bypassed.sum());
+        stats.put("tokensSaved", tokensSaved.sum());
+        stats.put("memoryEntryCount", memory.synchronous().estimatedSize());
+        stats.put("memoryEvictionCount", memory.synchronous().stats().evictionCount());
+        if (disk != null) {
+            stats.put("disk", disk.getStats());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        ioExecutor.shutdown();
+    }
+
+    private CompletableFuture<LlmResponse> load(DigestKey digest, LlmRequest request) {
+        if (disk == null) {
+            return callModel(digest, request);
+        }
+        return CompletableFuture.supplyAsync(() -> disk.get(digest), ioExecutor)
+                .thenCompose(cached -> {
+                    if (cached != null) {
+                        diskHits.increment();
+                        tokensSaved.add(cached.totalTokens());
+                        return CompletableFuture.completedFuture(cached);
+                    }
+                    return callModel(digest, request);
+                });
+    }
+
+    private CompletableFuture<LlmResponse> callModel(DigestKey digest, LlmRequest request) {
+        modelCalls.increment();
+        return client.complete(request).whenComplete((response, error) -> {
+            if (error != null) {
+                modelFailures.increment();
+            } else if (disk != null) {
+                try {
+                    ioExecutor.execute(() -> disk.put(digest, response));
+                } catch (RejectedExecutionException e) {
+                    // 关闭过程中完成的请求不再写盘
+                }
+            }
+        });
+    }
+
+    private void sweepQuietly() {
+        try {
+            int deleted = disk.sweep();
+            if (deleted > 0) {
+                log.info("模型响应缓存清理完成，删除 {} 个文件", deleted);
+            }
+        } catch (Exception e) {
+            log.error("模型响应缓存清理失败，下次重试", e);
+        }
+    }
+}
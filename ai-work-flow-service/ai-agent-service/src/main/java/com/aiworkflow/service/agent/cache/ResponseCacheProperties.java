@@ -0,0 +1,38 @@
+package com.aiworkflow.service.agent.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 模型响应缓存配置；节点还需在配置中声明 cache: true 才会使用缓存
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.agent.cache")
+public class ResponseCacheProperties {
+
+    // 总开关，关闭后所有请求直接调用模型
+    private boolean enabled = true;
+
+    // 条目有效期，内存层和磁盘层相同
+    private Duration ttl = Duration.ofHours(24);
+
+    // 内存层条目数上限
+    private long maxEntries = 10_000;
+
+    // 只缓存 temperature 不超过该值的请求；未指定 temperature 的请求按模型默认采样处理，不缓存
+    private double maxTemperature = 0.0;
+
+    // 是否启用本地磁盘层，重启后仍可命中
+    private boolean persistent = true;
+
+    // 磁盘层目录
+    private String directory = "data/llm-cache";
+
+    // 磁盘层占用上限，超出后按最后写入时间从旧到新删除
+    private long maxDiskBytes = 512L * 1024 * 1024;
+
+    // 磁盘层清理间隔：删除过期条目并收缩到占用上限
+    private Duration sweepInterval = Duration.ofMinutes(10);
+}
@@ -0,0 +1,40 @@
+package com.aiworkflow.service.agent.config;
+
+import com.aiworkflow.common.core.util.DigestKey;
+import com.aiworkflow.service.agent.cache.ResponseCacheProperties;
+import com.aiworkflow.service.agent.llm.LlmClient;
+import com.aiworkflow.service.agent.llm.LlmProperties;
+import com.aiworkflow.service.agent.llm.OpenAiCompatibleClient;
+import com.aiworkflow.service.agent.ratelimit.RateLimitProperties;
+import com.aiworkflow.service.agent.ratelimit.RateLimitedLlmClient;
+import com.aiworkflow.service.agent.ratelimit.RateLimiter;
+import com.aiworkflow.service.agent.stream.StreamProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({LlmProperties.class, ResponseCacheProperties.class, RateLimitProperties.class,
+        StreamProperties.class})
+public class AgentConfig {
+
+    /**
+     * 模型客户端：先经限流准入再发出 HTTP 请求，响应头回传给限流器
+     */
+    @Bean
+    public LlmClient llmClient(LlmProperties properties, RateLimiter rateLimiter, RateLimitProperties rateLimitProperties) {
+        LlmClient client = new OpenAiCompatibleClient(properties, rateLimiter);
+        return new RateLimitedLlmClient(client, rateLimiter, rateLimitProperties, apiKeyId(properties.getApiKey()));
+    }
+
+    /**
+     * API Key 的指纹，用作限流桶名和统计中的标识，避免 Key 出现在接口输出和日志中
+     */
+    static String apiKeyId(String apiKey) {
+        if (apiKey == null || apiKey.isEmpty()) {
+            return "default";
+        }
+        // SHA-256 的前 4 个字节
+        return DigestKey.of(apiKey).hex().substring(0, 8);
+    }
+}
@@ -0,0 +1,40 @@
+package com.aiworkflow.service.agent.controller;
+
+import com.aiworkflow.common.web.result.Result;
+import com.aiworkflow.service.agent.cache.ResponseCache;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/agent/cache")
+public class AgentCacheController {
+
+    private final ResponseCache responseCache;
+
+    public AgentCacheController(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @GetMapping("/stats")
+    public Result<Map<String, Object>> stats() {
+        return Result.success(responseCache.getStats());
+    }
+
+    /**
+     * 手动清理磁盘层的过期和超额条目
+     */
+    @PostMapping("/sweep")
+    public Result<Integer> sweep() {
+        return Result.success(responseCache.sweep());
+    }
+
+    /**
+     * 清空缓存(如模型升级后旧的回答不再适用)
+     */
+    @DeleteMapping
+    public Result<Void> invalidateAll() {
+        responseCache.invalidateAll();
+        return Result.success();
+    }
+}
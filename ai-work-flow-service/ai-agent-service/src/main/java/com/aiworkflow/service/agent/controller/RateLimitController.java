@@ -0,0 +1,28 @@
+package com.aiworkflow.service.agent.controller;
+
+import com.aiworkflow.common.web.result.Result;
+import com.aiworkflow.service.agent.ratelimit.RateLimiter;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/agent/rate-limit")
+public class RateLimitController {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitController(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * 各模型和 API Key 的配额、余额、暂停状态以及排队统计
+     */
+    @GetMapping("/stats")
+    public Result<Map<String, Object>> stats() {
+        return Result.success(rateLimiter.getStats());
+    }
+}
@@ -0,0 +1,35 @@
+package com.aiworkflow.service.agent.controller;
+
+import com.aiworkflow.common.web.result.Result;
+import com.aiworkflow.service.agent.stream.StreamHub;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/agent/stream")
+public class StreamController {
+
+    private final StreamHub streamHub;
+
+    public StreamController(StreamHub streamHub) {
+        this.streamHub = streamHub;
+    }
+
+    /**
+     * 以 Server-Sent Events 订阅节点输出：chunk 事件为增量内容，done/error 事件后连接关闭；
+     * 断线重连时浏览器自动带上 Last-Event-ID，从中断处续传
+     */
+    @GetMapping(value = "/{instanceId}/{nodeKey}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable String instanceId, @PathVariable String nodeKey,
+                                @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return streamHub.connect(instanceId, nodeKey, lastEventId != null ? lastEventId : 0);
+    }
+
+    @GetMapping("/stats")
+    public Result<Map<String, Object>> stats() {
+        return Result.success(streamHub.getStats());
+    }
+}
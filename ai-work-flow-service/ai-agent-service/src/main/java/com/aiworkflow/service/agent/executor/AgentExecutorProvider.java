@@ -0,0 +1,25 @@
+package com.aiworkflow.service.agent.executor;
+
+import com.aiworkflow.common.core.execution.NodeExecutor;
+import com.aiworkflow.common.core.spi.ExecutorProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 提供 AI 节点执行器
+ */
+@Component
+public class AgentExecutorProvider implements ExecutorProvider {
+
+    private final LlmNodeExecutor llmNodeExecutor;
+
+    public AgentExecutorProvider(LlmNodeExecutor llmNodeExecutor) {
+        this.llmNodeExecutor = llmNodeExecutor;
+    }
+
+    @Override
+    public List<NodeExecutor> getProvidedExecutors() {
+        return List.of(llmNodeExecutor);
+    }
+}
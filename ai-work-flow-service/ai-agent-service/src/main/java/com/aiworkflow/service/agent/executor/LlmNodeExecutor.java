@@ -0,0 +1,137 @@
+package com.aiworkflow.service.agent.executor;
+
+import com.aiworkflow.common.core.execution.AsyncNodeExecutor;
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.service.agent.cache.ResponseCache;
+import com.aiworkflow.service.agent.llm.LlmClient;
+import com.aiworkflow.service.agent.llm.LlmProperties;
+import com.aiworkflow.service.agent.llm.LlmRequest;
+import com.aiworkflow.service.agent.llm.LlmResponse;
+import com.aiworkflow.service.agent.stream.StreamChannel;
+import com.aiworkflow.service.agent.stream.StreamHub;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * LLM_AGENT 和 AI_DECISION 节点执行器
+ * <p>
+ * 节点配置：model、prompt、systemPrompt、temperature、topP、maxTokens、stop、outputKey，
+ * 以及 cache(为 true 时经 {@link ResponseCache} 调用，相同请求不重复计费)。
+ * 输出 content、model 和 usage，AI_DECISION 另外输出去掉首尾空白的 decision；
+ * 指定 outputKey 时内容同时写入该变量。
+ * <p>
+ * 输出流开启时，模型的增量内容实时写入 {@link StreamHub}，客户端可经 SSE 订阅；
+ * 走缓存的调用没有增量，完整内容作为一个增量写入。最终输出仍只在节点结束时随执行结果落库一次。
+ */
+@Slf4j
+@Component
+public class LlmNodeExecutor implements AsyncNodeExecutor {
+
+    static final String LLM_AGENT = "LLM_AGENT";
+
+    static final String AI_DECISION = "AI_DECISION";
+
+    private final LlmClient client;
+
+    private final ResponseCache responseCache;
+
+    private final LlmProperties properties;
+
+    private final StreamHub streamHub;
+
+    public LlmNodeExecutor(LlmClient client, ResponseCache responseCache, LlmProperties properties,
+                           StreamHub streamHub) {
+        this.client = client;
+        this.responseCache = responseCache;
+        this.properties = properties;
+        this.streamHub = streamHub;
+    }
+
+    @Override
+    public String[] getSupportedNodeTypes() {
+        return new String[]{LLM_AGENT, AI_DECISION};
+    }
+
+    @Override
+    public CompletionStage<ExecutionResult> executeAsync(ExecutionContext context) {
+        Map<String, Object> config = context.getConfig() != null ? context.getConfig() : Map.of();
+        LlmRequest request = LlmRequest.resolve(config, context.getVariables(), properties.getDefaultModel());
+        if (request.getPrompt() == null || request.getPrompt().isEmpty()) {
+            return CompletableFuture.completedFuture(ExecutionResult.fail("节点配置缺少 prompt"));
+        }
+
+        StreamChannel channel = streamHub.isEnabled()
+                ? streamHub.open(String.valueOf(context.getFlowInstanceId()), context.getNodeKey()) : null;
+        boolean cached = Boolean.TRUE.equals(config.get("cache"));
+        CompletableFuture<LlmResponse> call;
+        if (cached) {
+            call = responseCache.complete(request);
+        } else {
+            call = channel != null ? client.stream(request, channel::append) : client.complete(request);
+        }
+        CompletableFuture<ExecutionResult> result = call
+                .thenApply(response -> {
+                    if (cached && channel != null) {
+                        channel.append(response.getContent());
+                    }
+                    return toResult(context, config, response);
+                })
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    log.warn("模型调用失败: instance={}, node={}", context.getFlowInstanceId(), context.getNodeKey(), cause);
+                    return ExecutionResult.fail("模型调用失败: " + cause.getMessage());
+                });
+        // 引擎超时或终止实例时取消 result，需要传递到底层请求
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+            if (channel != null) {
+                if (r != null && r.isSuccess()) {
+                    channel.complete(summary(r));
+                } else {
+                    channel.fail(r != null ? r.getErrorMessage() : "已取消");
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * done 事件只带元信息，内容已经以增量推送过
+     */
+    private static Map<String, Object> summary(ExecutionResult result) {
+        Map<String, Object> summary = new HashMap<>();
+        Map<String, Object> outputs = result.getOutputs() != null ? result.getOutputs() : Map.of();
+        for (String key : new String[]{"model", "usage", "decision"}) {
+            if (outputs.get(key) != null) {
+                summary.put(key, outputs.get(key));
+            }
+        }
+        return summary;
+    }
+
+    private static ExecutionResult toResult(ExecutionContext context, Map<String, Object> config, LlmResponse response) {
+        Map<String, Object> outputs = new HashMap<>();
+        outputs.put("content", response.getContent());
+        outputs.put("model", response.getModel());
+        outputs.put("usage", Map.of(
+                "promptTokens", response.getPromptTokens(),
+                "completionTokens", response.getCompletionTokens()));
+        if (AI_DECISION.equals(context.getNodeType())) {
+            outputs.put("decision", response.getContent() != null ? response.getContent().trim() : null);
+        }
+        if (config.get("outputKey") instanceof String outputKey && !outputKey.isEmpty()) {
+            outputs.put(outputKey, response.getContent());
+        }
+        return ExecutionResult.success(outputs);
+    }
+}
@@ -0,0 +1,91 @@
+package com.aiworkflow.service.agent.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * 解析 chat/completions 的流式响应(text/event-stream)：逐行读取 data: 行，
+ * 把 choices[0].delta.content 交给回调并拼接，最后一个块中的 usage 记入响应
+ */
+@Slf4j
+class ChatStreamSubscriber implements Flow.Subscriber<String> {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String DATA_PREFIX = "data:";
+
+    private final Consumer<String> onDelta;
+
+    private final StringBuilder content = new StringBuilder();
+
+    private final LlmResponse response = new LlmResponse();
+
+    ChatStreamSubscriber(Consumer<String> onDelta) {
+        this.onDelta = onDelta;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(String line) {
+        if (!line.startsWith(DATA_PREFIX)) {
+            // 空行、注释和 event: 行
+            return;
+        }
+        String data = line.substring(DATA_PREFIX.length()).trim();
+        if (data.isEmpty() || "[DONE]".equals(data)) {
+            return;
+        }
+        JsonNode chunk;
+        try {
+            chunk = objectMapper.readTree(data);
+        } catch (IOException e) {
+            throw new LlmException("流式响应不是合法的 JSON: " + data, e);
+        }
+        if (chunk.hasNonNull("model")) {
+            response.setModel(chunk.get("model").asText());
+        }
+        JsonNode choice = chunk.path("choices").path(0);
+        String delta = choice.path("delta").path("content").asText("");
+        if (!delta.isEmpty()) {
+            content.append(delta);
+            try {
+                onDelta.accept(delta);
+            } catch (RuntimeException e) {
+                // 下游分发失败不影响补全本身
+                log.warn("增量内容分发失败", e);
+            }
+        }
+        if (choice.hasNonNull("finish_reason")) {
+            response.setFinishReason(choice.get("finish_reason").asText());
+        }
+        JsonNode usage = chunk.get("usage");
+        if (usage != null && usage.isObject()) {
+            response.setPromptTokens(usage.path("prompt_tokens").asInt());
+            response.setCompletionTokens(usage.path("completion_tokens").asInt());
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        // 由 BodySubscriber 以异常完成 future
+    }
+
+    @Override
+    public void onComplete() {
+        // 由 finisher 取结果
+    }
+
+    LlmResponse result() {
+        response.setContent(content.toString());
+        return response;
+    }
+}
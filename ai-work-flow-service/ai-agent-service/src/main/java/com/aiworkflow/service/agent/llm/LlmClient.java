@@ -0,0 +1,28 @@
+package com.aiworkflow.service.agent.llm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * 模型调用客户端
+ */
+public interface LlmClient {
+
+    /**
+     * 发起一次对话补全，不阻塞调用线程；取消返回的 future 时应中止请求
+     */
+    CompletableFuture<LlmResponse> complete(LlmRequest request);
+
+    /**
+     * 流式补全：每收到一段增量内容回调一次 onDelta，future 以拼接后的完整响应完成。
+     * 默认实现等待完整响应后整段回调一次
+     */
+    default CompletableFuture<LlmResponse> stream(LlmRequest request, Consumer<String> onDelta) {
+        return complete(request).thenApply(response -> {
+            if (response.getContent() != null && !response.getContent().isEmpty()) {
+                onDelta.accept(response.getContent());
+            }
+            return response;
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.aiworkflow.service.agent.llm;
+
+/**
+ * 模型服务返回错误或响应无法解析
+ */
+public class LlmException extends RuntimeException {
+
+    // HTTP 状态码，非 HTTP 错误时为 0
+    private final int status;
+
+    public LlmException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public LlmException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = 0;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
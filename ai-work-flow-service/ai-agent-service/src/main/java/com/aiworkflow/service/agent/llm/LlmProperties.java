@@ -0,0 +1,28 @@
+package com.aiworkflow.service.agent.llm;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 模型服务配置(OpenAI 兼容的 chat/completions 接口)
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.agent.llm")
+public class LlmProperties {
+
+    // 接口根地址，请求发往 {baseUrl}/chat/completions
+    private String baseUrl = "http://localhost:11434/v1";
+
+    // 为空时不发送 Authorization 头
+    private String apiKey;
+
+    // 节点配置未指定 model 时使用
+    private String defaultModel = "gpt-4o-mini";
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    // 单次请求的超时时间，节点配置的 timeoutMs 由执行器另行控制
+    private Duration requestTimeout = Duration.ofSeconds(120);
+}
@@ -0,0 +1,72 @@
+package com.aiworkflow.service.agent.llm;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解析后的模型请求：提示词模板已用流程变量填充
+ */
+@Data
+public class LlmRequest {
+
+    private String model;
+
+    // 系统提示词，可为空
+    private String systemPrompt;
+
+    private String prompt;
+
+    // 为空时由模型服务取默认值
+    private Double temperature;
+
+    private Double topP;
+
+    private Integer maxTokens;
+
+    private List<String> stop;
+
+    /**
+     * 从节点配置构建请求，prompt 和 systemPrompt 中的 ${name} 用变量替换
+     *
+     * @param config       节点配置(ai_task_instance.config_data)
+     * @param variables    流程变量
+     * @param defaultModel 配置未指定 model 时使用
+     */
+    public static LlmRequest resolve(Map<String, Object> config, Map<String, Object> variables, String defaultModel) {
+        LlmRequest request = new LlmRequest();
+        Object model = config.get("model");
+        request.setModel(model != null ? model.toString() : defaultModel);
+        request.setSystemPrompt(PromptRenderer.render(text(config.get("systemPrompt")), variables));
+        request.setPrompt(PromptRenderer.render(text(config.get("prompt")), variables));
+        request.setTemperature(number(config.get("temperature")));
+        request.setTopP(number(config.get("topP")));
+        Double maxTokens = number(config.get("maxTokens"));
+        request.setMaxTokens(maxTokens != null ? maxTokens.intValue() : null);
+        if (config.get("stop") instanceof List<?> stop) {
+            request.setStop(stop.stream().map(String::valueOf).toList());
+        } else if (config.get("stop") instanceof String stop) {
+            request.setStop(List.of(stop));
+        }
+        return request;
+    }
+
+    private static String text(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static Double number(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            try {
+                return Double.valueOf(text.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.aiworkflow.service.agent.llm;
+
+import lombok.Data;
+
+/**
+ * 模型响应
+ */
+@Data
+public class LlmResponse {
+
+    private String content;
+
+    // 实际响应的模型(服务端可能把别名解析为具体版本)
+    private String model;
+
+    private String finishReason;
+
+    private int promptTokens;
+
+    private int completionTokens;
+
+    public int totalTokens() {
+        return promptTokens + completionTokens;
+    }
+}
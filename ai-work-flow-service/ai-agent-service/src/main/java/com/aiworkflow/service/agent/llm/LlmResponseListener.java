@@ -0,0 +1,11 @@
+package com.aiworkflow.service.agent.llm;
+
+import java.net.http.HttpHeaders;
+
+/**
+ * 收到模型服务的 HTTP 响应(含错误响应)时回调，用于读取限流响应头
+ */
+public interface LlmResponseListener {
+
+    void onResponse(LlmRequest request, int status, HttpHeaders headers);
+}
@@ -0,0 +1,155 @@
+package com.aiworkflow.service.agent.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * 基于 JDK HttpClient 的 OpenAI 兼容客户端
+ * <p>
+ * 调用 {baseUrl}/chat/completions，支持非流式和流式(SSE)两种方式；取消返回的 future 会中止底层 HTTP 交换。
+ * 每个响应(含错误响应)的状态码和响应头交给 {@link LlmResponseListener}，供限流器自适应。
+ * 实例线程安全，连接由 HttpClient 内部复用。
+ */
+public class OpenAiCompatibleClient implements LlmClient {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient httpClient;
+
+    private final LlmProperties properties;
+
+    private final URI endpoint;
+
+    // 为 null 时不回调
+    private final LlmResponseListener responseListener;
+
+    public OpenAiCompatibleClient(LlmProperties properties) {
+        this(properties, null);
+    }
+
+    public OpenAiCompatibleClient(LlmProperties properties, LlmResponseListener responseListener) {
+        this.properties = properties;
+        this.responseListener = responseListener;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.getConnectTimeout())
+                .build();
+        String baseUrl = properties.getBaseUrl();
+        this.endpoint = URI.create((baseUrl.endsWith("/") ? baseUrl : baseUrl + "/") + "chat/completions");
+    }
+
+    @Override
+    public CompletableFuture<LlmResponse> complete(LlmRequest request) {
+        return httpClient.sendAsync(newRequest(request, false), HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (responseListener != null) {
+                        responseListener.onResponse(request, response.statusCode(), response.headers());
+                    }
+                    return parse(response);
+                });
+    }
+
+    /**
+     * 以 stream: true 调用，按行解析事件流；非 2xx 响应整体读取后以 {@link LlmException} 失败
+     */
+    @Override
+    public CompletableFuture<LlmResponse> stream(LlmRequest request, Consumer<String> onDelta) {
+        HttpResponse.BodyHandler<LlmResponse> handler = info -> {
+            if (responseListener != null) {
+                responseListener.onResponse(request, info.statusCode(), info.headers());
+            }
+            if (info.statusCode() / 100 != 2) {
+                return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), body -> {
+                    throw error(info.statusCode(), body);
+                });
+            }
+            ChatStreamSubscriber subscriber = new ChatStreamSubscriber(onDelta);
+            // 行分隔符传 null：\n、\r\n 和 \r 都按行结束处理
+            return HttpResponse.BodySubscribers.fromLineSubscriber(subscriber, ChatStreamSubscriber::result,
+                    StandardCharsets.UTF_8, null);
+        };
+        return httpClient.sendAsync(newRequest(request, true), handler).thenApply(HttpResponse::body);
+    }
+
+    private HttpRequest newRequest(LlmRequest request, boolean stream) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(endpoint)
+                .timeout(properties.getRequestTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(toBody(request, stream)));
+        if (properties.getApiKey() != null && !properties.getApiKey().isEmpty()) {
+            builder.header("Authorization", "Bearer " + properties.getApiKey());
+        }
+        return builder.build();
+    }
+
+    static byte[] toBody(LlmRequest request, boolean stream) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("model", request.getModel());
+        if (stream) {
+            body.put("stream", true);
+            // 最后一个块带上 usage，供限流按实际用量校正
+            body.putObject("stream_options").put("include_usage", true);
+        }
+        ArrayNode messages = body.putArray("messages");
+        if (request.getSystemPrompt() != null && !request.getSystemPrompt().isEmpty()) {
+            messages.addObject().put("role", "system").put("content", request.getSystemPrompt());
+        }
+        messages.addObject().put("role", "user").put("content", request.getPrompt());
+        if (request.getTemperature() != null) {
+            body.put("temperature", request.getTemperature());
+        }
+        if (request.getTopP() != null) {
+            body.put("top_p", request.getTopP());
+        }
+        if (request.getMaxTokens() != null) {
+            body.put("max_tokens", request.getMaxTokens());
+        }
+        if (request.getStop() != null && !request.getStop().isEmpty()) {
+            ArrayNode stop = body.putArray("stop");
+            request.getStop().forEach(stop::add);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new LlmException("请求序列化失败", e);
+        }
+    }
+
+    private static LlmException error(int status, byte[] bytes) {
+        String body = new String(bytes, StandardCharsets.UTF_8);
+        return new LlmException(status, "模型服务返回 " + status + ": " + (body.length() > 512 ? body.substring(0, 512) : body));
+    }
+
+    static LlmResponse parse(HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw error(response.statusCode(), response.body());
+        }
+        try {
+            JsonNode root = objectMapper.readTree(response.body());
+            JsonNode choice = root.path("choices").path(0);
+            if (choice.isMissingNode()) {
+                throw new LlmException(response.statusCode(), "模型响应缺少 choices");
+            }
+            LlmResponse result = new LlmResponse();
+            result.setContent(choice.path("message").path("content").asText(""));
+            result.setFinishReason(choice.path("finish_reason").asText(null));
+            result.setModel(root.path("model").asText(null));
+            JsonNode usage = root.path("usage");
+            result.setPromptTokens(usage.path("prompt_tokens").asInt());
+            result.setCompletionTokens(usage.path("completion_tokens").asInt());
+            return result;
+        } catch (IOException e) {
+            throw new LlmException("模型响应不是合法的 JSON", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.aiworkflow.service.agent.llm;
+
+import java.util.Map;
+
+/**
+ * 提示词模板渲染：${name} 替换为变量值，${a.b} 逐级取嵌套 Map 的字段，变量不存在时替换为空串
+ */
+public final class PromptRenderer {
+
+    private PromptRenderer() {
+    }
+
+    public static String render(String template, Map<String, Object> variables) {
+        if (template == null || template.indexOf("${") < 0) {
+            return template;
+        }
+        StringBuilder out = new StringBuilder(template.length() + 64);
+        int from = 0;
+        while (true) {
+            int start = template.indexOf("${", from);
+            int end = start >= 0 ? template.indexOf('}', start + 2) : -1;
+            if (end < 0) {
+                out.append(template, from, template.length());
+                return out.toString();
+            }
+            out.append(template, from, start);
+            Object value = lookup(template.substring(start + 2, end).trim(), variables);
+            if (value != null) {
+                out.append(value);
+            }
+            from = end + 1;
+        }
+    }
+
+    private static Object lookup(String path, Map<String, Object> variables) {
+        if (variables == null) {
+            return null;
+        }
+        Object value = variables.get(path);
+        if (value != null || path.indexOf('.') < 0) {
+            return value;
+        }
+        Object current = variables;
+        for (String part : path.split("\\.")) {
+            if (!(current instanceof Map<?, ?> map)) {
+                return null;
+            }
+            current = map.get(part);
+        }
+        return current;
+    }
+}
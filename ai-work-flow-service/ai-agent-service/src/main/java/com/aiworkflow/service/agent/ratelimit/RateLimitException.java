@@ -0,0 +1,11 @@
+package com.aiworkflow.service.agent.ratelimit;
+
+/**
+ * 排队等待时间超过上限
+ */
+public class RateLimitException extends RuntimeException {
+
+    public RateLimitException(String message) {
+        super(message);
+    }
+}
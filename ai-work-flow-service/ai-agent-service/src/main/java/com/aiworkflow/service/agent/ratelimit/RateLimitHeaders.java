@@ -0,0 +1,40 @@
+package com.aiworkflow.service.agent.ratelimit;
+
+import java.net.http.HttpHeaders;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * 解析 OpenAI 兼容的限流响应头：
+ * x-ratelimit-limit-requests / -tokens(每分钟配额)、x-ratelimit-remaining-requests / -tokens
+ * 以及 429 响应的 retry-after-ms、retry-after(秒)
+ */
+final class RateLimitHeaders {
+
+    private RateLimitHeaders() {
+    }
+
+    static OptionalLong number(HttpHeaders headers, String name) {
+        Optional<String> value = headers.firstValue(name);
+        if (value.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(value.get().trim()));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * 429 响应要求的等待时间，单位纳秒
+     */
+    static OptionalLong retryAfterNanos(HttpHeaders headers) {
+        OptionalLong millis = number(headers, "retry-after-ms");
+        if (millis.isPresent()) {
+            return OptionalLong.of(millis.getAsLong() * 1_000_000);
+        }
+        OptionalLong seconds = number(headers, "retry-after");
+        return seconds.isPresent() ? OptionalLong.of(seconds.getAsLong() * 1_000_000_000) : OptionalLong.empty();
+    }
+}
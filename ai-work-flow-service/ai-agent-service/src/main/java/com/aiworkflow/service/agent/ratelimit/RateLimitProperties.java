@@ -0,0 +1,53 @@
+package com.aiworkflow.service.agent.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 模型调用限流配置，配额为每个窗口内的请求数和 token 数，0 表示不限
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.agent.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // 配额窗口，服务商的配额通常按分钟计
+    private Duration window = Duration.ofMinutes(1);
+
+    // 未单独配置的模型使用的配额
+    private Limit defaultModelLimit = new Limit();
+
+    // 模型名 -> 配额
+    private Map<String, Limit> models = new LinkedHashMap<>();
+
+    // 每个 API Key 的总配额(跨模型)
+    private Limit apiKeyLimit = new Limit();
+
+    // 按响应头 x-ratelimit-* 调整配额和余额
+    private boolean adaptive = true;
+
+    // 排队等待超过该时长的请求直接失败
+    private Duration maxWait = Duration.ofMinutes(5);
+
+    // 收到 429 后重新排队的次数上限
+    private int maxRetries = 3;
+
+    // 估算提示词 token 数时每个 token 对应的字符数
+    private int charsPerToken = 4;
+
+    // 请求未指定 maxTokens 时按该值估算输出 token 数
+    private int defaultCompletionTokens = 512;
+
+    @Data
+    public static class Limit {
+
+        private long requests;
+
+        private long tokens;
+    }
+}
@@ -0,0 +1,102 @@
+package com.aiworkflow.service.agent.ratelimit;
+
+import com.aiworkflow.service.agent.llm.LlmClient;
+import com.aiworkflow.service.agent.llm.LlmException;
+import com.aiworkflow.service.agent.llm.LlmRequest;
+import com.aiworkflow.service.agent.llm.LlmResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 经 {@link RateLimiter} 准入后再调用模型；收到 429 时重新排队(限流器已按 retry-after 暂停该模型)，
+ * 最多 maxRetries 次。取消返回的 future 会取消正在排队的预约或正在进行的请求。
+ */
+public class RateLimitedLlmClient implements LlmClient {
+
+    private final LlmClient delegate;
+
+    private final RateLimiter rateLimiter;
+
+    private final RateLimitProperties properties;
+
+    // 限流用的 API Key 标识(指纹)，不是 Key 本身
+    private final String apiKeyId;
+
+    public RateLimitedLlmClient(LlmClient delegate, RateLimiter rateLimiter, RateLimitProperties properties,
+                                String apiKeyId) {
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        this.apiKeyId = apiKeyId;
+    }
+
+    @Override
+    public CompletableFuture<LlmResponse> complete(LlmRequest request) {
+        return admit(request, () -> delegate.complete(request));
+    }
+
+    /**
+     * 流式调用同样先准入；429 在任何增量到达前返回，重新排队不会重复推送内容
+     */
+    @Override
+    public CompletableFuture<LlmResponse> stream(LlmRequest request, Consumer<String> onDelta) {
+        return admit(request, () -> delegate.stream(request, onDelta));
+    }
+
+    private CompletableFuture<LlmResponse> admit(LlmRequest request, Supplier<CompletableFuture<LlmResponse>> call) {
+        CompletableFuture<LlmResponse> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> current = new AtomicReference<>();
+        attempt(request, call, rateLimiter.estimateTokens(request), 0, result, current);
+        result.whenComplete((response, error) -> {
+            CompletableFuture<?> stage = current.get();
+            if (result.isCancelled() && stage != null) {
+                stage.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private void attempt(LlmRequest request, Supplier<CompletableFuture<LlmResponse>> delegateCall, int estimatedTokens,
+                         int retries, CompletableFuture<LlmResponse> result, AtomicReference<CompletableFuture<?>> current) {
+        CompletableFuture<RateLimiter.Permit> admission = rateLimiter.acquire(request.getModel(), apiKeyId, estimatedTokens);
+        current.set(admission);
+        if (result.isDone()) {
+            admission.cancel(true);
+            return;
+        }
+        admission.whenComplete((permit, admissionError) -> {
+            if (admissionError != null) {
+                result.completeExceptionally(unwrap(admissionError));
+                return;
+            }
+            CompletableFuture<LlmResponse> call = delegateCall.get();
+            current.set(call);
+            if (result.isDone()) {
+                call.cancel(true);
+            }
+            call.whenComplete((response, error) -> {
+                Throwable cause = error != null ? unwrap(error) : null;
+                if (cause == null) {
+                    permit.settle(response.totalTokens());
+                    result.complete(response);
+                } else if (cause instanceof LlmException llm && llm.getStatus() == 429
+                        && retries < properties.getMaxRetries() && !result.isDone()) {
+                    // 被拒绝的请求不消耗 token 配额
+                    permit.settle(0);
+                    attempt(request, delegateCall, estimatedTokens, retries + 1, result, current);
+                } else {
+                    permit.settle(estimatedTokens);
+                    result.completeExceptionally(cause);
+                }
+            });
+        });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
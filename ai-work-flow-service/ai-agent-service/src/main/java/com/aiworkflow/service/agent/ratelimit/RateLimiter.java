@@ -0,0 +1,283 @@
+package com.aiworkflow.service.agent.ratelimit;
+
+import com.aiworkflow.service.agent.llm.LlmRequest;
+import com.aiworkflow.service.agent.llm.LlmResponseListener;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 模型调用准入控制
+ * <p>
+ * 每个模型和每个 API Key 各有请求数、token 数两个 {@link TokenBucket}，一次调用在四个桶上同时预约，
+ * 按最长的等待时间放行。需要等待的调用挂起在返回的 future 上，由单个调度线程到点完成，
+ * 不占用线程也不轮询；等待超过 maxWait 的调用直接失败并退还预约。
+ * token 按提示词长度和 maxTokens 估算，调用结束后按实际用量多退少补。
+ * 模型服务的响应头(x-ratelimit-*)会调整对应模型的配额和余额，429 响应按 retry-after 暂停该模型的桶。
+ */
+@Slf4j
+@Component
+public class RateLimiter implements LlmResponseListener {
+
+    private static final Duration HEADER_WINDOW = Duration.ofMinutes(1);
+
+    private final RateLimitProperties properties;
+
+    private final LongSupplier nanoClock;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicInteger parked = new AtomicInteger();
+
+    private final LongAdder admitted = new LongAdder();
+
+    private final LongAdder delayed = new LongAdder();
+
+    private final LongAdder delayedNanos = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder throttled = new LongAdder();
+
+    private final LongAdder adaptations = new LongAdder();
+
+    public RateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "llm-rate-limiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 申请一次调用的配额；配额不足时 future 在可用时刻完成，取消 future 会退还预约
+     *
+     * @param estimatedTokens 估算的 token 数(提示词 + 输出)
+     */
+    public CompletableFuture<Permit> acquire(String model, String apiKey, int estimatedTokens) {
+        if (!properties.isEnabled()) {
+            return CompletableFuture.completedFuture(new Permit(List.of(), estimatedTokens));
+        }
+        long now = nanoClock.getAsLong();
+        List<Reservation> reservations = new ArrayList<>(4);
+        long wait = 0;
+        RateLimitProperties.Limit modelLimit = modelLimit(model);
+        RateLimitProperties.Limit keyLimit = properties.getApiKeyLimit();
+        wait = Math.max(wait, reserve(reservations, "model:" + model + ":requests", modelLimit.getRequests(), 1, false, now));
+        wait = Math.max(wait, reserve(reservations, "model:" + model + ":tokens", modelLimit.getTokens(), estimatedTokens, true, now));
+        wait = Math.max(wait, reserve(reservations, "key:" + apiKey + ":requests", keyLimit.getRequests(), 1, false, now));
+        wait = Math.max(wait, reserve(reservations, "key:" + apiKey + ":tokens", keyLimit.getTokens(), estimatedTokens, true, now));
+        Permit permit = new Permit(reservations, estimatedTokens);
+
+        if (wait <= 0) {
+            admitted.increment();
+            return CompletableFuture.completedFuture(permit);
+        }
+        if (wait > properties.getMaxWait().toNanos()) {
+            permit.release();
+            rejected.increment();
+            return CompletableFuture.failedFuture(new RateLimitException(
+                    "模型 " + model + " 限流排队时间过长(" + TimeUnit.NANOSECONDS.toMillis(wait) + "ms)"));
+        }
+
+        CompletableFuture<Permit> future = new CompletableFuture<>();
+        // 放行、取消和超时谁先发生谁减计数，每次排队只减一次
+        AtomicBoolean unparked = new AtomicBoolean();
+        parked.incrementAndGet();
+        delayed.increment();
+        delayedNanos.add(wait);
+        scheduler.schedule(() -> {
+            // 先减计数再放行，等待方被唤醒时统计已经一致
+            if (unparked.compareAndSet(false, true)) {
+                parked.decrementAndGet();
+            }
+            if (future.complete(permit)) {
+                admitted.increment();
+            }
+        }, wait, TimeUnit.NANOSECONDS);
+        future.whenComplete((p, error) -> {
+            if (error == null) {
+                return;
+            }
+            // 被取消或超时：不再等待放行，立即退还预约
+            if (unparked.compareAndSet(false, true)) {
+                parked.decrementAndGet();
+            }
+            permit.release();
+        });
+        return future;
+    }
+
+    /**
+     * 估算一次调用的 token 数
+     */
+    public int estimateTokens(LlmRequest request) {
+        int chars = length(request.getSystemPrompt()) + length(request.getPrompt());
+        int completion = request.getMaxTokens() != null ? request.getMaxTokens() : properties.getDefaultCompletionTokens();
+        return chars / Math.max(1, properties.getCharsPerToken()) + completion;
+    }
+
+    @Override
+    public void onResponse(LlmRequest request, int status, HttpHeaders headers) {
+        long now = nanoClock.getAsLong();
+        String model = request.getModel();
+        if (status == 429) {
+            throttled.increment();
+            OptionalLong retryAfter = RateLimitHeaders.retryAfterNanos(headers);
+            long pause = retryAfter.orElse(TimeUnit.SECONDS.toNanos(1));
+            forModel(model, bucket -> bucket.pauseUntil(now + pause));
+            log.warn("模型 {} 返回 429，暂停 {}ms", model, TimeUnit.NANOSECONDS.toMillis(pause));
+        }
+        if (properties.isEnabled() && properties.isAdaptive()) {
+            adapt("model:" + model + ":requests", headers, "requests", now);
+            adapt("model:" + model + ":tokens", headers, "tokens", now);
+        }
+    }
+
+    /**
+     * 限流状态：各桶的配额、余额、补充速率和暂停时间，以及排队统计
+     */
+    public Map<String, Object> getStats() {
+        long now = nanoClock.getAsLong();
+        Map<String, Object> bucketStats = new HashMap<>();
+        buckets.forEach((name, bucket) -> bucketStats.put(name, bucket.snapshot(now)));
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("parked", parked.get());
+        stats.put("admitted", admitted.sum());
+        stats.put("delayed", delayed.sum());
+        stats.put("avgDelayMillis", delayed.sum() == 0 ? 0 : delayedNanos.sum() / delayed.sum() / 1_000_000);
+        stats.put("rejected", rejected.sum());
+        stats.put("throttled", throttled.sum());
+        stats.put("adaptations", adaptations.sum());
+        stats.put("buckets", bucketStats);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private long reserve(List<Reservation> reservations, String name, long limit, double amount, boolean tokens, long now) {
+        TokenBucket bucket = limit > 0
+                ? buckets.computeIfAbsent(name, key -> new TokenBucket(limit, properties.getWindow(), now))
+                // 未配置配额时仍使用响应头学到的配额
+                : buckets.get(name);
+        if (bucket == null) {
+            return 0;
+        }
+        reservations.add(new Reservation(bucket, amount, tokens));
+        return bucket.reserve(amount, now);
+    }
+
+    private void adapt(String name, HttpHeaders headers, String kind, long now) {
+        OptionalLong limit = RateLimitHeaders.number(headers, "x-ratelimit-limit-" + kind);
+        OptionalLong remaining = RateLimitHeaders.number(headers, "x-ratelimit-remaining-" + kind);
+        if (limit.isEmpty() || limit.getAsLong() <= 0) {
+            return;
+        }
+        TokenBucket bucket = buckets.computeIfAbsent(name, key -> new TokenBucket(limit.getAsLong(), HEADER_WINDOW, now));
+        if (bucket.getLimit() != limit.getAsLong()) {
+            bucket.setLimit(limit.getAsLong(), HEADER_WINDOW, now);
+            adaptations.increment();
+            log.info("按响应头调整限流配额: {} -> {}/min", name, limit.getAsLong());
+        }
+        bucket.setSource("headers");
+        // 服务端按相同速率连续补充，剩余量对齐后本地桶的等待时间与 x-ratelimit-reset-* 一致
+        remaining.ifPresent(value -> bucket.syncRemaining(value, now));
+    }
+
+    private void forModel(String model, Consumer<TokenBucket> action) {
+        for (String kind : new String[]{"requests", "tokens"}) {
+            TokenBucket bucket = buckets.get("model:" + model + ":" + kind);
+            if (bucket != null) {
+                action.accept(bucket);
+            }
+        }
+    }
+
+    private RateLimitProperties.Limit modelLimit(String model) {
+        RateLimitProperties.Limit limit = properties.getModels().get(model);
+        return limit != null ? limit : properties.getDefaultModelLimit();
+    }
+
+    private static int length(String text) {
+        return text != null ? text.length() : 0;
+    }
+
+    private record Reservation(TokenBucket bucket, double amount, boolean tokens) {
+    }
+
+    /**
+     * 已获得的配额；调用结束后用 {@link #settle(int)} 按实际用量校正
+     */
+    public final class Permit {
+
+        private final List<Reservation> reservations;
+
+        private final int estimatedTokens;
+
+        private boolean settled;
+
+        private Permit(List<Reservation> reservations, int estimatedTokens) {
+            this.reservations = reservations;
+            this.estimatedTokens = estimatedTokens;
+        }
+
+        /**
+         * 按实际 token 用量退还或补扣 token 桶
+         */
+        public synchronized void settle(int actualTokens) {
+            if (settled) {
+                return;
+            }
+            settled = true;
+            long now = nanoClock.getAsLong();
+            for (Reservation reservation : reservations) {
+                // 请求数桶不随用量校正
+                if (reservation.tokens()) {
+                    reservation.bucket().refund(estimatedTokens - actualTokens, now);
+                }
+            }
+        }
+
+        /**
+         * 未使用的配额全部退还
+         */
+        synchronized void release() {
+            if (settled) {
+                return;
+            }
+            settled = true;
+            long now = nanoClock.getAsLong();
+            reservations.forEach(reservation -> reservation.bucket().refund(reservation.amount(), now));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.aiworkflow.service.agent.ratelimit;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 预约式令牌桶
+ * <p>
+ * 容量为窗口内的配额(limit)，按 limit / window 匀速补充。{@link #reserve} 立即扣减并返回需要等待的纳秒数，
+ * 余额可以为负(欠账)，后来的预约排在欠账之后，因此按预约顺序先到先得，调用方只需在返回的时刻到来时放行，
+ * 不需要轮询。单次预约超过容量时按容量计，避免永远无法满足。所有方法以 System.nanoTime 语义的时刻为参数。
+ */
+public class TokenBucket {
+
+    private double capacity;
+
+    private double ratePerNano;
+
+    private double available;
+
+    private long lastRefill;
+
+    // 服务端要求暂停(429)期间不放行，nanoTime 时刻
+    private long pausedUntil;
+
+    // 配额来源：config 或 headers
+    private String source = "config";
+
+    public TokenBucket(long limit, Duration window, long now) {
+        setLimit(limit, window, now);
+        this.available = capacity;
+        this.lastRefill = now;
+        this.pausedUntil = now;
+    }
+
+    /**
+     * 预约 amount 个令牌，返回需要等待的纳秒数，0 表示立即可用
+     */
+    public synchronized long reserve(double amount, long now) {
+        refill(now);
+        available -= Math.min(amount, capacity);
+        long wait = available >= 0 ? 0 : (long) Math.ceil(-available / ratePerNano);
+        return Math.max(wait, pausedUntil - now);
+    }
+
+    /**
+     * 退还令牌(预约被取消，或实际用量小于估算)；amount 为负时补扣
+     */
+    public synchronized void refund(double amount, long now) {
+        refill(now);
+        available = Math.min(capacity, available + amount);
+    }
+
+    /**
+     * 调整配额，余额不超过新容量
+     */
+    public synchronized void setLimit(long limit, Duration window, long now) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit 必须大于 0: " + limit);
+        }
+        if (ratePerNano > 0) {
+            refill(now);
+        }
+        this.capacity = limit;
+        this.ratePerNano = (double) limit / window.toNanos();
+        this.available = Math.min(available, capacity);
+    }
+
+    /**
+     * 按服务端报告的剩余配额校准：本地余额不高于 remaining
+     */
+    public synchronized void syncRemaining(double remaining, long now) {
+        refill(now);
+        available = Math.min(available, remaining);
+    }
+
+    /**
+     * 在 until 之前不放行
+     */
+    public synchronized void pauseUntil(long until) {
+        pausedUntil = Math.max(pausedUntil, until);
+    }
+
+    public synchronized long getLimit() {
+        return (long) capacity;
+    }
+
+    synchronized void setSource(String source) {
+        this.source = source;
+    }
+
+    public synchronized Map<String, Object> snapshot(long now) {
+        refill(now);
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("limit", (long) capacity);
+        snapshot.put("available", Math.round(available));
+        snapshot.put("refillPerSecond", ratePerNano * 1_000_000_000L);
+        snapshot.put("pausedMillis", Math.max(0, (pausedUntil - now) / 1_000_000));
+        snapshot.put("source", source);
+        return snapshot;
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            available = Math.min(capacity, available + (now - lastRefill) * ratePerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.aiworkflow.service.agent.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把一个通道写到一个 SSE 连接：在独立的虚拟线程上按序号拉取事件并发送，
+ * 空闲时发送注释行作为心跳；终止事件发出后结束响应，客户端断开时退出
+ */
+@Slf4j
+class SseStreamWriter implements Runnable {
+
+    private final StreamChannel channel;
+
+    private final SseEmitter emitter;
+
+    private final long heartbeatMillis;
+
+    private final Runnable onClose;
+
+    private long lastSeq;
+
+    private volatile boolean closed;
+
+    private volatile Thread thread;
+
+    SseStreamWriter(StreamChannel channel, SseEmitter emitter, long lastSeq, long heartbeatMillis, Runnable onClose) {
+        this.channel = channel;
+        this.emitter = emitter;
+        this.lastSeq = lastSeq;
+        this.heartbeatMillis = heartbeatMillis;
+        this.onClose = onClose;
+        emitter.onCompletion(this::close);
+        emitter.onTimeout(this::close);
+        emitter.onError(error -> close());
+    }
+
+    void start() {
+        thread = Thread.ofVirtual()
+                .name("sse-" + channel.getInstanceId() + "-" + channel.getNodeKey())
+                .start(this);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!closed) {
+                List<StreamEvent> events = channel.read(lastSeq, heartbeatMillis, TimeUnit.MILLISECONDS);
+                if (events == null) {
+                    // 重连时 Last-Event-ID 已是终止事件，没有要补发的内容
+                    emitter.complete();
+                    return;
+                }
+                if (events.isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                    continue;
+                }
+                for (StreamEvent event : events) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(event.seq()))
+                            .name(event.type())
+                            .data(event.data(), MediaType.APPLICATION_JSON));
+                    lastSeq = event.seq();
+                    if (event.isTerminal()) {
+                        emitter.complete();
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开或响应已结束
+            log.debug("SSE 连接结束: instance={}, node={}, {}", channel.getInstanceId(), channel.getNodeKey(), e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    private void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        onClose.run();
+        Thread current = thread;
+        if (current != null && current != Thread.currentThread()) {
+            current.interrupt();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.aiworkflow.service.agent.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 一个节点执行的输出流：一个写入者(节点执行器)，任意多个读取者(SSE 连接)
+ * <p>
+ * 事件存放在定长环形缓冲区中，序号 s 位于 (s - 1) % capacity；读取者各自记住读到的序号，按序号拉取，
+ * 写入者从不等待读取者。读取者落后超过缓冲区长度时从仍保留的最早事件继续，中间的增量丢失；
+ * 终止事件写入后通道只读。
+ */
+public class StreamChannel {
+
+    private final String instanceId;
+
+    private final String nodeKey;
+
+    private final StreamHub hub;
+
+    private final StreamEvent[] ring;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 有新事件时唤醒等待的读取者；用 Condition 而不是 wait/notify，读取者是虚拟线程，避免占住载体线程
+    private final Condition appended = lock.newCondition();
+
+    private final long createdNanos = System.nanoTime();
+
+    private long nextSeq = 1;
+
+    private volatile long openedNanos;
+
+    private volatile boolean opened;
+
+    private volatile boolean firstChunkSeen;
+
+    private volatile boolean done;
+
+    private volatile long doneNanos;
+
+    StreamChannel(String instanceId, String nodeKey, int capacity, StreamHub hub) {
+        this.instanceId = instanceId;
+        this.nodeKey = nodeKey;
+        this.ring = new StreamEvent[Math.max(1, capacity)];
+        this.hub = hub;
+    }
+
+    /**
+     * 追加一段增量内容；通道已结束时忽略
+     */
+    public void append(String delta) {
+        if (delta == null || delta.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (done) {
+                return;
+            }
+            if (!firstChunkSeen) {
+                firstChunkSeen = true;
+                hub.recordFirstChunk(System.nanoTime() - openedNanos);
+            }
+            publish(StreamEvent.CHUNK, Map.of("delta", delta));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 正常结束，summary 随 done 事件发出(模型、结束原因、用量等，不含已推送过的内容)
+     */
+    public void complete(Map<String, Object> summary) {
+        terminate(StreamEvent.DONE, summary);
+    }
+
+    public void fail(String message) {
+        terminate(StreamEvent.ERROR, Map.of("message", message != null ? message : "unknown error"));
+    }
+
+    /**
+     * 读取序号大于 afterSeq 的事件，没有时最多等待 timeout；返回空列表表示超时，
+     * 返回 null 表示通道已结束且 afterSeq 之后不会再有事件(终止事件已读过)
+     */
+    public List<StreamEvent> read(long afterSeq, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (nextSeq - 1 <= afterSeq) {
+                if (done) {
+                    return null;
+                }
+                if (remaining <= 0) {
+                    return List.of();
+                }
+                remaining = appended.awaitNanos(remaining);
+            }
+            long from = Math.max(afterSeq + 1, nextSeq - ring.length);
+            List<StreamEvent> events = new ArrayList<>((int) (nextSeq - from));
+            for (long seq = from; seq < nextSeq; seq++) {
+                events.add(ring[index(seq)]);
+            }
+            return events;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public String getNodeKey() {
+        return nodeKey;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    boolean isOpened() {
+        return opened;
+    }
+
+    /**
+     * 节点开始执行，首个增量的延迟从此刻计算
+     */
+    void open() {
+        openedNanos = System.nanoTime();
+        opened = true;
+    }
+
+    long getCreatedNanos() {
+        return createdNanos;
+    }
+
+    long getDoneNanos() {
+        return doneNanos;
+    }
+
+    private void terminate(String type, Map<String, Object> data) {
+        lock.lock();
+        try {
+            if (done) {
+                return;
+            }
+            publish(type, data != null ? data : Map.of());
+            done = true;
+            doneNanos = System.nanoTime();
+            hub.recordTerminated(StreamEvent.DONE.equals(type));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void publish(String type, Map<String, Object> data) {
+        long seq = nextSeq++;
+        ring[index(seq)] = new StreamEvent(seq, type, data);
+        hub.recordEvent();
+        appended.signalAll();
+    }
+
+    private int index(long seq) {
+        return (int) ((seq - 1) % ring.length);
+    }
+}
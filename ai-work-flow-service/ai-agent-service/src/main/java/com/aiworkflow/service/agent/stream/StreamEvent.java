@@ -0,0 +1,23 @@
+package com.aiworkflow.service.agent.stream;
+
+import java.util.Map;
+
+/**
+ * 输出流中的一个事件，创建后不再修改，由所有订阅者共享
+ *
+ * @param seq  通道内从 1 开始连续递增的序号，作为 SSE 的 id，客户端断线重连时通过 Last-Event-ID 续传
+ * @param type chunk(增量内容)、done(正常结束)或 error(失败)
+ * @param data 事件内容，以 JSON 发送
+ */
+public record StreamEvent(long seq, String type, Map<String, Object> data) {
+
+    public static final String CHUNK = "chunk";
+
+    public static final String DONE = "done";
+
+    public static final String ERROR = "error";
+
+    public boolean isTerminal() {
+        return !CHUNK.equals(type);
+    }
+}
@@ -0,0 +1,168 @@
+package com.aiworkflow.service.agent.stream;
+
+import com.aiworkflow.common.core.metrics.MetricRegistry;
+import com.aiworkflow.common.core.spi.LatencyHistogram;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 节点输出流的内存分发中心
+ * <p>
+ * 每个 (实例, 节点) 一个 {@link StreamChannel}。执行器在节点开始时 {@link #open} 并写入增量，
+ * 客户端通过 {@link #connect} 以 SSE 订阅，可以早于节点开始(通道先以待开始状态创建)，也可以晚于结束(保留 retention)。
+ * 流只用于展示进度，节点的最终输出仍由执行结果一次性落库；服务重启后未结束的流丢失。
+ * 首个增量相对节点开始的延迟(time-to-first-token)记入直方图，输出为 aiworkflow_stream_first_token_seconds。
+ */
+@Slf4j
+@Component
+public class StreamHub {
+
+    private final StreamProperties properties;
+
+    private final ConcurrentHashMap<String, StreamChannel> channels = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final LatencyHistogram timeToFirstToken = new LatencyHistogram();
+
+    private final LongAdder openedChannels = new LongAdder();
+
+    private final LongAdder completedChannels = new LongAdder();
+
+    private final LongAdder failedChannels = new LongAdder();
+
+    private final LongAdder events = new LongAdder();
+
+    private final LongAdder connections = new LongAdder();
+
+    private final AtomicInteger activeConnections = new AtomicInteger();
+
+    public StreamHub(StreamProperties properties) {
+        this.properties = properties;
+        MetricRegistry.global().register("aiworkflow_stream_first_token_seconds", timeToFirstToken);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stream-hub-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getSweepInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::sweepQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 节点开始执行时调用；已有订阅者在等待的通道直接开始，上一次执行遗留的未结束通道以错误结束后替换
+     */
+    public StreamChannel open(String instanceId, String nodeKey) {
+        StreamChannel channel = channels.compute(key(instanceId, nodeKey), (key, existing) -> {
+            if (existing != null && !existing.isOpened() && !existing.isDone()) {
+                return existing;
+            }
+            if (existing != null) {
+                existing.fail("节点重新执行");
+            }
+            return newChannel(instanceId, nodeKey);
+        });
+        channel.open();
+        openedChannels.increment();
+        return channel;
+    }
+
+    /**
+     * 以 SSE 订阅节点输出，从序号 lastEventId 之后开始(0 表示从头)
+     */
+    public SseEmitter connect(String instanceId, String nodeKey, long lastEventId) {
+        StreamChannel channel = channels.computeIfAbsent(key(instanceId, nodeKey), key -> newChannel(instanceId, nodeKey));
+        SseEmitter emitter = new SseEmitter(properties.getConnectionTimeout().toMillis());
+        connections.increment();
+        activeConnections.incrementAndGet();
+        new SseStreamWriter(channel, emitter, lastEventId, properties.getHeartbeatInterval().toMillis(),
+                activeConnections::decrementAndGet).start();
+        return emitter;
+    }
+
+    /**
+     * 删除结束超过 retention 的通道，待开始超过 pendingTimeout 的通道以错误结束
+     */
+    public int sweep() {
+        long now = System.nanoTime();
+        long retention = properties.getRetention().toNanos();
+        long pendingTimeout = properties.getPendingTimeout().toNanos();
+        int removed = 0;
+        Iterator<StreamChannel> iterator = channels.values().iterator();
+        while (iterator.hasNext()) {
+            StreamChannel channel = iterator.next();
+            if (!channel.isOpened() && !channel.isDone() && now - channel.getCreatedNanos() > pendingTimeout) {
+                channel.fail("节点未开始执行");
+            }
+            if (channel.isDone() && now - channel.getDoneNanos() > retention) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("channels", channels.size());
+        stats.put("openedChannels", openedChannels.sum());
+        stats.put("completedChannels", completedChannels.sum());
+        stats.put("failedChannels", failedChannels.sum());
+        stats.put("events", events.sum());
+        stats.put("connections", connections.sum());
+        stats.put("activeConnections", activeConnections.get());
+        stats.put("timeToFirstToken", timeToFirstToken.snapshot());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        channels.values().forEach(channel -> channel.fail("服务关闭"));
+    }
+
+    void recordFirstChunk(long nanos) {
+        timeToFirstToken.record(nanos);
+    }
+
+    void recordEvent() {
+        events.increment();
+    }
+
+    void recordTerminated(boolean completed) {
+        (completed ? completedChannels : failedChannels).increment();
+    }
+
+    private StreamChannel newChannel(String instanceId, String nodeKey) {
+        return new StreamChannel(instanceId, nodeKey, properties.getMaxBufferedEvents(), this);
+    }
+
+    private static String key(String instanceId, String nodeKey) {
+        return instanceId + "/" + nodeKey;
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            log.warn("清理输出流通道失败", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.aiworkflow.service.agent.stream;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 节点输出流配置
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.agent.stream")
+public class StreamProperties {
+
+    // 关闭后节点仍正常执行，只是不再向订阅者推送增量
+    private boolean enabled = true;
+
+    // 每个通道保留的事件数，用于晚到的订阅者、慢客户端和断线续传；超出后覆盖最早的增量
+    private int maxBufferedEvents = 4096;
+
+    // 通道结束后保留多久，期间仍可订阅到完整输出
+    private Duration retention = Duration.ofMinutes(5);
+
+    // 先订阅、节点迟迟未开始的通道等待多久后以错误结束
+    private Duration pendingTimeout = Duration.ofMinutes(10);
+
+    // 无事件时的心跳间隔，防止网关和代理因空闲断开连接
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    // 单个 SSE 连接的最长持续时间
+    private Duration connectionTimeout = Duration.ofMinutes(30);
+
+    // 清理过期通道的间隔
+    private Duration sweepInterval = Duration.ofSeconds(30);
+}
@@ -0,0 +1,189 @@
+package com.aiworkflow.service.agent.cache;
+
+import com.aiworkflow.common.core.util.DigestKey;
+import com.aiworkflow.service.agent.llm.LlmProperties;
+import com.aiworkflow.service.agent.llm.LlmRequest;
+import com.aiworkflow.service.agent.llm.LlmResponse;
+import com.aiworkflow.service.agent.llm.OpenAiCompatibleClient;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ResponseCache 测试，模型服务由本地桩服务器模拟
+ */
+class ResponseCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer server;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    // 桩服务器先返回的错误次数
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    // 非空时桩服务器收到请求后等待放行
+    private volatile CountDownLatch gate;
+
+    private OpenAiCompatibleClient client;
+
+    private final List<ResponseCache> caches = new ArrayList<>();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/chat/completions", exchange -> {
+            int n = calls.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                if (gate != null) {
+                    gate.await(5, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            boolean fail = failuresLeft.getAndDecrement() > 0;
+            byte[] body = (fail ? "{\"error\":\"overloaded\"}"
+                    : "{\"model\":\"stub-1\",\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"answer-" + n
+                    + "\"},\"finish_reason\":\"stop\"}],\"usage\":{\"prompt_tokens\":10,\"completion_tokens\":5}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(fail ? 503 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        LlmProperties llm = new LlmProperties();
+        llm.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1");
+        client = new OpenAiCompatibleClient(llm);
+    }
+
+    @AfterEach
+    void stopServer() {
+        caches.forEach(ResponseCache::shutdown);
+        server.stop(0);
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneModelCall() throws Exception {
+        ResponseCache cache = newCache();
+        gate = new CountDownLatch(1);
+
+        List<CompletableFuture<LlmResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(cache.complete(request("总结 ${doc}", 0.0)));
+        }
+        gate.countDown();
+        for (CompletableFuture<LlmResponse> future : futures) {
+            assertEquals("answer-1", future.get(5, TimeUnit.SECONDS).getContent());
+        }
+
+        // 完成后再次请求直接命中内存
+        assertEquals("answer-1", cache.complete(request("总结 ${doc}", 0.0)).get(5, TimeUnit.SECONDS).getContent());
+        assertEquals(1, calls.get());
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("modelCalls"));
+        assertEquals(7L, stats.get("coalesced"));
+        assertEquals(1L, stats.get("memoryHits"));
+    }
+
+    @Test
+    void persistentTierSurvivesRestart() throws Exception {
+        ResponseCache first = newCache();
+        assertEquals("answer-1", first.complete(request("翻译 ${doc}", 0.0)).get(5, TimeUnit.SECONDS).getContent());
+        // 磁盘写入是异步的，等待文件落盘
+        waitUntil(() -> {
+            first.sweep();
+            return ((Map<?, ?>) first.getStats().get("disk")).get("entryCount").equals(1L);
+        });
+
+        ResponseCache second = newCache();
+        assertEquals("answer-1", second.complete(request("翻译 ${doc}", 0.0)).get(5, TimeUnit.SECONDS).getContent());
+        assertEquals(1, calls.get());
+        assertEquals(1L, second.getStats().get("diskHits"));
+        assertEquals(15L, second.getStats().get("tokensSaved"));
+    }
+
+    @Test
+    void failuresAreNotCachedAndSamplingRequestsBypass() throws Exception {
+        ResponseCache cache = newCache();
+        failuresLeft.set(1);
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> cache.complete(request("分类 ${doc}", 0.0)).get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause().getMessage().contains("503"));
+        assertEquals("answer-2", cache.complete(request("分类 ${doc}", 0.0)).get(5, TimeUnit.SECONDS).getContent());
+
+        // temperature > 0 的请求每次都调用模型
+        cache.complete(request("分类 ${doc}", 0.7)).get(5, TimeUnit.SECONDS);
+        cache.complete(request("分类 ${doc}", 0.7)).get(5, TimeUnit.SECONDS);
+        assertEquals(4, calls.get());
+        assertEquals(2L, cache.getStats().get("bypassed"));
+    }
+
+    @Test
+    void digestIgnoresConfigKeyOrderAndNumberFormat() {
+        Map<String, Object> a = new LinkedHashMap<>();
+        a.put("model", "gpt-4");
+        a.put("prompt", "总结 ${doc}");
+        a.put("temperature", 0);
+        Map<String, Object> b = new LinkedHashMap<>();
+        b.put("temperature", "0.0");
+        b.put("prompt", "总结 ${doc}");
+        b.put("model", "gpt-4");
+        Map<String, Object> vars = Map.of("doc", "季度报告");
+
+        DigestKey digestA = RequestDigest.of(LlmRequest.resolve(a, vars, "default"));
+        assertEquals(digestA, RequestDigest.of(LlmRequest.resolve(b, vars, "default")));
+        // 模板渲染结果不同则摘要不同
+        assertNotEquals(digestA, RequestDigest.of(LlmRequest.resolve(a, Map.of("doc", "年度报告"), "default")));
+        assertEquals(64, digestA.hex().length());
+    }
+
+    private ResponseCache newCache() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setDirectory(cacheDir.toString());
+        properties.setSweepInterval(Duration.ofHours(1));
+        ResponseCache cache = new ResponseCache(client, properties);
+        caches.add(cache);
+        return cache;
+    }
+
+    private static LlmRequest request(String prompt, double temperature) {
+        return LlmRequest.resolve(Map.of("model", "stub", "prompt", prompt, "temperature", temperature),
+                Map.of("doc", "季度报告"), "default");
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+}
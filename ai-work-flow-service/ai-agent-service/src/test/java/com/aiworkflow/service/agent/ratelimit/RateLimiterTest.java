@@ -0,0 +1,170 @@
+package com.aiworkflow.service.agent.ratelimit;
+
+import com.aiworkflow.service.agent.llm.LlmProperties;
+import com.aiworkflow.service.agent.llm.LlmRequest;
+import com.aiworkflow.service.agent.llm.LlmResponse;
+import com.aiworkflow.service.agent.llm.OpenAiCompatibleClient;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RateLimiter 测试
+ */
+class RateLimiterTest {
+
+    private final List<RateLimiter> limiters = new ArrayList<>();
+
+    private HttpServer server;
+
+    @AfterEach
+    void tearDown() {
+        limiters.forEach(RateLimiter::shutdown);
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void burstBeyondCapacityIsParkedUntilRefill() throws Exception {
+        RateLimitProperties properties = properties();
+        properties.getDefaultModelLimit().setRequests(5);
+        RateLimiter limiter = newLimiter(properties);
+
+        List<CompletableFuture<RateLimiter.Permit>> permits = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            permits.add(limiter.acquire("m", "k", 10));
+        }
+        assertEquals(5, permits.stream().filter(CompletableFuture::isDone).count());
+        assertEquals(3, limiter.getStats().get("parked"));
+
+        // 每秒补充 5 个，排队的 3 个在 1 秒内按顺序放行
+        CompletableFuture.allOf(permits.toArray(CompletableFuture[]::new)).get(2, TimeUnit.SECONDS);
+        assertEquals(3L, limiter.getStats().get("delayed"));
+        assertEquals(0, limiter.getStats().get("parked"));
+    }
+
+    @Test
+    void cancelledOrTimedOutParkedCallsLeaveParkedCount() throws Exception {
+        RateLimitProperties properties = properties();
+        properties.getDefaultModelLimit().setRequests(1);
+        properties.setMaxWait(Duration.ofSeconds(10));
+        RateLimiter limiter = newLimiter(properties);
+
+        assertTrue(limiter.acquire("m", "k", 10).isDone());
+        CompletableFuture<RateLimiter.Permit> cancelled = limiter.acquire("m", "k", 10);
+        CompletableFuture<RateLimiter.Permit> timedOut = limiter.acquire("m", "k", 10)
+                .orTimeout(50, TimeUnit.MILLISECONDS);
+        assertEquals(2, limiter.getStats().get("parked"));
+
+        cancelled.cancel(false);
+        assertEquals(1, limiter.getStats().get("parked"));
+        assertThrows(ExecutionException.class, () -> timedOut.get(1, TimeUnit.SECONDS));
+        assertEquals(0, limiter.getStats().get("parked"));
+    }
+
+    @Test
+    void tokenEstimatesAreSettledAndLongWaitsRejected() throws Exception {
+        RateLimitProperties properties = properties();
+        properties.getApiKeyLimit().setTokens(1000);
+        properties.setMaxWait(Duration.ofMillis(100));
+        RateLimiter limiter = newLimiter(properties);
+
+        RateLimiter.Permit permit = limiter.acquire("m", "k", 800).get();
+        ExecutionException error = assertThrows(ExecutionException.class, () -> limiter.acquire("m", "k", 800).get());
+        assertInstanceOf(RateLimitException.class, error.getCause());
+
+        // 实际只用了 100，多预约的 700 退还后可以立即放行
+        permit.settle(100);
+        assertTrue(limiter.acquire("m", "k", 800).isDone());
+        assertEquals(1L, limiter.getStats().get("rejected"));
+    }
+
+    @Test
+    void responseHeadersAdjustLimitAndRemaining() throws Exception {
+        RateLimiter limiter = newLimiter(properties());
+        LlmRequest request = new LlmRequest();
+        request.setModel("m");
+        limiter.onResponse(request, 200, HttpHeaders.of(Map.of(
+                "x-ratelimit-limit-requests", List.of("120"),
+                "x-ratelimit-remaining-requests", List.of("0"),
+                "x-ratelimit-reset-requests", List.of("500ms")), (name, value) -> true));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> bucket = (Map<String, Object>) ((Map<String, Object>) limiter.getStats().get("buckets"))
+                .get("model:m:requests");
+        assertEquals(120L, bucket.get("limit"));
+        assertEquals("headers", bucket.get("source"));
+
+        long start = System.nanoTime();
+        CompletableFuture<RateLimiter.Permit> permit = limiter.acquire("m", "k", 10);
+        assertFalse(permit.isDone());
+        // 每分钟 120 个，余额为 0 时下一个在 500ms 后放行
+        permit.get(2, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(400));
+    }
+
+    @Test
+    void throttledCallIsRequeuedAfterRetryAfter() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            boolean throttle = calls.incrementAndGet() == 1;
+            byte[] body = (throttle ? "{\"error\":\"rate limited\"}"
+                    : "{\"model\":\"m\",\"choices\":[{\"message\":{\"content\":\"ok\"}}],\"usage\":{\"prompt_tokens\":3,\"completion_tokens\":2}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            if (throttle) {
+                exchange.getResponseHeaders().add("retry-after-ms", "200");
+            }
+            exchange.sendResponseHeaders(throttle ? 429 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        RateLimitProperties properties = properties();
+        properties.getDefaultModelLimit().setRequests(100);
+        RateLimiter limiter = newLimiter(properties);
+        LlmProperties llm = new LlmProperties();
+        llm.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1");
+        RateLimitedLlmClient client = new RateLimitedLlmClient(
+                new OpenAiCompatibleClient(llm, limiter), limiter, properties, "k");
+
+        LlmRequest request = LlmRequest.resolve(Map.of("model", "m", "prompt", "hi"), Map.of(), "m");
+        long start = System.nanoTime();
+        LlmResponse response = client.complete(request).get(5, TimeUnit.SECONDS);
+        assertEquals("ok", response.getContent());
+        assertEquals(2, calls.get());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(1L, limiter.getStats().get("throttled"));
+    }
+
+    private static RateLimitProperties properties() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setWindow(Duration.ofSeconds(1));
+        return properties;
+    }
+
+    private RateLimiter newLimiter(RateLimitProperties properties) {
+        RateLimiter limiter = new RateLimiter(properties);
+        limiters.add(limiter);
+        return limiter;
+    }
+}
@@ -0,0 +1,146 @@
+package com.aiworkflow.service.agent.stream;
+
+import com.aiworkflow.service.agent.llm.LlmProperties;
+import com.aiworkflow.service.agent.llm.LlmRequest;
+import com.aiworkflow.service.agent.llm.LlmResponse;
+import com.aiworkflow.service.agent.llm.OpenAiCompatibleClient;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StreamHub 测试，流式模型服务由本地桩服务器模拟
+ */
+class StreamHubTest {
+
+    private final StreamProperties properties = new StreamProperties();
+
+    private StreamHub hub;
+
+    private HttpServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (hub != null) {
+            hub.shutdown();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void streamsModelDeltasToReaders() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(request.contains("\"stream\":true"));
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String delta : new String[]{"你", "好", "\\n世界"}) {
+                    out.write(("data: {\"model\":\"stub-1\",\"choices\":[{\"delta\":{\"content\":\"" + delta
+                            + "\"}}]}\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+                out.write(("data: {\"choices\":[{\"delta\":{},\"finish_reason\":\"stop\"}]}\n\n"
+                        + "data: {\"choices\":[],\"usage\":{\"prompt_tokens\":7,\"completion_tokens\":3}}\n\n"
+                        + "data: [DONE]\n\n").getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.start();
+        LlmProperties llm = new LlmProperties();
+        llm.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1");
+        OpenAiCompatibleClient client = new OpenAiCompatibleClient(llm);
+        hub = new StreamHub(properties);
+
+        StreamChannel channel = hub.open("1", "llm");
+        CompletableFuture<List<StreamEvent>> reader = CompletableFuture.supplyAsync(() -> readAll(channel));
+        LlmRequest request = new LlmRequest();
+        request.setModel("stub");
+        request.setPrompt("hi");
+        LlmResponse response = client.stream(request, channel::append).get(5, TimeUnit.SECONDS);
+        channel.complete(Map.of("model", response.getModel()));
+
+        assertEquals("你好\n世界", response.getContent());
+        assertEquals("stub-1", response.getModel());
+        assertEquals("stop", response.getFinishReason());
+        assertEquals(10, response.totalTokens());
+
+        List<StreamEvent> events = reader.get(5, TimeUnit.SECONDS);
+        assertEquals(4, events.size());
+        assertEquals("你", events.get(0).data().get("delta"));
+        assertEquals("\n世界", events.get(2).data().get("delta"));
+        assertEquals(StreamEvent.DONE, events.get(3).type());
+        assertEquals(1L, ((Map<?, ?>) hub.getStats().get("timeToFirstToken")).get("count"));
+    }
+
+    @Test
+    void lateReaderResumesFromLastEventId() throws Exception {
+        hub = new StreamHub(properties);
+        StreamChannel channel = hub.open("1", "llm");
+        channel.append("a");
+        channel.append("b");
+        channel.append("c");
+        channel.complete(Map.of());
+
+        List<StreamEvent> events = channel.read(2, 0, TimeUnit.MILLISECONDS);
+        assertEquals(List.of(3L, 4L), events.stream().map(StreamEvent::seq).toList());
+        // 终止事件之后重连：直接返回结束信号，不当作超时
+        assertNull(channel.read(4, 10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void bufferKeepsLatestEvents() throws Exception {
+        properties.setMaxBufferedEvents(4);
+        hub = new StreamHub(properties);
+        StreamChannel channel = hub.open("1", "llm");
+        for (int i = 1; i <= 10; i++) {
+            channel.append(Integer.toString(i));
+        }
+
+        List<StreamEvent> events = channel.read(0, 0, TimeUnit.MILLISECONDS);
+        assertEquals(List.of(7L, 8L, 9L, 10L), events.stream().map(StreamEvent::seq).toList());
+        assertEquals("10", events.get(3).data().get("delta"));
+    }
+
+    @Test
+    void reopenFailsUnfinishedChannel() throws Exception {
+        hub = new StreamHub(properties);
+        StreamChannel first = hub.open("1", "llm");
+        first.append("partial");
+        StreamChannel second = hub.open("1", "llm");
+
+        assertNotSame(first, second);
+        List<StreamEvent> events = first.read(0, 0, TimeUnit.MILLISECONDS);
+        assertEquals(StreamEvent.ERROR, events.get(events.size() - 1).type());
+        assertFalse(second.isDone());
+    }
+
+    private static List<StreamEvent> readAll(StreamChannel channel) {
+        List<StreamEvent> events = new ArrayList<>();
+        long seq = 0;
+        try {
+            while (events.isEmpty() || !events.get(events.size() - 1).isTerminal()) {
+                for (StreamEvent event : channel.read(seq, 5, TimeUnit.SECONDS)) {
+                    events.add(event);
+                    seq = event.seq();
+                }
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,10 @@
+package com.aiworkflow.service.file.config;
+
+import com.aiworkflow.service.file.store.FileStorageProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(FileStorageProperties.class)
+public class FileConfig {
+}
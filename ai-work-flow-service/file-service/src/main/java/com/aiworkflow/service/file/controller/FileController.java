@@ -0,0 +1,117 @@
+package com.aiworkflow.service.file.controller;
+
+import com.aiworkflow.common.web.result.Result;
+import com.aiworkflow.service.file.download.FileDownloader;
+import com.aiworkflow.service.file.store.FileRecord;
+import com.aiworkflow.service.file.store.FileStore;
+import com.aiworkflow.service.file.store.UploadSession;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/files")
+public class FileController {
+
+    private final FileStore fileStore;
+
+    private final FileDownloader fileDownloader;
+
+    public FileController(FileStore fileStore, FileDownloader fileDownloader) {
+        this.fileStore = fileStore;
+        this.fileDownloader = fileDownloader;
+    }
+
+    /**
+     * 表单上传(适合小文件)，大文件使用分片上传
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Result<FileRecord> upload(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return Result.success(fileStore.store(in, file.getOriginalFilename(), file.getContentType()));
+        }
+    }
+
+    /**
+     * 创建分片上传；请求中带 sha256 且内容已存在时直接返回带 fileId 的会话
+     */
+    @PostMapping("/uploads")
+    public Result<UploadSession> createUpload(@RequestBody UploadSession request) throws IOException {
+        return Result.success(fileStore.createUpload(request));
+    }
+
+    /**
+     * 查询已接收的偏移，用于断点续传
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public Result<UploadSession> getUpload(@PathVariable String uploadId) throws IOException {
+        return Result.success(fileStore.getUpload(uploadId));
+    }
+
+    /**
+     * 追加分片，请求体为原始字节，直接写入磁盘
+     */
+    @PutMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Result<UploadSession> appendChunk(@PathVariable String uploadId, @RequestParam long offset,
+                                             HttpServletRequest request) throws IOException {
+        return Result.success(fileStore.appendChunk(uploadId, offset, request.getInputStream()));
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public Result<FileRecord> completeUpload(@PathVariable String uploadId) throws IOException {
+        return Result.success(fileStore.completeUpload(uploadId));
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public Result<Void> abortUpload(@PathVariable String uploadId) throws IOException {
+        fileStore.abortUpload(uploadId);
+        return Result.success();
+    }
+
+    @GetMapping("/{fileId}")
+    public Result<FileRecord> get(@PathVariable String fileId) throws IOException {
+        return Result.success(fileStore.getRecord(fileId));
+    }
+
+    /**
+     * 下载内容，支持 Range 断点下载；download=true 时以附件形式下载
+     */
+    @GetMapping("/{fileId}/content")
+    public void content(@PathVariable String fileId, @RequestParam(defaultValue = "false") boolean download,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileRecord record = fileStore.findRecord(fileId);
+        if (record == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        fileDownloader.write(record, fileStore.contentPath(record), download, request, response);
+    }
+
+    @DeleteMapping("/{fileId}")
+    public Result<Boolean> delete(@PathVariable String fileId) throws IOException {
+        return Result.success(fileStore.delete(fileId));
+    }
+
+    @GetMapping("/stats")
+    public Result<Map<String, Object>> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("store", fileStore.getStats());
+        stats.put("download", fileDownloader.getStats());
+        return Result.success(stats);
+    }
+
+    /**
+     * 手动回收无引用的内容和过期上传，返回释放的字节数
+     */
+    @PostMapping("/gc")
+    public Result<Long> collectGarbage() throws IOException {
+        return Result.success(fileStore.collectGarbage());
+    }
+}
@@ -0,0 +1,61 @@
+package com.aiworkflow.service.file.download;
+
+/**
+ * HTTP Range 请求头中的单个字节区间(闭区间)
+ *
+ * @param start 起始偏移
+ * @param end   结束偏移(含)
+ */
+public record ByteRange(long start, long end) {
+
+    // 区间不可满足，应返回 416
+    public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    private static final String PREFIX = "bytes=";
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    public boolean isSatisfiable() {
+        return start >= 0;
+    }
+
+    /**
+     * 解析 Range 请求头。返回 null 表示返回完整内容：没有该请求头、格式不合法或多区间
+     * (多区间响应需要 multipart/byteranges，客户端很少使用，按 RFC 9110 忽略 Range)
+     */
+    public static ByteRange parse(String header, long size) {
+        if (header == null || !header.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+            return null;
+        }
+        String spec = header.substring(PREFIX.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0 || spec.indexOf(',') >= 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // 后缀区间：最后 n 字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, size - suffix), size - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= size) {
+                return UNSATISFIABLE;
+            }
+            return new ByteRange(start, Math.min(end, size - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
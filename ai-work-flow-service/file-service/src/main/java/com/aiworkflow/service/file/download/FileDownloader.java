@@ -0,0 +1,149 @@
+package com.aiworkflow.service.file.download;
+
+import com.aiworkflow.service.file.store.FileRecord;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 把文件内容写到 HTTP 响应，支持单区间 Range、If-Range 和基于 ETag 的条件请求
+ * <p>
+ * 容器支持 sendfile(Tomcat NIO 默认开启)时只设置请求属性，由容器在处理器返回后用 FileChannel.transferTo
+ * 把文件直接发到 socket，数据不经过用户态；否则在当前线程以 transferTo 写到响应输出流。
+ * 内容按 SHA-256 寻址，同一个文件 ID 的内容不会变化，ETag 即摘要。
+ */
+@Component
+public class FileDownloader {
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LongAdder responses = new LongAdder();
+
+    private final LongAdder rangeResponses = new LongAdder();
+
+    private final LongAdder notModified = new LongAdder();
+
+    private final LongAdder sendfileResponses = new LongAdder();
+
+    private final LongAdder servedBytes = new LongAdder();
+
+    public void write(FileRecord record, Path content, boolean attachment, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        if (!Files.isRegularFile(content)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        responses.increment();
+        String etag = "\"" + record.getSha256() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            notModified.increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long size = Files.size(content);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // If-Range 为日期或与 ETag 不一致时返回完整内容
+        ByteRange range = ifRange == null || ifRange.trim().equals(etag)
+                ? ByteRange.parse(request.getHeader(HttpHeaders.RANGE), size) : null;
+        if (range != null && !range.isSatisfiable()) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        long start = range != null ? range.start() : 0;
+        long length = range != null ? range.length() : size;
+        if (range != null) {
+            rangeResponses.increment();
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + size);
+        }
+        response.setContentType(record.getContentType() != null
+                ? record.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        ContentDisposition.Builder disposition = attachment ? ContentDisposition.attachment() : ContentDisposition.inline();
+        String fileName = record.getFileName();
+        if (fileName != null) {
+            // 非 ASCII 文件名按 RFC 5987 编码
+            disposition = StandardCharsets.US_ASCII.newEncoder().canEncode(fileName)
+                    ? disposition.filename(fileName) : disposition.filename(fileName, StandardCharsets.UTF_8);
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.build().toString());
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        servedBytes.add(length);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            sendfileResponses.increment();
+            request.setAttribute(SENDFILE_FILENAME, content.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(content, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long n = channel.transferTo(position, remaining, out);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("responses", responses.sum());
+        stats.put("rangeResponses", rangeResponses.sum());
+        stats.put("notModified", notModified.sum());
+        stats.put("sendfileResponses", sendfileResponses.sum());
+        stats.put("servedBytes", servedBytes.sum());
+        return stats;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,170 @@
+package com.aiworkflow.service.file.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 按内容寻址的数据块存储
+ * <p>
+ * 每份内容一个只读文件，路径为 {directory}/{SHA-256 前两位}/{SHA-256}，相同内容只存一份。
+ * 数据块由已写好的临时文件原子改名而来，读到的总是完整内容；是否仍被引用由文件记录决定，
+ * 无引用的数据块由 {@link #deleteUnreferenced} 回收。
+ */
+@Slf4j
+public class BlobStore {
+
+    // 内存映射计算摘要时每次映射的窗口，避免超大文件一次映射占满地址空间
+    private static final long HASH_WINDOW = 64L * 1024 * 1024;
+
+    private final Path directory;
+
+    public BlobStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建数据目录: " + directory, e);
+        }
+    }
+
+    public Path pathOf(String sha256) {
+        return directory.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    public boolean exists(String sha256) {
+        return Files.isRegularFile(pathOf(sha256));
+    }
+
+    /**
+     * 把临时文件收入存储。内容已存在时删除临时文件并刷新已有数据块的修改时间(避免它在宽限期内被回收)；
+     * 返回 true 表示命中已有内容
+     */
+    public boolean commit(Path temp, String sha256) throws IOException {
+        Path target = pathOf(sha256);
+        if (touch(target)) {
+            Files.deleteIfExists(temp);
+            return true;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // 并发写入了相同内容
+            Files.deleteIfExists(temp);
+            touch(target);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 刷新数据块的修改时间，数据块不存在时返回 false
+     */
+    public boolean touch(String sha256) {
+        return touch(pathOf(sha256));
+    }
+
+    /**
+     * 删除未被引用且修改时间早于 olderThanMillis 的数据块，返回删除的字节数
+     */
+    public long deleteUnreferenced(Set<String> referenced, long olderThanMillis) throws IOException {
+        long freed = 0;
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                BasicFileAttributes attributes = readAttributes(file);
+                if (attributes == null || !attributes.isRegularFile()
+                        || referenced.contains(file.getFileName().toString())
+                        || attributes.lastModifiedTime().toMillis() >= olderThanMillis) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(file);
+                    freed += attributes.size();
+                } catch (IOException e) {
+                    log.warn("删除无引用数据块失败: {}", file, e);
+                }
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * 数据块数量和总字节数
+     */
+    public long[] usage() throws IOException {
+        long count = 0;
+        long bytes = 0;
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                BasicFileAttributes attributes = readAttributes(file);
+                if (attributes != null && attributes.isRegularFile()) {
+                    count++;
+                    bytes += attributes.size();
+                }
+            }
+        }
+        return new long[]{count, bytes};
+    }
+
+    /**
+     * 以内存映射方式计算文件的 SHA-256，数据不经过堆内存
+     */
+    public static String sha256(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += HASH_WINDOW) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(HASH_WINDOW, size - position));
+                digest.update(window);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static boolean touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            // 数据块存在但不可写(如只读挂载)，不影响复用
+            return Files.isRegularFile(file);
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // 遍历期间被并发删除
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.aiworkflow.service.file.store;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件记录：文件名等元数据加上内容的 SHA-256，多个记录可以引用同一份数据
+ */
+@Data
+public class FileRecord {
+
+    private String id;
+
+    private String fileName;
+
+    private String contentType;
+
+    private long size;
+
+    // 内容的 SHA-256(十六进制)，同时是数据块的存储键和下载的 ETag
+    private String sha256;
+
+    private LocalDateTime createTime;
+}
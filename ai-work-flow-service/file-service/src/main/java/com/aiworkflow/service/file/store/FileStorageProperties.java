@@ -0,0 +1,32 @@
+package com.aiworkflow.service.file.store;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 本地文件存储配置
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.file")
+public class FileStorageProperties {
+
+    // 存储根目录，其下为 blobs(按内容寻址的数据)、files(文件记录)、uploads(未完成的分片上传)和 tmp
+    private String directory = "data/files";
+
+    // 单个文件大小上限
+    private long maxFileSize = 2L * 1024 * 1024 * 1024;
+
+    // 单个分片大小上限
+    private long maxChunkSize = 64L * 1024 * 1024;
+
+    // 分片上传多久没有新数据后过期删除
+    private Duration uploadExpiry = Duration.ofHours(24);
+
+    // 没有文件记录引用的数据块至少保留多久才回收，避免删掉刚写入、记录还未落盘的数据
+    private Duration gcGracePeriod = Duration.ofHours(1);
+
+    // 回收无引用数据块和过期上传的间隔
+    private Duration gcInterval = Duration.ofMinutes(30);
+}
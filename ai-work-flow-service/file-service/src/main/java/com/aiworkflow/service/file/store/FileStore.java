@@ -0,0 +1,548 @@
+package com.aiworkflow.service.file.store;
+
+import com.aiworkflow.common.web.exception.BusinessException;
+import com.aiworkflow.common.web.result.ResultCode;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 本地文件存储
+ * <p>
+ * 文件内容按 SHA-256 存入 {@link BlobStore}，相同内容只存一份；每次上传生成一条文件记录(JSON 文件)指向内容。
+ * 数据以流的方式从请求直接写入磁盘，任何时候都不会整体读入堆内存。大文件使用分片上传：
+ * 创建会话后按偏移顺序追加分片，中断后查询会话拿到已接收的偏移续传，最后完成上传。
+ * 连续追加时摘要随写入增量计算；服务重启或分片写入中断后，完成时以内存映射方式重新计算。
+ * 删除文件只删除记录，没有记录引用的内容由定期回收删除。
+ */
+@Slf4j
+@Component
+public class FileStore {
+
+    private static final String JSON_SUFFIX = ".json";
+
+    private static final String PART_SUFFIX = ".part";
+
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9a-f]{32}");
+
+    private static final Pattern SHA256_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    // 单次 transferFrom 的最大字节数
+    private static final long TRANSFER_STEP = 8L * 1024 * 1024;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final FileStorageProperties properties;
+
+    private final BlobStore blobStore;
+
+    private final Path recordDirectory;
+
+    private final Path uploadDirectory;
+
+    private final Path tempDirectory;
+
+    // 正在写入或刚写入过的上传：串行化同一上传的写入，并保存增量摘要
+    private final ConcurrentHashMap<String, ActiveUpload> activeUploads = new ConcurrentHashMap<>();
+
+    private final ReentrantLock gcLock = new ReentrantLock();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder storedFiles = new LongAdder();
+
+    private final LongAdder dedupHits = new LongAdder();
+
+    private final LongAdder receivedBytes = new LongAdder();
+
+    private final LongAdder rehashes = new LongAdder();
+
+    private final LongAdder gcFreedBytes = new LongAdder();
+
+    private final LongAdder expiredUploads = new LongAdder();
+
+    private volatile long blobCount;
+
+    private volatile long blobBytes;
+
+    private volatile LocalDateTime lastGcTime;
+
+    public FileStore(FileStorageProperties properties) {
+        this.properties = properties;
+        Path root = Paths.get(properties.getDirectory());
+        this.blobStore = new BlobStore(root.resolve("blobs"));
+        this.recordDirectory = root.resolve("files");
+        this.uploadDirectory = root.resolve("uploads");
+        this.tempDirectory = root.resolve("tmp");
+        try {
+            Files.createDirectories(recordDirectory);
+            Files.createDirectories(uploadDirectory);
+            Files.createDirectories(tempDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建存储目录: " + root, e);
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "file-store-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getGcInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::collectGarbageQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 一次性保存整个输入流(如表单上传)
+     */
+    public FileRecord store(InputStream in, String fileName, String contentType) throws IOException {
+        Path temp = tempDirectory.resolve(UUID.randomUUID() + PART_SUFFIX);
+        try {
+            MessageDigest digest = BlobStore.newDigest();
+            long size;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                size = transfer(new DigestInputStream(in, digest), channel, 0, properties.getMaxFileSize());
+            }
+            if (size > properties.getMaxFileSize()) {
+                throw new BusinessException(ResultCode.UPLOAD_INVALID, "文件超过大小上限 " + properties.getMaxFileSize());
+            }
+            receivedBytes.add(size);
+            return commit(temp, HexFormat.of().formatHex(digest.digest()), fileName, contentType, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 创建分片上传会话；声明的 sha256 已存在时直接生成文件记录，不再需要上传数据
+     */
+    public UploadSession createUpload(UploadSession request) throws IOException {
+        if (request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new BusinessException(ResultCode.UPLOAD_INVALID, "缺少文件名");
+        }
+        if (request.getSize() > properties.getMaxFileSize()) {
+            throw new BusinessException(ResultCode.UPLOAD_INVALID, "文件超过大小上限 " + properties.getMaxFileSize());
+        }
+        String sha256 = normalizeHash(request.getSha256());
+        UploadSession session = new UploadSession();
+        session.setFileName(request.getFileName());
+        session.setContentType(request.getContentType());
+        session.setSize(request.getSize());
+        session.setSha256(sha256);
+        session.setCreateTime(LocalDateTime.now());
+
+        if (sha256 != null && blobStore.touch(sha256)) {
+            long size = Files.size(blobStore.pathOf(sha256));
+            if (request.getSize() < 0 || request.getSize() == size) {
+                dedupHits.increment();
+                FileRecord record = writeRecord(sha256, request.getFileName(), request.getContentType(), size);
+                session.setOffset(size);
+                session.setFileId(record.getId());
+                return session;
+            }
+        }
+
+        session.setId(newId());
+        Files.createFile(uploadDirectory.resolve(session.getId() + PART_SUFFIX));
+        writeJson(uploadDirectory.resolve(session.getId() + JSON_SUFFIX), session);
+        return session;
+    }
+
+    /**
+     * 查询上传会话，offset 为服务端已接收的字节数
+     */
+    public UploadSession getUpload(String uploadId) throws IOException {
+        UploadSession session = readJson(uploadPath(uploadId, JSON_SUFFIX), UploadSession.class);
+        if (session == null) {
+            throw new BusinessException(ResultCode.UPLOAD_NOT_FOUND, "上传会话不存在: " + uploadId);
+        }
+        try {
+            session.setOffset(Files.size(uploadPath(uploadId, PART_SUFFIX)));
+        } catch (NoSuchFileException e) {
+            throw new BusinessException(ResultCode.UPLOAD_NOT_FOUND, "上传会话不存在: " + uploadId);
+        }
+        return session;
+    }
+
+    /**
+     * 从 offset 处追加一个分片，offset 必须等于已接收的字节数；返回追加后的会话
+     */
+    public UploadSession appendChunk(String uploadId, long offset, InputStream in) throws IOException {
+        UploadSession session = getUpload(uploadId);
+        ActiveUpload active = activeUploads.computeIfAbsent(uploadId, id -> new ActiveUpload());
+        if (!active.lock.tryLock()) {
+            throw new BusinessException(ResultCode.UPLOAD_INVALID, "该上传正在写入其他分片");
+        }
+        try (FileChannel channel = FileChannel.open(uploadPath(uploadId, PART_SUFFIX), StandardOpenOption.WRITE)) {
+            long current = channel.size();
+            if (offset != current) {
+                throw new BusinessException(ResultCode.UPLOAD_INVALID, "分片偏移不一致，已接收 " + current + " 字节");
+            }
+            long total = session.getSize() >= 0 ? session.getSize() : properties.getMaxFileSize();
+            long limit = Math.min(properties.getMaxChunkSize(), total - current);
+            MessageDigest digest = active.digestAt(current);
+            long written;
+            try {
+                written = transfer(digest != null ? new DigestInputStream(in, digest) : in, channel, current, limit);
+            } catch (IOException | RuntimeException e) {
+                // 已写入的部分保留，客户端查询偏移后续传；摘要状态不再可信
+                active.invalidate();
+                throw e;
+            }
+            if (written > limit) {
+                channel.truncate(current);
+                active.invalidate();
+                throw new BusinessException(ResultCode.UPLOAD_INVALID, "分片超过允许的长度 " + limit);
+            }
+            active.advance(digest, current + written);
+            receivedBytes.add(written);
+            session.setOffset(current + written);
+            return session;
+        } finally {
+            active.lock.unlock();
+        }
+    }
+
+    /**
+     * 完成上传：校验大小和摘要，内容收入数据块存储并生成文件记录
+     */
+    public FileRecord completeUpload(String uploadId) throws IOException {
+        UploadSession session = getUpload(uploadId);
+        ActiveUpload active = activeUploads.computeIfAbsent(uploadId, id -> new ActiveUpload());
+        if (!active.lock.tryLock()) {
+            throw new BusinessException(ResultCode.UPLOAD_INVALID, "该上传正在写入分片");
+        }
+        try {
+            Path part = uploadPath(uploadId, PART_SUFFIX);
+            long size = Files.size(part);
+            if (session.getSize() >= 0 && size != session.getSize()) {
+                throw new BusinessException(ResultCode.UPLOAD_INVALID,
+                        "上传未完成，已接收 " + size + " / " + session.getSize() + " 字节");
+            }
+            MessageDigest digest = active.digestAt(size);
+            String sha256;
+            if (digest != null) {
+                sha256 = HexFormat.of().formatHex(digest.digest());
+            } else {
+                rehashes.increment();
+                sha256 = BlobStore.sha256(part);
+            }
+            if (session.getSha256() != null && !session.getSha256().equals(sha256)) {
+                deleteUpload(uploadId);
+                throw new BusinessException(ResultCode.UPLOAD_INVALID, "内容摘要不一致，上传已作废，请重新上传");
+            }
+            FileRecord record = commit(part, sha256, session.getFileName(), session.getContentType(), size);
+            deleteUpload(uploadId);
+            return record;
+        } finally {
+            active.lock.unlock();
+            activeUploads.remove(uploadId, active);
+        }
+    }
+
+    public void abortUpload(String uploadId) throws IOException {
+        getUpload(uploadId);
+        deleteUpload(uploadId);
+        activeUploads.remove(uploadId);
+    }
+
+    /**
+     * 查询文件记录，不存在时返回 null
+     */
+    public FileRecord findRecord(String fileId) throws IOException {
+        if (fileId == null || !ID_PATTERN.matcher(fileId).matches()) {
+            return null;
+        }
+        return readJson(recordPath(fileId), FileRecord.class);
+    }
+
+    public FileRecord getRecord(String fileId) throws IOException {
+        FileRecord record = findRecord(fileId);
+        if (record == null) {
+            throw new BusinessException(ResultCode.FILE_NOT_FOUND, "文件不存在: " + fileId);
+        }
+        return record;
+    }
+
+    /**
+     * 文件内容在磁盘上的路径(只读)
+     */
+    public Path contentPath(FileRecord record) {
+        return blobStore.pathOf(record.getSha256());
+    }
+
+    /**
+     * 删除文件记录；内容在没有其他记录引用后由回收删除
+     */
+    public boolean delete(String fileId) throws IOException {
+        return findRecord(fileId) != null && Files.deleteIfExists(recordPath(fileId));
+    }
+
+    /**
+     * 回收：删除过期的上传和临时文件，以及宽限期外没有文件记录引用的内容；返回释放的字节数。
+     * 已有一轮在运行时直接返回 0
+     */
+    public long collectGarbage() throws IOException {
+        if (!gcLock.tryLock()) {
+            return 0;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            long freed = expireUploads(now - properties.getUploadExpiry().toMillis());
+            long graceCutoff = now - properties.getGcGracePeriod().toMillis();
+            try (Stream<Path> temps = Files.list(tempDirectory)) {
+                for (Path temp : (Iterable<Path>) temps::iterator) {
+                    if (lastModified(temp) < graceCutoff) {
+                        freed += sizeQuietly(temp);
+                        Files.deleteIfExists(temp);
+                    }
+                }
+            }
+            freed += blobStore.deleteUnreferenced(referencedHashes(), graceCutoff);
+            gcFreedBytes.add(freed);
+            long[] usage = blobStore.usage();
+            blobCount = usage[0];
+            blobBytes = usage[1];
+            lastGcTime = LocalDateTime.now();
+            return freed;
+        } finally {
+            gcLock.unlock();
+        }
+    }
+
+    /**
+     * 存储统计；数据块数量和占用取自最近一次回收
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("directory", properties.getDirectory());
+        stats.put("storedFiles", storedFiles.sum());
+        stats.put("dedupHits", dedupHits.sum());
+        stats.put("receivedBytes", receivedBytes.sum());
+        stats.put("rehashes", rehashes.sum());
+        stats.put("activeUploads", activeUploads.size());
+        stats.put("expiredUploads", expiredUploads.sum());
+        stats.put("gcFreedBytes", gcFreedBytes.sum());
+        stats.put("blobCount", blobCount);
+        stats.put("blobBytes", blobBytes);
+        stats.put("lastGcTime", lastGcTime);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private FileRecord commit(Path temp, String sha256, String fileName, String contentType, long size)
+            throws IOException {
+        if (blobStore.commit(temp, sha256)) {
+            dedupHits.increment();
+        }
+        return writeRecord(sha256, fileName, contentType, size);
+    }
+
+    private FileRecord writeRecord(String sha256, String fileName, String contentType, long size) throws IOException {
+        FileRecord record = new FileRecord();
+        record.setId(newId());
+        record.setFileName(fileName);
+        record.setContentType(contentType);
+        record.setSize(size);
+        record.setSha256(sha256);
+        record.setCreateTime(LocalDateTime.now());
+        Path path = recordPath(record.getId());
+        Files.createDirectories(path.getParent());
+        writeJson(path, record);
+        storedFiles.increment();
+        return record;
+    }
+
+    /**
+     * 把输入流写到文件的 position 处，最多写 limit + 1 字节；返回值大于 limit 表示输入超长
+     */
+    private static long transfer(InputStream in, FileChannel channel, long position, long limit) throws IOException {
+        ReadableByteChannel source = Channels.newChannel(in);
+        long written = 0;
+        while (written <= limit) {
+            long n = channel.transferFrom(source, position + written, Math.min(TRANSFER_STEP, limit + 1 - written));
+            if (n <= 0) {
+                break;
+            }
+            written += n;
+        }
+        return written;
+    }
+
+    private Set<String> referencedHashes() throws IOException {
+        Set<String> referenced = new HashSet<>();
+        try (Stream<Path> files = Files.walk(recordDirectory, 2)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!file.getFileName().toString().endsWith(JSON_SUFFIX)) {
+                    continue;
+                }
+                FileRecord record = readJson(file, FileRecord.class);
+                if (record != null && record.getSha256() != null) {
+                    referenced.add(record.getSha256());
+                }
+            }
+        }
+        return referenced;
+    }
+
+    private long expireUploads(long cutoff) throws IOException {
+        long freed = 0;
+        try (Stream<Path> files = Files.list(uploadDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(JSON_SUFFIX)) {
+                    continue;
+                }
+                String uploadId = name.substring(0, name.length() - JSON_SUFFIX.length());
+                Path part = uploadDirectory.resolve(uploadId + PART_SUFFIX);
+                long modified = Math.max(lastModified(file), lastModified(part));
+                ActiveUpload active = activeUploads.get(uploadId);
+                if (modified >= cutoff || (active != null && active.lock.isLocked())) {
+                    continue;
+                }
+                freed += sizeQuietly(part);
+                deleteUpload(uploadId);
+                activeUploads.remove(uploadId);
+                expiredUploads.increment();
+            }
+        }
+        return freed;
+    }
+
+    private void deleteUpload(String uploadId) throws IOException {
+        Files.deleteIfExists(uploadDirectory.resolve(uploadId + PART_SUFFIX));
+        Files.deleteIfExists(uploadDirectory.resolve(uploadId + JSON_SUFFIX));
+    }
+
+    private Path uploadPath(String uploadId, String suffix) {
+        if (uploadId == null || !ID_PATTERN.matcher(uploadId).matches()) {
+            throw new BusinessException(ResultCode.UPLOAD_NOT_FOUND, "上传会话不存在: " + uploadId);
+        }
+        return uploadDirectory.resolve(uploadId + suffix);
+    }
+
+    private Path recordPath(String fileId) {
+        return recordDirectory.resolve(fileId.substring(0, 2)).resolve(fileId + JSON_SUFFIX);
+    }
+
+    private static String normalizeHash(String sha256) {
+        if (sha256 == null || sha256.isEmpty()) {
+            return null;
+        }
+        String normalized = sha256.toLowerCase();
+        if (!SHA256_PATTERN.matcher(normalized).matches()) {
+            throw new BusinessException(ResultCode.UPLOAD_INVALID, "sha256 不是合法的十六进制摘要");
+        }
+        return normalized;
+    }
+
+    private static String newId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private static void writeJson(Path path, Object value) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), value);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static <T> T readJson(Path path, Class<T> type) throws IOException {
+        try {
+            return objectMapper.readValue(Files.readAllBytes(path), type);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long sizeQuietly(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void collectGarbageQuietly() {
+        try {
+            collectGarbage();
+        } catch (Exception e) {
+            log.warn("文件存储回收失败", e);
+        }
+    }
+
+    /**
+     * 同一上传的写入锁和增量摘要；摘要只在覆盖了从 0 到 digestedBytes 的全部数据时有效
+     */
+    private static final class ActiveUpload {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private MessageDigest digest = BlobStore.newDigest();
+
+        private long digestedBytes;
+
+        MessageDigest digestAt(long offset) {
+            return digest != null && digestedBytes == offset ? digest : null;
+        }
+
+        void advance(MessageDigest used, long offset) {
+            if (used != null) {
+                digestedBytes = offset;
+            }
+        }
+
+        void invalidate() {
+            digest = null;
+        }
+    }
+}
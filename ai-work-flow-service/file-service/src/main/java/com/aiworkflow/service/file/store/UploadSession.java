@@ -0,0 +1,34 @@
+package com.aiworkflow.service.file.store;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 分片上传会话
+ * <p>
+ * offset 是已接收的字节数，以服务端分片文件的实际长度为准，客户端中断后查询会话从 offset 处续传。
+ * 声明了 sha256 且内容已存在时会话创建即完成(fileId 非空)，无需再上传数据。
+ */
+@Data
+public class UploadSession {
+
+    private String id;
+
+    private String fileName;
+
+    private String contentType;
+
+    // 客户端声明的总大小，-1 表示未知
+    private long size = -1;
+
+    // 客户端声明的 SHA-256，完成时校验
+    private String sha256;
+
+    private long offset;
+
+    // 完成后生成的文件记录
+    private String fileId;
+
+    private LocalDateTime createTime;
+}
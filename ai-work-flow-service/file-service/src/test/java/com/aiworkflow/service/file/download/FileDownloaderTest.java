@@ -0,0 +1,98 @@
+package com.aiworkflow.service.file.download;
+
+import com.aiworkflow.service.file.store.FileRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FileDownloader 测试
+ */
+class FileDownloaderTest {
+
+    @TempDir
+    Path directory;
+
+    private final FileDownloader downloader = new FileDownloader();
+
+    private final FileRecord record = new FileRecord();
+
+    private Path content;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        content = Files.writeString(directory.resolve("blob"), "0123456789");
+        record.setFileName("数字.txt");
+        record.setContentType("text/plain");
+        record.setSha256("ab".repeat(32));
+        record.setSize(10);
+    }
+
+    @Test
+    void servesRanges() throws Exception {
+        assertEquals("234", body(download("bytes=2-4", null)));
+        assertEquals("789", body(download("bytes=-3", null)));
+        MockHttpServletResponse open = download("bytes=7-", null);
+        assertEquals(206, open.getStatus());
+        assertEquals("bytes 7-9/10", open.getHeader("Content-Range"));
+        assertEquals("789", body(open));
+
+        MockHttpServletResponse unsatisfiable = download("bytes=10-", null);
+        assertEquals(416, unsatisfiable.getStatus());
+        assertEquals("bytes */10", unsatisfiable.getHeader("Content-Range"));
+
+        // 多区间和过期的 If-Range 返回完整内容
+        assertEquals(200, download("bytes=0-1,4-5", null).getStatus());
+        assertEquals("0123456789", body(download("bytes=2-4", "\"stale\"")));
+    }
+
+    @Test
+    void usesSendfileWhenSupported() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=5-");
+        request.setAttribute(FileDownloader.SENDFILE_SUPPORT, Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        downloader.write(record, content, true, request, response);
+
+        assertEquals(content.toAbsolutePath().toString(), request.getAttribute(FileDownloader.SENDFILE_FILENAME));
+        assertEquals(5L, request.getAttribute(FileDownloader.SENDFILE_START));
+        assertEquals(10L, request.getAttribute(FileDownloader.SENDFILE_END));
+        assertEquals(5, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertTrue(response.getHeader("Content-Disposition").startsWith("attachment"));
+    }
+
+    @Test
+    void answersNotModifiedForMatchingEtag() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("If-None-Match", "\"" + record.getSha256() + "\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        downloader.write(record, content, false, request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private MockHttpServletResponse download(String range, String ifRange) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", range);
+        if (ifRange != null) {
+            request.addHeader("If-Range", ifRange);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        downloader.write(record, content, false, request, response);
+        return response;
+    }
+
+    private static String body(MockHttpServletResponse response) {
+        return new String(response.getContentAsByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,134 @@
+package com.aiworkflow.service.file.store;
+
+import com.aiworkflow.common.web.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FileStore 测试
+ */
+class FileStoreTest {
+
+    @TempDir
+    Path root;
+
+    private FileStorageProperties properties;
+
+    private FileStore store;
+
+    @BeforeEach
+    void setUp() {
+        properties = new FileStorageProperties();
+        properties.setDirectory(root.toString());
+        store = new FileStore(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    void identicalContentIsStoredOnce() throws Exception {
+        byte[] pdf = "%PDF-1.7 same attachment".getBytes(StandardCharsets.UTF_8);
+        FileRecord first = store.store(new ByteArrayInputStream(pdf), "a.pdf", "application/pdf");
+        FileRecord second = store.store(new ByteArrayInputStream(pdf), "b.pdf", "application/pdf");
+
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(sha256(pdf), first.getSha256());
+        assertEquals(first.getSha256(), second.getSha256());
+        assertArrayEquals(pdf, Files.readAllBytes(store.contentPath(second)));
+        assertEquals(1L, store.getStats().get("dedupHits"));
+
+        // 声明摘要的上传命中已有内容，不需要传数据
+        UploadSession request = new UploadSession();
+        request.setFileName("c.pdf");
+        request.setSha256(first.getSha256().toUpperCase());
+        UploadSession instant = store.createUpload(request);
+        assertNotNull(instant.getFileId());
+        assertEquals(pdf.length, instant.getOffset());
+    }
+
+    @Test
+    void chunkedUploadResumesFromOffset() throws Exception {
+        byte[] data = new byte[10_000];
+        Arrays.fill(data, (byte) 7);
+        data[9_999] = 1;
+        UploadSession request = new UploadSession();
+        request.setFileName("big.bin");
+        request.setSize(data.length);
+        request.setSha256(sha256(data));
+        String uploadId = store.createUpload(request).getId();
+
+        assertEquals(4_000, store.appendChunk(uploadId, 0, slice(data, 0, 4_000)).getOffset());
+        BusinessException mismatch = assertThrows(BusinessException.class,
+                () -> store.appendChunk(uploadId, 0, slice(data, 0, 4_000)));
+        assertTrue(mismatch.getMessage().contains("4000"));
+
+        // 模拟服务重启：增量摘要丢失，完成时重新计算
+        store.shutdown();
+        store = new FileStore(properties);
+        long offset = store.getUpload(uploadId).getOffset();
+        store.appendChunk(uploadId, offset, slice(data, (int) offset, data.length));
+        FileRecord record = store.completeUpload(uploadId);
+
+        assertEquals(data.length, record.getSize());
+        assertArrayEquals(data, Files.readAllBytes(store.contentPath(record)));
+        assertEquals(1L, store.getStats().get("rehashes"));
+        assertThrows(BusinessException.class, () -> store.getUpload(uploadId));
+    }
+
+    @Test
+    void rejectsOversizedChunkAndWrongDigest() throws Exception {
+        UploadSession request = new UploadSession();
+        request.setFileName("x.txt");
+        request.setSize(4);
+        request.setSha256(sha256("abcd".getBytes(StandardCharsets.UTF_8)));
+        String uploadId = store.createUpload(request).getId();
+
+        assertThrows(BusinessException.class,
+                () -> store.appendChunk(uploadId, 0, new ByteArrayInputStream("abcde".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(0, store.getUpload(uploadId).getOffset());
+
+        store.appendChunk(uploadId, 0, new ByteArrayInputStream("abcx".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(BusinessException.class, () -> store.completeUpload(uploadId));
+        assertThrows(BusinessException.class, () -> store.getUpload(uploadId));
+    }
+
+    @Test
+    void garbageCollectionKeepsReferencedContent() throws Exception {
+        properties.setGcGracePeriod(Duration.ZERO);
+        FileRecord kept = store.store(new ByteArrayInputStream(new byte[]{1, 2, 3}), "kept", null);
+        FileRecord dropped = store.store(new ByteArrayInputStream(new byte[]{4, 5}), "dropped", null);
+        FileRecord shared = store.store(new ByteArrayInputStream(new byte[]{1, 2, 3}), "shared", null);
+        assertTrue(store.delete(dropped.getId()));
+        assertTrue(store.delete(shared.getId()));
+        Thread.sleep(5);
+
+        assertEquals(2, store.collectGarbage());
+        assertTrue(Files.exists(store.contentPath(kept)));
+        assertFalse(Files.exists(store.contentPath(dropped)));
+        assertEquals(1L, store.getStats().get("blobCount"));
+    }
+
+    private static ByteArrayInputStream slice(byte[] data, int from, int to) {
+        return new ByteArrayInputStream(data, from, to - from);
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
@@ -0,0 +1,122 @@
+package com.aiworkflow.service.mcp.catalog;
+
+import com.aiworkflow.service.mcp.client.McpClient;
+import com.aiworkflow.service.mcp.client.McpProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 工具列表缓存
+ * <p>
+ * 按服务名缓存 tools/list 的完整结果(跟随 nextCursor 取完所有分页)，写入后 toolCacheTtl 过期；
+ * 服务器发出 notifications/tools/list_changed 时立即失效。缓存的是 future，
+ * 同一服务器的并发查询只发出一轮 tools/list，失败结果不缓存。
+ */
+@Slf4j
+@Component
+public class ToolCatalog {
+
+    static final String LIST_CHANGED = "notifications/tools/list_changed";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final McpClient client;
+
+    private final AsyncCache<String, Map<String, ToolDefinition>> tools;
+
+    private final LongAdder invalidations = new LongAdder();
+
+    public ToolCatalog(McpClient client, McpProperties properties) {
+        this.client = client;
+        this.tools = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getToolCacheTtl())
+                .recordStats()
+                .buildAsync();
+        client.addNotificationListener((server, method) -> {
+            if (LIST_CHANGED.equals(method)) {
+                invalidate(server);
+            }
+        });
+    }
+
+    public CompletableFuture<List<ToolDefinition>> listTools(String server) {
+        return lookup(server).thenApply(byName -> List.copyOf(byName.values()));
+    }
+
+    /**
+     * 查找工具，不存在时返回 null
+     */
+    public CompletableFuture<ToolDefinition> getTool(String server, String name) {
+        return lookup(server).thenApply(byName -> byName.get(name));
+    }
+
+    public void invalidate(String server) {
+        tools.synchronous().invalidate(server);
+        invalidations.increment();
+        log.info("失效 MCP 工具列表缓存: {}", server);
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = tools.synchronous().stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("loadFailureCount", stats.loadFailureCount());
+        result.put("invalidationCount", invalidations.sum());
+        result.put("serverCount", tools.synchronous().estimatedSize());
+        return result;
+    }
+
+    private CompletableFuture<Map<String, ToolDefinition>> lookup(String server) {
+        return tools.get(server, (key, executor) -> load(key, null, new LinkedHashMap<>()));
+    }
+
+    private CompletableFuture<Map<String, ToolDefinition>> load(String server, String cursor,
+                                                               Map<String, ToolDefinition> collected) {
+        Map<String, Object> params = cursor != null ? Map.of("cursor", cursor) : null;
+        return client.request(server, "tools/list", params).thenCompose(result -> {
+            for (JsonNode node : result.path("tools")) {
+                ToolDefinition tool = toDefinition(node);
+                collected.put(tool.getName(), tool);
+            }
+            String next = result.path("nextCursor").asText(null);
+            if (next != null && !next.isEmpty()) {
+                return load(server, next, collected);
+            }
+            return CompletableFuture.completedFuture(collected);
+        });
+    }
+
+    private static ToolDefinition toDefinition(JsonNode node) {
+        ToolDefinition tool = new ToolDefinition();
+        tool.setName(node.path("name").asText());
+        tool.setDescription(node.path("description").asText(null));
+        JsonNode schema = node.get("inputSchema");
+        if (schema != null && schema.isObject()) {
+            tool.setInputSchema(objectMapper.convertValue(schema, MAP_TYPE));
+            try {
+                tool.setInputSchemaJson(objectMapper.writeValueAsString(schema));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("工具参数 Schema 序列化失败: " + tool.getName(), e);
+            }
+        }
+        return tool;
+    }
+}
@@ -0,0 +1,23 @@
+package com.aiworkflow.service.mcp.catalog;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * tools/list 返回的工具描述
+ */
+@Data
+public class ToolDefinition {
+
+    private String name;
+
+    private String description;
+
+    private Map<String, Object> inputSchema;
+
+    // inputSchema 的 JSON 文本，加载时生成一次，参数校验时直接作为编译缓存的键
+    @JsonIgnore
+    private String inputSchemaJson;
+}
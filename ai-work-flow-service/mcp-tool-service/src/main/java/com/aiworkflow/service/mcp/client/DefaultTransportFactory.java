@@ -0,0 +1,32 @@
+package com.aiworkflow.service.mcp.client;
+
+import java.io.IOException;
+
+/**
+ * 按 {@link McpProperties#getServers()} 中的配置建立 stdio 或 TCP 传输
+ */
+public class DefaultTransportFactory implements McpTransportFactory {
+
+    private final McpProperties properties;
+
+    public DefaultTransportFactory(McpProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public McpTransport open(String server) throws IOException {
+        McpProperties.Server config = properties.getServers().get(server);
+        if (config == null) {
+            throw new McpException(0, "未配置的 MCP 服务器: " + server);
+        }
+        return switch (config.getTransport()) {
+            case STDIO -> {
+                if (config.getCommand() == null || config.getCommand().isEmpty()) {
+                    throw new McpException(0, "MCP 服务器缺少启动命令: " + server);
+                }
+                yield new StdioTransport(config.getCommand(), config.getWorkingDirectory(), config.getEnv());
+            }
+            case TCP -> new SocketTransport(config.getHost(), config.getPort(), properties.getConnectTimeout());
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package com.aiworkflow.service.mcp.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * MCP 客户端入口：按服务名维护会话池，所有方法都不阻塞调用线程
+ * <p>
+ * 取消返回的 future 会取消底层请求并通知服务器。
+ */
+@Component
+public class McpClient {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final TypeReference<List<Map<String, Object>>> CONTENT_TYPE = new TypeReference<>() {
+    };
+
+    private final McpTransportFactory transportFactory;
+
+    private final McpProperties properties;
+
+    private final Map<String, McpSessionPool> pools = new ConcurrentHashMap<>();
+
+    // (服务名, 方法名)，方法名如 notifications/tools/list_changed
+    private final List<BiConsumer<String, String>> notificationListeners = new CopyOnWriteArrayList<>();
+
+    // 会话握手在虚拟线程上进行
+    private final ExecutorService openExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public McpClient(McpTransportFactory transportFactory, McpProperties properties) {
+        this.transportFactory = transportFactory;
+        this.properties = properties;
+    }
+
+    /**
+     * 订阅服务器推送的通知
+     */
+    public void addNotificationListener(BiConsumer<String, String> listener) {
+        notificationListeners.add(listener);
+    }
+
+    /**
+     * 发出任意 JSON-RPC 请求，返回 result
+     */
+    public CompletableFuture<JsonNode> request(String server, String method, Object params) {
+        return relay(pool(server).acquire(), session -> session.request(method, params));
+    }
+
+    public CompletableFuture<ToolResult> callTool(String server, ToolCall call) {
+        return request(server, "tools/call", toParams(call)).thenApply(McpClient::toToolResult);
+    }
+
+    /**
+     * 一组独立的工具调用：在同一会话上连续写出、一次 flush，各自的结果按响应到达顺序完成
+     */
+    public List<CompletableFuture<ToolResult>> callTools(String server, List<ToolCall> calls) {
+        List<Map<String, Object>> params = calls.stream().map(McpClient::toParams).toList();
+        CompletableFuture<McpSession> session = pool(server).acquire();
+        CompletableFuture<List<CompletableFuture<JsonNode>>> sent =
+                session.thenApply(s -> s.requestAll("tools/call", params));
+        List<CompletableFuture<ToolResult>> results = new ArrayList<>(calls.size());
+        for (int i = 0; i < calls.size(); i++) {
+            int index = i;
+            results.add(relay(sent, futures -> futures.get(index)).thenApply(McpClient::toToolResult));
+        }
+        return results;
+    }
+
+    /**
+     * 各服务器的会话数、未完成请求数以及写出帧数与 flush 次数(两者之比即平均每次写出合并的请求数)
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        pools.forEach((server, pool) -> stats.put(server, pool.getStats()));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pools.values().forEach(McpSessionPool::close);
+        pools.clear();
+        openExecutor.shutdown();
+    }
+
+    private McpSessionPool pool(String server) {
+        return pools.computeIfAbsent(server, name -> new McpSessionPool(name, transportFactory, properties,
+                (method, params) -> notificationListeners.forEach(listener -> listener.accept(name, method)),
+                openExecutor));
+    }
+
+    /**
+     * 等 source 完成后发出请求；返回的 future 被取消时同时取消已发出的请求
+     */
+    private static <S> CompletableFuture<JsonNode> relay(CompletableFuture<S> source,
+                                                        Function<S, CompletableFuture<JsonNode>> send) {
+        CompletableFuture<JsonNode> result = new CompletableFuture<>();
+        source.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            CompletableFuture<JsonNode> inner = send.apply(value);
+            inner.whenComplete((response, failure) -> {
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(response);
+                }
+            });
+            result.whenComplete((response, failure) -> {
+                if (result.isCancelled()) {
+                    inner.cancel(true);
+                }
+            });
+        });
+        return result;
+    }
+
+    private static Map<String, Object> toParams(ToolCall call) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("name", call.name());
+        params.put("arguments", call.arguments() != null ? call.arguments() : Map.of());
+        return params;
+    }
+
+    static ToolResult toToolResult(JsonNode result) {
+        ToolResult toolResult = new ToolResult();
+        toolResult.setContent(objectMapper.convertValue(result.path("content"), CONTENT_TYPE));
+        JsonNode structured = result.get("structuredContent");
+        toolResult.setStructuredContent(structured != null ? objectMapper.convertValue(structured, Object.class) : null);
+        toolResult.setError(result.path("isError").asBoolean(false));
+        return toolResult;
+    }
+}
@@ -0,0 +1,24 @@
+package com.aiworkflow.service.mcp.client;
+
+/**
+ * MCP 调用失败：服务端返回 JSON-RPC 错误，或会话已断开
+ */
+public class McpException extends RuntimeException {
+
+    // JSON-RPC 错误码，会话层错误为 0
+    private final int code;
+
+    public McpException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public McpException(String message, Throwable cause) {
+        super(message, cause);
+        this.code = 0;
+    }
+
+    public int getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,63 @@
+package com.aiworkflow.service.mcp.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MCP 客户端配置
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.mcp")
+public class McpProperties {
+
+    // 服务名 -> 连接方式，节点配置中的 server 引用这里的服务名
+    private Map<String, Server> servers = new LinkedHashMap<>();
+
+    // 每个服务器的会话数上限
+    private int maxSessionsPerServer = 4;
+
+    // 单个会话的未完成请求数达到该值后才新建会话
+    private int maxInFlightPerSession = 32;
+
+    // 单次请求超时，超时后向服务器发送取消通知
+    private Duration requestTimeout = Duration.ofSeconds(60);
+
+    // initialize 握手超时
+    private Duration initializeTimeout = Duration.ofSeconds(10);
+
+    // TCP 连接超时
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    // 工具列表缓存时间；服务器发出 tools/list_changed 时立即失效
+    private Duration toolCacheTtl = Duration.ofMinutes(10);
+
+    public enum TransportType {
+        // 启动子进程，通过标准输入输出通信
+        STDIO,
+        // 连接已运行的服务器
+        TCP
+    }
+
+    @Data
+    public static class Server {
+
+        private TransportType transport = TransportType.STDIO;
+
+        // STDIO：启动命令及参数
+        private List<String> command;
+
+        private String workingDirectory;
+
+        private Map<String, String> env;
+
+        // TCP：地址和端口
+        private String host = "localhost";
+
+        private int port;
+    }
+}
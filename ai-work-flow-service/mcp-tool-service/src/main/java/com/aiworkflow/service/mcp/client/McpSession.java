@@ -0,0 +1,345 @@
+package com.aiworkflow.service.mcp.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 一条 MCP 连接上的 JSON-RPC 会话
+ * <p>
+ * 多路复用：请求带递增 id 发出后不等待响应，同一连接上可以有任意多个未完成请求，响应按 id 匹配，
+ * 允许乱序返回。写出由单独的写线程完成，它每次取走队列中积压的全部帧、逐个写入后只 flush 一次，
+ * 并发请求和 {@link #requestAll} 提交的一组请求自然合并为一次系统调用。
+ * 请求超时或被取消时发送 notifications/cancelled；连接断开时所有未完成请求以 {@link McpException} 失败。
+ */
+@Slf4j
+public class McpSession implements Closeable {
+
+    static final String PROTOCOL_VERSION = "2024-11-05";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final byte NEWLINE = '\n';
+
+    private final String server;
+
+    private final McpTransport transport;
+
+    private final Duration requestTimeout;
+
+    // 服务器推送的通知(方法名、参数)，如 notifications/tools/list_changed
+    private final BiConsumer<String, JsonNode> notificationListener;
+
+    private final Map<Long, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // 每个元素是需要连续写出的一组帧
+    private final LinkedBlockingQueue<List<byte[]>> outbound = new LinkedBlockingQueue<>();
+
+    private final LongAdder framesWritten = new LongAdder();
+
+    private final LongAdder flushes = new LongAdder();
+
+    private final Thread reader;
+
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    private volatile JsonNode serverInfo;
+
+    McpSession(String server, McpTransport transport, Duration requestTimeout,
+               BiConsumer<String, JsonNode> notificationListener) {
+        this.server = server;
+        this.transport = transport;
+        this.requestTimeout = requestTimeout;
+        this.notificationListener = notificationListener;
+        this.reader = Thread.ofVirtual().name("mcp-reader-" + server).start(this::readLoop);
+        this.writer = Thread.ofVirtual().name("mcp-writer-" + server).start(this::writeLoop);
+    }
+
+    /**
+     * 建立会话并完成 initialize 握手，失败时关闭传输
+     */
+    public static McpSession open(String server, McpTransport transport, Duration requestTimeout,
+                                  Duration initializeTimeout, BiConsumer<String, JsonNode> notificationListener) {
+        McpSession session = new McpSession(server, transport, requestTimeout, notificationListener);
+        try {
+            ObjectNode params = objectMapper.createObjectNode();
+            params.put("protocolVersion", PROTOCOL_VERSION);
+            params.putObject("capabilities");
+            params.putObject("clientInfo").put("name", "ai-work-flow").put("version", "1.0");
+            JsonNode result = session.request("initialize", params)
+                    .get(initializeTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            session.serverInfo = result.path("serverInfo");
+            session.notify("notifications/initialized", null);
+            return session;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            session.close();
+            throw new McpException("MCP 会话初始化被中断: " + server, e);
+        } catch (ExecutionException | TimeoutException e) {
+            session.close();
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            throw new McpException("MCP 会话初始化失败: " + server + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 发出一个请求，返回 result 字段；服务端返回 error 时以 {@link McpException} 失败
+     */
+    public CompletableFuture<JsonNode> request(String method, Object params) {
+        List<byte[]> frames = new ArrayList<>(1);
+        CompletableFuture<JsonNode> future = register(method, params, frames);
+        enqueue(frames);
+        return future;
+    }
+
+    /**
+     * 同一方法的一组独立请求，帧连续写出并只 flush 一次；返回的 future 与参数一一对应
+     */
+    public List<CompletableFuture<JsonNode>> requestAll(String method, List<?> paramsList) {
+        List<byte[]> frames = new ArrayList<>(paramsList.size());
+        List<CompletableFuture<JsonNode>> futures = new ArrayList<>(paramsList.size());
+        for (Object params : paramsList) {
+            futures.add(register(method, params, frames));
+        }
+        enqueue(frames);
+        return futures;
+    }
+
+    /**
+     * 发送通知(无响应)
+     */
+    public void notify(String method, Object params) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("jsonrpc", "2.0");
+        message.put("method", method);
+        if (params != null) {
+            message.set("params", objectMapper.valueToTree(params));
+        }
+        enqueue(List.of(toFrame(message)));
+    }
+
+    public String getServer() {
+        return server;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    public JsonNode getServerInfo() {
+        return serverInfo;
+    }
+
+    public long getFramesWritten() {
+        return framesWritten.sum();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writer.interrupt();
+        try {
+            transport.close();
+        } catch (IOException e) {
+            log.debug("关闭 MCP 传输失败: {}", server, e);
+        }
+        failAll(new McpException(0, "MCP 会话已关闭: " + server));
+    }
+
+    private CompletableFuture<JsonNode> register(String method, Object params, List<byte[]> frames) {
+        CompletableFuture<JsonNode> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new McpException(0, "MCP 会话已关闭: " + server));
+            return future;
+        }
+        long id = nextId.getAndIncrement();
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("method", method);
+        if (params != null) {
+            message.set("params", objectMapper.valueToTree(params));
+        }
+        pending.put(id, future);
+        inFlight.incrementAndGet();
+        frames.add(toFrame(message));
+        if (closed) {
+            // 与 close() 并发时 failAll 可能没有看到这个请求
+            future.completeExceptionally(new McpException(0, "MCP 会话已关闭: " + server));
+        }
+
+        if (requestTimeout != null) {
+            future.orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        future.whenComplete((result, error) -> {
+            // 响应到达时读线程已先移除；这里只处理超时、取消和会话关闭
+            if (pending.remove(id) != null) {
+                inFlight.decrementAndGet();
+                if (!closed && (error instanceof TimeoutException || error instanceof CancellationException)) {
+                    notify("notifications/cancelled", Map.of("requestId", id,
+                            "reason", error instanceof TimeoutException ? "timeout" : "cancelled"));
+                }
+            }
+        });
+        return future;
+    }
+
+    private void enqueue(List<byte[]> frames) {
+        if (!frames.isEmpty()) {
+            outbound.add(frames);
+        }
+    }
+
+    private void writeLoop() {
+        OutputStream out = new BufferedOutputStream(transport.output(), 64 * 1024);
+        List<List<byte[]>> batch = new ArrayList<>();
+        try {
+            while (!closed) {
+                batch.add(outbound.take());
+                outbound.drainTo(batch);
+                for (List<byte[]> frames : batch) {
+                    for (byte[] frame : frames) {
+                        out.write(frame);
+                        framesWritten.increment();
+                    }
+                }
+                out.flush();
+                flushes.increment();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // 会话关闭
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("MCP 会话写出失败，关闭会话: {}", server, e);
+                close();
+            }
+        }
+    }
+
+    private void readLoop() {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(transport.input(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isBlank()) {
+                    dispatch(line);
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("MCP 会话读取失败: {}", server, e);
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void dispatch(String line) {
+        JsonNode message;
+        try {
+            message = objectMapper.readTree(line);
+        } catch (IOException e) {
+            log.warn("忽略无法解析的 MCP 消息: {}: {}", server, line.length() > 256 ? line.substring(0, 256) : line);
+            return;
+        }
+        JsonNode id = message.get("id");
+        JsonNode method = message.get("method");
+        if (method != null) {
+            if (id != null) {
+                answerServerRequest(id, method.asText());
+            } else if (notificationListener != null) {
+                notificationListener.accept(method.asText(), message.path("params"));
+            }
+            return;
+        }
+        if (id == null || !id.canConvertToLong()) {
+            return;
+        }
+        CompletableFuture<JsonNode> future = pending.remove(id.asLong());
+        if (future == null) {
+            // 已超时或取消的请求的迟到响应
+            return;
+        }
+        inFlight.decrementAndGet();
+        JsonNode error = message.get("error");
+        if (error != null && !error.isNull()) {
+            future.completeExceptionally(new McpException(error.path("code").asInt(), error.path("message").asText()));
+        } else {
+            future.complete(message.path("result"));
+        }
+    }
+
+    /**
+     * 服务器发来的请求：只支持 ping，其他方法回复 Method not found
+     */
+    private void answerServerRequest(JsonNode id, String method) {
+        ObjectNode reply = objectMapper.createObjectNode();
+        reply.put("jsonrpc", "2.0");
+        reply.set("id", id);
+        if ("ping".equals(method)) {
+            reply.putObject("result");
+        } else {
+            reply.putObject("error").put("code", -32601).put("message", "Method not found: " + method);
+        }
+        enqueue(List.of(toFrame(reply)));
+    }
+
+    private void failAll(McpException error) {
+        for (CompletableFuture<JsonNode> future : pending.values()) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    private static byte[] toFrame(JsonNode message) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(message);
+            byte[] frame = new byte[json.length + 1];
+            System.arraycopy(json, 0, frame, 0, json.length);
+            frame[json.length] = NEWLINE;
+            return frame;
+        } catch (IOException e) {
+            throw new McpException("MCP 消息序列化失败", e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.aiworkflow.service.mcp.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 单个 MCP 服务器的会话池
+ * <p>
+ * 每个会话可以承载多个未完成请求，获取时选未完成请求最少的会话；所有会话都达到 maxInFlightPerSession
+ * 且会话数未到上限时才新建会话。新建会话(含 initialize 握手)在后台执行，同一时刻只建一个，
+ * 期间已有会话继续承接请求。断开的会话在下次获取时移除。
+ */
+@Slf4j
+public class McpSessionPool implements Closeable {
+
+    private final String server;
+
+    private final McpTransportFactory transportFactory;
+
+    private final McpProperties properties;
+
+    private final BiConsumer<String, JsonNode> notificationListener;
+
+    private final Executor openExecutor;
+
+    private final List<McpSession> sessions = new CopyOnWriteArrayList<>();
+
+    private final LongAdder sessionsOpened = new LongAdder();
+
+    private final LongAdder openFailures = new LongAdder();
+
+    // 正在建立的会话，为 null 表示没有
+    private CompletableFuture<McpSession> opening;
+
+    private volatile boolean closed;
+
+    public McpSessionPool(String server, McpTransportFactory transportFactory, McpProperties properties,
+                          BiConsumer<String, JsonNode> notificationListener, Executor openExecutor) {
+        this.server = server;
+        this.transportFactory = transportFactory;
+        this.properties = properties;
+        this.notificationListener = notificationListener;
+        this.openExecutor = openExecutor;
+    }
+
+    /**
+     * 获取一个会话；需要新建且没有可用会话时，future 在握手完成后才完成
+     */
+    public CompletableFuture<McpSession> acquire() {
+        if (closed) {
+            return CompletableFuture.failedFuture(new McpException(0, "MCP 会话池已关闭: " + server));
+        }
+        McpSession best = leastLoaded();
+        if (best != null && best.getInFlight() < properties.getMaxInFlightPerSession()) {
+            return CompletableFuture.completedFuture(best);
+        }
+        synchronized (this) {
+            CompletableFuture<McpSession> open = opening;
+            if (open == null && sessions.size() < properties.getMaxSessionsPerServer()) {
+                open = startOpening();
+            }
+            if (best != null) {
+                // 已有会话先超额承接，避免等待握手
+                return CompletableFuture.completedFuture(best);
+            }
+            return open != null ? open
+                    : CompletableFuture.failedFuture(new McpException(0, "MCP 会话池没有可用会话: " + server));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        int inFlight = 0;
+        long frames = 0;
+        long flushes = 0;
+        for (McpSession session : sessions) {
+            inFlight += session.getInFlight();
+            frames += session.getFramesWritten();
+            flushes += session.getFlushes();
+        }
+        stats.put("sessions", sessions.size());
+        stats.put("inFlight", inFlight);
+        stats.put("sessionsOpened", sessionsOpened.sum());
+        stats.put("openFailures", openFailures.sum());
+        stats.put("framesWritten", frames);
+        stats.put("flushes", flushes);
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        sessions.forEach(McpSession::close);
+        sessions.clear();
+    }
+
+    /**
+     * 在后台新建会话，返回握手完成时完成的 future，调用方持有 this 锁
+     * <p>
+     * 先登记 opening 再提交：执行器同步执行(或握手立即失败)时回调在当前线程内联运行，
+     * 回调只清理自己登记的 future，不会把已结束的 future 留在 opening 上。
+     */
+    private CompletableFuture<McpSession> startOpening() {
+        CompletableFuture<McpSession> open = new CompletableFuture<>();
+        opening = open;
+        try {
+            CompletableFuture.supplyAsync(this::openSession, openExecutor)
+                    .whenComplete((session, error) -> onOpened(open, session, error));
+        } catch (RuntimeException e) {
+            // 执行器拒绝提交
+            openFailures.increment();
+            onOpened(open, null, e);
+        }
+        return open;
+    }
+
+    private void onOpened(CompletableFuture<McpSession> open, McpSession session, Throwable error) {
+        boolean added = false;
+        synchronized (this) {
+            if (session != null && closed) {
+                session.close();
+            } else if (session != null) {
+                sessions.add(session);
+                added = true;
+            }
+            if (opening == open) {
+                opening = null;
+            }
+        }
+        if (added) {
+            open.complete(session);
+        } else {
+            open.completeExceptionally(error != null ? error
+                    : new McpException(0, "MCP 会话池已关闭: " + server));
+        }
+    }
+
+    private McpSession leastLoaded() {
+        McpSession best = null;
+        for (McpSession session : sessions) {
+            if (!session.isOpen()) {
+                sessions.remove(session);
+                continue;
+            }
+            if (best == null || session.getInFlight() < best.getInFlight()) {
+                best = session;
+            }
+        }
+        return best;
+    }
+
+    private McpSession openSession() {
+        McpTransport transport;
+        try {
+            transport = transportFactory.open(server);
+        } catch (IOException e) {
+            openFailures.increment();
+            throw new UncheckedIOException("连接 MCP 服务器失败: " + server, e);
+        }
+        try {
+            McpSession session = McpSession.open(server, transport, properties.getRequestTimeout(),
+                    properties.getInitializeTimeout(), notificationListener);
+            sessionsOpened.increment();
+            log.info("已建立 MCP 会话: {} ({})", server, session.getServerInfo());
+            return session;
+        } catch (RuntimeException e) {
+            openFailures.increment();
+            throw e;
+        }
+    }
+}
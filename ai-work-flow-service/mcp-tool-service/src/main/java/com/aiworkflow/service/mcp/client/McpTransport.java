@@ -0,0 +1,15 @@
+package com.aiworkflow.service.mcp.client;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 会话底层的双向字节流，消息按行分隔(MCP stdio 传输的帧格式)
+ */
+public interface McpTransport extends Closeable {
+
+    InputStream input();
+
+    OutputStream output();
+}
@@ -0,0 +1,11 @@
+package com.aiworkflow.service.mcp.client;
+
+import java.io.IOException;
+
+/**
+ * 按服务名建立传输连接，会话池扩容或重连时调用
+ */
+public interface McpTransportFactory {
+
+    McpTransport open(String server) throws IOException;
+}
@@ -0,0 +1,49 @@
+package com.aiworkflow.service.mcp.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+
+/**
+ * TCP 传输，帧格式与 stdio 相同(按行分隔的 JSON-RPC)，用于以独立进程部署的 MCP 服务器
+ */
+public class SocketTransport implements McpTransport {
+
+    private final Socket socket;
+
+    private final InputStream input;
+
+    private final OutputStream output;
+
+    public SocketTransport(String host, int port, Duration connectTimeout) throws IOException {
+        this.socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.connect(new InetSocketAddress(host, port), (int) connectTimeout.toMillis());
+            this.input = socket.getInputStream();
+            this.output = socket.getOutputStream();
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream input() {
+        return input;
+    }
+
+    @Override
+    public OutputStream output() {
+        return output;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
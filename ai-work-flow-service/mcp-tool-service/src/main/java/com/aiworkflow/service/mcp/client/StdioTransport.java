@@ -0,0 +1,53 @@
+package com.aiworkflow.service.mcp.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 子进程 stdio 传输：写入进程标准输入，从标准输出读取，标准错误继承给本进程(MCP 服务器的日志)
+ */
+public class StdioTransport implements McpTransport {
+
+    private final Process process;
+
+    public StdioTransport(List<String> command, String workingDirectory, Map<String, String> env) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+        if (workingDirectory != null) {
+            builder.directory(Path.of(workingDirectory).toFile());
+        }
+        if (env != null) {
+            builder.environment().putAll(env);
+        }
+        this.process = builder.start();
+    }
+
+    @Override
+    public InputStream input() {
+        return process.getInputStream();
+    }
+
+    @Override
+    public OutputStream output() {
+        return process.getOutputStream();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // 先关闭标准输入让服务器自行退出，超时再强制结束
+        try {
+            process.getOutputStream().close();
+            if (!process.waitFor(2, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.aiworkflow.service.mcp.client;
+
+import java.util.Map;
+
+/**
+ * 一次工具调用
+ */
+public record ToolCall(String name, Map<String, Object> arguments) {
+}
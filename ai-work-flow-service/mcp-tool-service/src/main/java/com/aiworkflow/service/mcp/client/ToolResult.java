@@ -0,0 +1,34 @@
+package com.aiworkflow.service.mcp.client;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * tools/call 的结果；isError 为 true 表示工具本身执行失败(协议层成功)
+ */
+@Data
+public class ToolResult {
+
+    // 内容块：{type: text, text: ...}、{type: image, ...} 等
+    private List<Map<String, Object>> content;
+
+    private Object structuredContent;
+
+    private boolean isError;
+
+    /**
+     * 拼接所有文本内容块
+     */
+    public String text() {
+        if (content == null) {
+            return "";
+        }
+        return content.stream()
+                .filter(block -> "text".equals(block.get("type")))
+                .map(block -> String.valueOf(block.get("text")))
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,18 @@
+package com.aiworkflow.service.mcp.config;
+
+import com.aiworkflow.service.mcp.client.DefaultTransportFactory;
+import com.aiworkflow.service.mcp.client.McpProperties;
+import com.aiworkflow.service.mcp.client.McpTransportFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(McpProperties.class)
+public class McpConfig {
+
+    @Bean
+    public McpTransportFactory mcpTransportFactory(McpProperties properties) {
+        return new DefaultTransportFactory(properties);
+    }
+}
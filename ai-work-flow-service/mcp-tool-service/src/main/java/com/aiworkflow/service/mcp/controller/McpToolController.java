@@ -0,0 +1,51 @@
+package com.aiworkflow.service.mcp.controller;
+
+import com.aiworkflow.common.web.result.Result;
+import com.aiworkflow.service.mcp.catalog.ToolCatalog;
+import com.aiworkflow.service.mcp.catalog.ToolDefinition;
+import com.aiworkflow.service.mcp.client.McpClient;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/mcp")
+public class McpToolController {
+
+    private final McpClient mcpClient;
+
+    private final ToolCatalog toolCatalog;
+
+    public McpToolController(McpClient mcpClient, ToolCatalog toolCatalog) {
+        this.mcpClient = mcpClient;
+        this.toolCatalog = toolCatalog;
+    }
+
+    /**
+     * 服务器的工具列表(走缓存)
+     */
+    @GetMapping("/servers/{server}/tools")
+    public CompletableFuture<Result<List<ToolDefinition>>> tools(@PathVariable String server) {
+        return toolCatalog.listTools(server).thenApply(Result::success);
+    }
+
+    /**
+     * 手动失效工具列表缓存
+     */
+    @DeleteMapping("/servers/{server}/tools")
+    public Result<Void> invalidateTools(@PathVariable String server) {
+        toolCatalog.invalidate(server);
+        return Result.success();
+    }
+
+    @GetMapping("/stats")
+    public Result<Map<String, Object>> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("sessions", mcpClient.getStats());
+        stats.put("toolCatalog", toolCatalog.getStats());
+        return Result.success(stats);
+    }
+}
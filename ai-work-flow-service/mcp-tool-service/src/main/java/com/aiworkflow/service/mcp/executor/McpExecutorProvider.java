@@ -0,0 +1,25 @@
+package com.aiworkflow.service.mcp.executor;
+
+import com.aiworkflow.common.core.execution.NodeExecutor;
+import com.aiworkflow.common.core.spi.ExecutorProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 提供 MCP 工具节点执行器
+ */
+@Component
+public class McpExecutorProvider implements ExecutorProvider {
+
+    private final McpToolNodeExecutor mcpToolNodeExecutor;
+
+    public McpExecutorProvider(McpToolNodeExecutor mcpToolNodeExecutor) {
+        this.mcpToolNodeExecutor = mcpToolNodeExecutor;
+    }
+
+    @Override
+    public List<NodeExecutor> getProvidedExecutors() {
+        return List.of(mcpToolNodeExecutor);
+    }
+}
@@ -0,0 +1,224 @@
+package com.aiworkflow.service.mcp.executor;
+
+import com.aiworkflow.common.core.execution.AsyncNodeExecutor;
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.common.core.util.JsonSchemaValidator;
+import com.aiworkflow.common.core.validation.ValidationResult;
+import com.aiworkflow.service.mcp.catalog.ToolCatalog;
+import com.aiworkflow.service.mcp.catalog.ToolDefinition;
+import com.aiworkflow.service.mcp.client.McpClient;
+import com.aiworkflow.service.mcp.client.ToolCall;
+import com.aiworkflow.service.mcp.client.ToolResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * MCP_TOOL 节点执行器
+ * <p>
+ * 节点配置：server(服务名)以及 tool + arguments 调用单个工具，或 calls(每项含 tool、arguments、outputKey)
+ * 调用一组互不依赖的工具，这组调用在同一会话上一次写出。arguments 中形如 ${name} 的字符串整体替换为变量值，
+ * 嵌在文本中的 ${name} 按文本替换。调用前按工具列表缓存中的 inputSchema 校验参数(validateArguments: false 时跳过)。
+ * 任一工具返回 isError 时节点失败。
+ */
+@Slf4j
+@Component
+public class McpToolNodeExecutor implements AsyncNodeExecutor {
+
+    static final String MCP_TOOL = "MCP_TOOL";
+
+    private final McpClient client;
+
+    private final ToolCatalog catalog;
+
+    public McpToolNodeExecutor(McpClient client, ToolCatalog catalog) {
+        this.client = client;
+        this.catalog = catalog;
+    }
+
+    @Override
+    public String[] getSupportedNodeTypes() {
+        return new String[]{MCP_TOOL};
+    }
+
+    @Override
+    public CompletionStage<ExecutionResult> executeAsync(ExecutionContext context) {
+        Map<String, Object> config = context.getConfig() != null ? context.getConfig() : Map.of();
+        Object server = config.get("server");
+        if (!(server instanceof String serverName) || serverName.isEmpty()) {
+            return CompletableFuture.completedFuture(ExecutionResult.fail("节点配置缺少 server"));
+        }
+        List<PlannedCall> planned;
+        try {
+            planned = plan(config, context.getVariables());
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ExecutionResult.fail(e.getMessage()));
+        }
+        boolean validate = !Boolean.FALSE.equals(config.get("validateArguments"));
+
+        CompletableFuture<String> validation = validate
+                ? validate(serverName, planned)
+                : CompletableFuture.completedFuture(null);
+        List<CompletableFuture<ToolResult>> calls = new CopyOnWriteArrayList<>();
+        CompletableFuture<ExecutionResult> result = validation.thenCompose(error -> {
+            if (error != null) {
+                return CompletableFuture.completedFuture(ExecutionResult.fail(error));
+            }
+            List<ToolCall> toolCalls = planned.stream().map(PlannedCall::call).toList();
+            calls.addAll(toolCalls.size() == 1
+                    ? List.of(client.callTool(serverName, toolCalls.get(0)))
+                    : client.callTools(serverName, toolCalls));
+            return CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new))
+                    .thenApply(ignored -> toResult(planned, calls, config.containsKey("calls")));
+        }).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            log.warn("MCP 工具调用失败: instance={}, node={}", context.getFlowInstanceId(), context.getNodeKey(), cause);
+            return ExecutionResult.fail("MCP 工具调用失败: " + cause.getMessage());
+        });
+        // 引擎超时或终止实例时取消 result，需要传递到已发出的请求
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                calls.forEach(call -> call.cancel(true));
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<String> validate(String server, List<PlannedCall> planned) {
+        return catalog.listTools(server).thenApply(tools -> {
+            Map<String, ToolDefinition> byName = new HashMap<>();
+            tools.forEach(tool -> byName.put(tool.getName(), tool));
+            for (PlannedCall call : planned) {
+                ToolDefinition tool = byName.get(call.call().name());
+                if (tool == null) {
+                    return "MCP 服务器 " + server + " 没有工具: " + call.call().name();
+                }
+                if (tool.getInputSchemaJson() != null) {
+                    ValidationResult validation = JsonSchemaValidator.validateDetailed(
+                            tool.getInputSchemaJson(), call.call().arguments());
+                    if (!validation.isValid()) {
+                        return "工具 " + tool.getName() + " 参数校验失败: " + validation.getErrorMessage();
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static ExecutionResult toResult(List<PlannedCall> planned, List<CompletableFuture<ToolResult>> calls,
+                                            boolean multiple) {
+        Map<String, Object> outputs = new HashMap<>();
+        List<Map<String, Object>> results = new ArrayList<>(calls.size());
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < calls.size(); i++) {
+            PlannedCall call = planned.get(i);
+            ToolResult toolResult = calls.get(i).join();
+            String text = toolResult.text();
+            if (toolResult.isError()) {
+                errors.add(call.call().name() + ": " + text);
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("tool", call.call().name());
+            item.put("content", text);
+            item.put("structuredContent", toolResult.getStructuredContent());
+            item.put("isError", toolResult.isError());
+            results.add(item);
+            if (call.outputKey() != null) {
+                outputs.put(call.outputKey(), toolResult.getStructuredContent() != null
+                        ? toolResult.getStructuredContent() : text);
+            }
+        }
+        if (!errors.isEmpty()) {
+            return ExecutionResult.fail("工具返回错误: " + String.join("; ", errors));
+        }
+        if (multiple) {
+            outputs.put("results", results);
+        } else {
+            outputs.put("content", results.get(0).get("content"));
+            outputs.put("structuredContent", results.get(0).get("structuredContent"));
+        }
+        return ExecutionResult.success(outputs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<PlannedCall> plan(Map<String, Object> config, Map<String, Object> variables) {
+        List<PlannedCall> planned = new ArrayList<>();
+        if (config.get("calls") instanceof List<?> calls) {
+            for (Object item : calls) {
+                if (!(item instanceof Map<?, ?> map)) {
+                    throw new IllegalArgumentException("calls 中的每一项必须是对象");
+                }
+                planned.add(planOne((Map<String, Object>) map, variables));
+            }
+        } else {
+            planned.add(planOne(config, variables));
+        }
+        if (planned.isEmpty()) {
+            throw new IllegalArgumentException("calls 不能为空");
+        }
+        return planned;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PlannedCall planOne(Map<String, Object> config, Map<String, Object> variables) {
+        if (!(config.get("tool") instanceof String tool) || tool.isEmpty()) {
+            throw new IllegalArgumentException("节点配置缺少 tool");
+        }
+        Map<String, Object> arguments = config.get("arguments") instanceof Map<?, ?> map
+                ? (Map<String, Object>) resolve(map, variables) : Map.of();
+        Object outputKey = config.get("outputKey");
+        return new PlannedCall(new ToolCall(tool, arguments), outputKey instanceof String key && !key.isEmpty() ? key : null);
+    }
+
+    /**
+     * 递归替换参数中的变量引用
+     */
+    static Object resolve(Object value, Map<String, Object> variables) {
+        if (value instanceof String text) {
+            if (text.startsWith("${") && text.endsWith("}") && text.indexOf("${", 2) < 0) {
+                return variables != null ? variables.get(text.substring(2, text.length() - 1).trim()) : null;
+            }
+            return text.contains("${") ? interpolate(text, variables) : text;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> resolved = new LinkedHashMap<>();
+            map.forEach((k, v) -> resolved.put(String.valueOf(k), resolve(v, variables)));
+            return resolved;
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(item -> resolve(item, variables)).toList();
+        }
+        return value;
+    }
+
+    private static String interpolate(String text, Map<String, Object> variables) {
+        StringBuilder out = new StringBuilder(text.length() + 32);
+        int from = 0;
+        while (true) {
+            int start = text.indexOf("${", from);
+            int end = start >= 0 ? text.indexOf('}', start + 2) : -1;
+            if (end < 0) {
+                return out.append(text, from, text.length()).toString();
+            }
+            out.append(text, from, start);
+            Object value = variables != null ? variables.get(text.substring(start + 2, end).trim()) : null;
+            if (value != null) {
+                out.append(value);
+            }
+            from = end + 1;
+        }
+    }
+
+    private record PlannedCall(ToolCall call, String outputKey) {
+    }
+}
@@ -0,0 +1,192 @@
+package com.aiworkflow.service.mcp.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内的 MCP 服务器桩，按行收发 JSON-RPC，每个请求在独立线程处理，响应可能乱序
+ * <p>
+ * 工具：echo(text) 原样返回；slow 等待 {@link #release()}；sleep(ms) 休眠后返回；fail 返回 isError。
+ * tools/list 分两页返回。
+ */
+class FakeMcpServer implements AutoCloseable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ServerSocket serverSocket;
+
+    private final List<Socket> connections = new CopyOnWriteArrayList<>();
+
+    private final List<OutputStream> outputs = new CopyOnWriteArrayList<>();
+
+    final AtomicInteger initializeCount = new AtomicInteger();
+
+    final AtomicInteger toolsListCount = new AtomicInteger();
+
+    final AtomicInteger activeCalls = new AtomicInteger();
+
+    final List<Long> cancelledIds = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    FakeMcpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().start(this::acceptLoop);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    int connectionCount() {
+        return connections.size();
+    }
+
+    void release() {
+        gate.countDown();
+    }
+
+    /**
+     * 向所有连接推送工具列表变化通知
+     */
+    void pushListChanged() throws IOException {
+        ObjectNode notification = objectMapper.createObjectNode();
+        notification.put("jsonrpc", "2.0");
+        notification.put("method", "notifications/tools/list_changed");
+        for (OutputStream out : outputs) {
+            write(out, notification);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        gate.countDown();
+        serverSocket.close();
+        for (Socket socket : connections) {
+            socket.close();
+        }
+    }
+
+    private void acceptLoop() {
+        try {
+            while (true) {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                Thread.ofVirtual().start(() -> serve(socket));
+            }
+        } catch (IOException e) {
+            // 关闭
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            OutputStream out = socket.getOutputStream();
+            outputs.add(out);
+            String line;
+            while ((line = in.readLine()) != null) {
+                JsonNode message = objectMapper.readTree(line);
+                Thread.ofVirtual().start(() -> handle(out, message));
+            }
+        } catch (IOException e) {
+            // 连接断开
+        }
+    }
+
+    private void handle(OutputStream out, JsonNode message) {
+        String method = message.path("method").asText();
+        JsonNode params = message.path("params");
+        ObjectNode result = objectMapper.createObjectNode();
+        switch (method) {
+            case "initialize" -> {
+                initializeCount.incrementAndGet();
+                result.put("protocolVersion", McpSession.PROTOCOL_VERSION);
+                result.putObject("capabilities").putObject("tools").put("listChanged", true);
+                result.putObject("serverInfo").put("name", "fake").put("version", "1");
+            }
+            case "notifications/cancelled" -> {
+                cancelledIds.add(params.path("requestId").asLong());
+                return;
+            }
+            case "tools/list" -> {
+                toolsListCount.incrementAndGet();
+                if (params.path("cursor").isMissingNode()) {
+                    ObjectNode echo = result.putArray("tools").addObject().put("name", "echo");
+                    ObjectNode schema = echo.putObject("inputSchema").put("type", "object");
+                    schema.putObject("properties").putObject("text").put("type", "string");
+                    schema.putArray("required").add("text");
+                    result.put("nextCursor", "page-2");
+                } else {
+                    var tools = result.putArray("tools");
+                    for (String name : List.of("slow", "sleep", "fail")) {
+                        tools.addObject().put("name", name).putObject("inputSchema").put("type", "object");
+                    }
+                }
+            }
+            case "tools/call" -> {
+                activeCalls.incrementAndGet();
+                try {
+                    result.put("isError", false);
+                    String text = switch (params.path("name").asText()) {
+                        case "echo" -> params.path("arguments").path("text").asText();
+                        case "slow" -> {
+                            gate.await(10, TimeUnit.SECONDS);
+                            yield "slow-done";
+                        }
+                        case "sleep" -> {
+                            long ms = params.path("arguments").path("ms").asLong();
+                            Thread.sleep(ms);
+                            yield "slept-" + ms;
+                        }
+                        default -> {
+                            result.put("isError", true);
+                            yield "boom";
+                        }
+                    };
+                    result.putArray("content").addObject().put("type", "text").put("text", text);
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    activeCalls.decrementAndGet();
+                }
+            }
+            default -> {
+                if (!message.has("id")) {
+                    return;
+                }
+            }
+        }
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", message.get("id"));
+        response.set("result", result);
+        try {
+            write(out, response);
+        } catch (IOException e) {
+            // 连接断开
+        }
+    }
+
+    private static void write(OutputStream out, JsonNode message) throws IOException {
+        byte[] bytes = (objectMapper.writeValueAsString(message) + "\n").getBytes(StandardCharsets.UTF_8);
+        synchronized (out) {
+            out.write(bytes);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.aiworkflow.service.mcp.client;
+
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.service.mcp.catalog.ToolCatalog;
+import com.aiworkflow.service.mcp.catalog.ToolDefinition;
+import com.aiworkflow.service.mcp.executor.McpToolNodeExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * McpClient 测试，MCP 服务器由进程内桩模拟
+ */
+class McpClientTest {
+
+    private FakeMcpServer server;
+
+    private McpProperties properties;
+
+    private McpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeMcpServer();
+        properties = new McpProperties();
+        properties.setMaxSessionsPerServer(2);
+        properties.setMaxInFlightPerSession(4);
+        properties.setRequestTimeout(Duration.ofSeconds(5));
+        client = new McpClient(name -> new SocketTransport("127.0.0.1", server.port(), Duration.ofSeconds(1)), properties);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.shutdown();
+        server.close();
+    }
+
+    @Test
+    void concurrentCallsArePipelinedOverBoundedSessions() throws Exception {
+        List<CompletableFuture<ToolResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(client.callTool("fake", new ToolCall("slow", Map.of())));
+        }
+        // 所有请求都已到达服务器而没有一个返回：请求在少量连接上流水线发出
+        waitUntil(() -> server.activeCalls.get() == 20);
+        assertTrue(server.connectionCount() <= 2, "连接数 " + server.connectionCount());
+
+        server.release();
+        for (CompletableFuture<ToolResult> future : futures) {
+            assertEquals("slow-done", future.get(5, TimeUnit.SECONDS).text());
+        }
+        assertEquals(server.connectionCount(), server.initializeCount.get());
+    }
+
+    @Test
+    void batchedCallsCompleteOutOfOrder() throws Exception {
+        List<CompletableFuture<ToolResult>> results = client.callTools("fake", List.of(
+                new ToolCall("sleep", Map.of("ms", 300)),
+                new ToolCall("sleep", Map.of("ms", 10)),
+                new ToolCall("echo", Map.of("text", "hi"))));
+
+        assertEquals("slept-10", results.get(1).get(5, TimeUnit.SECONDS).text());
+        assertEquals("hi", results.get(2).get(5, TimeUnit.SECONDS).text());
+        assertFalse(results.get(0).isDone());
+        assertEquals("slept-300", results.get(0).get(5, TimeUnit.SECONDS).text());
+    }
+
+    @Test
+    void toolListIsCachedUntilServerReportsChange() throws Exception {
+        ToolCatalog catalog = new ToolCatalog(client, properties);
+        List<ToolDefinition> tools = catalog.listTools("fake").get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("echo", "slow", "sleep", "fail"), tools.stream().map(ToolDefinition::getName).toList());
+        catalog.listTools("fake").get(5, TimeUnit.SECONDS);
+        // 两页各请求一次
+        assertEquals(2, server.toolsListCount.get());
+
+        server.pushListChanged();
+        waitUntil(() -> catalog.getStats().get("invalidationCount").equals(1L));
+        catalog.getTool("fake", "echo").get(5, TimeUnit.SECONDS);
+        assertEquals(4, server.toolsListCount.get());
+    }
+
+    @Test
+    void synchronousOpenFailureDoesNotStickToPool() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        McpTransportFactory factory = name -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IOException("connection refused");
+            }
+            return new SocketTransport("127.0.0.1", server.port(), Duration.ofSeconds(1));
+        };
+        // 执行器同步执行：建会话的回调在 acquire 内联运行
+        try (McpSessionPool pool = new McpSessionPool("fake", factory, properties, (s, n) -> { }, Runnable::run)) {
+            CompletableFuture<McpSession> failed = pool.acquire();
+            assertTrue(failed.isCompletedExceptionally());
+
+            // 失败的建立不会一直留在池中，下次获取重新建立
+            McpSession session = pool.acquire().get(5, TimeUnit.SECONDS);
+            assertTrue(session.isOpen());
+            assertEquals(2, attempts.get());
+            assertEquals(1L, pool.getStats().get("openFailures"));
+        }
+    }
+
+    @Test
+    void timedOutRequestIsCancelledOnServer() throws Exception {
+        properties.setRequestTimeout(Duration.ofMillis(200));
+        CompletableFuture<ToolResult> call = client.callTool("fake", new ToolCall("slow", Map.of()));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        // id 1 为 initialize
+        waitUntil(() -> server.cancelledIds.contains(2L));
+        server.release();
+    }
+
+    @Test
+    void executorValidatesArgumentsAndRunsIndependentCallsTogether() throws Exception {
+        McpToolNodeExecutor executor = new McpToolNodeExecutor(client, new ToolCatalog(client, properties));
+        ExecutionContext context = new ExecutionContext();
+        context.setNodeKey("tools");
+        context.setVariables(Map.of("question", "天气"));
+        context.setConfig(Map.of("server", "fake", "calls", List.of(
+                Map.of("tool", "echo", "arguments", Map.of("text", "${question}"), "outputKey", "answer"),
+                Map.of("tool", "echo", "arguments", Map.of("text", "查询 ${question}")))));
+
+        ExecutionResult result = executor.executeAsync(context).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals("天气", result.getOutputs().get("answer"));
+        assertEquals("查询 天气", ((List<Map<String, Object>>) result.getOutputs().get("results")).get(1).get("content"));
+
+        context.setConfig(Map.of("server", "fake", "tool", "echo", "arguments", Map.of("text", 42)));
+        ExecutionResult invalid = executor.executeAsync(context).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertFalse(invalid.isSuccess());
+        assertTrue(invalid.getErrorMessage().contains("参数校验失败"), invalid.getErrorMessage());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.aiworkflow.service.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+
+@Slf4j
+@SpringBootApplication
+@EnableDiscoveryClient
+@MapperScan(basePackages = "com.aiworkflow.service.task.mapper")
+public class TaskExecutionApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(TaskExecutionApplication.class, args);
+        log.info("server start");
+    }
+}
@@ -0,0 +1,11 @@
+package com.aiworkflow.service.task.config;
+
+import com.aiworkflow.service.task.schedule.SchedulerProperties;
+import com.aiworkflow.service.task.worker.TaskQueueProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({TaskQueueProperties.class, SchedulerProperties.class})
+public class TaskQueueConfig {
+}
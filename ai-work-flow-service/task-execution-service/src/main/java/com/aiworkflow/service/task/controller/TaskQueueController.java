@@ -0,0 +1,47 @@
+package com.aiworkflow.service.task.controller;
+
+import com.aiworkflow.common.web.result.Result;
+import com.aiworkflow.service.task.worker.TaskWorker;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/task-queue")
+public class TaskQueueController {
+
+    private final TaskWorker taskWorker;
+
+    public TaskQueueController(TaskWorker taskWorker) {
+        this.taskWorker = taskWorker;
+    }
+
+    @GetMapping("/stats")
+    public Result<Map<String, Object>> stats() {
+        return Result.success(taskWorker.getStats());
+    }
+
+    /**
+     * 各优先级的队列深度、等待时间分布和按用户并发上限跳过的次数
+     */
+    @GetMapping("/scheduler/stats")
+    public Result<Map<String, Object>> schedulerStats() {
+        return Result.success(taskWorker.getScheduler().getStats());
+    }
+
+    /**
+     * 手动触发一轮拉取
+     */
+    @PostMapping("/poll")
+    public Result<Integer> poll() {
+        return Result.success(taskWorker.poll());
+    }
+
+    /**
+     * 手动回收过期租约
+     */
+    @PostMapping("/reclaim")
+    public Result<Integer> reclaim() {
+        return Result.success(taskWorker.reclaim());
+    }
+}
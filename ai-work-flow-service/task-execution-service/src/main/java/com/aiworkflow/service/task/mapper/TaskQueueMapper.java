@@ -0,0 +1,53 @@
+package com.aiworkflow.service.task.mapper;
+
+import com.aiworkflow.service.task.queue.WorkItem;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ai_task_instance 上的队列操作，租约时间一律取数据库时钟，不受各节点时钟偏差影响
+ */
+@Mapper
+public interface TaskQueueMapper {
+
+    /**
+     * 锁定最早的一批 READY 任务，已被其他事务锁定的行直接跳过(SKIP LOCKED)，需在事务内调用；
+     * 同时带出实例的 user_id / priority 虚拟列，excludedUsers 中用户的任务不领取
+     */
+    List<WorkItem> selectClaimable(@Param("taskTypes") Collection<String> taskTypes,
+                                   @Param("excludedUsers") Collection<String> excludedUsers,
+                                   @Param("limit") int limit);
+
+    int markClaimed(@Param("ids") List<Long> ids,
+                    @Param("workerId") String workerId,
+                    @Param("leaseMillis") long leaseMillis);
+
+    int renewLeases(@Param("workerId") String workerId,
+                    @Param("ids") List<Long> ids,
+                    @Param("leaseMillis") long leaseMillis);
+
+    int complete(@Param("id") Long id,
+                 @Param("workerId") String workerId,
+                 @Param("attempt") int attempt,
+                 @Param("outputData") Object outputData);
+
+    int fail(@Param("id") Long id,
+             @Param("workerId") String workerId,
+             @Param("attempt") int attempt,
+             @Param("errorInfo") Object errorInfo);
+
+    int release(@Param("id") Long id, @Param("workerId") String workerId, @Param("attempt") int attempt);
+
+    /**
+     * 租约过期且领取次数已用完的任务置为 FAILED
+     */
+    int failExhausted(@Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+
+    /**
+     * 其余租约过期的任务放回 READY
+     */
+    int requeueExpired(@Param("limit") int limit);
+}
@@ -0,0 +1,251 @@
+package com.aiworkflow.service.task.queue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 内存工作队列，语义与 {@link JdbcWorkQueue} 一致，用于测试和单机运行；时钟可注入以模拟租约过期
+ */
+public class InMemoryWorkQueue implements WorkQueue {
+
+    private final Clock clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 按入队顺序排列的 READY 任务
+    private final Map<Long, WorkItem> ready = new LinkedHashMap<>();
+
+    private final Map<Long, Lease> leased = new LinkedHashMap<>();
+
+    private final Map<Long, Object> results = new LinkedHashMap<>();
+
+    private final Map<Long, String> errors = new LinkedHashMap<>();
+
+    public InMemoryWorkQueue() {
+        this(Clock.systemUTC());
+    }
+
+    public InMemoryWorkQueue(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * 放入一个 READY 任务
+     */
+    public void offer(WorkItem item) {
+        lock.lock();
+        try {
+            WorkItem copy = copy(item);
+            if (copy.getCreateAt() == null) {
+                copy.setCreateAt(LocalDateTime.now(clock));
+            }
+            ready.put(item.getTaskId(), copy);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<WorkItem> claim(String workerId, Collection<String> taskTypes, Collection<String> excludedUsers,
+                                int max, Duration lease) {
+        lock.lock();
+        try {
+            List<WorkItem> claimed = new ArrayList<>();
+            Iterator<WorkItem> iterator = ready.values().iterator();
+            while (claimed.size() < max && iterator.hasNext()) {
+                WorkItem item = iterator.next();
+                if (!taskTypes.contains(item.getTaskType())
+                        || item.getUserId() != null && excludedUsers.contains(item.getUserId())) {
+                    continue;
+                }
+                iterator.remove();
+                item.setAttempt(item.getAttempt() + 1);
+                leased.put(item.getTaskId(), new Lease(item, workerId, clock.instant().plus(lease)));
+                claimed.add(copy(item));
+            }
+            return claimed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int renew(String workerId, Collection<WorkItem> items, Duration lease) {
+        lock.lock();
+        try {
+            int renewed = 0;
+            for (WorkItem item : items) {
+                Lease current = leased.get(item.getTaskId());
+                if (current != null && current.owner.equals(workerId)) {
+                    current.until = clock.instant().plus(lease);
+                    renewed++;
+                }
+            }
+            return renewed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean complete(String workerId, WorkItem item, Object output) {
+        lock.lock();
+        try {
+            if (take(workerId, item) == null) {
+                return false;
+            }
+            results.put(item.getTaskId(), output);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean fail(String workerId, WorkItem item, String errorMessage) {
+        lock.lock();
+        try {
+            if (take(workerId, item) == null) {
+                return false;
+            }
+            errors.put(item.getTaskId(), errorMessage);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean release(String workerId, WorkItem item) {
+        lock.lock();
+        try {
+            Lease lease = take(workerId, item);
+            if (lease == null) {
+                return false;
+            }
+            lease.item.setAttempt(lease.item.getAttempt() - 1);
+            ready.put(item.getTaskId(), lease.item);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int reclaimExpired(int maxAttempts, int limit) {
+        lock.lock();
+        try {
+            Instant now = clock.instant();
+            int reclaimed = 0;
+            Iterator<Lease> iterator = leased.values().iterator();
+            while (reclaimed < limit && iterator.hasNext()) {
+                Lease lease = iterator.next();
+                if (!lease.until.isBefore(now)) {
+                    continue;
+                }
+                iterator.remove();
+                if (lease.item.getAttempt() >= maxAttempts) {
+                    errors.put(lease.item.getTaskId(), "租约多次过期，超过最大领取次数");
+                } else {
+                    ready.put(lease.item.getTaskId(), lease.item);
+                }
+                reclaimed++;
+            }
+            return reclaimed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int readyCount() {
+        lock.lock();
+        try {
+            return ready.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int leasedCount() {
+        lock.lock();
+        try {
+            return leased.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 已完成任务的输出
+     */
+    public Map<Long, Object> getResults() {
+        lock.lock();
+        try {
+            return new LinkedHashMap<>(results);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 已失败任务的错误信息
+     */
+    public Map<Long, String> getErrors() {
+        lock.lock();
+        try {
+            return new LinkedHashMap<>(errors);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lease take(String workerId, WorkItem item) {
+        Lease lease = leased.get(item.getTaskId());
+        if (lease == null || !lease.owner.equals(workerId) || lease.item.getAttempt() != item.getAttempt()) {
+            return null;
+        }
+        return leased.remove(item.getTaskId());
+    }
+
+    private static WorkItem copy(WorkItem item) {
+        WorkItem copy = new WorkItem();
+        copy.setTaskId(item.getTaskId());
+        copy.setFlowInstanceId(item.getFlowInstanceId());
+        copy.setFlowDefinitionId(item.getFlowDefinitionId());
+        copy.setExecutionId(item.getExecutionId());
+        copy.setTaskKey(item.getTaskKey());
+        copy.setTaskName(item.getTaskName());
+        copy.setTaskType(item.getTaskType());
+        copy.setInputData(item.getInputData());
+        copy.setConfigData(item.getConfigData());
+        copy.setUserId(item.getUserId());
+        copy.setPriority(item.getPriority());
+        copy.setAttempt(item.getAttempt());
+        copy.setCreateAt(item.getCreateAt());
+        return copy;
+    }
+
+    private static final class Lease {
+
+        private final WorkItem item;
+
+        private final String owner;
+
+        private Instant until;
+
+        Lease(WorkItem item, String owner, Instant until) {
+            this.item = item;
+            this.owner = owner;
+            this.until = until;
+        }
+    }
+}
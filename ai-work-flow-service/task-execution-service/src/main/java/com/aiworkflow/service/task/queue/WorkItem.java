@@ -0,0 +1,39 @@
+package com.aiworkflow.service.task.queue;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 被领取的任务(ai_task_instance 中的一行)
+ */
+@Data
+public class WorkItem {
+
+    private Long taskId; // 任务实例ID
+
+    private Long flowInstanceId; // 流程实例ID
+
+    private Long flowDefinitionId; // 流程定义ID
+
+    private Long executionId; // 执行实例ID
+
+    private String taskKey; // 任务标识
+
+    private String taskName; // 任务名称
+
+    private String taskType; // 任务类型
+
+    private Object inputData; // 输入数据
+
+    private Object configData; // 配置数据
+
+    private String userId; // 流程实例的 user_id 变量
+
+    private String priority; // 流程实例的 priority 变量
+
+    // 第几次领取，同时作为栅栏令牌：租约过期被重新领取后，旧持有者的提交不再生效
+    private int attempt;
+
+    private LocalDateTime createAt; // 任务创建(进入 READY)时间，用于统计排队时间
+}
@@ -0,0 +1,50 @@
+package com.aiworkflow.service.task.queue;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 任务工作队列
+ * <p>
+ * 领取时任务从 READY 变为 RUNNING 并挂上有时限的租约，执行期间由持有者定期续约；
+ * 持有者宕机或失联时租约过期，任务被重新放回 READY(超过最大领取次数则置为 FAILED)。
+ * 完成、失败和释放都以 (持有者, attempt) 为条件，租约已经易主的旧持有者的提交会被拒绝。
+ */
+public interface WorkQueue {
+
+    /**
+     * 领取最多 max 个指定类型的 READY 任务，按创建顺序；没有可领取的任务时返回空列表
+     *
+     * @param excludedUsers 不领取这些用户的任务(已达到本节点并发上限)
+     */
+    List<WorkItem> claim(String workerId, Collection<String> taskTypes, Collection<String> excludedUsers,
+                         int max, Duration lease);
+
+    /**
+     * 为持有的任务续约，返回仍由该持有者持有并成功续约的任务数
+     */
+    int renew(String workerId, Collection<WorkItem> items, Duration lease);
+
+    /**
+     * 提交成功结果，返回 false 表示租约已失效
+     */
+    boolean complete(String workerId, WorkItem item, Object output);
+
+    /**
+     * 提交失败结果，返回 false 表示租约已失效
+     */
+    boolean fail(String workerId, WorkItem item, String errorMessage);
+
+    /**
+     * 未执行就放回队列(如停机)，不计入领取次数
+     */
+    boolean release(String workerId, WorkItem item);
+
+    /**
+     * 回收租约已过期的任务，返回回收的任务数
+     *
+     * @param maxAttempts 领取次数达到该值的任务不再放回，直接置为 FAILED
+     */
+    int reclaimExpired(int maxAttempts, int limit);
+}
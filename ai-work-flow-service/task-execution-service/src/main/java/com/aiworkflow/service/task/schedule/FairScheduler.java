@@ -0,0 +1,309 @@
+package com.aiworkflow.service.task.schedule;
+
+import com.aiworkflow.common.core.metrics.MetricRegistry;
+import com.aiworkflow.common.core.spi.LatencyHistogram;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 多级优先级加按用户公平分享的调度器
+ * <p>
+ * 级别之间严格按优先级出队，高级别有可执行的任务时低级别等待；同一级别内每个用户一个 FIFO 队列，
+ * 按权重做赤字轮转(DRR)，一个用户的大量积压只占它自己的份额。每个用户同时执行的任务数有上限，
+ * 达到上限的用户在出队时被跳过，直到有任务 {@link #release(String) 释放}。
+ * 没有用户的任务归入同一个匿名用户，只受节点总容量限制。
+ * 线程安全。
+ */
+public class FairScheduler<T> {
+
+    static final String ANONYMOUS = "";
+
+    private final SchedulerProperties properties;
+
+    private final List<String> levelNames;
+
+    private final int defaultLevel;
+
+    private final Level<T>[] levels;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 每个用户正在执行的任务数
+    private final Map<String, Integer> running = new HashMap<>();
+
+    // 每个用户排队中的任务数(所有级别)
+    private final Map<String, Integer> queued = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public FairScheduler(SchedulerProperties properties) {
+        this.properties = properties;
+        this.levelNames = properties.getLevels().stream().map(name -> name.toUpperCase(Locale.ROOT)).toList();
+        if (levelNames.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个优先级");
+        }
+        int index = levelNames.indexOf(properties.getDefaultLevel().toUpperCase(Locale.ROOT));
+        this.defaultLevel = index >= 0 ? index : levelNames.size() - 1;
+        this.levels = new Level[levelNames.size()];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = new Level<>(levelNames.get(i));
+            MetricRegistry.global().register("aiworkflow_queue_wait_seconds", levels[i].waitTime,
+                    "stage", "dispatch", "level", levels[i].name);
+        }
+    }
+
+    /**
+     * 流程变量 priority 对应的级别下标：按名称匹配，或直接是下标(0 最高)；其余归入默认级别
+     */
+    public int levelOf(String priority) {
+        if (priority == null || priority.isBlank()) {
+            return defaultLevel;
+        }
+        String value = priority.trim();
+        int index = levelNames.indexOf(value.toUpperCase(Locale.ROOT));
+        if (index >= 0) {
+            return index;
+        }
+        try {
+            int level = Integer.parseInt(value);
+            return Math.max(0, Math.min(levels.length - 1, level));
+        } catch (NumberFormatException e) {
+            return defaultLevel;
+        }
+    }
+
+    public void offer(T item, String userId, String priority) {
+        offer(item, userId, levelOf(priority));
+    }
+
+    public void offer(T item, String userId, int level) {
+        String user = userId != null ? userId : ANONYMOUS;
+        lock.lock();
+        try {
+            Level<T> target = levels[level];
+            UserQueue<T> queue = target.users.get(user);
+            if (queue == null) {
+                queue = new UserQueue<>(user, Math.max(1, properties.getUserWeights().getOrDefault(user, 1)));
+                target.users.put(user, queue);
+                target.ring.addLast(queue);
+            }
+            queue.items.addLast(new Entry<>(item, System.nanoTime()));
+            target.depth++;
+            target.enqueued.increment();
+            queued.merge(user, 1, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出下一个可执行的任务并计入该用户的执行数；没有时返回 null
+     */
+    public T poll() {
+        lock.lock();
+        try {
+            for (Level<T> level : levels) {
+                if (level.depth == 0) {
+                    continue;
+                }
+                Entry<T> entry = pollLevel(level);
+                if (entry != null) {
+                    level.waitTime.record(System.nanoTime() - entry.enqueuedAt);
+                    return entry.item;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 用户的一个任务执行结束
+     */
+    public void release(String userId) {
+        String user = userId != null ? userId : ANONYMOUS;
+        lock.lock();
+        try {
+            running.computeIfPresent(user, (key, count) -> count > 1 ? count - 1 : null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 执行中加排队中已达到并发上限的用户，领取新任务时应排除
+     */
+    public Set<String> saturatedUsers() {
+        lock.lock();
+        try {
+            Set<String> users = new HashSet<>();
+            for (Map.Entry<String, Integer> entry : queued.entrySet()) {
+                String user = entry.getKey();
+                if (entry.getValue() + running.getOrDefault(user, 0) >= capOf(user)) {
+                    users.add(user);
+                }
+            }
+            for (Map.Entry<String, Integer> entry : running.entrySet()) {
+                String user = entry.getKey();
+                if (entry.getValue() >= capOf(user)) {
+                    users.add(user);
+                }
+            }
+            return users;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 排队中的任务数
+     */
+    public int size() {
+        lock.lock();
+        try {
+            int size = 0;
+            for (Level<T> level : levels) {
+                size += level.depth;
+            }
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 排队中的全部任务，按级别和用户顺序，不出队
+     */
+    public List<T> queuedItems() {
+        lock.lock();
+        try {
+            return Arrays.stream(levels)
+                    .flatMap(level -> level.ring.stream())
+                    .flatMap(queue -> queue.items.stream())
+                    .map(entry -> entry.item)
+                    .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 每个级别的队列深度、排队用户数、出入队次数、因并发上限被跳过的次数和等待时间分布
+     */
+    public Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            Map<String, Object> byLevel = new LinkedHashMap<>();
+            for (Level<T> level : levels) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("depth", level.depth);
+                item.put("users", level.users.size());
+                item.put("enqueued", level.enqueued.sum());
+                item.put("dispatched", level.dispatched.sum());
+                item.put("capSkips", level.capSkips.sum());
+                item.put("waitTime", level.waitTime.snapshot());
+                byLevel.put(level.name, item);
+            }
+            stats.put("levels", byLevel);
+            stats.put("runningUsers", running.size());
+            stats.put("running", running.values().stream().mapToInt(Integer::intValue).sum());
+            stats.put("saturatedUsers", saturatedUsers().size());
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry<T> pollLevel(Level<T> level) {
+        // 每个排队用户最多检查一次：全部达到上限时本级别没有可执行的任务
+        for (int checked = level.ring.size(); checked > 0; checked--) {
+            UserQueue<T> queue = level.ring.peekFirst();
+            if (running.getOrDefault(queue.user, 0) >= capOf(queue.user)) {
+                level.capSkips.increment();
+                queue.deficit = 0;
+                level.ring.addLast(level.ring.pollFirst());
+                continue;
+            }
+            if (queue.deficit <= 0) {
+                queue.deficit += queue.weight;
+            }
+            Entry<T> entry = queue.items.pollFirst();
+            queue.deficit--;
+            if (queue.items.isEmpty()) {
+                level.ring.pollFirst();
+                level.users.remove(queue.user);
+            } else if (queue.deficit <= 0) {
+                // 本轮份额用完，排到队尾
+                level.ring.addLast(level.ring.pollFirst());
+            }
+            level.depth--;
+            level.dispatched.increment();
+            queued.computeIfPresent(queue.user, (key, count) -> count > 1 ? count - 1 : null);
+            running.merge(queue.user, 1, Integer::sum);
+            return entry;
+        }
+        return null;
+    }
+
+    private int capOf(String user) {
+        if (ANONYMOUS.equals(user)) {
+            // 没有用户标识的任务只受节点总容量限制
+            return Integer.MAX_VALUE;
+        }
+        return properties.getUserConcurrency().getOrDefault(user, properties.getDefaultUserConcurrency());
+    }
+
+    private static final class Level<T> {
+
+        private final String name;
+
+        private final Map<String, UserQueue<T>> users = new HashMap<>();
+
+        // 有排队任务的用户，轮转顺序
+        private final ArrayDeque<UserQueue<T>> ring = new ArrayDeque<>();
+
+        private final LongAdder enqueued = new LongAdder();
+
+        private final LongAdder dispatched = new LongAdder();
+
+        private final LongAdder capSkips = new LongAdder();
+
+        private final LatencyHistogram waitTime = new LatencyHistogram();
+
+        private int depth;
+
+        Level(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class UserQueue<T> {
+
+        private final String user;
+
+        private final int weight;
+
+        private final ArrayDeque<Entry<T>> items = new ArrayDeque<>();
+
+        private int deficit;
+
+        UserQueue(String user, int weight) {
+            this.user = user;
+            this.weight = weight;
+        }
+    }
+
+    private record Entry<T>(T item, long enqueuedAt) {
+    }
+}
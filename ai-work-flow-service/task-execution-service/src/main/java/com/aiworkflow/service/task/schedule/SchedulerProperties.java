@@ -0,0 +1,34 @@
+package com.aiworkflow.service.task.schedule;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 优先级与公平调度配置
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.task.scheduler")
+public class SchedulerProperties {
+
+    // 优先级名称，从高到低；流程变量 priority 按名称(不区分大小写)或下标匹配
+    private List<String> levels = List.of("URGENT", "HIGH", "NORMAL", "LOW");
+
+    // 未设置或无法识别的 priority 归入的级别
+    private String defaultLevel = "NORMAL";
+
+    // 单个用户在本节点同时执行的任务上限
+    private int defaultUserConcurrency = 8;
+
+    // 按用户覆盖的并发上限
+    private Map<String, Integer> userConcurrency = new HashMap<>();
+
+    // 同一级别内按用户加权轮转的权重，默认 1
+    private Map<String, Integer> userWeights = new HashMap<>();
+
+    // 在空闲容量之外多领取的任务数，让调度器有可挑选的余地
+    private int prefetch = 16;
+}
@@ -0,0 +1,44 @@
+package com.aiworkflow.service.task.worker;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 任务队列与执行节点配置
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.task.queue")
+public class TaskQueueProperties {
+
+    // 是否启动拉取、续约和回收；关闭时仍可通过接口手动触发
+    private boolean enabled = false;
+
+    // 节点标识，为空时取 主机名:进程号
+    private String workerId;
+
+    // 本节点同时执行的任务上限
+    private int maxConcurrency = 32;
+
+    // 单次领取的任务数上限，实际领取数取它与空闲容量的较小值
+    private int maxBatchSize = 16;
+
+    // 租约时长，持有者失联超过该时长后任务被回收
+    private Duration leaseDuration = Duration.ofSeconds(30);
+
+    // 续约间隔，应明显小于租约时长
+    private Duration heartbeatInterval = Duration.ofSeconds(10);
+
+    // 队列为空或容量已满时的拉取间隔
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    // 最大领取次数，租约过期达到该次数后任务置为 FAILED
+    private int maxAttempts = 3;
+
+    // 过期租约回收间隔
+    private Duration reclaimInterval = Duration.ofSeconds(15);
+
+    // 每次回收的任务数上限
+    private int reclaimBatchSize = 500;
+}
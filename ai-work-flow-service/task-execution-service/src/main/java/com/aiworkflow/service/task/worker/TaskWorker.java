@@ -0,0 +1,399 @@
+package com.aiworkflow.service.task.worker;
+
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.common.core.metrics.MetricRegistry;
+import com.aiworkflow.common.core.metrics.TraceRecorder;
+import com.aiworkflow.common.core.spi.ExecutorSlot;
+import com.aiworkflow.common.core.spi.LatencyHistogram;
+import com.aiworkflow.common.core.spi.SPIManager;
+import com.aiworkflow.service.task.queue.WorkItem;
+import com.aiworkflow.service.task.queue.WorkQueue;
+import com.aiworkflow.service.task.schedule.FairScheduler;
+import com.aiworkflow.service.task.schedule.SchedulerProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 执行节点：从工作队列拉取任务并交给 SPI 执行器
+ * <p>
+ * 每次领取的数量等于空闲容量加预取余量(不超过 maxBatchSize)，一批领满且仍有余量时立即继续领取，否则等待下一个拉取周期；
+ * 只领取本节点有执行器的任务类型，已达到并发上限的用户的任务不领取。领到的任务先进入 {@link FairScheduler}，
+ * 有空闲容量时按优先级和用户公平份额出队执行。执行在虚拟线程上进行，排队和执行中的任务的租约由心跳统一续约，
+ * 提交被拒绝(租约已被回收并转给其他节点)时丢弃本地结果。停机时把持有的任务全部放回队列。
+ * <p>
+ * 指标：aiworkflow_queue_wait_seconds{stage="claim"} 为任务创建到被领取的时间(create_at 为秒精度)，
+ * stage="dispatch" 为在调度器中的等待(由 {@link FairScheduler} 按级别记录)；
+ * aiworkflow_task_run_seconds{flow_definition, node_type, outcome} 为执行器耗时。
+ * 每个任务的执行同时记为所属流程实例 trace 中的一个跨度，附带排队时间。
+ */
+@Slf4j
+@Component
+public class TaskWorker {
+
+    private final WorkQueue queue;
+
+    private final SPIManager spiManager;
+
+    private final TaskQueueProperties properties;
+
+    private final String workerId;
+
+    private final int prefetch;
+
+    private final FairScheduler<WorkItem> fairScheduler;
+
+    // 正在执行的任务占用的许可
+    private final Semaphore capacity;
+
+    // 持有租约的任务：调度器中排队的和正在执行的
+    private final Map<Long, WorkItem> held = new ConcurrentHashMap<>();
+
+    private final ReentrantLock pollLock = new ReentrantLock();
+
+    private final ExecutorService taskExecutor;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder claimed = new LongAdder();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder lostLeases = new LongAdder();
+
+    private final LongAdder reclaimed = new LongAdder();
+
+    private final LongAdder polls = new LongAdder();
+
+    private final MetricRegistry registry = MetricRegistry.global();
+
+    private final TraceRecorder tracer = TraceRecorder.global();
+
+    private final LatencyHistogram claimWait = registry.histogram("aiworkflow_queue_wait_seconds", "stage", "claim");
+
+    // 执行耗时直方图按标签缓存，避免每个任务都构造并排序指标标识
+    private final Map<RunLabels, LatencyHistogram> runHistograms = new ConcurrentHashMap<>();
+
+    // 任务ID -> 领取时刻(nanoTime)，用于计算在本节点排队的时间
+    private final Map<Long, Long> claimedAt = new ConcurrentHashMap<>();
+
+    public TaskWorker(WorkQueue queue, SPIManager spiManager, TaskQueueProperties properties,
+                      SchedulerProperties schedulerProperties) {
+        this.queue = queue;
+        this.spiManager = spiManager;
+        this.properties = properties;
+        this.workerId = properties.getWorkerId() != null ? properties.getWorkerId() : defaultWorkerId();
+        this.prefetch = Math.max(0, schedulerProperties.getPrefetch());
+        this.fairScheduler = new FairScheduler<>(schedulerProperties);
+        this.capacity = new Semaphore(properties.getMaxConcurrency());
+        this.taskExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-worker-", 0).factory());
+        AtomicInteger threads = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "task-queue-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.isEnabled()) {
+            schedule(this::poll, properties.getPollInterval().toMillis());
+            schedule(this::heartbeat, properties.getHeartbeatInterval().toMillis());
+            schedule(this::reclaim, properties.getReclaimInterval().toMillis());
+            log.info("任务执行节点 {} 已启动，并发上限 {}", workerId, properties.getMaxConcurrency());
+        }
+    }
+
+    /**
+     * 按空闲容量和预取余量领取任务并调度执行，返回本轮领取的任务数；已有一轮在运行时直接返回 0
+     */
+    public int poll() {
+        if (!pollLock.tryLock()) {
+            return 0;
+        }
+        try {
+            Set<String> taskTypes = spiManager.getDispatchTable().nodeTypes();
+            int total = 0;
+            while (true) {
+                int room = properties.getMaxConcurrency() + prefetch - held.size();
+                int batch = Math.min(room, properties.getMaxBatchSize());
+                if (batch <= 0) {
+                    break;
+                }
+                polls.increment();
+                List<WorkItem> items = queue.claim(workerId, taskTypes, fairScheduler.saturatedUsers(), batch,
+                        properties.getLeaseDuration());
+                LocalDateTime now = LocalDateTime.now();
+                for (WorkItem item : items) {
+                    if (item.getCreateAt() != null) {
+                        claimWait.record(Math.max(0, Duration.between(item.getCreateAt(), now).toNanos()));
+                    }
+                    claimedAt.put(item.getTaskId(), System.nanoTime());
+                    held.put(item.getTaskId(), item);
+                    fairScheduler.offer(item, item.getUserId(), item.getPriority());
+                }
+                dispatch();
+                total += items.size();
+                claimed.add(items.size());
+                if (items.size() < batch) {
+                    break;
+                }
+            }
+            return total;
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    /**
+     * 为所有持有的任务续约，返回续约成功的任务数
+     */
+    public int heartbeat() {
+        List<WorkItem> items = List.copyOf(held.values());
+        if (items.isEmpty()) {
+            return 0;
+        }
+        int renewed = queue.renew(workerId, items, properties.getLeaseDuration());
+        if (renewed < items.size()) {
+            log.warn("节点 {} 有 {} 个任务续约失败，租约可能已被回收", workerId, items.size() - renewed);
+        }
+        return renewed;
+    }
+
+    /**
+     * 回收过期租约(任意节点执行均可)，返回回收的任务数
+     */
+    public int reclaim() {
+        int count = queue.reclaimExpired(properties.getMaxAttempts(), properties.getReclaimBatchSize());
+        if (count > 0) {
+            reclaimed.add(count);
+            log.info("回收过期租约任务 {} 个", count);
+        }
+        return count;
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 正在执行的任务数
+     */
+    public int getRunningCount() {
+        return properties.getMaxConcurrency() - capacity.availablePermits();
+    }
+
+    /**
+     * 已领取、在调度器中等待执行的任务数
+     */
+    public int getQueuedCount() {
+        return fairScheduler.size();
+    }
+
+    public FairScheduler<WorkItem> getScheduler() {
+        return fairScheduler;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("workerId", workerId);
+        stats.put("enabled", properties.isEnabled());
+        stats.put("maxConcurrency", properties.getMaxConcurrency());
+        stats.put("running", getRunningCount());
+        stats.put("queued", fairScheduler.size());
+        stats.put("held", held.size());
+        stats.put("claimed", claimed.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("lostLeases", lostLeases.sum());
+        stats.put("reclaimed", reclaimed.sum());
+        stats.put("polls", polls.sum());
+        stats.put("scheduler", fairScheduler.getStats());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        // 先放回队列再中断执行：被中断的执行随后提交时租约已不在本节点，提交被拒绝，任务由其他节点接手
+        for (WorkItem item : List.copyOf(held.values())) {
+            try {
+                queue.release(workerId, item);
+            } catch (Exception e) {
+                log.warn("释放任务 {} 失败，等待租约过期后回收", item.getTaskId(), e);
+            }
+        }
+        taskExecutor.shutdownNow();
+    }
+
+    /**
+     * 有空闲容量时从调度器取任务执行
+     */
+    private void dispatch() {
+        while (capacity.tryAcquire()) {
+            WorkItem item = fairScheduler.poll();
+            if (item == null) {
+                capacity.release();
+                return;
+            }
+            start(item);
+        }
+    }
+
+    private void start(WorkItem item) {
+        try {
+            taskExecutor.execute(() -> execute(item));
+        } catch (RejectedExecutionException e) {
+            // 正在停机，直接放回队列
+            held.remove(item.getTaskId());
+            claimedAt.remove(item.getTaskId());
+            fairScheduler.release(item.getUserId());
+            capacity.release();
+            queue.release(workerId, item);
+        }
+    }
+
+    private void execute(WorkItem item) {
+        long start = System.nanoTime();
+        TraceRecorder.Span span = startSpan(item, start);
+        ExecutorSlot slot = spiManager.getDispatchTable().slot(item.getTaskType());
+        if (slot == null) {
+            finish(item, ExecutionResult.fail("没有节点类型 " + item.getTaskType() + " 的执行器"), null, span, start);
+            return;
+        }
+        CompletableFuture<ExecutionResult> call;
+        try {
+            call = slot.executeAsync(toContext(item));
+        } catch (Exception e) {
+            finish(item, null, e, span, start);
+            return;
+        }
+        call.whenComplete((result, error) -> finish(item, result, error, span, start));
+    }
+
+    private TraceRecorder.Span startSpan(WorkItem item, long start) {
+        if (item.getFlowInstanceId() == null) {
+            return null;
+        }
+        TraceRecorder.Span span = tracer.startSpan(item.getFlowInstanceId(), item.getTaskKey())
+                .attribute("nodeType", item.getTaskType())
+                .attribute("taskId", item.getTaskId())
+                .attribute("attempt", item.getAttempt())
+                .attribute("workerId", workerId);
+        Long claimed = claimedAt.get(item.getTaskId());
+        if (claimed != null) {
+            span.attribute("dispatchWaitMicros", (start - claimed) / 1000);
+        }
+        if (item.getCreateAt() != null) {
+            span.attribute("createAt", item.getCreateAt().toString());
+        }
+        return span;
+    }
+
+    private void finish(WorkItem item, ExecutionResult result, Throwable error, TraceRecorder.Span span, long start) {
+        boolean success = error == null && result != null && result.isSuccess();
+        String message = success ? null : error != null ? error.getMessage()
+                : result != null ? result.getErrorMessage() : "执行器未返回结果";
+        recordRun(item, span, start, message);
+        try {
+            boolean accepted = success
+                    ? queue.complete(workerId, item, result.getOutputs())
+                    : queue.fail(workerId, item, message);
+            // 只统计被队列接受的结果，租约失效的结果由新持有者计入
+            if (accepted && success) {
+                completed.increment();
+            } else if (accepted) {
+                failed.increment();
+            } else {
+                lostLeases.increment();
+                log.warn("任务 {} 的租约已失效(第 {} 次领取)，丢弃本地结果", item.getTaskId(), item.getAttempt());
+            }
+        } catch (Exception e) {
+            // 提交失败时租约仍在本节点，过期后由回收重新分配
+            log.error("提交任务 {} 结果失败", item.getTaskId(), e);
+        } finally {
+            held.remove(item.getTaskId());
+            claimedAt.remove(item.getTaskId());
+            fairScheduler.release(item.getUserId());
+            capacity.release();
+        }
+        // 空出的容量立即交给排队中的任务，不等下一次拉取
+        dispatch();
+    }
+
+    /**
+     * 执行器耗时和任务跨度，error 为空表示成功
+     */
+    private void recordRun(WorkItem item, TraceRecorder.Span span, long start, String error) {
+        runHistograms.computeIfAbsent(new RunLabels(item.getFlowDefinitionId(), item.getTaskType(), error == null),
+                        labels -> registry.histogram("aiworkflow_task_run_seconds",
+                                "flow_definition", labels.flowDefinitionId() != null
+                                        ? labels.flowDefinitionId().toString() : null,
+                                "node_type", labels.nodeType(), "outcome", labels.success() ? "success" : "failure"))
+                .record(System.nanoTime() - start);
+        if (span == null) {
+            return;
+        }
+        if (error == null) {
+            span.end();
+        } else {
+            span.fail(error);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ExecutionContext toContext(WorkItem item) {
+        ExecutionContext context = new ExecutionContext();
+        context.setFlowInstanceId(item.getFlowInstanceId());
+        context.setExecutionId(item.getExecutionId());
+        context.setNodeKey(item.getTaskKey());
+        context.setNodeName(item.getTaskName());
+        context.setNodeType(item.getTaskType());
+        context.setConfig(item.getConfigData() instanceof Map<?, ?> config ? (Map<String, Object>) config : Map.of());
+        context.setVariables(item.getInputData() instanceof Map<?, ?> input ? (Map<String, Object>) input : Map.of());
+        return context;
+    }
+
+    private void schedule(Runnable task, long intervalMillis) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("任务队列定时操作失败，下次重试", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static String defaultWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + ":" + ManagementFactory.getRuntimeMXBean().getPid();
+    }
+
+    private record RunLabels(Long flowDefinitionId, String nodeType, boolean success) {
+    }
+}
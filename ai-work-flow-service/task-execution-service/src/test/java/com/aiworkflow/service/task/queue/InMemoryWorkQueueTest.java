@@ -0,0 +1,115 @@
+package com.aiworkflow.service.task.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InMemoryWorkQueue 测试
+ */
+class InMemoryWorkQueueTest {
+
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    private final MutableClock clock = new MutableClock();
+
+    private final InMemoryWorkQueue queue = new InMemoryWorkQueue(clock);
+
+    @Test
+    void testClaimHonoursTypesOrderAndMax() {
+        queue.offer(item(1L, "LLM_AGENT"));
+        queue.offer(item(2L, "MCP_TOOL"));
+        queue.offer(item(3L, "LLM_AGENT"));
+        queue.offer(item(4L, "LLM_AGENT"));
+
+        List<WorkItem> claimed = queue.claim("w1", Set.of("LLM_AGENT"), Set.of(), 2, LEASE);
+
+        assertEquals(List.of(1L, 3L), claimed.stream().map(WorkItem::getTaskId).toList());
+        assertEquals(1, claimed.get(0).getAttempt());
+        // 已领取的任务不会再被其他节点领到
+        assertEquals(List.of(4L), queue.claim("w2", Set.of("LLM_AGENT"), Set.of(), 5, LEASE).stream().map(WorkItem::getTaskId).toList());
+        assertEquals(1, queue.readyCount());
+    }
+
+    @Test
+    void testExpiredLeaseIsReclaimedAndOldOwnerIsFenced() {
+        queue.offer(item(1L, "LLM_AGENT"));
+        WorkItem first = queue.claim("w1", Set.of("LLM_AGENT"), Set.of(), 1, LEASE).get(0);
+
+        clock.advance(Duration.ofSeconds(20));
+        assertEquals(1, queue.renew("w1", List.of(first), LEASE));
+        clock.advance(Duration.ofSeconds(20));
+        assertEquals(0, queue.reclaimExpired(3, 100), "续约后未过期");
+
+        clock.advance(Duration.ofSeconds(31));
+        assertEquals(1, queue.reclaimExpired(3, 100));
+        WorkItem second = queue.claim("w2", Set.of("LLM_AGENT"), Set.of(), 1, LEASE).get(0);
+        assertEquals(2, second.getAttempt());
+
+        // 旧持有者迟到的提交被拒绝，新持有者的提交生效
+        assertFalse(queue.complete("w1", first, "stale"));
+        assertTrue(queue.complete("w2", second, "fresh"));
+        assertEquals("fresh", queue.getResults().get(1L));
+    }
+
+    @Test
+    void testExhaustedTaskFailsInsteadOfRequeue() {
+        queue.offer(item(1L, "LLM_AGENT"));
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            queue.claim("w1", Set.of("LLM_AGENT"), Set.of(), 1, LEASE);
+            clock.advance(LEASE.plusSeconds(1));
+            assertEquals(1, queue.reclaimExpired(2, 100));
+        }
+        assertEquals(0, queue.readyCount());
+        assertEquals(0, queue.leasedCount());
+        assertTrue(queue.getErrors().containsKey(1L));
+    }
+
+    @Test
+    void testReleaseDoesNotCountAttempt() {
+        queue.offer(item(1L, "LLM_AGENT"));
+        WorkItem claimed = queue.claim("w1", Set.of("LLM_AGENT"), Set.of(), 1, LEASE).get(0);
+        assertFalse(queue.release("w2", claimed));
+        assertTrue(queue.release("w1", claimed));
+        assertEquals(1, queue.claim("w2", Set.of("LLM_AGENT"), Set.of(), 1, LEASE).get(0).getAttempt());
+    }
+
+    private static WorkItem item(long id, String type) {
+        WorkItem item = new WorkItem();
+        item.setTaskId(id);
+        item.setTaskKey("task_" + id);
+        item.setTaskType(type);
+        return item;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
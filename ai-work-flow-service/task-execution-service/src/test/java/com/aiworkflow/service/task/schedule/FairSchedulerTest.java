@@ -0,0 +1,92 @@
+package com.aiworkflow.service.task.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FairScheduler 测试
+ */
+class FairSchedulerTest {
+
+    @Test
+    void testLevelMapping() {
+        FairScheduler<String> scheduler = new FairScheduler<>(new SchedulerProperties());
+        assertEquals(0, scheduler.levelOf("urgent"));
+        assertEquals(1, scheduler.levelOf("HIGH"));
+        assertEquals(3, scheduler.levelOf("3"));
+        assertEquals(3, scheduler.levelOf("99"));
+        assertEquals(2, scheduler.levelOf(null));
+        assertEquals(2, scheduler.levelOf("whatever"));
+    }
+
+    @Test
+    void testHigherLevelFirst() {
+        FairScheduler<String> scheduler = new FairScheduler<>(new SchedulerProperties());
+        scheduler.offer("batch-1", "bulk", "LOW");
+        scheduler.offer("batch-2", "bulk", "LOW");
+        scheduler.offer("chat", "ui", "HIGH");
+
+        assertEquals("chat", scheduler.poll());
+        assertEquals("batch-1", scheduler.poll());
+        assertEquals("batch-2", scheduler.poll());
+        assertNull(scheduler.poll());
+    }
+
+    @Test
+    void testWeightedRoundRobinWithinLevel() {
+        SchedulerProperties properties = new SchedulerProperties();
+        properties.setDefaultUserConcurrency(100);
+        properties.setUserWeights(Map.of("a", 2));
+        FairScheduler<String> scheduler = new FairScheduler<>(properties);
+        for (int i = 0; i < 100; i++) {
+            scheduler.offer("a" + i, "a", null);
+        }
+        for (int i = 0; i < 3; i++) {
+            scheduler.offer("b" + i, "b", null);
+        }
+
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            order.add(scheduler.poll());
+        }
+        // a 的权重为 2：每轮 a 两个、b 一个，b 不会被 a 的积压饿死
+        assertEquals(List.of("a0", "a1", "b0", "a2", "a3", "b1", "a4", "a5", "b2"), order);
+    }
+
+    @Test
+    void testUserConcurrencyCap() {
+        SchedulerProperties properties = new SchedulerProperties();
+        properties.setDefaultUserConcurrency(2);
+        FairScheduler<String> scheduler = new FairScheduler<>(properties);
+        for (int i = 0; i < 5; i++) {
+            scheduler.offer("t" + i, "tenant", "NORMAL");
+        }
+        scheduler.offer("other", "other", "LOW");
+        scheduler.offer("anon", null, "LOW");
+
+        assertEquals("t0", scheduler.poll());
+        assertEquals("t1", scheduler.poll());
+        // tenant 已满，跳过它调度低优先级的其他用户
+        assertEquals("other", scheduler.poll());
+        assertEquals("anon", scheduler.poll());
+        assertNull(scheduler.poll());
+        assertEquals(Set.of("tenant"), scheduler.saturatedUsers());
+
+        scheduler.release("tenant");
+        assertEquals("t2", scheduler.poll());
+        assertEquals(2, scheduler.size());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> normal = (Map<String, Object>) ((Map<String, Object>) scheduler.getStats().get("levels")).get("NORMAL");
+        assertEquals(2, normal.get("depth"));
+        assertEquals(3L, normal.get("dispatched"));
+        assertTrue((Long) normal.get("capSkips") > 0);
+        assertEquals(3L, ((Map<?, ?>) normal.get("waitTime")).get("count"));
+    }
+}
@@ -0,0 +1,208 @@
+package com.aiworkflow.service.task.worker;
+
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.common.core.execution.NodeExecutor;
+import com.aiworkflow.common.core.spi.SPIManager;
+import com.aiworkflow.service.task.queue.InMemoryWorkQueue;
+import com.aiworkflow.service.task.queue.WorkItem;
+import com.aiworkflow.service.task.schedule.SchedulerProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TaskWorker 测试
+ */
+class TaskWorkerTest {
+
+    private final SPIManager spiManager = new SPIManager();
+
+    private final InMemoryWorkQueue queue = new InMemoryWorkQueue();
+
+    private TaskWorker worker;
+
+    private TaskWorker newWorker(int maxConcurrency, int maxBatchSize) {
+        return newWorker(maxConcurrency, maxBatchSize, 0);
+    }
+
+    private TaskWorker newWorker(int maxConcurrency, int maxBatchSize, int prefetch) {
+        TaskQueueProperties properties = new TaskQueueProperties();
+        properties.setWorkerId("test-worker");
+        properties.setMaxConcurrency(maxConcurrency);
+        properties.setMaxBatchSize(maxBatchSize);
+        SchedulerProperties schedulerProperties = new SchedulerProperties();
+        schedulerProperties.setPrefetch(prefetch);
+        worker = new TaskWorker(queue, spiManager, properties, schedulerProperties);
+        return worker;
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void testClaimsOnlyFreeCapacity() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        spiManager.registerExecutor(executor("LLM_AGENT", ctx -> {
+            release.await(5, TimeUnit.SECONDS);
+            return ExecutionResult.success(Map.of("echo", ctx.getVariables().get("input")));
+        }));
+        for (long id = 1; id <= 10; id++) {
+            queue.offer(item(id, "LLM_AGENT"));
+        }
+        queue.offer(item(11L, "UNKNOWN"));
+        TaskWorker worker = newWorker(4, 3);
+
+        // 容量 4，批大小 3：先领 3 个，再按剩余空闲领 1 个
+        assertEquals(4, worker.poll());
+        assertEquals(4, worker.getRunningCount());
+        assertEquals(0, worker.poll(), "容量已满");
+        assertEquals(4, worker.heartbeat());
+
+        release.countDown();
+        waitUntil(() -> queue.getResults().size() == 4);
+        waitUntil(() -> worker.getRunningCount() == 0);
+        assertEquals(Map.of("echo", "v1"), queue.getResults().get(1L));
+
+        // 执行器不再阻塞，反复拉取直到队列中能执行的任务全部完成
+        waitUntil(() -> {
+            worker.poll();
+            return queue.getResults().size() == 10;
+        });
+        waitUntil(() -> worker.getRunningCount() == 0);
+        // 不支持的类型留在队列中
+        assertEquals(1, queue.readyCount());
+        assertEquals(10L, worker.getStats().get("completed"));
+    }
+
+    @Test
+    void testFailureAndShutdownRelease() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        spiManager.registerExecutor(executor("MCP_TOOL", ctx -> {
+            if ("task_1".equals(ctx.getNodeKey())) {
+                return ExecutionResult.fail("boom");
+            }
+            started.countDown();
+            Thread.sleep(10_000);
+            return ExecutionResult.success();
+        }));
+        queue.offer(item(1L, "MCP_TOOL"));
+        queue.offer(item(2L, "MCP_TOOL"));
+        TaskWorker worker = newWorker(2, 2);
+
+        assertEquals(2, worker.poll());
+        waitUntil(() -> queue.getErrors().containsKey(1L));
+        assertEquals("boom", queue.getErrors().get(1L));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // 停机时执行中的任务放回队列，被中断的执行不会再提交
+        worker.shutdown();
+        assertEquals(1, queue.readyCount());
+        assertEquals(0, queue.leasedCount());
+    }
+
+    @Test
+    void testLostLeaseNotCounted() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        spiManager.registerExecutor(executor("LLM_AGENT", ctx -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return ExecutionResult.success();
+        }));
+        queue.offer(item(1L, "LLM_AGENT"));
+        TaskWorker worker = newWorker(1, 1);
+
+        assertEquals(1, worker.poll());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // 执行期间租约被收回(相当于过期后被回收)，本地结果提交时被拒绝
+        WorkItem leased = item(1L, "LLM_AGENT");
+        leased.setAttempt(1);
+        assertTrue(queue.release("test-worker", leased));
+        release.countDown();
+        waitUntil(() -> worker.getRunningCount() == 0);
+
+        Map<String, Object> stats = worker.getStats();
+        assertEquals(1L, stats.get("lostLeases"));
+        assertEquals(0L, stats.get("completed"));
+        assertEquals(0L, stats.get("failed"));
+        assertTrue(queue.getResults().isEmpty());
+    }
+
+    @Test
+    void testPrefetchedHighPriorityRunsFirst() throws Exception {
+        List<String> executed = new CopyOnWriteArrayList<>();
+        spiManager.registerExecutor(executor("LLM_AGENT", ctx -> {
+            executed.add(ctx.getNodeKey());
+            return ExecutionResult.success();
+        }));
+        for (long id = 1; id <= 5; id++) {
+            WorkItem item = item(id, "LLM_AGENT");
+            item.setUserId("bulk");
+            item.setPriority("LOW");
+            queue.offer(item);
+        }
+        WorkItem interactive = item(6L, "LLM_AGENT");
+        interactive.setUserId("ui");
+        interactive.setPriority("HIGH");
+        queue.offer(interactive);
+        TaskWorker worker = newWorker(1, 10, 10);
+
+        // 容量 1，预取后一次领到全部 6 个，最后入队的高优先级任务先执行
+        assertEquals(6, worker.poll());
+        waitUntil(() -> executed.size() == 6);
+        assertEquals("task_6", executed.get(0));
+    }
+
+    private static WorkItem item(long id, String type) {
+        WorkItem item = new WorkItem();
+        item.setTaskId(id);
+        item.setTaskKey("task_" + id);
+        item.setTaskType(type);
+        item.setInputData(Map.of("input", "v" + id));
+        return item;
+    }
+
+    private static void waitUntil(Condition condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.test()) {
+            if (System.nanoTime() > deadline) {
+                fail("等待超时");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static NodeExecutor executor(String type, Body body) {
+        return new NodeExecutor() {
+            @Override
+            public String[] getSupportedNodeTypes() {
+                return new String[]{type};
+            }
+
+            @Override
+            public ExecutionResult execute(ExecutionContext context) throws Exception {
+                return body.apply(context);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        ExecutionResult apply(ExecutionContext context) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Condition {
+        boolean test();
+    }
+}
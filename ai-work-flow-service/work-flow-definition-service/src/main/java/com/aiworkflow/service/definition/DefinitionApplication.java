@@ -9,7 +9,7 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 @Slf4j
 @SpringBootApplication
 @EnableDiscoveryClient
-@MapperScan(basePackages = "com.aiworkflow.service.definition.mapper")
+@MapperScan(basePackages = {"com.aiworkflow.service.definition.mapper", "com.aiworkflow.engine.journal.mapper"})
 public class DefinitionApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,82 @@
+package com.aiworkflow.service.definition.analysis;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一个流程定义在多个已完成实例上的汇总分析，时间单位均为毫秒
+ * <p>
+ * 节点按在关键路径上累计贡献的时间降序排列，排在前面的节点优化收益最大；
+ * 关键路径贡献高而 waitMillis 占比大的节点缺的是执行容量，runMillis 占比大的节点需要优化执行本身或与其他节点并行。
+ */
+@Data
+public class DefinitionAnalysis {
+
+    private Long flowDefinitionId; // 流程定义ID
+
+    private int instanceCount; // 参与汇总的实例数
+
+    private double avgDurationMillis; // 平均实例耗时
+
+    private long p50DurationMillis; // 实例耗时中位数
+
+    private long p95DurationMillis; // 实例耗时 95 分位
+
+    private double avgCriticalRunMillis; // 关键路径上平均执行时间
+
+    private double avgCriticalWaitMillis; // 关键路径上平均排队时间
+
+    private double avgCriticalGapMillis; // 关键路径上平均调度间隙
+
+    private double avgParallelism; // 平均并行度
+
+    private List<NodeStats> nodes = new ArrayList<>(); // 按关键路径累计贡献降序
+
+    private List<ParallelStats> parallelSections = new ArrayList<>(); // 按分叉位置汇总
+
+    @Data
+    public static class NodeStats {
+
+        private String taskKey; // 任务标识
+
+        private String taskName; // 任务名称
+
+        private String taskType; // 任务类型
+
+        private int count; // 执行次数(含循环中的重复执行)
+
+        private double avgRunMillis; // 平均执行时间
+
+        private long p95RunMillis; // 执行时间 95 分位
+
+        private double avgWaitMillis; // 平均排队时间
+
+        private long p95WaitMillis; // 排队时间 95 分位
+
+        private double avgGapMillis; // 平均调度间隙
+
+        private double criticalRate; // 出现在关键路径上的实例比例
+
+        private long criticalMillis; // 在关键路径上累计贡献的时间
+
+        private double criticalShare; // 累计贡献占所有实例关键路径总长的比例
+    }
+
+    @Data
+    public static class ParallelStats {
+
+        private String forkTaskKey; // 分叉前的任务标识，实例开始即分叉时为空
+
+        private int occurrences; // 出现次数
+
+        private double avgBranchCount; // 平均分支数
+
+        private double avgSpanMillis; // 平均跨度
+
+        private double avgOverlapRatio; // 平均重叠程度
+
+        private double avgParallelism; // 平均实际并行度
+    }
+}
@@ -0,0 +1,131 @@
+package com.aiworkflow.service.definition.analysis;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个流程实例的时间线分析结果，时间单位均为毫秒
+ * <p>
+ * 每个任务的耗时拆成三段：gap(前驱全部结束到本任务创建，引擎推进和落库的开销)、
+ * wait(创建到开始执行，排队等待执行器)、run(执行)。关键路径上各任务三段之和等于实例开始到最后一个任务结束的时间。
+ */
+@Data
+public class InstanceAnalysis {
+
+    private Long instanceId; // 流程实例ID
+
+    private Long flowDefinitionId; // 流程定义ID
+
+    private String status; // 实例状态
+
+    private LocalDateTime startTime; // 实例开始时间
+
+    private long durationMillis; // 实例耗时(未结束时到最后一个任务结束)
+
+    private int taskCount; // 参与分析的任务数(有开始和结束时间)
+
+    private long totalRunMillis; // 所有任务执行时间之和
+
+    private long totalWaitMillis; // 所有任务排队时间之和
+
+    private long totalGapMillis; // 所有任务调度间隙之和
+
+    private double averageParallelism; // 平均并行度：执行时间之和 / 实例耗时
+
+    private long criticalPathMillis; // 关键路径长度：实例开始到最后一个任务结束
+
+    private long criticalRunMillis; // 关键路径上的执行时间
+
+    private long criticalWaitMillis; // 关键路径上的排队时间
+
+    private long criticalGapMillis; // 关键路径上的调度间隙
+
+    private long tailMillis; // 最后一个任务结束到实例结束
+
+    private List<Long> criticalPath = new ArrayList<>(); // 关键路径上的任务ID，按执行顺序
+
+    private List<NodeTiming> nodes = new ArrayList<>(); // 各任务时间，按创建顺序
+
+    private List<ParallelSection> parallelSections = new ArrayList<>(); // 并行分叉
+
+    @Data
+    public static class NodeTiming {
+
+        private Long taskId; // 任务实例ID
+
+        private String taskKey; // 任务标识
+
+        private String taskName; // 任务名称
+
+        private String taskType; // 任务类型
+
+        private String status; // 任务状态
+
+        private Long executionId; // 执行实例ID
+
+        private long offsetMillis; // 创建时间相对实例开始的偏移
+
+        private long gapMillis; // 前驱结束到创建
+
+        private long waitMillis; // 创建到开始执行
+
+        private long runMillis; // 执行
+
+        private List<Long> predecessors = new ArrayList<>(); // 前驱任务ID
+
+        private boolean critical; // 是否在关键路径上
+    }
+
+    /**
+     * 一次并行分叉：同一父执行在同一位置分出的并发子执行
+     * <p>
+     * 重叠程度按各分支任务的执行区间计算，而不是分支的起止：分支虽然同时开始，但因执行容量不足排队而实际串行执行时，
+     * overlapRatio 接近 0，parallelism 接近 1。
+     */
+    @Data
+    public static class ParallelSection {
+
+        private Long parentExecutionId; // 父执行ID
+
+        private Long forkTaskId; // 分叉前父执行上的最后一个任务，分叉发生在实例开始时为空
+
+        private String forkTaskKey; // 分叉前的任务标识
+
+        private long spanMillis; // 最早分支开始到最晚分支结束
+
+        private long longestBranchMillis; // 最长分支耗时
+
+        private long sumRunMillis; // 各分支执行时间之和
+
+        private long unionRunMillis; // 至少有一个分支在执行的时间
+
+        private double overlapRatio; // 执行重叠程度：1 为完全重叠(只受最长分支限制)，0 为完全串行
+
+        private double parallelism; // 实际并行度：执行时间之和 / 有分支在执行的时间
+
+        private List<Branch> branches = new ArrayList<>();
+    }
+
+    @Data
+    public static class Branch {
+
+        private Long executionId; // 子执行ID
+
+        private String firstTaskKey; // 分支上的第一个任务
+
+        private int taskCount; // 分支上的任务数
+
+        private long offsetMillis; // 分支开始相对分叉最早分支的偏移
+
+        private long durationMillis; // 分支第一个任务创建到最后一个任务结束
+
+        private long runMillis; // 分支上任务的执行时间(并发的子分支只计一次)
+
+        private long slackMillis; // 比最长分支短多少，在此范围内变慢不影响汇聚时间
+
+        private boolean critical; // 是否包含关键路径上的任务
+    }
+}
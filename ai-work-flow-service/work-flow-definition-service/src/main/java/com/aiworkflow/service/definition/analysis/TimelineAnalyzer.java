@@ -0,0 +1,526 @@
+package com.aiworkflow.service.definition.analysis;
+
+import com.aiworkflow.engine.journal.entity.AiInstanceEvent;
+import com.aiworkflow.service.definition.entity.AiFlowExecution;
+import com.aiworkflow.service.definition.entity.AiFlowInstance;
+import com.aiworkflow.service.definition.entity.AiTaskInstance;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 由 ai_task_instance 的时间和事件日志中 EXECUTION_FORKED 记录的执行父子关系重建实例的执行 DAG，计算关键路径和并行重叠
+ * <p>
+ * 分叉事件使用引擎内的执行ID，经 ai_flow_execution.engine_execution_id 换算为任务行引用的执行行ID。
+ * 依赖关系按执行树推断：同一执行上的任务按创建顺序串行；子执行的第一个任务依赖父执行(或更上层祖先)上
+ * 在它创建前结束的最后一个任务(分叉点)；子执行(含其后代)最后结束的任务是父执行上此后第一个创建的任务的前驱(汇聚点)。
+ * 关键路径从最后结束的任务开始，每次回溯到结束最晚的前驱。没有分叉记录时各执行独立成链，只分析最后结束的那条。
+ * 没有开始或结束时间的任务(未执行、被取消、仍在运行)不参与分析。数据库时间为秒精度，结果是近似值。
+ */
+public final class TimelineAnalyzer {
+
+    private TimelineAnalyzer() {
+    }
+
+    /**
+     * 由实例的分叉事件得到执行行ID -> 父执行行ID；没有对应执行行的引擎执行ID忽略
+     *
+     * @param forkEvents 实例的 EXECUTION_FORKED 事件
+     * @param executions 实例的执行行，需要 engine_execution_id
+     */
+    public static Map<Long, Long> executionParents(List<AiInstanceEvent> forkEvents,
+                                                   List<AiFlowExecution> executions) {
+        Map<Long, Long> rowIds = new HashMap<>();
+        for (AiFlowExecution execution : executions) {
+            if (execution.getEngineExecutionId() != null) {
+                rowIds.put(execution.getEngineExecutionId(), execution.getId());
+            }
+        }
+        Map<Long, Long> parents = new HashMap<>();
+        for (AiInstanceEvent event : forkEvents) {
+            Long parentId = rowIds.get(event.getExecutionId());
+            if (parentId == null || !(event.getPayload() instanceof Map<?, ?> payload)
+                    || !(payload.get("children") instanceof Collection<?> children)) {
+                continue;
+            }
+            for (Object child : children) {
+                Long childId = child instanceof Number id ? rowIds.get(id.longValue()) : null;
+                if (childId != null && !childId.equals(parentId)) {
+                    parents.put(childId, parentId);
+                }
+            }
+        }
+        return parents;
+    }
+
+    /**
+     * 分析单个实例
+     *
+     * @param parents 执行行ID -> 父执行行ID，见 {@link #executionParents}
+     */
+    public static InstanceAnalysis analyze(AiFlowInstance instance, List<AiTaskInstance> tasks,
+                                           Map<Long, Long> parents) {
+        List<Node> nodes = new ArrayList<>();
+        for (AiTaskInstance task : tasks) {
+            if (task.getStartTime() != null && task.getEndTime() != null) {
+                nodes.add(new Node(task));
+            }
+        }
+        nodes.sort(Comparator.comparingLong((Node node) -> node.ready)
+                .thenComparingLong(node -> node.start)
+                .thenComparing(node -> node.task.getId(), Comparator.nullsLast(Comparator.naturalOrder())));
+
+        InstanceAnalysis analysis = new InstanceAnalysis();
+        analysis.setInstanceId(instance.getId());
+        analysis.setFlowDefinitionId(instance.getFlowDefinitionId());
+        analysis.setStatus(instance.getStatus());
+        analysis.setStartTime(instance.getStartTime());
+        analysis.setTaskCount(nodes.size());
+        if (nodes.isEmpty()) {
+            if (instance.getStartTime() != null && instance.getEndTime() != null) {
+                analysis.setDurationMillis(Math.max(0, millis(instance.getEndTime()) - millis(instance.getStartTime())));
+            }
+            return analysis;
+        }
+
+        long origin = nodes.get(0).ready;
+        if (instance.getStartTime() != null) {
+            origin = Math.min(origin, millis(instance.getStartTime()));
+        }
+
+        // 执行 -> 任务链(按创建顺序)，执行 -> 子执行
+        Map<Long, List<Node>> chains = new LinkedHashMap<>();
+        for (Node node : nodes) {
+            chains.computeIfAbsent(node.task.getExecutionId(), id -> new ArrayList<>()).add(node);
+        }
+        Map<Long, List<Long>> children = new HashMap<>();
+        parents.forEach((executionId, parentId) ->
+                children.computeIfAbsent(parentId, id -> new ArrayList<>()).add(executionId));
+
+        for (List<Node> chain : chains.values()) {
+            for (int i = 1; i < chain.size(); i++) {
+                chain.get(i).link(chain.get(i - 1));
+            }
+        }
+
+        // 分叉位置 -> 分支(子执行)
+        Map<ForkKey, List<Long>> forks = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<Node>> entry : chains.entrySet()) {
+            Long executionId = entry.getKey();
+            Long parentId = parents.get(executionId);
+            if (parentId == null) {
+                continue;
+            }
+            Node first = entry.getValue().get(0);
+            Node fork = forkPoint(parentId, first.ready, chains, parents);
+            if (fork != null) {
+                first.link(fork);
+            }
+            Node last = lastEnded(subtree(executionId, chains, children));
+            Node join = joinPoint(parentId, fork, last.end, chains, parents);
+            if (join != null) {
+                join.link(last);
+            }
+            forks.computeIfAbsent(new ForkKey(parentId, fork), key -> new ArrayList<>()).add(executionId);
+        }
+
+        // 各任务的三段时间
+        long totalRun = 0;
+        long totalWait = 0;
+        long totalGap = 0;
+        for (Node node : nodes) {
+            long dependencyEnd = origin;
+            for (Node predecessor : node.predecessors) {
+                dependencyEnd = Math.max(dependencyEnd, predecessor.end);
+            }
+            node.gap = Math.max(0, node.ready - dependencyEnd);
+            totalRun += node.end - node.start;
+            totalWait += node.start - node.ready;
+            totalGap += node.gap;
+        }
+
+        // 关键路径：从最后结束的任务回溯结束最晚的前驱
+        Node sink = lastEnded(nodes);
+        List<Node> path = new ArrayList<>();
+        for (Node node = sink; node != null; node = lastEnded(node.predecessors)) {
+            if (node.critical) {
+                break;
+            }
+            node.critical = true;
+            path.add(0, node);
+        }
+        long criticalRun = 0;
+        long criticalWait = 0;
+        long criticalGap = 0;
+        for (Node node : path) {
+            criticalRun += node.end - node.start;
+            criticalWait += node.start - node.ready;
+            criticalGap += node.gap;
+            analysis.getCriticalPath().add(node.task.getId());
+        }
+
+        long duration = instance.getEndTime() != null ? millis(instance.getEndTime()) - origin : sink.end - origin;
+        duration = Math.max(duration, sink.end - origin);
+        analysis.setDurationMillis(duration);
+        analysis.setTotalRunMillis(totalRun);
+        analysis.setTotalWaitMillis(totalWait);
+        analysis.setTotalGapMillis(totalGap);
+        analysis.setAverageParallelism(duration > 0 ? round((double) totalRun / duration) : 0);
+        analysis.setCriticalPathMillis(sink.end - origin);
+        analysis.setCriticalRunMillis(criticalRun);
+        analysis.setCriticalWaitMillis(criticalWait);
+        analysis.setCriticalGapMillis(criticalGap);
+        analysis.setTailMillis(duration - (sink.end - origin));
+
+        for (Node node : nodes) {
+            analysis.getNodes().add(node.toTiming(origin));
+        }
+        for (Map.Entry<ForkKey, List<Long>> entry : forks.entrySet()) {
+            if (entry.getValue().size() > 1) {
+                analysis.getParallelSections().add(section(entry.getKey(), entry.getValue(), chains, children));
+            }
+        }
+        return analysis;
+    }
+
+    /**
+     * 按流程定义汇总多个实例的分析结果
+     */
+    public static DefinitionAnalysis aggregate(Long flowDefinitionId, List<InstanceAnalysis> analyses) {
+        DefinitionAnalysis result = new DefinitionAnalysis();
+        result.setFlowDefinitionId(flowDefinitionId);
+        result.setInstanceCount(analyses.size());
+        if (analyses.isEmpty()) {
+            return result;
+        }
+
+        List<Long> durations = new ArrayList<>(analyses.size());
+        double criticalRun = 0;
+        double criticalWait = 0;
+        double criticalGap = 0;
+        double parallelism = 0;
+        long criticalTotal = 0;
+        Map<String, NodeAccumulator> nodes = new LinkedHashMap<>();
+        Map<String, ForkAccumulator> forks = new LinkedHashMap<>();
+        for (InstanceAnalysis analysis : analyses) {
+            durations.add(analysis.getDurationMillis());
+            criticalRun += analysis.getCriticalRunMillis();
+            criticalWait += analysis.getCriticalWaitMillis();
+            criticalGap += analysis.getCriticalGapMillis();
+            parallelism += analysis.getAverageParallelism();
+            criticalTotal += analysis.getCriticalPathMillis();
+            Set<String> onCriticalPath = new HashSet<>();
+            for (InstanceAnalysis.NodeTiming node : analysis.getNodes()) {
+                NodeAccumulator accumulator = nodes.computeIfAbsent(node.getTaskKey(), key -> new NodeAccumulator(node));
+                accumulator.runs.add(node.getRunMillis());
+                accumulator.waits.add(node.getWaitMillis());
+                accumulator.gapSum += node.getGapMillis();
+                if (node.isCritical()) {
+                    accumulator.criticalMillis += node.getGapMillis() + node.getWaitMillis() + node.getRunMillis();
+                    if (onCriticalPath.add(node.getTaskKey())) {
+                        accumulator.criticalInstances++;
+                    }
+                }
+            }
+            for (InstanceAnalysis.ParallelSection section : analysis.getParallelSections()) {
+                forks.computeIfAbsent(section.getForkTaskKey(), key -> new ForkAccumulator()).add(section);
+            }
+        }
+
+        int count = analyses.size();
+        durations.sort(null);
+        result.setAvgDurationMillis(round(durations.stream().mapToLong(Long::longValue).average().orElse(0)));
+        result.setP50DurationMillis(percentile(durations, 0.5));
+        result.setP95DurationMillis(percentile(durations, 0.95));
+        result.setAvgCriticalRunMillis(round(criticalRun / count));
+        result.setAvgCriticalWaitMillis(round(criticalWait / count));
+        result.setAvgCriticalGapMillis(round(criticalGap / count));
+        result.setAvgParallelism(round(parallelism / count));
+
+        for (Map.Entry<String, NodeAccumulator> entry : nodes.entrySet()) {
+            result.getNodes().add(entry.getValue().toStats(entry.getKey(), count, criticalTotal));
+        }
+        result.getNodes().sort(Comparator.comparingLong(DefinitionAnalysis.NodeStats::getCriticalMillis).reversed()
+                .thenComparing(Comparator.comparingDouble(DefinitionAnalysis.NodeStats::getAvgRunMillis).reversed()));
+        for (Map.Entry<String, ForkAccumulator> entry : forks.entrySet()) {
+            result.getParallelSections().add(entry.getValue().toStats(entry.getKey()));
+        }
+        return result;
+    }
+
+    /**
+     * 从 executionId 开始向上，找到 ready 之前结束的最后一个任务
+     */
+    private static Node forkPoint(Long executionId, long ready, Map<Long, List<Node>> chains, Map<Long, Long> parents) {
+        Set<Long> visited = new HashSet<>();
+        for (Long id = executionId; id != null && visited.add(id); id = parents.get(id)) {
+            List<Node> chain = chains.getOrDefault(id, List.of());
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                if (chain.get(i).end <= ready) {
+                    return chain.get(i);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从 executionId 开始向上，找到分叉点之后、end 之后第一个创建的任务
+     */
+    private static Node joinPoint(Long executionId, Node fork, long end, Map<Long, List<Node>> chains,
+                                  Map<Long, Long> parents) {
+        Set<Long> visited = new HashSet<>();
+        for (Long id = executionId; id != null && visited.add(id); id = parents.get(id)) {
+            for (Node node : chains.getOrDefault(id, List.of())) {
+                if (node.ready >= end && (fork == null || node.ready >= fork.end) && node != fork) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 执行及其所有后代执行上的任务
+     */
+    private static List<Node> subtree(Long executionId, Map<Long, List<Node>> chains, Map<Long, List<Long>> children) {
+        List<Node> result = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        List<Long> pending = new ArrayList<>(List.of(executionId));
+        while (!pending.isEmpty()) {
+            Long id = pending.remove(pending.size() - 1);
+            if (visited.add(id)) {
+                result.addAll(chains.getOrDefault(id, List.of()));
+                pending.addAll(children.getOrDefault(id, List.of()));
+            }
+        }
+        return result;
+    }
+
+    private static InstanceAnalysis.ParallelSection section(ForkKey key, List<Long> branchIds,
+                                                            Map<Long, List<Node>> chains,
+                                                            Map<Long, List<Long>> children) {
+        InstanceAnalysis.ParallelSection section = new InstanceAnalysis.ParallelSection();
+        section.setParentExecutionId(key.parentExecutionId());
+        if (key.fork() != null) {
+            section.setForkTaskId(key.fork().task.getId());
+            section.setForkTaskKey(key.fork().task.getTaskKey());
+        }
+        long spanStart = Long.MAX_VALUE;
+        long spanEnd = Long.MIN_VALUE;
+        long longest = 0;
+        long longestRun = 0;
+        long sumRun = 0;
+        List<Node> allNodes = new ArrayList<>();
+        for (Long branchId : branchIds) {
+            List<Node> branchNodes = subtree(branchId, chains, children);
+            Node first = chains.get(branchId).get(0);
+            long end = lastEnded(branchNodes).end;
+            InstanceAnalysis.Branch branch = new InstanceAnalysis.Branch();
+            branch.setExecutionId(branchId);
+            branch.setFirstTaskKey(first.task.getTaskKey());
+            branch.setTaskCount(branchNodes.size());
+            branch.setOffsetMillis(first.ready);
+            branch.setDurationMillis(end - first.ready);
+            branch.setRunMillis(unionRun(branchNodes));
+            branch.setCritical(branchNodes.stream().anyMatch(node -> node.critical));
+            section.getBranches().add(branch);
+            allNodes.addAll(branchNodes);
+            spanStart = Math.min(spanStart, first.ready);
+            spanEnd = Math.max(spanEnd, end);
+            longest = Math.max(longest, branch.getDurationMillis());
+            longestRun = Math.max(longestRun, branch.getRunMillis());
+            sumRun += branch.getRunMillis();
+        }
+        for (InstanceAnalysis.Branch branch : section.getBranches()) {
+            branch.setOffsetMillis(branch.getOffsetMillis() - spanStart);
+            branch.setSlackMillis(longest - branch.getDurationMillis());
+        }
+        long unionRun = unionRun(allNodes);
+        section.setSpanMillis(spanEnd - spanStart);
+        section.setLongestBranchMillis(longest);
+        section.setSumRunMillis(sumRun);
+        section.setUnionRunMillis(unionRun);
+        // 完全重叠时执行时间的并集等于最长分支，完全串行时等于各分支之和
+        section.setOverlapRatio(sumRun > longestRun
+                ? round(Math.max(0, Math.min(1, (double) (sumRun - unionRun) / (sumRun - longestRun)))) : 1);
+        section.setParallelism(unionRun > 0 ? round((double) sumRun / unionRun) : 1);
+        return section;
+    }
+
+    /**
+     * 任务执行区间并集的长度
+     */
+    private static long unionRun(List<Node> nodes) {
+        List<Node> sorted = new ArrayList<>(nodes);
+        sorted.sort(Comparator.comparingLong(node -> node.start));
+        long total = 0;
+        long coveredUntil = Long.MIN_VALUE;
+        for (Node node : sorted) {
+            long from = Math.max(node.start, coveredUntil);
+            if (node.end > from) {
+                total += node.end - from;
+                coveredUntil = node.end;
+            }
+        }
+        return total;
+    }
+
+    private static Node lastEnded(List<Node> nodes) {
+        Node last = null;
+        for (Node node : nodes) {
+            if (last == null || node.end > last.end || (node.end == last.end && node.ready >= last.ready)) {
+                last = node;
+            }
+        }
+        return last;
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static final class Node {
+
+        private final AiTaskInstance task;
+
+        private final long ready;
+
+        private final long start;
+
+        private final long end;
+
+        private final List<Node> predecessors = new ArrayList<>(2);
+
+        private long gap;
+
+        private boolean critical;
+
+        Node(AiTaskInstance task) {
+            this.task = task;
+            this.start = millis(task.getStartTime());
+            this.end = Math.max(start, millis(task.getEndTime()));
+            this.ready = task.getCreateAt() != null ? Math.min(start, millis(task.getCreateAt())) : start;
+        }
+
+        void link(Node predecessor) {
+            if (predecessor != this && !predecessors.contains(predecessor)) {
+                predecessors.add(predecessor);
+            }
+        }
+
+        InstanceAnalysis.NodeTiming toTiming(long origin) {
+            InstanceAnalysis.NodeTiming timing = new InstanceAnalysis.NodeTiming();
+            timing.setTaskId(task.getId());
+            timing.setTaskKey(task.getTaskKey());
+            timing.setTaskName(task.getTaskName());
+            timing.setTaskType(task.getTaskType());
+            timing.setStatus(task.getStatus());
+            timing.setExecutionId(task.getExecutionId());
+            timing.setOffsetMillis(ready - origin);
+            timing.setGapMillis(gap);
+            timing.setWaitMillis(start - ready);
+            timing.setRunMillis(end - start);
+            for (Node predecessor : predecessors) {
+                timing.getPredecessors().add(predecessor.task.getId());
+            }
+            timing.setCritical(critical);
+            return timing;
+        }
+    }
+
+    // 任务节点按引用区分
+    private record ForkKey(Long parentExecutionId, Node fork) {
+    }
+
+    private static final class NodeAccumulator {
+
+        private final String taskName;
+
+        private final String taskType;
+
+        private final List<Long> runs = new ArrayList<>();
+
+        private final List<Long> waits = new ArrayList<>();
+
+        private long gapSum;
+
+        private long criticalMillis;
+
+        private int criticalInstances;
+
+        NodeAccumulator(InstanceAnalysis.NodeTiming first) {
+            this.taskName = first.getTaskName();
+            this.taskType = first.getTaskType();
+        }
+
+        DefinitionAnalysis.NodeStats toStats(String taskKey, int instances, long criticalTotal) {
+            runs.sort(null);
+            waits.sort(null);
+            DefinitionAnalysis.NodeStats stats = new DefinitionAnalysis.NodeStats();
+            stats.setTaskKey(taskKey);
+            stats.setTaskName(taskName);
+            stats.setTaskType(taskType);
+            stats.setCount(runs.size());
+            stats.setAvgRunMillis(round(runs.stream().mapToLong(Long::longValue).average().orElse(0)));
+            stats.setP95RunMillis(percentile(runs, 0.95));
+            stats.setAvgWaitMillis(round(waits.stream().mapToLong(Long::longValue).average().orElse(0)));
+            stats.setP95WaitMillis(percentile(waits, 0.95));
+            stats.setAvgGapMillis(round((double) gapSum / runs.size()));
+            stats.setCriticalRate(round((double) criticalInstances / instances));
+            stats.setCriticalMillis(criticalMillis);
+            stats.setCriticalShare(criticalTotal > 0 ? round((double) criticalMillis / criticalTotal) : 0);
+            return stats;
+        }
+    }
+
+    private static final class ForkAccumulator {
+
+        private int occurrences;
+
+        private long branches;
+
+        private long spanSum;
+
+        private double overlapSum;
+
+        private double parallelismSum;
+
+        void add(InstanceAnalysis.ParallelSection section) {
+            occurrences++;
+            branches += section.getBranches().size();
+            spanSum += section.getSpanMillis();
+            overlapSum += section.getOverlapRatio();
+            parallelismSum += section.getParallelism();
+        }
+
+        DefinitionAnalysis.ParallelStats toStats(String forkTaskKey) {
+            DefinitionAnalysis.ParallelStats stats = new DefinitionAnalysis.ParallelStats();
+            stats.setForkTaskKey(forkTaskKey);
+            stats.setOccurrences(occurrences);
+            stats.setAvgBranchCount(round((double) branches / occurrences));
+            stats.setAvgSpanMillis(round((double) spanSum / occurrences));
+            stats.setAvgOverlapRatio(round(overlapSum / occurrences));
+            stats.setAvgParallelism(round(parallelismSum / occurrences));
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.aiworkflow.service.definition.archive;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 已结束实例归档配置
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.archive")
+public class ArchiveProperties {
+
+    // 是否启用定时归档；关闭时仍可通过接口手动触发
+    private boolean enabled = false;
+
+    // 实例结束后在热表中保留的时长
+    private Duration retention = Duration.ofDays(30);
+
+    // 每批迁移的实例数，每批一个事务
+    private int batchSize = 100;
+
+    // 批次之间的停顿，给在线流量让出 I/O 和锁
+    private Duration pauseBetweenBatches = Duration.ofMillis(50);
+
+    // 单次运行最多迁移的批数
+    private int maxBatchesPerRun = 1000;
+
+    // 定时归档间隔
+    private Duration interval = Duration.ofHours(1);
+}
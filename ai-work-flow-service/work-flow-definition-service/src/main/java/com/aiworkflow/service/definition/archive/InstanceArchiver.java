@@ -0,0 +1,173 @@
+package com.aiworkflow.service.definition.archive;
+
+import com.aiworkflow.service.definition.mapper.InstanceArchiveMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 已结束实例归档
+ * <p>
+ * 按 ID 顺序挑选结束超过保留期、事件已全部投影的 COMPLETED/FAILED/TERMINATED 实例，每批在一个事务内把实例及其执行、
+ * 任务和事件日志 INSERT ... SELECT 到归档表，再从热表删除，实例快照直接删除。批量小、批间停顿，避免长事务和大范围锁；
+ * 删除的实例数与迁入数不一致(期间状态被改动)时整批回滚，下次重试。
+ */
+@Slf4j
+@Component
+public class InstanceArchiver {
+
+    private final InstanceArchiveMapper archiveMapper;
+
+    private final TransactionOperations transactions;
+
+    private final ArchiveProperties properties;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder archivedInstances = new LongAdder();
+
+    private final LongAdder archivedTasks = new LongAdder();
+
+    private final LongAdder archivedExecutions = new LongAdder();
+
+    private final LongAdder archivedEvents = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private volatile LocalDateTime lastRunTime;
+
+    public InstanceArchiver(InstanceArchiveMapper archiveMapper, TransactionOperations transactions,
+                            ArchiveProperties properties) {
+        this.archiveMapper = archiveMapper;
+        this.transactions = transactions;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "instance-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.isEnabled()) {
+            long interval = properties.getInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::archiveQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 执行一轮归档，返回迁移的实例数；已有一轮在运行时直接返回 0
+     */
+    public int archive() {
+        if (!runLock.tryLock()) {
+            return 0;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+            long afterId = 0;
+            int total = 0;
+            for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+                List<Long> ids = archiveMapper.selectArchivableIds(cutoff, afterId, properties.getBatchSize());
+                if (ids.isEmpty()) {
+                    break;
+                }
+                afterId = ids.get(ids.size() - 1);
+                MovedBatch moved = transactions.execute(status -> moveBatch(ids));
+                if (moved != null) {
+                    total += moved.instances();
+                    archivedInstances.add(moved.instances());
+                    archivedExecutions.add(moved.executions());
+                    archivedTasks.add(moved.tasks());
+                    archivedEvents.add(moved.events());
+                }
+                batches.increment();
+                if (ids.size() < properties.getBatchSize()) {
+                    break;
+                }
+                pause();
+            }
+            lastRunTime = LocalDateTime.now();
+            if (total > 0) {
+                log.info("归档已结束实例 {} 个(结束时间早于 {})", total, cutoff);
+            }
+            return total;
+        } catch (RuntimeException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("retention", properties.getRetention().toString());
+        stats.put("archivedInstances", archivedInstances.sum());
+        stats.put("archivedExecutions", archivedExecutions.sum());
+        stats.put("archivedTasks", archivedTasks.sum());
+        stats.put("archivedEvents", archivedEvents.sum());
+        stats.put("batches", batches.sum());
+        stats.put("failures", failures.sum());
+        stats.put("lastRunTime", lastRunTime);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private MovedBatch moveBatch(List<Long> ids) {
+        // 先迁入归档表，再按子表到主表的顺序删除
+        int instances = archiveMapper.copyInstances(ids);
+        int executions = archiveMapper.copyExecutions(ids);
+        int tasks = archiveMapper.copyTasks(ids);
+        int events = archiveMapper.copyEvents(ids);
+        archiveMapper.deleteEvents(ids);
+        archiveMapper.deleteSnapshots(ids);
+        archiveMapper.deleteTasks(ids);
+        archiveMapper.deleteExecutions(ids);
+        archiveMapper.deleteVariableIndex(ids);
+        int deleted = archiveMapper.deleteInstances(ids);
+        if (deleted != instances) {
+            throw new IllegalStateException("归档批次不一致: 迁入 " + instances + " 个实例，删除 " + deleted + " 个");
+        }
+        return new MovedBatch(deleted, executions, tasks, events);
+    }
+
+    private void pause() {
+        long millis = properties.getPauseBetweenBatches().toMillis();
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive();
+        } catch (Exception e) {
+            log.error("实例归档失败，下次重试", e);
+        }
+    }
+
+    private record MovedBatch(int instances, int executions, int tasks, int events) {
+    }
+}
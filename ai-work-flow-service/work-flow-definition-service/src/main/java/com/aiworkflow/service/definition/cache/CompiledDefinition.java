@@ -0,0 +1,11 @@
+package com.aiworkflow.service.definition.cache;
+
+import com.aiworkflow.engine.core.graph.FlowGraph;
+import com.aiworkflow.engine.core.model.FlowModel;
+
+/**
+ * 已解析、已编译的流程定义(不可变)
+ */
+public record CompiledDefinition(Long definitionId, String flowKey, int version, String status,
+                                 FlowModel model, FlowGraph graph) {
+}
@@ -0,0 +1,26 @@
+package com.aiworkflow.service.definition.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 流程定义缓存配置
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.definition.cache")
+public class DefinitionCacheProperties {
+
+    // 已编译定义缓存的容量上限(估算字节数)
+    private long maxWeightBytes = 64L * 1024 * 1024;
+
+    // 最新 ACTIVE 版本指针的数量上限
+    private long maxLatestPointers = 10_000;
+
+    // 最新版本指针的过期时间，变更同步失败时的兜底
+    private Duration latestPointerTtl = Duration.ofSeconds(30);
+
+    // 轮询 ai_flow_definition.update_at 同步其他节点状态变更的间隔，为 0 时不同步
+    private Duration syncInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,7 @@
+package com.aiworkflow.service.definition.cache;
+
+/**
+ * 流程定义缓存键，对应唯一键 uk_flow_key_version
+ */
+public record DefinitionKey(String flowKey, int version) {
+}
@@ -0,0 +1,259 @@
+package com.aiworkflow.service.definition.cache;
+
+import com.aiworkflow.engine.core.graph.FlowGraph;
+import com.aiworkflow.engine.core.graph.FlowGraphCompiler;
+import com.aiworkflow.engine.core.model.FlowModel;
+import com.aiworkflow.service.definition.entity.AiFlowDefinition;
+import com.aiworkflow.service.definition.enums.FlowDefinitionStatus;
+import com.aiworkflow.service.definition.mapper.AiFlowDefinitionMapper;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已编译流程定义缓存
+ * <p>
+ * 按 (flow_key, version) 缓存解析并编译后的定义，容量按估算字节数限制；
+ * 另外维护 flow_key -> 最新 ACTIVE 版本号的指针缓存。已发布的定义不可变，
+ * 只有状态变化时需要失效；DRAFT 定义仍可能被修改，不进入缓存。
+ * 本节点的变更直接失效，其他节点的变更靠定时轮询 ai_flow_definition.update_at 发现，最多延迟一个同步间隔。
+ */
+@Slf4j
+@Component
+public class FlowDefinitionCache {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // 表为空时的同步起点
+    private static final LocalDateTime SYNC_ORIGIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final AiFlowDefinitionMapper definitionMapper;
+
+    private final Cache<DefinitionKey, CompiledDefinition> definitions;
+
+    private final Cache<String, Integer> latestActiveVersions;
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private final LongAdder syncedChanges = new LongAdder();
+
+    private final LongAdder syncFailures = new LongAdder();
+
+    private final ScheduledExecutorService scheduler;
+
+    // 已同步到的 update_at，以及该时刻已处理过的版本和状态(update_at 只精确到秒，下次仍要查这一秒)
+    private LocalDateTime syncedUntil;
+
+    private final Map<DefinitionKey, String> syncedAtWatermark = new HashMap<>();
+
+    public FlowDefinitionCache(AiFlowDefinitionMapper definitionMapper, DefinitionCacheProperties properties) {
+        this.definitionMapper = definitionMapper;
+        this.definitions = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxWeightBytes())
+                .weigher((DefinitionKey key, CompiledDefinition value) -> estimateBytes(value))
+                .recordStats()
+                .build();
+        this.latestActiveVersions = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxLatestPointers())
+                .expireAfterWrite(properties.getLatestPointerTtl())
+                .recordStats()
+                .build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "definition-cache-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getSyncInterval().toMillis();
+        if (interval > 0) {
+            scheduler.scheduleWithFixedDelay(this::syncQuietly, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 获取指定版本的已编译定义，不存在时返回 null
+     */
+    public CompiledDefinition get(String flowKey, int version) {
+        DefinitionKey key = new DefinitionKey(flowKey, version);
+        CompiledDefinition definition = definitions.get(key, this::load);
+        if (definition != null && FlowDefinitionStatus.DRAFT.name().equals(definition.status())) {
+            definitions.invalidate(key);
+        }
+        return definition;
+    }
+
+    /**
+     * 获取最新 ACTIVE 版本的已编译定义，不存在时返回 null
+     */
+    public CompiledDefinition getLatestActive(String flowKey) {
+        Integer version = latestActiveVersions.get(flowKey, definitionMapper::selectLatestActiveVersion);
+        if (version == null) {
+            return null;
+        }
+        CompiledDefinition definition = get(flowKey, version);
+        if (definition == null || !FlowDefinitionStatus.ACTIVE.name().equals(definition.status())) {
+            // 指针已过时(版本被下线或删除)，下次重新查询
+            latestActiveVersions.invalidate(flowKey);
+            return null;
+        }
+        return definition;
+    }
+
+    /**
+     * 定义状态变化时调用：失效该版本以及流程的最新版本指针
+     */
+    public void invalidate(String flowKey, int version) {
+        definitions.invalidate(new DefinitionKey(flowKey, version));
+        latestActiveVersions.invalidate(flowKey);
+        invalidations.increment();
+        log.info("失效流程定义缓存: {} v{}", flowKey, version);
+    }
+
+    public void invalidateAll() {
+        definitions.invalidateAll();
+        latestActiveVersions.invalidateAll();
+        invalidations.increment();
+    }
+
+    /**
+     * 失效上次同步以来在任意节点发生过变更的定义，返回失效的个数；首次调用只记录当前位置
+     */
+    public synchronized int syncChanges() {
+        if (syncedUntil == null) {
+            LocalDateTime latest = definitionMapper.selectLatestUpdateAt();
+            syncedUntil = latest != null ? latest : SYNC_ORIGIN;
+            return 0;
+        }
+        int changed = 0;
+        for (AiFlowDefinition definition : definitionMapper.selectChangedSince(syncedUntil)) {
+            DefinitionKey key = new DefinitionKey(definition.getFlowKey(), definition.getVersion());
+            LocalDateTime updateAt = definition.getUpdateAt();
+            if (updateAt.equals(syncedUntil) && Objects.equals(syncedAtWatermark.get(key), definition.getStatus())) {
+                continue;
+            }
+            if (updateAt.isAfter(syncedUntil)) {
+                syncedUntil = updateAt;
+                syncedAtWatermark.clear();
+            }
+            syncedAtWatermark.put(key, definition.getStatus());
+            definitions.invalidate(key);
+            latestActiveVersions.invalidate(key.flowKey());
+            changed++;
+        }
+        syncedChanges.add(changed);
+        return changed;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 缓存统计：命中、未命中、淘汰、失效次数以及当前占用
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = definitions.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("loadFailureCount", stats.loadFailureCount());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("evictionWeight", stats.evictionWeight());
+        result.put("invalidationCount", invalidations.sum());
+        result.put("entryCount", definitions.estimatedSize());
+        definitions.policy().eviction().ifPresent(eviction -> {
+            result.put("weightedSizeBytes", eviction.weightedSize().orElse(0L));
+            result.put("maxWeightBytes", eviction.getMaximum());
+        });
+
+        CacheStats pointerStats = latestActiveVersions.stats();
+        result.put("latestPointerHitCount", pointerStats.hitCount());
+        result.put("latestPointerMissCount", pointerStats.missCount());
+        result.put("latestPointerCount", latestActiveVersions.estimatedSize());
+        result.put("syncedChanges", syncedChanges.sum());
+        result.put("syncFailures", syncFailures.sum());
+        return result;
+    }
+
+    private void syncQuietly() {
+        try {
+            syncChanges();
+        } catch (Exception e) {
+            syncFailures.increment();
+            log.warn("同步流程定义变更失败，下次重试", e);
+        }
+    }
+
+    private CompiledDefinition load(DefinitionKey key) {
+        AiFlowDefinition entity = definitionMapper.selectByFlowKeyAndVersion(key.flowKey(), key.version());
+        if (entity == null) {
+            return null;
+        }
+        FlowModel model = objectMapper.convertValue(entity.getFlowModel(), FlowModel.class);
+        if (model.getKey() == null) {
+            model.setKey(entity.getFlowKey());
+        }
+        FlowGraph graph = FlowGraphCompiler.compile(model);
+        return new CompiledDefinition(entity.getId(), entity.getFlowKey(), entity.getVersion(),
+                entity.getStatus(), model, graph);
+    }
+
+    /**
+     * 估算已编译定义的堆占用(模型和图共享节点配置，配置只计一次)
+     */
+    static int estimateBytes(CompiledDefinition definition) {
+        FlowGraph graph = definition.graph();
+        long bytes = 512;
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            // 数组槽位、模型元素对象和 key 索引
+            bytes += 160 + stringBytes(graph.nodeKey(v)) + stringBytes(graph.nodeName(v))
+                    + valueBytes(graph.nodeConfig(v));
+        }
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            bytes += 120 + stringBytes(graph.edgeKey(e)) + stringBytes(graph.edgeCondition(e));
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private static long valueBytes(Object value) {
+        if (value instanceof String text) {
+            return stringBytes(text);
+        }
+        if (value instanceof Map<?, ?> map) {
+            long bytes = 64;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                bytes += 48 + valueBytes(entry.getKey()) + valueBytes(entry.getValue());
+            }
+            return bytes;
+        }
+        if (value instanceof Collection<?> collection) {
+            long bytes = 48;
+            for (Object item : collection) {
+                bytes += 8 + valueBytes(item);
+            }
+            return bytes;
+        }
+        return value == null ? 0 : 24;
+    }
+}
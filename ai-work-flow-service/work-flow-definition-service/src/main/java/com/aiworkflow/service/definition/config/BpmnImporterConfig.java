@@ -0,0 +1,15 @@
+package com.aiworkflow.service.definition.config;
+
+import com.aiworkflow.engine.core.parser.BpmnImporter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BpmnImporterConfig {
+
+    @Bean
+    public BpmnImporter bpmnImporter() {
+        // 流式导入，不构建整棵 XML 树
+        return new BpmnImporter();
+    }
+}
@@ -0,0 +1,10 @@
+package com.aiworkflow.service.definition.config;
+
+import com.aiworkflow.service.definition.cache.DefinitionCacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DefinitionCacheProperties.class)
+public class DefinitionCacheConfig {
+}
@@ -0,0 +1,21 @@
+package com.aiworkflow.service.definition.config;
+
+import com.aiworkflow.engine.journal.JdbcEventJournal;
+import com.aiworkflow.engine.journal.mapper.InstanceJournalMapper;
+import com.aiworkflow.service.definition.journal.JournalProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(JournalProperties.class)
+public class JournalConfig {
+
+    /**
+     * 只读取引擎写入的日志，快照由引擎服务保存
+     */
+    @Bean
+    public JdbcEventJournal eventJournal(InstanceJournalMapper journalMapper) {
+        return new JdbcEventJournal(journalMapper);
+    }
+}
@@ -0,0 +1,10 @@
+package com.aiworkflow.service.definition.config;
+
+import com.aiworkflow.service.definition.persistence.TaskWriteBehindProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(TaskWriteBehindProperties.class)
+public class TaskWriteBehindConfig {
+}
@@ -1,21 +0,0 @@
-package com.aiworkflow.service.definition.config;
-
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-
-@Configuration
-public class XmlParserConfig {
-
-    @Bean
-    public XmlMapper xmlMapper() {
-        XmlMapper mapper = new XmlMapper();
-        // 忽略未知属性，提高兼容性
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        // 允许空对象序列化
-        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
-        return mapper;
-    }
-}
@@ -0,0 +1,88 @@
+package com.aiworkflow.service.definition.controller;
+
+import com.aiworkflow.common.web.result.Result;
+import com.aiworkflow.service.definition.analysis.DefinitionAnalysis;
+import com.aiworkflow.service.definition.cache.CompiledDefinition;
+import com.aiworkflow.service.definition.cache.FlowDefinitionCache;
+import com.aiworkflow.service.definition.entity.AiFlowDefinition;
+import com.aiworkflow.service.definition.service.FlowDefinitionService;
+import com.aiworkflow.service.definition.service.InstanceAnalysisService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/definitions")
+public class FlowDefinitionController {
+
+    private final FlowDefinitionService definitionService;
+
+    private final FlowDefinitionCache definitionCache;
+
+    private final InstanceAnalysisService analysisService;
+
+    public FlowDefinitionController(FlowDefinitionService definitionService, FlowDefinitionCache definitionCache,
+                                    InstanceAnalysisService analysisService) {
+        this.definitionService = definitionService;
+        this.definitionCache = definitionCache;
+        this.analysisService = analysisService;
+    }
+
+    /**
+     * 导入 BPMN XML，请求体直接流式解析
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    public Result<Map<String, Object>> importBpmn(InputStream body,
+                                                  @RequestParam(required = false) String description) {
+        AiFlowDefinition definition = definitionService.importBpmn(body, description);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("id", definition.getId());
+        summary.put("flowKey", definition.getFlowKey());
+        summary.put("version", definition.getVersion());
+        summary.put("status", definition.getStatus());
+        return Result.success(summary);
+    }
+
+    @GetMapping("/{flowKey}/versions/{version}")
+    public Result<Map<String, Object>> getVersion(@PathVariable String flowKey, @PathVariable int version) {
+        return Result.success(summary(definitionService.getCompiled(flowKey, version)));
+    }
+
+    @GetMapping("/{flowKey}/latest")
+    public Result<Map<String, Object>> getLatest(@PathVariable String flowKey) {
+        return Result.success(summary(definitionService.getLatestActive(flowKey)));
+    }
+
+    @PutMapping("/{id}/status")
+    public Result<Void> updateStatus(@PathVariable Long id, @RequestParam String status) {
+        definitionService.updateStatus(id, status);
+        return Result.success();
+    }
+
+    /**
+     * 汇总最近 sample 个已完成实例的时间线，节点按关键路径累计贡献降序，用于判断优先优化或并行化哪个节点
+     */
+    @GetMapping("/{id}/analysis")
+    public Result<DefinitionAnalysis> analyze(@PathVariable Long id, @RequestParam(required = false) Integer sample) {
+        return Result.success(analysisService.analyzeDefinition(id, sample));
+    }
+
+    @GetMapping("/cache/stats")
+    public Result<Map<String, Object>> cacheStats() {
+        return Result.success(definitionCache.getStats());
+    }
+
+    private static Map<String, Object> summary(CompiledDefinition definition) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("id", definition.definitionId());
+        summary.put("flowKey", definition.flowKey());
+        summary.put("version", definition.version());
+        summary.put("status", definition.status());
+        summary.put("nodeCount", definition.graph().nodeCount());
+        summary.put("edgeCount", definition.graph().edgeCount());
+        return summary;
+    }
+}
@@ -0,0 +1,142 @@
+package com.aiworkflow.service.definition.controller;
+
+import com.aiworkflow.common.orm.page.CountMode;
+import com.aiworkflow.common.orm.page.CursorPage;
+import com.aiworkflow.common.orm.page.CursorRequest;
+import com.aiworkflow.common.web.result.Result;
+import com.aiworkflow.engine.core.journal.InstanceState;
+import com.aiworkflow.engine.core.journal.JournalEvent;
+import com.aiworkflow.engine.journal.JdbcEventJournal;
+import com.aiworkflow.service.definition.analysis.InstanceAnalysis;
+import com.aiworkflow.service.definition.archive.InstanceArchiver;
+import com.aiworkflow.service.definition.entity.AiFlowExecution;
+import com.aiworkflow.service.definition.entity.AiFlowInstance;
+import com.aiworkflow.service.definition.entity.AiTaskInstance;
+import com.aiworkflow.service.definition.journal.InstanceProjector;
+import com.aiworkflow.service.definition.service.FlowInstanceService;
+import com.aiworkflow.service.definition.service.InstanceAnalysisService;
+import com.aiworkflow.service.definition.variable.VariableSearchRequest;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/instances")
+public class FlowInstanceController {
+
+    private final FlowInstanceService instanceService;
+
+    private final InstanceArchiver instanceArchiver;
+
+    private final JdbcEventJournal eventJournal;
+
+    private final InstanceProjector instanceProjector;
+
+    private final InstanceAnalysisService analysisService;
+
+    public FlowInstanceController(FlowInstanceService instanceService, InstanceArchiver instanceArchiver,
+                                  JdbcEventJournal eventJournal, InstanceProjector instanceProjector,
+                                  InstanceAnalysisService analysisService) {
+        this.instanceService = instanceService;
+        this.instanceArchiver = instanceArchiver;
+        this.eventJournal = eventJournal;
+        this.instanceProjector = instanceProjector;
+        this.analysisService = analysisService;
+    }
+
+    /**
+     * 实例列表，游标分页；count 为 NONE/EXACT/CAPPED
+     */
+    @GetMapping
+    public Result<CursorPage<AiFlowInstance>> listInstances(@RequestParam(required = false) String status,
+                                                            @RequestParam(required = false) Long flowDefinitionId,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer size,
+                                                            @RequestParam(required = false) CountMode count) {
+        return Result.success(instanceService.listInstances(status, flowDefinitionId,
+                CursorRequest.of(cursor, size, count)));
+    }
+
+    /**
+     * 按可检索变量查询实例，条件之间为 AND
+     */
+    @PostMapping("/search")
+    public Result<CursorPage<AiFlowInstance>> search(@RequestBody VariableSearchRequest request) {
+        return Result.success(instanceService.searchByVariables(request));
+    }
+
+    @GetMapping("/{id}")
+    public Result<AiFlowInstance> getInstance(@PathVariable Long id) {
+        return Result.success(instanceService.getInstance(id));
+    }
+
+    @GetMapping("/{id}/executions")
+    public Result<List<AiFlowExecution>> getExecutions(@PathVariable Long id) {
+        return Result.success(instanceService.getExecutions(id));
+    }
+
+    @GetMapping("/{id}/tasks")
+    public Result<List<AiTaskInstance>> getTasks(@PathVariable Long id) {
+        return Result.success(instanceService.getTasks(id));
+    }
+
+    /**
+     * 实例时间线分析：关键路径、各任务的调度间隙/排队/执行时间、并行分支重叠程度
+     */
+    @GetMapping("/{id}/analysis")
+    public Result<InstanceAnalysis> analyze(@PathVariable Long id) {
+        return Result.success(analysisService.analyzeInstance(id));
+    }
+
+    /**
+     * 按实例当前变量重建可检索变量索引，返回写入的变量数
+     */
+    @PutMapping("/{id}/variables/index")
+    public Result<Integer> reindexVariables(@PathVariable Long id) {
+        return Result.success(instanceService.reindexVariables(id));
+    }
+
+    /**
+     * 手动触发一轮归档
+     */
+    @PostMapping("/archive")
+    public Result<Integer> archive() {
+        return Result.success(instanceArchiver.archive());
+    }
+
+    @GetMapping("/archive/stats")
+    public Result<Map<String, Object>> archiveStats() {
+        return Result.success(instanceArchiver.getStats());
+    }
+
+    /**
+     * 实例事件日志，按 seq 升序返回 afterSeq 之后的事件
+     */
+    @GetMapping("/{id}/journal")
+    public Result<List<JournalEvent>> getJournal(@PathVariable Long id,
+                                                 @RequestParam(defaultValue = "0") long afterSeq) {
+        return Result.success(eventJournal.read(id, afterSeq));
+    }
+
+    /**
+     * 由最近快照加其后事件重放出的实例状态，没有日志时返回 null
+     */
+    @GetMapping("/{id}/state")
+    public Result<InstanceState> getState(@PathVariable Long id) {
+        return Result.success(eventJournal.recover(id));
+    }
+
+    /**
+     * 手动触发一轮读模型投影
+     */
+    @PostMapping("/journal/project")
+    public Result<Integer> project() {
+        return Result.success(instanceProjector.project());
+    }
+
+    @GetMapping("/journal/stats")
+    public Result<Map<String, Object>> journalStats() {
+        return Result.success(instanceProjector.getStats());
+    }
+}
@@ -0,0 +1,37 @@
+package com.aiworkflow.service.definition.controller;
+
+import com.aiworkflow.common.orm.page.CountMode;
+import com.aiworkflow.common.orm.page.CursorPage;
+import com.aiworkflow.common.orm.page.CursorRequest;
+import com.aiworkflow.common.web.result.Result;
+import com.aiworkflow.service.definition.entity.AiTaskInstance;
+import com.aiworkflow.service.definition.service.FlowInstanceService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/tasks")
+public class TaskInstanceController {
+
+    private final FlowInstanceService instanceService;
+
+    public TaskInstanceController(FlowInstanceService instanceService) {
+        this.instanceService = instanceService;
+    }
+
+    /**
+     * 任务列表，游标分页；count 为 NONE/EXACT/CAPPED
+     */
+    @GetMapping
+    public Result<CursorPage<AiTaskInstance>> listTasks(@RequestParam(required = false) Long flowInstanceId,
+                                                        @RequestParam(required = false) String status,
+                                                        @RequestParam(required = false) String taskType,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer size,
+                                                        @RequestParam(required = false) CountMode count) {
+        return Result.success(instanceService.listTasks(flowInstanceId, status, taskType,
+                CursorRequest.of(cursor, size, count)));
+    }
+}
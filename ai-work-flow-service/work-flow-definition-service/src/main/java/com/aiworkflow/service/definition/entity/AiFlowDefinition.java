@@ -1,12 +1,12 @@
 package com.aiworkflow.service.definition.entity;
 
+import com.aiworkflow.common.orm.handler.BinaryJsonTypeHandler;
 import com.baomidou.mybatisplus.annotation.*;
-import com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler;
 import lombok.Data;
 
 import java.time.LocalDateTime;
 
-@TableName(value = "ai_flow_definition")
+@TableName(value = "ai_flow_definition", autoResultMap = true)
 @Data
 public class AiFlowDefinition {
 
@@ -19,7 +19,7 @@ public class AiFlowDefinition {
 
     private Integer version; // 版本号
 
-    @TableField(typeHandler = JacksonTypeHandler.class)
+    @TableField(typeHandler = BinaryJsonTypeHandler.class)
     private Object flowModel; // BPMN流程模型JSON
 
     private String status; // 状态:DRAFT,ACTIVE,INACTIVE
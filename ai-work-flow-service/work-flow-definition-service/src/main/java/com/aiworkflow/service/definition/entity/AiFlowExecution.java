@@ -1,12 +1,12 @@
 package com.aiworkflow.service.definition.entity;
 
+import com.aiworkflow.common.orm.handler.BinaryJsonTypeHandler;
 import com.baomidou.mybatisplus.annotation.*;
-import com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler;
 import lombok.Data;
 
 import java.time.LocalDateTime;
 
-@TableName(value = "ai_flow_execution")
+@TableName(value = "ai_flow_execution", autoResultMap = true)
 @Data
 public class AiFlowExecution {
 
@@ -17,13 +17,15 @@ public class AiFlowExecution {
 
     private Long parentExecutionId; // 父执行ID(支持简单分支)
 
+    private Long engineExecutionId; // 引擎内执行ID(实例内从1递增)
+
     private String activityId; // 当前活动ID
 
     private Boolean isActive; // 是否活跃
 
     private Boolean isConcurrent; // 是否并发分支
 
-    @TableField(typeHandler = JacksonTypeHandler.class)
+    @TableField(typeHandler = BinaryJsonTypeHandler.class)
     private Object executionData; // 执行数据
 
     @TableField(fill = FieldFill.INSERT)
@@ -1,12 +1,13 @@
 package com.aiworkflow.service.definition.entity;
 
+import com.aiworkflow.common.orm.handler.BinaryJsonTypeHandler;
+import com.aiworkflow.common.orm.handler.RawJsonTypeHandler;
 import com.baomidou.mybatisplus.annotation.*;
-import com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler;
 import lombok.Data;
 
 import java.time.LocalDateTime;
 
-@TableName(value = "ai_flow_instance")
+@TableName(value = "ai_flow_instance", autoResultMap = true)
 @Data
 public class AiFlowInstance {
 
@@ -27,20 +28,22 @@ public class AiFlowInstance {
 
     private LocalDateTime endTime; // 结束时间
 
-    @TableField(typeHandler = JacksonTypeHandler.class)
+    @TableField(typeHandler = BinaryJsonTypeHandler.class)
     private Object inputData; // 输入数据
 
-    @TableField(typeHandler = JacksonTypeHandler.class)
+    @TableField(typeHandler = BinaryJsonTypeHandler.class)
     private Object outputData; // 输出数据
 
-    @TableField(typeHandler = JacksonTypeHandler.class)
+    @TableField(typeHandler = RawJsonTypeHandler.class)
     private Object contextData; // 上下文数据(变量、执行路径、元数据等)
 
-    @TableField(typeHandler = JacksonTypeHandler.class)
+    @TableField(typeHandler = RawJsonTypeHandler.class)
     private Object rollbackInfo; // 回滚信息
 
     private String errorMessage; // 错误信息
 
+    private Long projectedSeq; // 已投影的最后一个事件序号
+
     @TableField(fill = FieldFill.INSERT)
     private LocalDateTime createAt; // 创建时间
 
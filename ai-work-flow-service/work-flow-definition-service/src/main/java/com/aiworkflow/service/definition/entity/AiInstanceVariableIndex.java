@@ -0,0 +1,28 @@
+package com.aiworkflow.service.definition.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@TableName("ai_instance_variable_index")
+@Data
+public class AiInstanceVariableIndex {
+
+    private Long flowInstanceId; // 流程实例ID
+
+    private String name; // 变量名
+
+    private String valueType; // 值类型:STRING,LONG,DECIMAL,DATE
+
+    private String stringValue; // 字符串值
+
+    private Long longValue; // 整数值
+
+    private BigDecimal decimalValue; // 小数值
+
+    private LocalDateTime dateValue; // 日期时间值
+
+    private LocalDateTime updateAt; // 更新时间
+}
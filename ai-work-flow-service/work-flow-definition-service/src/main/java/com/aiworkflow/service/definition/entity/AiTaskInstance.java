@@ -1,12 +1,13 @@
 package com.aiworkflow.service.definition.entity;
 
+import com.aiworkflow.common.orm.handler.BinaryJsonTypeHandler;
+import com.aiworkflow.common.orm.handler.RawJsonTypeHandler;
 import com.baomidou.mybatisplus.annotation.*;
-import com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler;
 import lombok.Data;
 
 import java.time.LocalDateTime;
 
-@TableName(value = "ai_task_instance")
+@TableName(value = "ai_task_instance", autoResultMap = true)
 @Data
 public class AiTaskInstance {
 
@@ -29,19 +30,19 @@ public class AiTaskInstance {
 
     private LocalDateTime endTime; // 结束时间
 
-    @TableField(typeHandler = JacksonTypeHandler.class)
+    @TableField(typeHandler = BinaryJsonTypeHandler.class)
     private Object inputData; // 输入数据
 
-    @TableField(typeHandler = JacksonTypeHandler.class)
+    @TableField(typeHandler = BinaryJsonTypeHandler.class)
     private Object outputData; // 输出数据
 
-    @TableField(typeHandler = JacksonTypeHandler.class)
+    @TableField(typeHandler = RawJsonTypeHandler.class)
     private Object configData; // 配置数据(AI配置、工具配置等)
 
-    @TableField(typeHandler = JacksonTypeHandler.class)
+    @TableField(typeHandler = RawJsonTypeHandler.class)
     private Object rollbackData; // 回滚数据(策略、状态、记录)
 
-    @TableField(typeHandler = JacksonTypeHandler.class)
+    @TableField(typeHandler = RawJsonTypeHandler.class)
     private Object errorInfo; // 错误信息
 
     @TableField(fill = FieldFill.INSERT)
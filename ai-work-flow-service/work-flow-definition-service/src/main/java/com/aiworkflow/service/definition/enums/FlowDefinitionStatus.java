@@ -0,0 +1,19 @@
+package com.aiworkflow.service.definition.enums;
+
+/**
+ * 流程定义状态，与 ai_flow_definition.status 一致
+ */
+public enum FlowDefinitionStatus {
+    DRAFT,
+    ACTIVE,
+    INACTIVE;
+
+    public static boolean isValid(String status) {
+        for (FlowDefinitionStatus value : values()) {
+            if (value.name().equals(status)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
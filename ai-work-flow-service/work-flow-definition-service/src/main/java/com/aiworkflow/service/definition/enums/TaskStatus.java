@@ -0,0 +1,29 @@
+package com.aiworkflow.service.definition.enums;
+
+/**
+ * 任务状态，与 ai_task_instance.status 一致
+ * <p>
+ * rank 表示状态只能前进：CREATED(1) -> READY(2) -> RUNNING(3) -> 终态(4)，终态之间不能互相转换
+ */
+public enum TaskStatus {
+    CREATED(1),
+    READY(2),
+    RUNNING(3),
+    COMPLETED(4),
+    FAILED(4),
+    CANCELLED(4);
+
+    private final int rank;
+
+    TaskStatus(int rank) {
+        this.rank = rank;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public boolean isTerminal() {
+        return rank == 4;
+    }
+}
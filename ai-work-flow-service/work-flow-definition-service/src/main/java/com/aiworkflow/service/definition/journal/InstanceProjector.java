@@ -0,0 +1,460 @@
+package com.aiworkflow.service.definition.journal;
+
+import com.aiworkflow.engine.core.context.ContextDelta;
+import com.aiworkflow.engine.core.journal.JournalEventType;
+import com.aiworkflow.engine.journal.entity.AiInstanceEvent;
+import com.aiworkflow.engine.journal.mapper.InstanceJournalMapper;
+import com.aiworkflow.service.definition.entity.AiFlowExecution;
+import com.aiworkflow.service.definition.entity.AiFlowInstance;
+import com.aiworkflow.service.definition.entity.AiTaskInstance;
+import com.aiworkflow.service.definition.enums.TaskStatus;
+import com.aiworkflow.service.definition.mapper.AiFlowExecutionMapper;
+import com.aiworkflow.service.definition.mapper.AiFlowInstanceMapper;
+import com.aiworkflow.service.definition.mapper.AiTaskInstanceMapper;
+import com.aiworkflow.service.definition.persistence.ContextPatchWriter;
+import com.aiworkflow.service.definition.persistence.TaskStateWriter;
+import com.aiworkflow.service.definition.persistence.TaskTransition;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 把事件日志异步投影到读模型(ai_flow_instance、ai_flow_execution、ai_task_instance)
+ * <p>
+ * 按事件的全局 ID 顺序读取，每批一个事务：先 SELECT ... FOR UPDATE 锁住 ai_journal_checkpoint 中的进度行，
+ * 多个节点上的投影器因此串行；再写读模型、推进进度，失败时整批回滚、下次重放。
+ * <ul>
+ *     <li>幂等：每个实例在 ai_flow_instance.projected_seq 记录已投影到的序号，序号不大于它的事件直接跳过</li>
+ *     <li>不丢事件：自增 ID 可能乱序提交，全局进度只推进到写入超过 settleWindow 的事件，更新的事件下一轮重新扫描；
+ *     实例内序号出现空洞时，该实例之后的事件留到下一轮，进度也不越过它们</li>
+ *     <li>执行：引擎内的执行ID按实例映射为 ai_flow_execution 行(engine_execution_id)，任务行的 execution_id 指向该行</li>
+ * </ul>
+ * 同一批内一个实例的多次节点移动只写最后一次，多次变量变化合并为一个增量；同批内开始并结束的任务直接以终态插入，
+ * 新任务用一条多行 INSERT 写入，更早批次中开始的任务的状态变更经 {@link TaskStateWriter} 在同一事务内批量写出。没有对应 ai_flow_instance 行的实例(纯内存运行)不投影。
+ */
+@Slf4j
+@Component
+public class InstanceProjector {
+
+    static final String CHECKPOINT = "instance-projector";
+
+    private final InstanceJournalMapper journalMapper;
+
+    private final AiFlowInstanceMapper instanceMapper;
+
+    private final AiFlowExecutionMapper executionMapper;
+
+    private final AiTaskInstanceMapper taskMapper;
+
+    private final TaskStateWriter taskStateWriter;
+
+    private final ContextPatchWriter contextPatchWriter;
+
+    private final TransactionOperations transactions;
+
+    private final JournalProperties properties;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder projectedEvents = new LongAdder();
+
+    private final LongAdder skippedEvents = new LongAdder();
+
+    private final LongAdder duplicateEvents = new LongAdder();
+
+    private final LongAdder heldEvents = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private volatile long lastEventId;
+
+    private volatile long checkpoint;
+
+    private volatile LocalDateTime lastRunTime;
+
+    public InstanceProjector(InstanceJournalMapper journalMapper, AiFlowInstanceMapper instanceMapper,
+                             AiFlowExecutionMapper executionMapper, AiTaskInstanceMapper taskMapper,
+                             TaskStateWriter taskStateWriter, ContextPatchWriter contextPatchWriter, TransactionOperations transactions,
+                             JournalProperties properties) {
+        this.journalMapper = journalMapper;
+        this.instanceMapper = instanceMapper;
+        this.executionMapper = executionMapper;
+        this.taskMapper = taskMapper;
+        this.taskStateWriter = taskStateWriter;
+        this.contextPatchWriter = contextPatchWriter;
+        this.transactions = transactions;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "instance-projector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.isProjectorEnabled()) {
+            long interval = properties.getPollInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::projectQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 投影一轮，返回读取的事件数；本进程已有一轮在运行时直接返回 0，其他节点上的投影器在进度行锁上等待
+     */
+    public int project() {
+        if (!runLock.tryLock()) {
+            return 0;
+        }
+        try {
+            journalMapper.insertCheckpointIfAbsent(CHECKPOINT);
+            // 本轮已读到的位置和最早被留下的事件：同一轮内不重复读取，进度也不越过被留下的事件
+            long readAfter = 0;
+            long heldFrom = Long.MAX_VALUE;
+            int total = 0;
+            for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+                BatchResult result = projectBatch(readAfter, heldFrom);
+                if (result.events() == 0) {
+                    break;
+                }
+                readAfter = result.lastId();
+                heldFrom = result.heldFrom();
+                lastEventId = result.lastId();
+                total += result.events();
+                batches.increment();
+                if (result.events() < properties.getBatchSize()) {
+                    break;
+                }
+            }
+            lastRunTime = LocalDateTime.now();
+            return total;
+        } catch (RuntimeException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", properties.isProjectorEnabled());
+        stats.put("projectedEvents", projectedEvents.sum());
+        stats.put("skippedEvents", skippedEvents.sum());
+        stats.put("duplicateEvents", duplicateEvents.sum());
+        stats.put("heldEvents", heldEvents.sum());
+        stats.put("batches", batches.sum());
+        stats.put("failures", failures.sum());
+        stats.put("lastEventId", lastEventId);
+        stats.put("checkpoint", checkpoint);
+        stats.put("lastRunTime", lastRunTime);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private BatchResult projectBatch(long readAfter, long heldFrom) {
+        return transactions.execute(status -> {
+            Long locked = journalMapper.selectCheckpointForUpdate(CHECKPOINT);
+            long current = locked != null ? locked : 0;
+            List<AiInstanceEvent> events = journalMapper.selectEventsAfterId(Math.max(current, readAfter),
+                    properties.getBatchSize());
+            if (events.isEmpty()) {
+                checkpoint = current;
+                return new BatchResult(0, readAfter, heldFrom);
+            }
+            long lastId = events.get(events.size() - 1).getId();
+            long held = Math.min(heldFrom, applyBatch(events));
+            long upTo = Math.min(lastId, held - 1);
+            if (upTo > current) {
+                Long settled = journalMapper.selectSettledEventId(current, upTo,
+                        properties.getSettleWindow().toSeconds());
+                if (settled != null && settled > current) {
+                    journalMapper.updateCheckpoint(CHECKPOINT, settled);
+                    current = settled;
+                }
+            }
+            checkpoint = current;
+            return new BatchResult(events.size(), lastId, held);
+        });
+    }
+
+    /**
+     * 投影一批事件，返回因实例序号空洞被留下的最小事件 ID，没有时返回 Long.MAX_VALUE
+     */
+    long applyBatch(List<AiInstanceEvent> events) {
+        Map<Long, Projection> projections = new HashMap<>();
+        Map<Long, String> activities = new LinkedHashMap<>();
+        Map<Long, String> executionActivities = new LinkedHashMap<>();
+        Map<Long, ContextDelta> deltas = new LinkedHashMap<>();
+        Map<Long, AiInstanceEvent> endings = new LinkedHashMap<>();
+        Map<TaskKey, AiTaskInstance> openTasks = new HashMap<>();
+        List<AiTaskInstance> newTasks = new ArrayList<>();
+        List<TaskTransition> transitions = new ArrayList<>();
+        long heldFrom = Long.MAX_VALUE;
+        int skipped = 0;
+        int duplicates = 0;
+        int held = 0;
+
+        for (AiInstanceEvent event : events) {
+            Long instanceId = event.getInstanceId();
+            if (!projections.containsKey(instanceId)) {
+                projections.put(instanceId, loadProjection(instanceId));
+            }
+            Projection projection = projections.get(instanceId);
+            if (projection == null) {
+                skipped++;
+                continue;
+            }
+            long seq = event.getSeq();
+            if (seq <= projection.seq) {
+                duplicates++;
+                continue;
+            }
+            if (projection.held || seq != projection.seq + 1) {
+                // 实例更早的事件尚不可见，之后的事件留到下一轮按序投影
+                if (!projection.held) {
+                    log.warn("实例 {} 事件序号不连续(已投影 {}，读到 {})，等待下一轮", instanceId, projection.seq, seq);
+                }
+                projection.held = true;
+                heldFrom = Math.min(heldFrom, event.getId());
+                held++;
+                continue;
+            }
+            projection.seq = seq;
+
+            Map<String, Object> payload = payload(event);
+            switch (JournalEventType.valueOf(event.getEventType())) {
+                case INSTANCE_STARTED -> {
+                    projection.executionId(event.getExecutionId());
+                    // 启动变量与之后的变量变化一样写入上下文并维护检索索引
+                    deltas.merge(instanceId, toDelta(Map.of("set", payload.getOrDefault("variables", Map.of()))),
+                            ContextDelta::then);
+                }
+                case TOKEN_MOVED -> {
+                    activities.put(instanceId, event.getNodeKey());
+                    executionActivities.put(projection.executionId(event.getExecutionId()), event.getNodeKey());
+                }
+                case TASK_STARTED -> {
+                    AiTaskInstance task = newTask(event, projection.executionId(event.getExecutionId()), payload);
+                    openTasks.put(new TaskKey(task.getExecutionId(), task.getTaskKey()), task);
+                    newTasks.add(task);
+                }
+                case TASK_COMPLETED -> finishTask(event, projection, openTasks, transitions, TaskStatus.COMPLETED,
+                        payload.get("output"), null);
+                case TASK_FAILED -> finishTask(event, projection, openTasks, transitions, TaskStatus.FAILED, null,
+                        payload.get("error"));
+                case VARIABLES_SET -> deltas.merge(instanceId, toDelta(payload), ContextDelta::then);
+                case EXECUTION_FORKED -> fork(event, projection, payload, executionActivities);
+                case EXECUTION_JOINED -> {
+                    Long parentId = projection.executionId(event.getExecutionId());
+                    executionMapper.deactivateChildren(parentId);
+                    executionMapper.updateActive(parentId, true, event.getNodeKey());
+                    // 汇聚前的节点移动已过时
+                    executionActivities.remove(parentId);
+                }
+                case INSTANCE_ENDED -> endings.put(instanceId, event);
+            }
+        }
+
+        if (!newTasks.isEmpty()) {
+            taskMapper.insertBatch(newTasks);
+        }
+        if (!transitions.isEmpty()) {
+            taskStateWriter.submitAll(transitions);
+        }
+        activities.forEach(instanceMapper::updateCurrentActivity);
+        executionActivities.forEach(executionMapper::updateActivity);
+        deltas.forEach((instanceId, delta) ->
+                contextPatchWriter.write(instanceId, projections.get(instanceId).flowDefinitionId, delta));
+        endings.forEach((instanceId, event) -> {
+            Map<String, Object> payload = payload(event);
+            instanceMapper.updateEnded(instanceId, (String) payload.get("status"), event.getEventTime(),
+                    (String) payload.get("error"));
+            executionMapper.deactivateByFlowInstanceId(instanceId);
+        });
+        projections.forEach((instanceId, projection) -> {
+            if (projection != null && projection.seq > projection.loadedSeq) {
+                instanceMapper.updateProjectedSeq(instanceId, projection.seq);
+            }
+        });
+
+        projectedEvents.add(events.size() - skipped - duplicates - held);
+        skippedEvents.add(skipped);
+        duplicateEvents.add(duplicates);
+        heldEvents.add(held);
+        return heldFrom;
+    }
+
+    private Projection loadProjection(Long instanceId) {
+        AiFlowInstance instance = instanceMapper.selectProjectionState(instanceId);
+        return instance != null ? new Projection(instance) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void fork(AiInstanceEvent event, Projection projection, Map<String, Object> payload,
+                      Map<Long, String> executionActivities) {
+        Long parentId = projection.executionId(event.getExecutionId());
+        executionMapper.updateActive(parentId, false, event.getNodeKey());
+        executionActivities.remove(parentId);
+        Collection<Object> children = payload.get("children") instanceof Collection<?> ids
+                ? (Collection<Object>) ids : List.of();
+        for (Object child : children) {
+            long engineId = ((Number) child).longValue();
+            // 旧版本记录的日志里子执行的事件可能排在分叉之前，已建成根执行的行改挂到父执行下
+            Long existing = projection.findExecution(engineId);
+            if (existing != null) {
+                executionMapper.updateParent(existing, parentId, true);
+            } else {
+                projection.executions.put(engineId, projection.insertExecution(engineId, parentId, true));
+            }
+        }
+    }
+
+    private void finishTask(AiInstanceEvent event, Projection projection, Map<TaskKey, AiTaskInstance> openTasks,
+                            List<TaskTransition> transitions, TaskStatus status, Object output, Object error) {
+        Long executionId = projection.executionId(event.getExecutionId());
+        Object errorInfo = error != null ? Map.of("message", error) : null;
+        AiTaskInstance open = openTasks.remove(new TaskKey(executionId, event.getNodeKey()));
+        if (open != null) {
+            // 同一批内开始的任务还未写入，直接以终态插入
+            open.setStatus(status.name());
+            open.setEndTime(event.getEventTime());
+            open.setOutputData(output);
+            open.setErrorInfo(errorInfo);
+            return;
+        }
+        Long taskId = taskMapper.selectRunningTaskId(event.getInstanceId(), executionId, event.getNodeKey());
+        if (taskId == null) {
+            // 任务行被人工清理
+            return;
+        }
+        transitions.add(new TaskTransition(taskId, status, null, event.getEventTime(), output, errorInfo));
+    }
+
+    private static AiTaskInstance newTask(AiInstanceEvent event, Long executionId, Map<String, Object> payload) {
+        AiTaskInstance task = new AiTaskInstance();
+        task.setFlowInstanceId(event.getInstanceId());
+        task.setExecutionId(executionId);
+        task.setTaskKey(event.getNodeKey());
+        Object name = payload.get("name");
+        task.setTaskName(name != null ? name.toString() : event.getNodeKey());
+        Object taskType = payload.get("taskType");
+        task.setTaskType(taskType != null ? taskType.toString() : null);
+        task.setStatus(TaskStatus.RUNNING.name());
+        task.setStartTime(event.getEventTime());
+        task.setCreateAt(event.getEventTime());
+        return task;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ContextDelta toDelta(Map<String, Object> payload) {
+        Map<String, Object> set = payload.get("set") instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of();
+        Collection<String> removed = payload.get("removed") instanceof Collection<?> keys
+                ? (Collection<String>) keys : List.of();
+        return ContextDelta.of(set, removed);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> payload(AiInstanceEvent event) {
+        return event.getPayload() instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of();
+    }
+
+    private void projectQuietly() {
+        try {
+            project();
+        } catch (Exception e) {
+            log.error("实例事件投影失败，下次重试", e);
+        }
+    }
+
+    /**
+     * 一批的结果：读取的事件数、最后一个事件 ID、本轮被留下的最小事件 ID
+     */
+    private record BatchResult(int events, long lastId, long heldFrom) {
+    }
+
+    private record TaskKey(Long executionId, String taskKey) {
+    }
+
+    /**
+     * 一批内单个实例的投影状态
+     */
+    private final class Projection {
+
+        private final Long instanceId;
+
+        private final Long flowDefinitionId;
+
+        private final long loadedSeq;
+
+        // 引擎内执行ID -> ai_flow_execution.id
+        private final Map<Long, Long> executions = new HashMap<>();
+
+        private long seq;
+
+        private boolean held;
+
+        Projection(AiFlowInstance instance) {
+            this.instanceId = instance.getId();
+            this.flowDefinitionId = instance.getFlowDefinitionId();
+            this.loadedSeq = instance.getProjectedSeq() != null ? instance.getProjectedSeq() : 0;
+            this.seq = loadedSeq;
+        }
+
+        /**
+         * 执行行 ID；之前的批次已创建时从库中查，都没有时(如根执行)新建一行
+         */
+        Long executionId(Long engineExecutionId) {
+            if (engineExecutionId == null) {
+                return null;
+            }
+            return executions.computeIfAbsent(engineExecutionId, engineId -> {
+                Long id = executionMapper.selectIdByEngineExecutionId(instanceId, engineId);
+                return id != null ? id : insertExecution(engineId, null, false);
+            });
+        }
+
+        /**
+         * 已投影的执行行 ID，没有时返回 null
+         */
+        Long findExecution(long engineExecutionId) {
+            Long id = executions.get(engineExecutionId);
+            if (id == null) {
+                id = executionMapper.selectIdByEngineExecutionId(instanceId, engineExecutionId);
+                if (id != null) {
+                    executions.put(engineExecutionId, id);
+                }
+            }
+            return id;
+        }
+
+        Long insertExecution(long engineExecutionId, Long parentId, boolean concurrent) {
+            AiFlowExecution execution = new AiFlowExecution();
+            execution.setFlowInstanceId(instanceId);
+            execution.setParentExecutionId(parentId);
+            execution.setEngineExecutionId(engineExecutionId);
+            execution.setIsActive(true);
+            execution.setIsConcurrent(concurrent);
+            executionMapper.insert(execution);
+            return execution.getId();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.aiworkflow.service.definition.journal;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 实例事件日志与读模型投影配置
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.journal")
+public class JournalProperties {
+
+    // 是否启用定时投影；上下文增量写和变量检索索引依赖投影。关闭时仍可通过接口手动触发
+    private boolean projectorEnabled = true;
+
+    // 投影轮询间隔
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    // 每批投影的事件数，每批一个事务
+    private int batchSize = 500;
+
+    // 单次运行最多投影的批数
+    private int maxBatchesPerRun = 100;
+
+    // 写入超过该时长的事件才推进投影进度，需大于引擎一次追加事务的最长耗时；更新的事件下一轮重新扫描
+    private Duration settleWindow = Duration.ofSeconds(10);
+}
@@ -3,8 +3,33 @@ package com.aiworkflow.service.definition.mapper;
 import com.aiworkflow.service.definition.entity.AiFlowDefinition;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface AiFlowDefinitionMapper extends BaseMapper<AiFlowDefinition> {
 
-}
\ No newline at end of file
+    /**
+     * 按唯一键 uk_flow_key_version 查询
+     */
+    AiFlowDefinition selectByFlowKeyAndVersion(@Param("flowKey") String flowKey, @Param("version") int version);
+
+    /**
+     * 查询流程最新的 ACTIVE 版本号，没有时返回 null
+     */
+    Integer selectLatestActiveVersion(@Param("flowKey") String flowKey);
+
+    /**
+     * 查询流程的最大版本号(任意状态)，没有时返回 null
+     */
+    Integer selectMaxVersion(@Param("flowKey") String flowKey);
+
+    /**
+     * 更新时间不早于 since 的定义，只读 flow_key、version、status、update_at
+     */
+    List<AiFlowDefinition> selectChangedSince(@Param("since") LocalDateTime since);
+
+    LocalDateTime selectLatestUpdateAt();
+}
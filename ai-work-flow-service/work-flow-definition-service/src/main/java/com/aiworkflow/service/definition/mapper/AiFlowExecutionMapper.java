@@ -3,8 +3,42 @@ package com.aiworkflow.service.definition.mapper;
 import com.aiworkflow.service.definition.entity.AiFlowExecution;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface AiFlowExecutionMapper extends BaseMapper<AiFlowExecution> {
 
+    List<AiFlowExecution> selectByFlowInstanceId(@Param("flowInstanceId") Long flowInstanceId);
+
+    /**
+     * 多个实例的执行树，不读执行数据
+     */
+    List<AiFlowExecution> selectTreeByFlowInstanceIds(@Param("flowInstanceIds") Collection<Long> flowInstanceIds);
+
+    /**
+     * 引擎内执行ID对应的执行行，没有时返回 null
+     */
+    Long selectIdByEngineExecutionId(@Param("flowInstanceId") Long flowInstanceId,
+                                     @Param("engineExecutionId") Long engineExecutionId);
+
+    int updateActivity(@Param("id") Long id, @Param("activityId") String activityId);
+
+    /**
+     * 分叉时父执行失活、汇聚时重新激活；activityId 为空时不修改当前活动
+     */
+    int updateActive(@Param("id") Long id, @Param("active") boolean active, @Param("activityId") String activityId);
+
+    /**
+     * 分叉投影时把已存在的子执行行挂到父执行下
+     */
+    int updateParent(@Param("id") Long id, @Param("parentExecutionId") Long parentExecutionId,
+                     @Param("concurrent") boolean concurrent);
+
+    int deactivateChildren(@Param("parentExecutionId") Long parentExecutionId);
+
+    int deactivateByFlowInstanceId(@Param("flowInstanceId") Long flowInstanceId);
+
 } 
\ No newline at end of file
@@ -1,10 +1,68 @@
 package com.aiworkflow.service.definition.mapper;
 
 import com.aiworkflow.service.definition.entity.AiFlowInstance;
+import com.aiworkflow.common.orm.page.Cursor;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface AiFlowInstanceMapper extends BaseMapper<AiFlowInstance> {
 
-}
\ No newline at end of file
+    /**
+     * 按 (create_at, id) 降序的键集分页，after 为空时取第一页
+     */
+    List<AiFlowInstance> selectPage(@Param("status") String status,
+                                    @Param("flowDefinitionId") Long flowDefinitionId,
+                                    @Param("after") Cursor after,
+                                    @Param("limit") int limit);
+
+    /**
+     * 流程定义最近完成的实例，只取时间列，按 (flow_definition_id, create_at) 索引倒序
+     */
+    List<AiFlowInstance> selectRecentCompleted(@Param("flowDefinitionId") Long flowDefinitionId,
+                                               @Param("limit") int limit);
+
+    /**
+     * 统计匹配的实例数，cap 不为空时最多数到 cap
+     */
+    long countPage(@Param("status") String status,
+                   @Param("flowDefinitionId") Long flowDefinitionId,
+                   @Param("cap") Integer cap);
+
+    /**
+     * context_data 中没有 variables 对象时补上空对象，已有时不修改该行
+     */
+    int ensureContextVariables(@Param("id") Long id);
+
+    /**
+     * 只写出变化的变量：JSON_SET 写入 values(路径 -> JSON 文本)，JSON_REMOVE 删除 removedPaths
+     */
+    int patchContextVariables(@Param("id") Long id,
+                              @Param("values") Map<String, String> values,
+                              @Param("removedPaths") List<String> removedPaths);
+
+    /**
+     * 投影所需的列：ID、流程定义和已投影序号，不读上下文和输入输出；实例不存在时返回 null
+     */
+    AiFlowInstance selectProjectionState(@Param("id") Long id);
+
+    /**
+     * 推进已投影序号，只增不减
+     */
+    int updateProjectedSeq(@Param("id") Long id, @Param("projectedSeq") long projectedSeq);
+
+    int updateCurrentActivity(@Param("id") Long id, @Param("activityId") String activityId);
+
+    /**
+     * 写入结束状态，已处于终态的实例不再修改
+     */
+    int updateEnded(@Param("id") Long id,
+                    @Param("status") String status,
+                    @Param("endTime") LocalDateTime endTime,
+                    @Param("errorMessage") String errorMessage);
+}
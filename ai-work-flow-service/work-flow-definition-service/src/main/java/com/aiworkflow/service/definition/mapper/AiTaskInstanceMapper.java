@@ -1,10 +1,65 @@
 package com.aiworkflow.service.definition.mapper;
 
+import com.aiworkflow.common.orm.page.Cursor;
 import com.aiworkflow.service.definition.entity.AiTaskInstance;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface AiTaskInstanceMapper extends BaseMapper<AiTaskInstance> {
 
-} 
\ No newline at end of file
+    List<AiTaskInstance> selectByFlowInstanceId(@Param("flowInstanceId") Long flowInstanceId);
+
+    /**
+     * 多个实例的任务时间线，只取标识、状态和时间列，不读输入输出
+     */
+    List<AiTaskInstance> selectTimelineByFlowInstanceIds(@Param("flowInstanceIds") Collection<Long> flowInstanceIds);
+
+    /**
+     * 按 (create_at, id) 降序的键集分页，after 为空时取第一页
+     */
+    List<AiTaskInstance> selectPage(@Param("flowInstanceId") Long flowInstanceId,
+                                    @Param("status") String status,
+                                    @Param("taskType") String taskType,
+                                    @Param("after") Cursor after,
+                                    @Param("limit") int limit);
+
+    /**
+     * 统计匹配的任务数，cap 不为空时最多数到 cap
+     */
+    long countPage(@Param("flowInstanceId") Long flowInstanceId,
+                   @Param("status") String status,
+                   @Param("taskType") String taskType,
+                   @Param("cap") Integer cap);
+
+    /**
+     * 状态前进更新：仅当数据库中的状态排在目标状态之前时生效，终态不再变化
+     *
+     * @param rank 目标状态的顺序号，见 TaskStatus
+     * @return 受影响行数，0 表示已是同级或更靠后的状态
+     */
+    int updateTransition(@Param("id") Long id,
+                         @Param("status") String status,
+                         @Param("rank") int rank,
+                         @Param("startTime") LocalDateTime startTime,
+                         @Param("endTime") LocalDateTime endTime,
+                         @Param("outputData") Object outputData,
+                         @Param("errorInfo") Object errorInfo);
+
+    /**
+     * 一条多行 INSERT 写入一批任务，create_at 取任务自身的值(投影时为事件时间)，不回填主键
+     */
+    int insertBatch(@Param("tasks") List<AiTaskInstance> tasks);
+
+    /**
+     * 执行上某个节点仍在运行的任务(最近创建的一个)，没有时返回 null
+     */
+    Long selectRunningTaskId(@Param("flowInstanceId") Long flowInstanceId,
+                             @Param("executionId") Long executionId,
+                             @Param("taskKey") String taskKey);
+}
@@ -0,0 +1,65 @@
+package com.aiworkflow.service.definition.mapper;
+
+import com.aiworkflow.engine.journal.entity.AiInstanceEvent;
+import com.aiworkflow.service.definition.entity.AiFlowExecution;
+import com.aiworkflow.service.definition.entity.AiFlowInstance;
+import com.aiworkflow.service.definition.entity.AiTaskInstance;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 实例归档：热表(ai_flow_instance / ai_flow_execution / ai_task_instance / ai_instance_event)与 *_archive 归档表之间的迁移和查询
+ */
+@Mapper
+public interface InstanceArchiveMapper {
+
+    /**
+     * 按 ID 顺序挑选结束时间早于 cutoff、事件已全部投影的已结束实例
+     */
+    List<Long> selectArchivableIds(@Param("cutoff") LocalDateTime cutoff,
+                                   @Param("afterId") long afterId,
+                                   @Param("limit") int limit);
+
+    int copyInstances(@Param("ids") List<Long> ids);
+
+    int copyExecutions(@Param("ids") List<Long> ids);
+
+    int copyTasks(@Param("ids") List<Long> ids);
+
+    int copyEvents(@Param("ids") List<Long> ids);
+
+    int deleteEvents(@Param("ids") List<Long> ids);
+
+    /**
+     * 快照只用于恢复运行中的实例，不归档
+     */
+    int deleteSnapshots(@Param("ids") List<Long> ids);
+
+    int deleteTasks(@Param("ids") List<Long> ids);
+
+    int deleteExecutions(@Param("ids") List<Long> ids);
+
+    /**
+     * 归档实例不再参与变量检索，索引行直接删除
+     */
+    int deleteVariableIndex(@Param("ids") List<Long> ids);
+
+    /**
+     * 只删除仍处于终态的实例
+     */
+    int deleteInstances(@Param("ids") List<Long> ids);
+
+    AiFlowInstance selectArchivedInstance(@Param("id") Long id);
+
+    List<AiFlowExecution> selectArchivedExecutions(@Param("flowInstanceId") Long flowInstanceId);
+
+    List<AiTaskInstance> selectArchivedTasks(@Param("flowInstanceId") Long flowInstanceId);
+
+    List<AiInstanceEvent> selectArchivedEventsByType(@Param("instanceId") Long instanceId,
+                                                     @Param("eventType") String eventType);
+
+    long countArchivedInstances();
+}
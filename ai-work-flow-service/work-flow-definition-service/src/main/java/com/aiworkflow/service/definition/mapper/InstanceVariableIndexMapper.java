@@ -0,0 +1,41 @@
+package com.aiworkflow.service.definition.mapper;
+
+import com.aiworkflow.common.orm.page.Cursor;
+import com.aiworkflow.service.definition.entity.AiFlowInstance;
+import com.aiworkflow.service.definition.entity.AiInstanceVariableIndex;
+import com.aiworkflow.service.definition.variable.VariableCondition;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 可检索变量窄表(ai_instance_variable_index)的维护和按变量条件检索实例
+ */
+@Mapper
+public interface InstanceVariableIndexMapper {
+
+    /**
+     * 批量写入，(flow_instance_id, name) 已存在时覆盖
+     */
+    int upsert(@Param("rows") List<AiInstanceVariableIndex> rows);
+
+    int deleteByNames(@Param("flowInstanceId") Long flowInstanceId, @Param("names") Collection<String> names);
+
+    int deleteByInstanceIds(@Param("ids") List<Long> ids);
+
+    List<AiInstanceVariableIndex> selectByInstanceId(@Param("flowInstanceId") Long flowInstanceId);
+
+    /**
+     * 按变量条件检索实例，条件之间为 AND；按实例 ID 降序分页
+     */
+    List<AiFlowInstance> searchInstances(@Param("flowKey") String flowKey,
+                                         @Param("conditions") List<VariableCondition> conditions,
+                                         @Param("after") Cursor after,
+                                         @Param("limit") int limit);
+
+    long countInstances(@Param("flowKey") String flowKey,
+                        @Param("conditions") List<VariableCondition> conditions,
+                        @Param("cap") Integer cap);
+}
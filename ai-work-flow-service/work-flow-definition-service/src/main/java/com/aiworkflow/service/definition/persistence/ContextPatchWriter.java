@@ -0,0 +1,122 @@
+package com.aiworkflow.service.definition.persistence;
+
+import com.aiworkflow.engine.core.context.ContextDelta;
+import com.aiworkflow.service.definition.mapper.AiFlowInstanceMapper;
+import com.aiworkflow.service.definition.variable.VariableIndexer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ai_flow_instance.context_data 的增量写
+ * <p>
+ * 只把 {@link ContextDelta} 中变化的变量写成 JSON_SET / JSON_REMOVE，不再整体重写上下文文档；
+ * 大的 LLM 输出只在它自己变化时写一次。同一事务内同步更新可检索变量索引。
+ */
+@Slf4j
+@Component
+public class ContextPatchWriter {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final AiFlowInstanceMapper instanceMapper;
+
+    private final VariableIndexer variableIndexer;
+
+    private final TransactionOperations transactions;
+
+    private final LongAdder patches = new LongAdder();
+
+    private final LongAdder keysWritten = new LongAdder();
+
+    private final LongAdder keysRemoved = new LongAdder();
+
+    private final LongAdder bytesWritten = new LongAdder();
+
+    public ContextPatchWriter(AiFlowInstanceMapper instanceMapper, VariableIndexer variableIndexer,
+                              TransactionOperations transactions) {
+        this.instanceMapper = instanceMapper;
+        this.variableIndexer = variableIndexer;
+        this.transactions = transactions;
+    }
+
+    /**
+     * 写出一次变量变化
+     *
+     * @param flowDefinitionId 实例所属定义，用于确定需要维护索引的变量
+     * @return 更新的实例行数，变化为空时返回 0
+     */
+    public int write(Long flowInstanceId, Long flowDefinitionId, ContextDelta delta) {
+        if (delta == null || delta.isEmpty()) {
+            return 0;
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        long bytes = 0;
+        for (Map.Entry<String, Object> entry : delta.getSet().entrySet()) {
+            String json = toJson(entry.getKey(), entry.getValue());
+            values.put(variablePath(entry.getKey()), json);
+            bytes += json.length();
+        }
+        List<String> removedPaths = new ArrayList<>(delta.getRemoved().size());
+        for (String name : delta.getRemoved()) {
+            removedPaths.add(variablePath(name));
+        }
+
+        Integer rows = transactions.execute(status -> {
+            instanceMapper.ensureContextVariables(flowInstanceId);
+            int updated = instanceMapper.patchContextVariables(flowInstanceId, values, removedPaths);
+            variableIndexer.update(flowInstanceId, variableIndexer.declarationsOf(flowDefinitionId), delta.changes());
+            return updated;
+        });
+
+        patches.increment();
+        keysWritten.add(values.size());
+        keysRemoved.add(removedPaths.size());
+        bytesWritten.add(bytes);
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * 写入统计：补丁次数、写入和删除的键数、写出的 JSON 字符数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("patches", patches.sum());
+        stats.put("keysWritten", keysWritten.sum());
+        stats.put("keysRemoved", keysRemoved.sum());
+        stats.put("bytesWritten", bytesWritten.sum());
+        return stats;
+    }
+
+    /**
+     * 变量在 context_data 中的 JSON 路径，键名按 JSON 字符串转义后加引号，任意变量名都能安全寻址
+     */
+    static String variablePath(String name) {
+        StringBuilder path = new StringBuilder(name.length() + 16).append("$.variables.\"");
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || c == '\\') {
+                path.append('\\');
+            }
+            path.append(c);
+        }
+        return path.append('"').toString();
+    }
+
+    private static String toJson(String name, Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("变量无法序列化为 JSON: " + name, e);
+        }
+    }
+}
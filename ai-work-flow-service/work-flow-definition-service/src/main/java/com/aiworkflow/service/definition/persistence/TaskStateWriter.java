@@ -0,0 +1,225 @@
+package com.aiworkflow.service.definition.persistence;
+
+import com.aiworkflow.service.definition.mapper.AiTaskInstanceMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ai_task_instance 状态变更的延迟批量写
+ * <p>
+ * 同一任务在两次刷写之间的多次变更合并为一条(状态取最靠后的)，按数量或时间触发，以 JDBC batch 一次写出。
+ * 顺序保证：
+ * <ul>
+ *     <li>刷写串行执行，批内按任务 ID 排序，固定加锁顺序</li>
+ *     <li>UPDATE 带前进条件，只有当前状态在数据库中更靠前时才生效，乱序或重复写不会让状态回退</li>
+ *     <li>刷写失败时整批放回待写队列，与之后的变更合并后重试</li>
+ * </ul>
+ * 终态默认在提交线程同步刷写(只写该任务)，submit 返回即已提交；非终态在进程崩溃时可能丢失，由调用方按需重放。
+ * 实例事件投影器用 {@link #submitAll} 写已有任务行的状态变更，变更在投影事务内落库。
+ */
+@Slf4j
+@Component
+public class TaskStateWriter {
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final TaskWriteBehindProperties properties;
+
+    private final Map<Long, TaskTransition> pending = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ScheduledExecutorService flusher;
+
+    private final LongAdder submitted = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder flushedRows = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    public TaskStateWriter(SqlSessionFactory sqlSessionFactory, TaskWriteBehindProperties properties) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.properties = properties;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "task-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交一次状态变更；终态且开启同步刷写时，返回前已落库，失败时抛出异常(变更仍保留在队列中重试)
+     */
+    public void submit(TaskTransition transition) {
+        submitted.increment();
+        pending.merge(transition.taskId(), transition, (previous, latest) -> {
+            coalesced.increment();
+            return previous.merge(latest);
+        });
+
+        if (transition.status().isTerminal() && properties.isSyncTerminal()) {
+            flush(List.of(transition.taskId()));
+            return;
+        }
+        int size = pending.size();
+        if (size >= properties.getMaxPending()) {
+            // 背压：后台来不及写时由提交线程同步写
+            flush();
+        } else if (size >= properties.getBatchSize() && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    /**
+     * 提交一组状态变更并立即写出这些任务(与队列中同一任务的变更合并)，其他任务的待写变更不受影响
+     * <p>
+     * 调用线程处于 Spring 事务中时，写入加入该事务，随事务提交或回滚；失败时抛出异常，变更保留在队列中重试。
+     */
+    public int submitAll(Collection<TaskTransition> transitions) {
+        List<Long> taskIds = new ArrayList<>(transitions.size());
+        for (TaskTransition transition : transitions) {
+            submitted.increment();
+            pending.merge(transition.taskId(), transition, (previous, latest) -> {
+                coalesced.increment();
+                return previous.merge(latest);
+            });
+            taskIds.add(transition.taskId());
+        }
+        return flush(taskIds);
+    }
+
+    /**
+     * 立即写出所有待写变更，返回写出的任务数
+     */
+    public int flush() {
+        return flush(null);
+    }
+
+    /**
+     * 立即写出指定任务的待写变更，返回写出的任务数；taskIds 为空表示全部
+     */
+    private int flush(Collection<Long> taskIds) {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            List<TaskTransition> batch = drain(taskIds != null ? taskIds : pending.keySet());
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                requeue(batch);
+                failures.increment();
+                throw e;
+            }
+            flushedRows.add(batch.size());
+            batches.increment();
+            return batch.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("submitted", submitted.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("flushedRows", flushedRows.sum());
+        stats.put("batches", batches.sum());
+        stats.put("failures", failures.sum());
+        stats.put("pending", pending.size());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.info("任务状态延迟写已关闭，累计写出 {} 条，{} 批", flushedRows.sum(), batches.sum());
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("任务状态批量写失败，待写 {} 条，下次重试", pending.size(), e);
+        }
+    }
+
+    private List<TaskTransition> drain(Collection<Long> taskIds) {
+        List<TaskTransition> batch = new ArrayList<>(taskIds.size());
+        for (Long taskId : taskIds) {
+            TaskTransition transition = pending.remove(taskId);
+            if (transition != null) {
+                batch.add(transition);
+            }
+        }
+        batch.sort(Comparator.comparing(TaskTransition::taskId));
+        return batch;
+    }
+
+    private void requeue(List<TaskTransition> batch) {
+        for (TaskTransition failed : batch) {
+            // 失败的变更早于队列中已有的变更
+            pending.merge(failed.taskId(), failed, (newer, older) -> older.merge(newer));
+        }
+    }
+
+    private void write(List<TaskTransition> batch) {
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            AiTaskInstanceMapper mapper = session.getMapper(AiTaskInstanceMapper.class);
+            int inBatch = 0;
+            for (TaskTransition t : batch) {
+                mapper.updateTransition(t.taskId(), t.status().name(), t.status().getRank(),
+                        t.startTime(), t.endTime(), t.outputData(), t.errorInfo());
+                if (++inBatch == properties.getBatchSize()) {
+                    session.flushStatements();
+                    inBatch = 0;
+                }
+            }
+            session.flushStatements();
+            session.commit();
+        }
+    }
+}
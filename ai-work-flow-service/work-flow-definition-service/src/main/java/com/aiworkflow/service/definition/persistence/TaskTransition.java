@@ -0,0 +1,40 @@
+package com.aiworkflow.service.definition.persistence;
+
+import com.aiworkflow.service.definition.enums.TaskStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一次任务状态变更，时间和数据字段为空表示不修改
+ */
+public record TaskTransition(Long taskId, TaskStatus status, LocalDateTime startTime, LocalDateTime endTime,
+                             Object outputData, Object errorInfo) {
+
+    public static TaskTransition ready(Long taskId) {
+        return new TaskTransition(taskId, TaskStatus.READY, null, null, null, null);
+    }
+
+    public static TaskTransition running(Long taskId, LocalDateTime startTime) {
+        return new TaskTransition(taskId, TaskStatus.RUNNING, startTime, null, null, null);
+    }
+
+    public static TaskTransition completed(Long taskId, LocalDateTime endTime, Object outputData) {
+        return new TaskTransition(taskId, TaskStatus.COMPLETED, null, endTime, outputData, null);
+    }
+
+    public static TaskTransition failed(Long taskId, LocalDateTime endTime, Object errorInfo) {
+        return new TaskTransition(taskId, TaskStatus.FAILED, null, endTime, null, errorInfo);
+    }
+
+    /**
+     * 合并同一任务的两次变更：状态取更靠后的，字段取较新的非空值，开始时间保留最早的
+     */
+    TaskTransition merge(TaskTransition later) {
+        TaskStatus merged = later.status.getRank() > status.getRank() ? later.status : status;
+        return new TaskTransition(taskId, merged,
+                startTime != null ? startTime : later.startTime,
+                later.endTime != null ? later.endTime : endTime,
+                later.outputData != null ? later.outputData : outputData,
+                later.errorInfo != null ? later.errorInfo : errorInfo);
+    }
+}
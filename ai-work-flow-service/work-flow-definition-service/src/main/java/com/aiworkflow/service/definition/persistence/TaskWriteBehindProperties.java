@@ -0,0 +1,26 @@
+package com.aiworkflow.service.definition.persistence;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 任务状态延迟写配置
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.task.write-behind")
+public class TaskWriteBehindProperties {
+
+    // 待写任务数达到该值时立即触发一次批量写
+    private int batchSize = 200;
+
+    // 定时刷写间隔
+    private Duration flushInterval = Duration.ofMillis(50);
+
+    // 终态(COMPLETED/FAILED/CANCELLED)是否在提交线程同步落库
+    private boolean syncTerminal = true;
+
+    // 待写任务数上限，超过后提交线程同步刷写(背压)
+    private int maxPending = 10_000;
+}
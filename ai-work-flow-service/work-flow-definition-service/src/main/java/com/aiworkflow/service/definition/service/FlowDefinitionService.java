@@ -0,0 +1,134 @@
+package com.aiworkflow.service.definition.service;
+
+import com.aiworkflow.common.web.exception.BusinessException;
+import com.aiworkflow.common.web.result.ResultCode;
+import com.aiworkflow.engine.core.exception.FlowCompileException;
+import com.aiworkflow.engine.core.graph.FlowGraphCompiler;
+import com.aiworkflow.engine.core.model.FlowModel;
+import com.aiworkflow.engine.core.parser.BpmnImporter;
+import com.aiworkflow.service.definition.cache.CompiledDefinition;
+import com.aiworkflow.service.definition.cache.FlowDefinitionCache;
+import com.aiworkflow.service.definition.entity.AiFlowDefinition;
+import com.aiworkflow.service.definition.enums.FlowDefinitionStatus;
+import com.aiworkflow.service.definition.mapper.AiFlowDefinitionMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+
+@Slf4j
+@Service
+public class FlowDefinitionService {
+
+    // 同一流程并发导入时分配版本号的最多尝试次数
+    private static final int IMPORT_ATTEMPTS = 3;
+
+    private final AiFlowDefinitionMapper definitionMapper;
+
+    private final FlowDefinitionCache definitionCache;
+
+    private final BpmnImporter bpmnImporter;
+
+    public FlowDefinitionService(AiFlowDefinitionMapper definitionMapper, FlowDefinitionCache definitionCache,
+                                 BpmnImporter bpmnImporter) {
+        this.definitionMapper = definitionMapper;
+        this.definitionCache = definitionCache;
+        this.bpmnImporter = bpmnImporter;
+    }
+
+    /**
+     * 导入 BPMN XML，校验可编译后保存为该流程的下一个 DRAFT 版本；
+     * 并发导入同一流程时由唯一键 uk_flow_key_version 裁决，冲突的一方重新分配版本号
+     */
+    public AiFlowDefinition importBpmn(InputStream in, String description) {
+        FlowModel model;
+        try {
+            model = bpmnImporter.importModel(in);
+            FlowGraphCompiler.compile(model);
+        } catch (FlowCompileException e) {
+            throw new BusinessException(ResultCode.FLOW_DEFINITION_INVALID, e.getMessage());
+        }
+
+        AiFlowDefinition definition = new AiFlowDefinition();
+        definition.setFlowKey(model.getKey());
+        definition.setName(model.getName());
+        definition.setFlowModel(model);
+        definition.setStatus(FlowDefinitionStatus.DRAFT.name());
+        definition.setDescription(description);
+        for (int attempt = 1; ; attempt++) {
+            Integer maxVersion = definitionMapper.selectMaxVersion(model.getKey());
+            definition.setVersion(maxVersion == null ? 1 : maxVersion + 1);
+            try {
+                definitionMapper.insert(definition);
+                break;
+            } catch (DuplicateKeyException e) {
+                if (attempt >= IMPORT_ATTEMPTS) {
+                    throw new BusinessException(ResultCode.FLOW_DEFINITION_VERSION_CONFLICT,
+                            "流程 " + model.getKey() + " 正在被并发导入，请稍后重试");
+                }
+                log.info("流程 {} v{} 已被并发导入占用，重新分配版本号", model.getKey(), definition.getVersion());
+            }
+        }
+        log.info("导入 BPMN 流程 {} v{}，元素 {} 个",
+                definition.getFlowKey(), definition.getVersion(), model.getFlowElements().size());
+        return definition;
+    }
+
+    /**
+     * 获取指定版本的已编译定义
+     */
+    public CompiledDefinition getCompiled(String flowKey, int version) {
+        CompiledDefinition definition;
+        try {
+            definition = definitionCache.get(flowKey, version);
+        } catch (FlowCompileException e) {
+            throw new BusinessException(ResultCode.FLOW_DEFINITION_INVALID, e.getMessage());
+        }
+        if (definition == null) {
+            throw new BusinessException(ResultCode.FLOW_DEFINITION_NOT_FOUND,
+                    "流程定义不存在: " + flowKey + " v" + version);
+        }
+        return definition;
+    }
+
+    /**
+     * 获取最新 ACTIVE 版本的已编译定义，实例启动时使用
+     */
+    public CompiledDefinition getLatestActive(String flowKey) {
+        CompiledDefinition definition;
+        try {
+            definition = definitionCache.getLatestActive(flowKey);
+        } catch (FlowCompileException e) {
+            throw new BusinessException(ResultCode.FLOW_DEFINITION_INVALID, e.getMessage());
+        }
+        if (definition == null) {
+            throw new BusinessException(ResultCode.FLOW_DEFINITION_NOT_FOUND, "流程没有已发布的版本: " + flowKey);
+        }
+        return definition;
+    }
+
+    /**
+     * 修改定义状态(发布/下线)，并失效对应缓存
+     */
+    public void updateStatus(Long id, String status) {
+        if (!FlowDefinitionStatus.isValid(status)) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "非法的流程定义状态: " + status);
+        }
+        AiFlowDefinition definition = definitionMapper.selectById(id);
+        if (definition == null) {
+            throw new BusinessException(ResultCode.FLOW_DEFINITION_NOT_FOUND);
+        }
+        if (status.equals(definition.getStatus())) {
+            return;
+        }
+
+        AiFlowDefinition update = new AiFlowDefinition();
+        update.setId(id);
+        update.setStatus(status);
+        definitionMapper.updateById(update);
+        definitionCache.invalidate(definition.getFlowKey(), definition.getVersion());
+        log.info("流程定义 {} v{} 状态变更: {} -> {}",
+                definition.getFlowKey(), definition.getVersion(), definition.getStatus(), status);
+    }
+}
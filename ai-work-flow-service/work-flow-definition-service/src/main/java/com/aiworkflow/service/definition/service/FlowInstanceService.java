@@ -0,0 +1,171 @@
+package com.aiworkflow.service.definition.service;
+
+import com.aiworkflow.common.orm.page.Cursor;
+import com.aiworkflow.common.orm.page.CursorPage;
+import com.aiworkflow.common.orm.page.CursorRequest;
+import com.aiworkflow.common.orm.page.InvalidCursorException;
+import com.aiworkflow.common.orm.page.KeysetPager;
+import com.aiworkflow.common.orm.page.KeysetQuery;
+import com.aiworkflow.common.web.exception.BusinessException;
+import com.aiworkflow.common.web.result.ResultCode;
+import com.aiworkflow.service.definition.cache.CompiledDefinition;
+import com.aiworkflow.service.definition.cache.FlowDefinitionCache;
+import com.aiworkflow.service.definition.entity.AiFlowExecution;
+import com.aiworkflow.service.definition.entity.AiFlowInstance;
+import com.aiworkflow.service.definition.entity.AiTaskInstance;
+import com.aiworkflow.service.definition.mapper.AiFlowExecutionMapper;
+import com.aiworkflow.service.definition.mapper.AiFlowInstanceMapper;
+import com.aiworkflow.service.definition.mapper.AiTaskInstanceMapper;
+import com.aiworkflow.service.definition.mapper.InstanceArchiveMapper;
+import com.aiworkflow.service.definition.mapper.InstanceVariableIndexMapper;
+import com.aiworkflow.service.definition.variable.VariableCondition;
+import com.aiworkflow.service.definition.variable.VariableConditions;
+import com.aiworkflow.service.definition.variable.VariableIndexer;
+import com.aiworkflow.service.definition.variable.VariableSearchRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 流程实例查询：按 ID 查询时先查热表，不存在时查归档表，调用方不需要关心实例是否已归档；
+ * 列表按 (create_at, id) 降序游标分页，只覆盖热表中的实例和任务；
+ * 按可检索变量查询走 ai_instance_variable_index 窄表，按实例 ID 降序分页。
+ */
+@Service
+public class FlowInstanceService {
+
+    private final AiFlowInstanceMapper instanceMapper;
+
+    private final AiFlowExecutionMapper executionMapper;
+
+    private final AiTaskInstanceMapper taskMapper;
+
+    private final InstanceArchiveMapper archiveMapper;
+
+    private final InstanceVariableIndexMapper variableIndexMapper;
+
+    private final VariableIndexer variableIndexer;
+
+    private final FlowDefinitionCache definitionCache;
+
+    public FlowInstanceService(AiFlowInstanceMapper instanceMapper, AiFlowExecutionMapper executionMapper,
+                               AiTaskInstanceMapper taskMapper, InstanceArchiveMapper archiveMapper,
+                               InstanceVariableIndexMapper variableIndexMapper, VariableIndexer variableIndexer,
+                               FlowDefinitionCache definitionCache) {
+        this.instanceMapper = instanceMapper;
+        this.executionMapper = executionMapper;
+        this.taskMapper = taskMapper;
+        this.archiveMapper = archiveMapper;
+        this.variableIndexMapper = variableIndexMapper;
+        this.variableIndexer = variableIndexer;
+        this.definitionCache = definitionCache;
+    }
+
+    public AiFlowInstance getInstance(Long id) {
+        AiFlowInstance instance = instanceMapper.selectById(id);
+        if (instance == null) {
+            instance = archiveMapper.selectArchivedInstance(id);
+        }
+        if (instance == null) {
+            throw new BusinessException(ResultCode.FLOW_INSTANCE_NOT_FOUND, "流程实例不存在: " + id);
+        }
+        return instance;
+    }
+
+    public List<AiFlowExecution> getExecutions(Long flowInstanceId) {
+        List<AiFlowExecution> executions = executionMapper.selectByFlowInstanceId(flowInstanceId);
+        return executions.isEmpty() ? archiveMapper.selectArchivedExecutions(flowInstanceId) : executions;
+    }
+
+    public List<AiTaskInstance> getTasks(Long flowInstanceId) {
+        List<AiTaskInstance> tasks = taskMapper.selectByFlowInstanceId(flowInstanceId);
+        return tasks.isEmpty() ? archiveMapper.selectArchivedTasks(flowInstanceId) : tasks;
+    }
+
+    public CursorPage<AiFlowInstance> listInstances(String status, Long flowDefinitionId, CursorRequest request) {
+        String scope = "instance|" + status + "|" + flowDefinitionId;
+        return page(request, scope, new KeysetQuery<>() {
+            @Override
+            public List<AiFlowInstance> select(Cursor after, int limit) {
+                return instanceMapper.selectPage(status, flowDefinitionId, after, limit);
+            }
+
+            @Override
+            public long count(Integer cap) {
+                return instanceMapper.countPage(status, flowDefinitionId, cap);
+            }
+        }, AiFlowInstance::getCreateAt, AiFlowInstance::getId);
+    }
+
+    public CursorPage<AiTaskInstance> listTasks(Long flowInstanceId, String status, String taskType,
+                                                CursorRequest request) {
+        String scope = "task|" + flowInstanceId + "|" + status + "|" + taskType;
+        return page(request, scope, new KeysetQuery<>() {
+            @Override
+            public List<AiTaskInstance> select(Cursor after, int limit) {
+                return taskMapper.selectPage(flowInstanceId, status, taskType, after, limit);
+            }
+
+            @Override
+            public long count(Integer cap) {
+                return taskMapper.countPage(flowInstanceId, status, taskType, cap);
+            }
+        }, AiTaskInstance::getCreateAt, AiTaskInstance::getId);
+    }
+
+    /**
+     * 按可检索变量查询实例，变量声明取自流程最新 ACTIVE 版本
+     */
+    public CursorPage<AiFlowInstance> searchByVariables(VariableSearchRequest request) {
+        String flowKey = request.getFlowKey();
+        if (flowKey == null || flowKey.isEmpty()) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, "flowKey 不能为空");
+        }
+        CompiledDefinition definition = definitionCache.getLatestActive(flowKey);
+        if (definition == null) {
+            throw new BusinessException(ResultCode.FLOW_DEFINITION_NOT_FOUND, "流程没有已发布的版本: " + flowKey);
+        }
+        List<VariableCondition> conditions;
+        try {
+            conditions = VariableConditions.resolve(definition.model().getSearchableVariables(),
+                    request.getPredicates());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, e.getMessage());
+        }
+        String scope = "variable|" + flowKey + "|" + conditions;
+        CursorRequest cursorRequest = CursorRequest.of(request.getCursor(), request.getSize(), request.getCount());
+        return page(cursorRequest, scope, new KeysetQuery<>() {
+            @Override
+            public List<AiFlowInstance> select(Cursor after, int limit) {
+                return variableIndexMapper.searchInstances(flowKey, conditions, after, limit);
+            }
+
+            @Override
+            public long count(Integer cap) {
+                return variableIndexMapper.countInstances(flowKey, conditions, cap);
+            }
+        }, AiFlowInstance::getId, AiFlowInstance::getId);
+    }
+
+    /**
+     * 按实例当前变量重建可检索变量索引
+     */
+    public int reindexVariables(Long id) {
+        int indexed = variableIndexer.reindex(id);
+        if (indexed < 0) {
+            throw new BusinessException(ResultCode.FLOW_INSTANCE_NOT_FOUND, "流程实例不存在: " + id);
+        }
+        return indexed;
+    }
+
+    private static <T> CursorPage<T> page(CursorRequest request, String scope, KeysetQuery<T> query,
+                                          Function<T, Object> keyOf, ToLongFunction<T> idOf) {
+        try {
+            return KeysetPager.page(request, scope, query, keyOf, idOf);
+        } catch (InvalidCursorException e) {
+            throw new BusinessException(ResultCode.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
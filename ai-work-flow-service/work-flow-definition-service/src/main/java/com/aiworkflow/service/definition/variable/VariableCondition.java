@@ -0,0 +1,27 @@
+package com.aiworkflow.service.definition.variable;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 已按声明类型解析的检索条件，供 Mapper XML 拼接；column 和 operator 只来自枚举，不含用户输入
+ */
+@Data
+public class VariableCondition {
+
+    private String name;
+
+    private String column;
+
+    private String operator;
+
+    private Object value;
+
+    // IN 的取值
+    private List<Object> values;
+
+    public boolean isIn() {
+        return values != null;
+    }
+}
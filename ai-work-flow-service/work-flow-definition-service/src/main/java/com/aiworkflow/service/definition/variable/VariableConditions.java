@@ -0,0 +1,105 @@
+package com.aiworkflow.service.definition.variable;
+
+import com.aiworkflow.engine.core.model.SearchableVariable;
+import com.aiworkflow.engine.core.model.VariableType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 把检索条件按变量声明解析为 {@link VariableCondition}
+ * <p>
+ * 只允许检索已声明的变量，值按声明类型转换；结果按选择性排序(等值、IN、前缀、范围、不等)，
+ * 第一个条件驱动索引扫描。参数不合法时抛出 IllegalArgumentException。
+ */
+public final class VariableConditions {
+
+    static final int MAX_PREDICATES = 8;
+
+    static final int MAX_IN_VALUES = 100;
+
+    private VariableConditions() {
+    }
+
+    public static List<VariableCondition> resolve(List<SearchableVariable> declarations,
+                                                  List<VariablePredicate> predicates) {
+        if (predicates == null || predicates.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个变量条件");
+        }
+        if (predicates.size() > MAX_PREDICATES) {
+            throw new IllegalArgumentException("变量条件不能超过 " + MAX_PREDICATES + " 个");
+        }
+        Map<String, SearchableVariable> declared = declarations.stream()
+                .collect(Collectors.toMap(SearchableVariable::getName, Function.identity(), (a, b) -> a));
+
+        List<VariableCondition> conditions = new ArrayList<>(predicates.size());
+        for (VariablePredicate predicate : predicates) {
+            SearchableVariable declaration = declared.get(predicate.getName());
+            if (declaration == null) {
+                throw new IllegalArgumentException("变量未声明为可检索: " + predicate.getName());
+            }
+            conditions.add(resolve(declaration, predicate));
+        }
+        conditions.sort(Comparator.comparingInt(VariableConditions::rank));
+        return conditions;
+    }
+
+    private static VariableCondition resolve(SearchableVariable declaration, VariablePredicate predicate) {
+        VariableOperator op = predicate.getOp() != null ? predicate.getOp() : VariableOperator.EQ;
+        VariableType type = declaration.getType();
+        Object value = predicate.getValue();
+        if (value == null) {
+            throw new IllegalArgumentException("变量条件缺少值: " + declaration.getName());
+        }
+
+        VariableCondition condition = new VariableCondition();
+        condition.setName(declaration.getName());
+        condition.setColumn(VariableValues.column(type));
+        condition.setOperator(op.getSql());
+        try {
+            switch (op) {
+                case IN -> {
+                    if (!(value instanceof Collection<?> values) || values.isEmpty() || values.size() > MAX_IN_VALUES) {
+                        throw new IllegalArgumentException("IN 的值必须是 1~" + MAX_IN_VALUES + " 个元素的数组");
+                    }
+                    List<Object> converted = new ArrayList<>(values.size());
+                    for (Object item : values) {
+                        converted.add(VariableValues.convert(type, item));
+                    }
+                    condition.setValues(converted);
+                }
+                case PREFIX -> {
+                    if (type != VariableType.STRING) {
+                        throw new IllegalArgumentException("PREFIX 只能用于 STRING 变量");
+                    }
+                    condition.setValue(escapeLike((String) VariableValues.convert(type, value)) + "%");
+                }
+                default -> condition.setValue(VariableValues.convert(type, value));
+            }
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new IllegalArgumentException("变量 " + declaration.getName() + " 的条件值不合法: " + e.getMessage(), e);
+        }
+        return condition;
+    }
+
+    private static int rank(VariableCondition condition) {
+        if (condition.isIn()) {
+            return 1;
+        }
+        return switch (condition.getOperator()) {
+            case "=" -> 0;
+            case "LIKE" -> 2;
+            case "<>" -> 4;
+            default -> 3;
+        };
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,179 @@
+package com.aiworkflow.service.definition.variable;
+
+import com.aiworkflow.common.orm.handler.RawJson;
+import com.aiworkflow.engine.core.model.SearchableVariable;
+import com.aiworkflow.service.definition.cache.CompiledDefinition;
+import com.aiworkflow.service.definition.cache.FlowDefinitionCache;
+import com.aiworkflow.service.definition.entity.AiFlowDefinition;
+import com.aiworkflow.service.definition.entity.AiFlowInstance;
+import com.aiworkflow.service.definition.entity.AiInstanceVariableIndex;
+import com.aiworkflow.service.definition.mapper.AiFlowDefinitionMapper;
+import com.aiworkflow.service.definition.mapper.AiFlowInstanceMapper;
+import com.aiworkflow.service.definition.mapper.InstanceVariableIndexMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 维护可检索变量窄表
+ * <p>
+ * 只处理流程定义声明过的变量：变量写入时调用 {@link #update} 增量更新变化的那几个，值为 null 时删除对应行；
+ * 无法按声明类型转换的值记录警告后跳过，不影响流程执行。{@link #reindex} 按 context_data 整体重建。
+ */
+@Slf4j
+@Component
+public class VariableIndexer {
+
+    private final InstanceVariableIndexMapper indexMapper;
+
+    private final AiFlowInstanceMapper instanceMapper;
+
+    private final AiFlowDefinitionMapper definitionMapper;
+
+    private final FlowDefinitionCache definitionCache;
+
+    // 定义 ID -> 声明的可检索变量；已发布的定义不可变，按容量淘汰即可
+    private final Cache<Long, List<SearchableVariable>> declarations = Caffeine.newBuilder()
+            .maximumSize(1024)
+            .build();
+
+    public VariableIndexer(InstanceVariableIndexMapper indexMapper, AiFlowInstanceMapper instanceMapper,
+                           AiFlowDefinitionMapper definitionMapper, FlowDefinitionCache definitionCache) {
+        this.indexMapper = indexMapper;
+        this.instanceMapper = instanceMapper;
+        this.definitionMapper = definitionMapper;
+        this.definitionCache = definitionCache;
+    }
+
+    /**
+     * 增量更新：只写入本次变化且已声明的变量
+     *
+     * @param declarations 实例所属流程定义声明的可检索变量
+     * @param changed      本次变化的变量，值为 null 表示删除
+     * @return 写入和删除的行数
+     */
+    public int update(Long flowInstanceId, List<SearchableVariable> declarations, Map<String, Object> changed) {
+        if (declarations == null || declarations.isEmpty() || changed == null || changed.isEmpty()) {
+            return 0;
+        }
+        List<AiInstanceVariableIndex> rows = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (SearchableVariable declaration : declarations) {
+            String name = declaration.getName();
+            if (!changed.containsKey(name)) {
+                continue;
+            }
+            Object value = changed.get(name);
+            if (value == null) {
+                removed.add(name);
+                continue;
+            }
+            AiInstanceVariableIndex row = toRow(flowInstanceId, declaration, value);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        int affected = 0;
+        if (!removed.isEmpty()) {
+            affected += indexMapper.deleteByNames(flowInstanceId, removed);
+        }
+        if (!rows.isEmpty()) {
+            affected += indexMapper.upsert(rows);
+        }
+        return affected;
+    }
+
+    /**
+     * 按实例当前的 context_data.variables 重建索引，用于补建已有实例或声明变化后的修复
+     *
+     * @return 写入的变量数，实例不存在时返回 -1
+     */
+    public int reindex(Long flowInstanceId) {
+        AiFlowInstance instance = instanceMapper.selectById(flowInstanceId);
+        if (instance == null) {
+            return -1;
+        }
+        List<SearchableVariable> declarations = declarationsOf(instance.getFlowDefinitionId());
+        Map<String, Object> variables = variablesOf(instance.getContextData());
+
+        List<String> names = new ArrayList<>();
+        List<AiInstanceVariableIndex> rows = new ArrayList<>();
+        for (SearchableVariable declaration : declarations) {
+            names.add(declaration.getName());
+            Object value = variables.get(declaration.getName());
+            AiInstanceVariableIndex row = value != null ? toRow(flowInstanceId, declaration, value) : null;
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        // 先清掉已声明变量的旧行(包括已置空的)，再整体写入
+        if (!names.isEmpty()) {
+            indexMapper.deleteByNames(flowInstanceId, names);
+        }
+        if (!rows.isEmpty()) {
+            indexMapper.upsert(rows);
+        }
+        return rows.size();
+    }
+
+    /**
+     * 流程定义声明的可检索变量，定义不存在时为空
+     */
+    public List<SearchableVariable> declarationsOf(Long flowDefinitionId) {
+        if (flowDefinitionId == null) {
+            return Collections.emptyList();
+        }
+        return declarations.get(flowDefinitionId, this::loadDeclarations);
+    }
+
+    private List<SearchableVariable> loadDeclarations(Long flowDefinitionId) {
+        AiFlowDefinition entity = definitionMapper.selectById(flowDefinitionId);
+        if (entity == null) {
+            return Collections.emptyList();
+        }
+        CompiledDefinition definition = definitionCache.get(entity.getFlowKey(), entity.getVersion());
+        return definition != null ? List.copyOf(definition.model().getSearchableVariables()) : Collections.emptyList();
+    }
+
+    static AiInstanceVariableIndex toRow(Long flowInstanceId, SearchableVariable declaration, Object value) {
+        Object converted;
+        try {
+            converted = VariableValues.convert(declaration.getType(), value);
+        } catch (RuntimeException e) {
+            log.warn("变量 {} 的值无法按 {} 建立索引, 实例: {}, 值: {}",
+                    declaration.getName(), declaration.getType(), flowInstanceId, value);
+            return null;
+        }
+        AiInstanceVariableIndex row = new AiInstanceVariableIndex();
+        row.setFlowInstanceId(flowInstanceId);
+        row.setName(declaration.getName());
+        row.setValueType(declaration.getType().name());
+        switch (declaration.getType()) {
+            case STRING -> row.setStringValue((String) converted);
+            case LONG -> row.setLongValue((Long) converted);
+            case DECIMAL -> row.setDecimalValue((BigDecimal) converted);
+            case DATE -> row.setDateValue((LocalDateTime) converted);
+        }
+        return row;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> variablesOf(Object contextData) {
+        if (contextData instanceof RawJson raw) {
+            // 列按原文读出，只有这里需要结构
+            contextData = raw.parse();
+        }
+        if (contextData instanceof Map<?, ?> context && context.get("variables") instanceof Map<?, ?> variables) {
+            return (Map<String, Object>) variables;
+        }
+        return Collections.emptyMap();
+    }
+}
@@ -0,0 +1,27 @@
+package com.aiworkflow.service.definition.variable;
+
+/**
+ * 变量检索条件的比较方式
+ */
+public enum VariableOperator {
+
+    EQ("="),
+    NE("<>"),
+    GT(">"),
+    GE(">="),
+    LT("<"),
+    LE("<="),
+    IN("IN"),
+    // 字符串前缀匹配，可以使用 (name, string_value) 索引
+    PREFIX("LIKE");
+
+    private final String sql;
+
+    VariableOperator(String sql) {
+        this.sql = sql;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+}
@@ -0,0 +1,20 @@
+package com.aiworkflow.service.definition.variable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一个变量检索条件，IN 时 value 为数组
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VariablePredicate {
+
+    private String name;
+
+    private VariableOperator op = VariableOperator.EQ;
+
+    private Object value;
+}
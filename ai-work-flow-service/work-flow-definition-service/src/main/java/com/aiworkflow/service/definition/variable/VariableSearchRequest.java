@@ -0,0 +1,25 @@
+package com.aiworkflow.service.definition.variable;
+
+import com.aiworkflow.common.orm.page.CountMode;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按可检索变量查询实例，条件之间为 AND
+ */
+@Data
+public class VariableSearchRequest {
+
+    // 流程标识，变量声明取自该流程最新 ACTIVE 版本
+    private String flowKey;
+
+    private List<VariablePredicate> predicates = new ArrayList<>();
+
+    private String cursor;
+
+    private Integer size;
+
+    private CountMode count;
+}
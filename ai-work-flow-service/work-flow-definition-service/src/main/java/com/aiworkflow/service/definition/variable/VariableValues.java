@@ -0,0 +1,82 @@
+package com.aiworkflow.service.definition.variable;
+
+import com.aiworkflow.engine.core.model.VariableType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 变量值到索引列的类型转换
+ */
+public final class VariableValues {
+
+    static final int MAX_STRING_LENGTH = 255;
+
+    private VariableValues() {
+    }
+
+    /**
+     * 索引列名
+     */
+    public static String column(VariableType type) {
+        return switch (type) {
+            case STRING -> "string_value";
+            case LONG -> "long_value";
+            case DECIMAL -> "decimal_value";
+            case DATE -> "date_value";
+        };
+    }
+
+    /**
+     * 按声明类型转换，无法转换时抛出 IllegalArgumentException
+     */
+    public static Object convert(VariableType type, Object value) {
+        return switch (type) {
+            case STRING -> truncate(String.valueOf(value));
+            case LONG -> toLong(value);
+            case DECIMAL -> value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString().trim());
+            case DATE -> toDateTime(value);
+        };
+    }
+
+    private static String truncate(String text) {
+        return text.length() <= MAX_STRING_LENGTH ? text : text.substring(0, MAX_STRING_LENGTH);
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        // 带小数部分时拒绝，避免静默截断
+        return new BigDecimal(value.toString().trim()).longValueExact();
+    }
+
+    private static LocalDateTime toDateTime(Object value) {
+        if (value instanceof LocalDateTime time) {
+            return time;
+        }
+        if (value instanceof LocalDate date) {
+            return date.atStartOfDay();
+        }
+        if (value instanceof Number millis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis.longValue()), ZoneId.systemDefault());
+        }
+        String text = value.toString().trim();
+        try {
+            if (text.length() == 10) {
+                return LocalDate.parse(text).atStartOfDay();
+            }
+            if (text.endsWith("Z") || text.matches(".*[+-]\\d{2}:\\d{2}$")) {
+                return OffsetDateTime.parse(text).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            }
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("无法解析为日期: " + text, e);
+        }
+    }
+}
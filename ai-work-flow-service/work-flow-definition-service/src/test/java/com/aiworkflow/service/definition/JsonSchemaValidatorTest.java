@@ -2,10 +2,12 @@ package com.aiworkflow.service.definition;
 
 import com.aiworkflow.common.core.util.JsonSchemaValidator;
 import com.aiworkflow.common.core.validation.ValidationResult;
+import com.fasterxml.jackson.databind.node.TextNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -122,4 +124,31 @@ class JsonSchemaValidatorTest {
         JsonSchemaValidator.clearCache();
         assertEquals(0, JsonSchemaValidator.getCacheSize());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testHashCollisionSchemasNotShared() {
+        // "Aa" 与 "BB" 的 hashCode 相同，两个 schema 的 hashCode 也相同
+        String schemaA = "{\"type\":\"string\",\"enum\":[\"Aa\"]}";
+        String schemaB = "{\"type\":\"string\",\"enum\":[\"BB\"]}";
+        assertEquals(schemaA.hashCode(), schemaB.hashCode());
+
+        assertTrue(JsonSchemaValidator.validate(schemaA, TextNode.valueOf("Aa")));
+        assertTrue(JsonSchemaValidator.validate(schemaB, TextNode.valueOf("BB")));
+        assertFalse(JsonSchemaValidator.validate(schemaB, TextNode.valueOf("Aa")));
+        assertEquals(2, JsonSchemaValidator.getCacheSize());
+    }
+
+    @Test
+    void testValidateBytesAndJsonNode() {
+        long hitsBefore = (long) JsonSchemaValidator.getCacheStats().get("hitCount");
+        byte[] json = "{\"model\":\"gpt-4\",\"prompt\":\"测试\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(JsonSchemaValidator.validateDetailed(simpleSchema, json).isValid());
+        assertTrue(JsonSchemaValidator.validateNodeConfig(simpleSchema, json).isValid());
+        assertFalse(JsonSchemaValidator.validateDetailed(simpleSchema, "{\"model\":1}".getBytes(StandardCharsets.UTF_8)).isValid());
+
+        // 统计是累计值，清空缓存不会重置
+        assertEquals(hitsBefore + 2, (long) JsonSchemaValidator.getCacheStats().get("hitCount"));
+        assertEquals(1, JsonSchemaValidator.getCacheSize());
+    }
+}
@@ -0,0 +1,182 @@
+package com.aiworkflow.service.definition.analysis;
+
+import com.aiworkflow.engine.core.journal.JournalEventType;
+import com.aiworkflow.engine.journal.entity.AiInstanceEvent;
+import com.aiworkflow.service.definition.entity.AiFlowExecution;
+import com.aiworkflow.service.definition.entity.AiFlowInstance;
+import com.aiworkflow.service.definition.entity.AiTaskInstance;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TimelineAnalyzer 测试
+ */
+class TimelineAnalyzerTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 8, 0);
+
+    // 引擎执行 1 上 A 之后分叉为执行 2(B) 和执行 3(C)，汇聚后执行 D；投影后的执行行为 501、502、503，
+    // 任务行引用执行行ID，执行行本身不带父子关系
+    private static final Map<Long, Long> PARENTS = TimelineAnalyzer.executionParents(
+            List.of(fork(1L, List.of(2, 3))),
+            List.of(execution(501L, 1L), execution(502L, 2L), execution(503L, 3L)));
+
+    @Test
+    void testParentsFromForkEvents() {
+        assertEquals(Map.of(502L, 501L, 503L, 501L), PARENTS);
+        // 没有执行行的引擎执行无法换算，忽略
+        assertEquals(Map.of(), TimelineAnalyzer.executionParents(List.of(fork(1L, List.of(2, 3))),
+                List.of(execution(502L, 2L), execution(503L, 3L))));
+    }
+
+    @Test
+    void testCriticalPathAndOverlap() {
+        AiFlowInstance instance = instance(1L, 13);
+        List<AiTaskInstance> tasks = List.of(
+                task(11L, 501L, "A", 0, 0, 2),
+                task(12L, 502L, "B", 2, 2, 10),
+                task(13L, 503L, "C", 2, 3, 5),
+                task(14L, 501L, "D", 10, 11, 12),
+                // 未执行的任务不参与分析
+                task(15L, 501L, "E", 12, -1, -1));
+
+        InstanceAnalysis analysis = TimelineAnalyzer.analyze(instance, tasks, PARENTS);
+
+        assertEquals(4, analysis.getTaskCount());
+        assertEquals(13_000, analysis.getDurationMillis());
+        assertEquals(List.of(11L, 12L, 14L), analysis.getCriticalPath());
+        assertEquals(12_000, analysis.getCriticalPathMillis());
+        assertEquals(11_000, analysis.getCriticalRunMillis());
+        assertEquals(1_000, analysis.getCriticalWaitMillis());
+        assertEquals(0, analysis.getCriticalGapMillis());
+        assertEquals(1_000, analysis.getTailMillis());
+        assertEquals(1.0, analysis.getAverageParallelism());
+
+        Map<String, InstanceAnalysis.NodeTiming> nodes = byKey(analysis);
+        assertEquals(List.of(11L, 12L, 13L), nodes.get("D").getPredecessors());
+        assertEquals(List.of(11L), nodes.get("C").getPredecessors());
+        assertEquals(1_000, nodes.get("C").getWaitMillis());
+        assertEquals(2_000, nodes.get("C").getRunMillis());
+        assertFalse(nodes.get("C").isCritical());
+
+        InstanceAnalysis.ParallelSection section = analysis.getParallelSections().get(0);
+        assertEquals("A", section.getForkTaskKey());
+        assertEquals(8_000, section.getSpanMillis());
+        assertEquals(1.0, section.getOverlapRatio());
+        assertEquals(1.25, section.getParallelism());
+        InstanceAnalysis.Branch shorter = section.getBranches().get(1);
+        assertEquals("C", shorter.getFirstTaskKey());
+        assertEquals(5_000, shorter.getSlackMillis());
+        assertFalse(shorter.isCritical());
+    }
+
+    @Test
+    void testSerializedBranchesAndAggregate() {
+        // 两个分支同时创建，但 C 等 B 执行完才开始：分支区间重叠，执行实际串行
+        AiFlowInstance serialized = instance(2L, 9);
+        InstanceAnalysis analysis = TimelineAnalyzer.analyze(serialized, List.of(
+                task(21L, 501L, "A", 0, 0, 2),
+                task(22L, 502L, "B", 2, 2, 5),
+                task(23L, 503L, "C", 2, 5, 8),
+                task(24L, 501L, "D", 8, 8, 9)), PARENTS);
+
+        InstanceAnalysis.ParallelSection section = analysis.getParallelSections().get(0);
+        assertEquals(0.0, section.getOverlapRatio());
+        assertEquals(1.0, section.getParallelism());
+        assertEquals(List.of(21L, 23L, 24L), analysis.getCriticalPath());
+        assertEquals(3_000, byKey(analysis).get("C").getWaitMillis());
+
+        InstanceAnalysis parallel = TimelineAnalyzer.analyze(instance(1L, 13), List.of(
+                task(11L, 501L, "A", 0, 0, 2),
+                task(12L, 502L, "B", 2, 2, 10),
+                task(13L, 503L, "C", 2, 3, 5),
+                task(14L, 501L, "D", 10, 11, 12)), PARENTS);
+
+        DefinitionAnalysis summary = TimelineAnalyzer.aggregate(100L, List.of(parallel, analysis));
+        assertEquals(2, summary.getInstanceCount());
+        assertEquals(11_000, summary.getAvgDurationMillis());
+        assertEquals(13_000, summary.getP95DurationMillis());
+        // B 只在一个实例的关键路径上，但贡献最多
+        DefinitionAnalysis.NodeStats top = summary.getNodes().get(0);
+        assertEquals("B", top.getTaskKey());
+        assertEquals(8_000, top.getCriticalMillis());
+        assertEquals(0.5, top.getCriticalRate());
+        Map<String, DefinitionAnalysis.NodeStats> nodes = summary.getNodes().stream()
+                .collect(Collectors.toMap(DefinitionAnalysis.NodeStats::getTaskKey, Function.identity()));
+        assertEquals(1.0, nodes.get("A").getCriticalRate());
+        assertEquals(2_000, nodes.get("C").getAvgWaitMillis());
+        DefinitionAnalysis.ParallelStats fork = summary.getParallelSections().get(0);
+        assertEquals("A", fork.getForkTaskKey());
+        assertEquals(2, fork.getOccurrences());
+        assertEquals(0.5, fork.getAvgOverlapRatio());
+    }
+
+    @Test
+    void testWithoutExecutionTree() {
+        // 没有分叉记录时只按执行内的顺序分析
+        InstanceAnalysis analysis = TimelineAnalyzer.analyze(instance(3L, 5), List.of(
+                task(31L, 1L, "A", 0, 1, 2),
+                task(32L, 1L, "B", 3, 3, 5)), Map.of());
+        assertEquals(List.of(31L, 32L), analysis.getCriticalPath());
+        assertEquals(1_000, analysis.getCriticalGapMillis());
+        assertEquals(1_000, analysis.getCriticalWaitMillis());
+        assertTrue(analysis.getParallelSections().isEmpty());
+    }
+
+    private static Map<String, InstanceAnalysis.NodeTiming> byKey(InstanceAnalysis analysis) {
+        return analysis.getNodes().stream()
+                .collect(Collectors.toMap(InstanceAnalysis.NodeTiming::getTaskKey, Function.identity()));
+    }
+
+    private static AiFlowInstance instance(Long id, int endSecond) {
+        AiFlowInstance instance = new AiFlowInstance();
+        instance.setId(id);
+        instance.setFlowDefinitionId(100L);
+        instance.setStatus("COMPLETED");
+        instance.setStartTime(T0);
+        instance.setEndTime(T0.plusSeconds(endSecond));
+        return instance;
+    }
+
+    private static AiFlowExecution execution(Long id, Long engineExecutionId) {
+        AiFlowExecution execution = new AiFlowExecution();
+        execution.setId(id);
+        execution.setEngineExecutionId(engineExecutionId);
+        return execution;
+    }
+
+    /**
+     * 与 JournalRecorder 记录的分叉事件相同：执行ID为父执行，payload.children 为子执行(反序列化后是 Integer)
+     */
+    private static AiInstanceEvent fork(Long executionId, List<Integer> children) {
+        AiInstanceEvent event = new AiInstanceEvent();
+        event.setEventType(JournalEventType.EXECUTION_FORKED.name());
+        event.setExecutionId(executionId);
+        event.setNodeKey("fork");
+        event.setPayload(Map.of("children", children));
+        return event;
+    }
+
+    /**
+     * 时间为相对 T0 的秒数，负数表示没有
+     */
+    private static AiTaskInstance task(Long id, Long executionId, String key, int created, int started, int ended) {
+        AiTaskInstance task = new AiTaskInstance();
+        task.setId(id);
+        task.setExecutionId(executionId);
+        task.setTaskKey(key);
+        task.setTaskType("SERVICE_TASK");
+        task.setStatus(ended >= 0 ? "COMPLETED" : "READY");
+        task.setCreateAt(T0.plusSeconds(created));
+        task.setStartTime(started >= 0 ? T0.plusSeconds(started) : null);
+        task.setEndTime(ended >= 0 ? T0.plusSeconds(ended) : null);
+        return task;
+    }
+}
@@ -0,0 +1,96 @@
+package com.aiworkflow.service.definition.archive;
+
+import com.aiworkflow.service.definition.mapper.InstanceArchiveMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * InstanceArchiver 测试
+ */
+class InstanceArchiverTest {
+
+    private final InstanceArchiveMapper mapper = mock(InstanceArchiveMapper.class);
+
+    private InstanceArchiver archiver;
+
+    private InstanceArchiver newArchiver() {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setBatchSize(2);
+        properties.setPauseBetweenBatches(Duration.ZERO);
+        archiver = new InstanceArchiver(mapper, TransactionOperations.withoutTransaction(), properties);
+        return archiver;
+    }
+
+    @AfterEach
+    void tearDown() {
+        archiver.shutdown();
+    }
+
+    @Test
+    void testArchivesInBatchesByIdOrder() {
+        InstanceArchiver archiver = newArchiver();
+        when(mapper.selectArchivableIds(any(), eq(0L), eq(2))).thenReturn(List.of(1L, 2L));
+        when(mapper.selectArchivableIds(any(), eq(2L), eq(2))).thenReturn(List.of(5L));
+        when(mapper.copyInstances(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+        when(mapper.deleteInstances(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+        when(mapper.copyTasks(anyList())).thenReturn(3);
+        when(mapper.copyEvents(anyList())).thenReturn(10);
+
+        assertEquals(3, archiver.archive());
+
+        // 先迁入再删除，子表先于主表删除
+        InOrder order = inOrder(mapper);
+        order.verify(mapper).copyInstances(List.of(1L, 2L));
+        order.verify(mapper).copyExecutions(List.of(1L, 2L));
+        order.verify(mapper).copyTasks(List.of(1L, 2L));
+        order.verify(mapper).copyEvents(List.of(1L, 2L));
+        order.verify(mapper).deleteEvents(List.of(1L, 2L));
+        order.verify(mapper).deleteSnapshots(List.of(1L, 2L));
+        order.verify(mapper).deleteTasks(List.of(1L, 2L));
+        order.verify(mapper).deleteExecutions(List.of(1L, 2L));
+        order.verify(mapper).deleteVariableIndex(List.of(1L, 2L));
+        order.verify(mapper).deleteInstances(List.of(1L, 2L));
+        order.verify(mapper).copyInstances(List.of(5L));
+        // 最后一批不满，不再继续查询
+        verify(mapper, times(2)).selectArchivableIds(any(), anyLong(), anyInt());
+        assertEquals(3L, archiver.getStats().get("archivedInstances"));
+        assertEquals(6L, archiver.getStats().get("archivedTasks"));
+        assertEquals(20L, archiver.getStats().get("archivedEvents"));
+    }
+
+    @Test
+    void testRetentionCutoff() {
+        InstanceArchiver archiver = newArchiver();
+        when(mapper.selectArchivableIds(any(), anyLong(), anyInt())).thenReturn(List.of());
+        LocalDateTime before = LocalDateTime.now().minusDays(30);
+
+        assertEquals(0, archiver.archive());
+
+        verify(mapper).selectArchivableIds(argThat(cutoff -> !cutoff.isBefore(before)
+                && cutoff.isBefore(LocalDateTime.now().minusDays(29))), eq(0L), eq(2));
+        verify(mapper, never()).copyInstances(anyList());
+    }
+
+    @Test
+    void testMismatchedBatchFails() {
+        InstanceArchiver archiver = newArchiver();
+        when(mapper.selectArchivableIds(any(), anyLong(), anyInt())).thenReturn(List.of(1L, 2L));
+        when(mapper.copyInstances(anyList())).thenReturn(2);
+        // 期间有实例状态被改动，删除数少于迁入数
+        when(mapper.deleteInstances(anyList())).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, archiver::archive);
+        assertEquals(1L, archiver.getStats().get("failures"));
+        assertEquals(0L, archiver.getStats().get("archivedInstances"));
+    }
+}
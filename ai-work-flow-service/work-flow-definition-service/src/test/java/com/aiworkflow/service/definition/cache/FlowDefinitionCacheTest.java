@@ -0,0 +1,129 @@
+package com.aiworkflow.service.definition.cache;
+
+import com.aiworkflow.service.definition.entity.AiFlowDefinition;
+import com.aiworkflow.service.definition.mapper.AiFlowDefinitionMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * FlowDefinitionCache 测试
+ */
+class FlowDefinitionCacheTest {
+
+    private final AiFlowDefinitionMapper mapper = mock(AiFlowDefinitionMapper.class);
+
+    private final FlowDefinitionCache cache = new FlowDefinitionCache(mapper, manualSync());
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void testRepeatedGetHitsCache() {
+        when(mapper.selectByFlowKeyAndVersion("order", 1)).thenReturn(definition(1L, "order", 1, "ACTIVE"));
+
+        CompiledDefinition first = cache.get("order", 1);
+        CompiledDefinition second = cache.get("order", 1);
+
+        assertSame(first, second);
+        assertEquals(3, first.graph().nodeCount());
+        verify(mapper, times(1)).selectByFlowKeyAndVersion("order", 1);
+        assertEquals(1L, cache.getStats().get("hitCount"));
+    }
+
+    @Test
+    void testLatestActiveAndInvalidate() {
+        when(mapper.selectLatestActiveVersion("order")).thenReturn(2);
+        when(mapper.selectByFlowKeyAndVersion("order", 2)).thenReturn(definition(2L, "order", 2, "ACTIVE"));
+
+        assertEquals(2, cache.getLatestActive("order").version());
+        assertEquals(2, cache.getLatestActive("order").version());
+        verify(mapper, times(1)).selectLatestActiveVersion("order");
+
+        // 下线后重新查询，不再返回该版本
+        when(mapper.selectByFlowKeyAndVersion("order", 2)).thenReturn(definition(2L, "order", 2, "INACTIVE"));
+        when(mapper.selectLatestActiveVersion("order")).thenReturn(null);
+        cache.invalidate("order", 2);
+
+        assertNull(cache.getLatestActive("order"));
+        assertEquals("INACTIVE", cache.get("order", 2).status());
+        assertEquals(1L, cache.getStats().get("invalidationCount"));
+    }
+
+    @Test
+    void testChangesOnOtherNodesAreSynced() {
+        LocalDateTime t1 = LocalDateTime.of(2024, 5, 1, 8, 0, 1);
+        when(mapper.selectLatestUpdateAt()).thenReturn(t1);
+        assertEquals(0, cache.syncChanges());
+        when(mapper.selectLatestActiveVersion("order")).thenReturn(2);
+        when(mapper.selectByFlowKeyAndVersion("order", 2)).thenReturn(definition(2L, "order", 2, "ACTIVE"));
+        assertEquals(2, cache.getLatestActive("order").version());
+
+        // 其他节点在同一秒内下线了 v2，本节点没有调用 invalidate
+        when(mapper.selectChangedSince(t1)).thenReturn(List.of(changed("order", 2, "INACTIVE", t1)));
+        when(mapper.selectByFlowKeyAndVersion("order", 2)).thenReturn(definition(2L, "order", 2, "INACTIVE"));
+        when(mapper.selectLatestActiveVersion("order")).thenReturn(null);
+        assertEquals(1, cache.syncChanges());
+        assertNull(cache.getLatestActive("order"));
+
+        // 同一变更不重复失效
+        assertEquals(0, cache.syncChanges());
+        assertEquals(1L, cache.getStats().get("syncedChanges"));
+    }
+
+    @Test
+    void testDraftIsNotCached() {
+        when(mapper.selectByFlowKeyAndVersion("order", 3)).thenReturn(definition(3L, "order", 3, "DRAFT"));
+
+        cache.get("order", 3);
+        cache.get("order", 3);
+
+        verify(mapper, times(2)).selectByFlowKeyAndVersion("order", 3);
+    }
+
+    @Test
+    void testMissingDefinition() {
+        assertNull(cache.get("missing", 1));
+        assertNull(cache.getLatestActive("missing"));
+    }
+
+    private static DefinitionCacheProperties manualSync() {
+        // 由测试手动触发同步
+        DefinitionCacheProperties properties = new DefinitionCacheProperties();
+        properties.setSyncInterval(Duration.ZERO);
+        return properties;
+    }
+
+    private static AiFlowDefinition changed(String flowKey, int version, String status, LocalDateTime updateAt) {
+        AiFlowDefinition definition = new AiFlowDefinition();
+        definition.setFlowKey(flowKey);
+        definition.setVersion(version);
+        definition.setStatus(status);
+        definition.setUpdateAt(updateAt);
+        return definition;
+    }
+
+    private static AiFlowDefinition definition(Long id, String flowKey, int version, String status) {
+        AiFlowDefinition definition = new AiFlowDefinition();
+        definition.setId(id);
+        definition.setFlowKey(flowKey);
+        definition.setVersion(version);
+        definition.setStatus(status);
+        definition.setFlowModel(Map.of("key", flowKey, "flowElements", List.of(
+                Map.of("type", "START_EVENT", "key", "start"),
+                Map.of("type", "LLM_AGENT", "key", "agent", "config", Map.of("model", "gpt-4")),
+                Map.of("type", "END_EVENT", "key", "end"),
+                Map.of("type", "SEQUENCE_FLOW", "key", "f1", "sourceRef", "start", "targetRef", "agent"),
+                Map.of("type", "SEQUENCE_FLOW", "key", "f2", "sourceRef", "agent", "targetRef", "end"))));
+        return definition;
+    }
+}
@@ -0,0 +1,272 @@
+package com.aiworkflow.service.definition.journal;
+
+import com.aiworkflow.engine.core.context.ContextDelta;
+import com.aiworkflow.engine.core.journal.JournalEventType;
+import com.aiworkflow.engine.core.model.SearchableVariable;
+import com.aiworkflow.engine.core.model.VariableType;
+import com.aiworkflow.engine.journal.entity.AiInstanceEvent;
+import com.aiworkflow.engine.journal.mapper.InstanceJournalMapper;
+import com.aiworkflow.service.definition.cache.FlowDefinitionCache;
+import com.aiworkflow.service.definition.entity.AiFlowExecution;
+import com.aiworkflow.service.definition.entity.AiFlowInstance;
+import com.aiworkflow.service.definition.entity.AiInstanceVariableIndex;
+import com.aiworkflow.service.definition.entity.AiTaskInstance;
+import com.aiworkflow.service.definition.mapper.AiFlowDefinitionMapper;
+import com.aiworkflow.service.definition.mapper.AiFlowExecutionMapper;
+import com.aiworkflow.service.definition.mapper.AiFlowInstanceMapper;
+import com.aiworkflow.service.definition.mapper.AiTaskInstanceMapper;
+import com.aiworkflow.service.definition.mapper.InstanceVariableIndexMapper;
+import com.aiworkflow.service.definition.enums.TaskStatus;
+import com.aiworkflow.service.definition.persistence.ContextPatchWriter;
+import com.aiworkflow.service.definition.persistence.TaskStateWriter;
+import com.aiworkflow.service.definition.persistence.TaskTransition;
+import com.aiworkflow.service.definition.variable.VariableIndexer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * InstanceProjector 测试
+ */
+class InstanceProjectorTest {
+
+    private final InstanceJournalMapper journalMapper = mock(InstanceJournalMapper.class);
+
+    private final AiFlowInstanceMapper instanceMapper = mock(AiFlowInstanceMapper.class);
+
+    private final AiFlowExecutionMapper executionMapper = mock(AiFlowExecutionMapper.class);
+
+    private final AiTaskInstanceMapper taskMapper = mock(AiTaskInstanceMapper.class);
+
+    private final TaskStateWriter taskStateWriter = mock(TaskStateWriter.class);
+
+    private final ContextPatchWriter contextPatchWriter = mock(ContextPatchWriter.class);
+
+    private final InstanceProjector projector = new InstanceProjector(journalMapper, instanceMapper, executionMapper,
+            taskMapper, taskStateWriter, contextPatchWriter, TransactionOperations.withoutTransaction(), manualProperties());
+
+    private final List<AiFlowExecution> insertedExecutions = new ArrayList<>();
+
+    private long nextId;
+
+    @AfterEach
+    void tearDown() {
+        projector.shutdown();
+    }
+
+    @Test
+    void testBatchIsCoalescedAndCheckpointed() {
+        // 实例已投影到 seq 2，根执行(引擎内 1)已有执行行 500
+        when(instanceMapper.selectProjectionState(7L)).thenReturn(instance(7L, 2));
+        when(executionMapper.selectIdByEngineExecutionId(7L, 1L)).thenReturn(500L);
+        when(taskMapper.selectRunningTaskId(7L, 500L, "b")).thenReturn(100L);
+        when(journalMapper.selectCheckpointForUpdate(InstanceProjector.CHECKPOINT)).thenReturn(0L);
+
+        List<AiInstanceEvent> events = new ArrayList<>();
+        // 上一轮已投影、本轮重新扫描到的事件
+        events.add(event(7L, 2, JournalEventType.TOKEN_MOVED, 1L, "b", null));
+        events.add(event(7L, 3, JournalEventType.TOKEN_MOVED, 1L, "a", null));
+        events.add(event(7L, 4, JournalEventType.TASK_STARTED, 1L, "a", Map.of("name", "A", "taskType", "SERVICE_TASK")));
+        events.add(event(7L, 5, JournalEventType.VARIABLES_SET, 1L, null, Map.of("set", Map.of("x", 1, "y", 2), "removed", List.of())));
+        events.add(event(7L, 6, JournalEventType.VARIABLES_SET, 1L, null, Map.of("set", Map.of("x", 3), "removed", List.of("y"))));
+        events.add(event(7L, 7, JournalEventType.TASK_COMPLETED, 1L, "a", Map.of("output", Map.of("x", 3))));
+        // 更早批次中开始的任务
+        events.add(event(7L, 8, JournalEventType.TASK_COMPLETED, 1L, "b", Map.of("output", Map.of("y", 2))));
+        events.add(event(7L, 9, JournalEventType.TOKEN_MOVED, 1L, "end", null));
+        events.add(event(7L, 10, JournalEventType.INSTANCE_ENDED, null, null, Map.of("status", "COMPLETED")));
+        // 没有实例行的事件不投影
+        events.add(event(8L, 1, JournalEventType.TOKEN_MOVED, 1L, "a", null));
+        when(journalMapper.selectEventsAfterId(0L, 500)).thenReturn(events);
+        when(journalMapper.selectSettledEventId(0L, 10L, 10L)).thenReturn(10L);
+
+        assertEquals(10, projector.project());
+
+        // 同一批内开始并完成的任务直接以终态插入，任务指向执行行
+        ArgumentCaptor<List<AiTaskInstance>> inserted = ArgumentCaptor.captor();
+        verify(taskMapper).insertBatch(inserted.capture());
+        AiTaskInstance task = inserted.getValue().get(0);
+        assertEquals("A", task.getTaskName());
+        assertEquals("COMPLETED", task.getStatus());
+        assertEquals(500L, task.getExecutionId());
+        assertEquals(Map.of("x", 3), task.getOutputData());
+        // 更早批次的任务经延迟写组件在投影事务内写出
+        ArgumentCaptor<List<TaskTransition>> transitions = ArgumentCaptor.captor();
+        verify(taskStateWriter).submitAll(transitions.capture());
+        TaskTransition transition = transitions.getValue().get(0);
+        assertEquals(100L, transition.taskId());
+        assertEquals(TaskStatus.COMPLETED, transition.status());
+        assertEquals(Map.of("y", 2), transition.outputData());
+        verify(taskMapper, never()).updateTransition(anyLong(), any(), anyInt(), any(), any(), any(), any());
+
+        // 多次移动只写最后一次，变量变化合并为一个增量
+        verify(instanceMapper).updateCurrentActivity(7L, "end");
+        verify(executionMapper).updateActivity(500L, "end");
+        verify(instanceMapper, never()).updateCurrentActivity(eq(8L), any());
+        ArgumentCaptor<ContextDelta> delta = ArgumentCaptor.forClass(ContextDelta.class);
+        verify(contextPatchWriter).write(eq(7L), eq(3L), delta.capture());
+        assertEquals(Map.of("x", 3), delta.getValue().getSet());
+        assertEquals(List.of("y"), List.copyOf(delta.getValue().getRemoved()));
+        verify(instanceMapper).updateEnded(eq(7L), eq("COMPLETED"), any(), isNull());
+        verify(executionMapper).deactivateByFlowInstanceId(7L);
+
+        verify(instanceMapper).updateProjectedSeq(7L, 10L);
+        verify(journalMapper).updateCheckpoint(InstanceProjector.CHECKPOINT, 10L);
+        assertEquals(8L, projector.getStats().get("projectedEvents"));
+        assertEquals(1L, projector.getStats().get("duplicateEvents"));
+        assertEquals(1L, projector.getStats().get("skippedEvents"));
+    }
+
+    @Test
+    void testForkIsProjectedAndGapHoldsCheckpoint() {
+        when(instanceMapper.selectProjectionState(9L)).thenReturn(instance(9L, 0));
+        when(executionMapper.selectIdByEngineExecutionId(eq(9L), anyLong())).thenReturn(null);
+        doAnswer(invocation -> {
+            AiFlowExecution execution = invocation.getArgument(0);
+            execution.setId(600L + insertedExecutions.size());
+            insertedExecutions.add(execution);
+            return 1;
+        }).when(executionMapper).insert(any(AiFlowExecution.class));
+        when(journalMapper.selectCheckpointForUpdate(InstanceProjector.CHECKPOINT)).thenReturn(0L);
+
+        List<AiInstanceEvent> events = List.of(
+                event(9L, 1, JournalEventType.INSTANCE_STARTED, 1L, null, Map.of("variables", Map.of())),
+                event(9L, 2, JournalEventType.EXECUTION_FORKED, 1L, "fork", Map.of("children", List.of(2, 3))),
+                event(9L, 3, JournalEventType.TASK_STARTED, 2L, "a", Map.of("name", "A", "taskType", "SERVICE_TASK")),
+                // seq 4 还不可见
+                event(9L, 5, JournalEventType.TASK_STARTED, 3L, "b", Map.of("name", "B", "taskType", "SERVICE_TASK")));
+        when(journalMapper.selectEventsAfterId(0L, 500)).thenReturn(events);
+        when(journalMapper.selectSettledEventId(anyLong(), anyLong(), anyLong())).thenReturn(null);
+
+        assertEquals(4, projector.project());
+
+        // 根执行在启动时创建，分支执行挂在根执行下
+        assertEquals(3, insertedExecutions.size());
+        AiFlowExecution root = insertedExecutions.get(0);
+        assertEquals(1L, root.getEngineExecutionId());
+        assertNull(root.getParentExecutionId());
+        AiFlowExecution branch = insertedExecutions.get(1);
+        assertEquals(2L, branch.getEngineExecutionId());
+        assertEquals(600L, branch.getParentExecutionId());
+        assertTrue(branch.getIsConcurrent());
+        verify(executionMapper).updateActive(600L, false, "fork");
+
+        ArgumentCaptor<List<AiTaskInstance>> inserted = ArgumentCaptor.captor();
+        verify(taskMapper).insertBatch(inserted.capture());
+        assertEquals(1, inserted.getValue().size());
+        assertEquals(601L, inserted.getValue().get(0).getExecutionId());
+        assertEquals("RUNNING", inserted.getValue().get(0).getStatus());
+
+        // 序号空洞之后的事件留到下一轮，全局进度不越过它
+        verify(instanceMapper).updateProjectedSeq(9L, 3L);
+        verify(journalMapper).selectSettledEventId(0L, 3L, 10L);
+        verify(journalMapper, never()).updateCheckpoint(any(), anyLong());
+        assertEquals(1L, projector.getStats().get("heldEvents"));
+    }
+
+    @Test
+    void testForkReusesChildRowProjectedBeforeIt() {
+        when(instanceMapper.selectProjectionState(9L)).thenReturn(instance(9L, 0));
+        when(executionMapper.selectIdByEngineExecutionId(eq(9L), anyLong())).thenReturn(null);
+        doAnswer(invocation -> {
+            AiFlowExecution execution = invocation.getArgument(0);
+            execution.setId(600L + insertedExecutions.size());
+            insertedExecutions.add(execution);
+            return 1;
+        }).when(executionMapper).insert(any(AiFlowExecution.class));
+        when(journalMapper.selectCheckpointForUpdate(InstanceProjector.CHECKPOINT)).thenReturn(0L);
+        // 子执行 2 的事件排在分叉之前
+        when(journalMapper.selectEventsAfterId(0L, 500)).thenReturn(List.of(
+                event(9L, 1, JournalEventType.INSTANCE_STARTED, 1L, null, Map.of("variables", Map.of())),
+                event(9L, 2, JournalEventType.TOKEN_MOVED, 2L, "a", null),
+                event(9L, 3, JournalEventType.EXECUTION_FORKED, 1L, "fork", Map.of("children", List.of(2, 3)))));
+        when(journalMapper.selectSettledEventId(anyLong(), anyLong(), anyLong())).thenReturn(null);
+
+        assertEquals(3, projector.project());
+
+        // 每个引擎执行只有一行，先建出的子执行行改挂到父执行下
+        assertEquals(List.of(1L, 2L, 3L), insertedExecutions.stream().map(AiFlowExecution::getEngineExecutionId).toList());
+        verify(executionMapper).updateParent(601L, 600L, true);
+        assertEquals(600L, insertedExecutions.get(2).getParentExecutionId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStartVariablesAreWrittenAndIndexed() {
+        // 上下文增量写和变量索引用真实组件，只模拟最底层的映射器
+        InstanceVariableIndexMapper indexMapper = mock(InstanceVariableIndexMapper.class);
+        VariableIndexer indexer = spy(new VariableIndexer(indexMapper, instanceMapper,
+                mock(AiFlowDefinitionMapper.class), mock(FlowDefinitionCache.class)));
+        doReturn(List.of(new SearchableVariable("customer_id", VariableType.STRING)))
+                .when(indexer).declarationsOf(3L);
+        ContextPatchWriter patchWriter = new ContextPatchWriter(instanceMapper, indexer,
+                TransactionOperations.withoutTransaction());
+        InstanceProjector projector = new InstanceProjector(journalMapper, instanceMapper, executionMapper, taskMapper,
+                taskStateWriter, patchWriter, TransactionOperations.withoutTransaction(), manualProperties());
+
+        when(instanceMapper.selectProjectionState(9L)).thenReturn(instance(9L, 0));
+        when(executionMapper.selectIdByEngineExecutionId(eq(9L), anyLong())).thenReturn(null);
+        when(journalMapper.selectCheckpointForUpdate(InstanceProjector.CHECKPOINT)).thenReturn(0L);
+        when(journalMapper.selectEventsAfterId(0L, 500)).thenReturn(List.of(
+                event(9L, 1, JournalEventType.INSTANCE_STARTED, 1L, null,
+                        Map.of("variables", Map.of("customer_id", "c-1", "note", "x"))),
+                event(9L, 2, JournalEventType.VARIABLES_SET, 1L, null,
+                        Map.of("set", Map.of("answer", 42), "removed", List.of("note")))));
+        when(journalMapper.selectSettledEventId(anyLong(), anyLong(), anyLong())).thenReturn(null);
+
+        try {
+            assertEquals(2, projector.project());
+        } finally {
+            projector.shutdown();
+        }
+
+        // 启动变量和之后的变化合并为一次补丁
+        ArgumentCaptor<Map<String, String>> values = ArgumentCaptor.forClass(Map.class);
+        verify(instanceMapper).patchContextVariables(eq(9L), values.capture(), eq(List.of("$.variables.\"note\"")));
+        assertEquals(Map.of("$.variables.\"customer_id\"", "\"c-1\"", "$.variables.\"answer\"", "42"),
+                values.getValue());
+        ArgumentCaptor<List<AiInstanceVariableIndex>> rows = ArgumentCaptor.forClass(List.class);
+        verify(indexMapper).upsert(rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals("customer_id", rows.getValue().get(0).getName());
+        assertEquals("c-1", rows.getValue().get(0).getStringValue());
+    }
+
+    private static JournalProperties manualProperties() {
+        // 由测试手动触发投影
+        JournalProperties properties = new JournalProperties();
+        properties.setProjectorEnabled(false);
+        return properties;
+    }
+
+    private static AiFlowInstance instance(Long id, long projectedSeq) {
+        AiFlowInstance instance = new AiFlowInstance();
+        instance.setId(id);
+        instance.setFlowDefinitionId(3L);
+        instance.setProjectedSeq(projectedSeq);
+        return instance;
+    }
+
+    private AiInstanceEvent event(long instanceId, long seq, JournalEventType type, Long executionId, String nodeKey,
+                                  Map<String, Object> payload) {
+        AiInstanceEvent event = new AiInstanceEvent();
+        event.setId(++nextId);
+        event.setInstanceId(instanceId);
+        event.setSeq(seq);
+        event.setEventType(type.name());
+        event.setExecutionId(executionId);
+        event.setNodeKey(nodeKey);
+        event.setPayload(payload);
+        event.setEventTime(LocalDateTime.now());
+        return event;
+    }
+}
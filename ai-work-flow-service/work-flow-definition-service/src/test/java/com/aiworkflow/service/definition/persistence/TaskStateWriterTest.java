@@ -0,0 +1,132 @@
+package com.aiworkflow.service.definition.persistence;
+
+import com.aiworkflow.service.definition.mapper.AiTaskInstanceMapper;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TaskStateWriter 测试
+ */
+class TaskStateWriterTest {
+
+    private final AiTaskInstanceMapper mapper = mock(AiTaskInstanceMapper.class);
+
+    private final SqlSession session = mock(SqlSession.class);
+
+    private final SqlSessionFactory sessionFactory = mock(SqlSessionFactory.class);
+
+    private TaskStateWriter writer;
+
+    private TaskStateWriter newWriter(boolean syncTerminal) {
+        when(sessionFactory.openSession(ExecutorType.BATCH, false)).thenReturn(session);
+        when(session.getMapper(AiTaskInstanceMapper.class)).thenReturn(mapper);
+        TaskWriteBehindProperties properties = new TaskWriteBehindProperties();
+        // 定时刷写间隔调大，由测试手动触发
+        properties.setFlushInterval(Duration.ofHours(1));
+        properties.setSyncTerminal(syncTerminal);
+        writer = new TaskStateWriter(sessionFactory, properties);
+        return writer;
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    void testTransitionsCoalescePerTask() {
+        TaskStateWriter writer = newWriter(false);
+        LocalDateTime start = LocalDateTime.now();
+        writer.submit(TaskTransition.ready(1L));
+        writer.submit(TaskTransition.running(1L, start));
+        writer.submit(TaskTransition.ready(2L));
+        writer.submit(TaskTransition.completed(1L, start.plusSeconds(3), Map.of("answer", 42)));
+
+        assertEquals(2, writer.flush());
+
+        verify(mapper).updateTransition(1L, "COMPLETED", 4, start, start.plusSeconds(3), Map.of("answer", 42), null);
+        verify(mapper).updateTransition(eq(2L), eq("READY"), eq(2), isNull(), isNull(), isNull(), isNull());
+        verify(session).commit();
+        assertEquals(2L, writer.getStats().get("coalesced"));
+    }
+
+    @Test
+    void testLateLowerStatusDoesNotRegress() {
+        TaskStateWriter writer = newWriter(false);
+        writer.submit(TaskTransition.running(1L, LocalDateTime.now()));
+        writer.submit(TaskTransition.ready(1L));
+        writer.flush();
+
+        verify(mapper).updateTransition(eq(1L), eq("RUNNING"), eq(3), any(), isNull(), isNull(), isNull());
+    }
+
+    @Test
+    void testTerminalFlushesSynchronously() {
+        TaskStateWriter writer = newWriter(true);
+        writer.submit(TaskTransition.running(1L, LocalDateTime.now()));
+        assertEquals(1, writer.getPendingCount());
+
+        writer.submit(TaskTransition.failed(1L, LocalDateTime.now(), Map.of("message", "超时")));
+
+        assertEquals(0, writer.getPendingCount());
+        InOrder order = inOrder(mapper, session);
+        order.verify(mapper).updateTransition(eq(1L), eq("FAILED"), eq(4), any(), any(), isNull(), any());
+        order.verify(session).commit();
+    }
+
+    @Test
+    void testTerminalFlushesOnlyItsTask() {
+        TaskStateWriter writer = newWriter(true);
+        writer.submit(TaskTransition.running(1L, LocalDateTime.now()));
+        writer.submit(TaskTransition.completed(2L, LocalDateTime.now(), null));
+
+        verify(mapper).updateTransition(eq(2L), eq("COMPLETED"), eq(4), any(), any(), isNull(), isNull());
+        verify(mapper, never()).updateTransition(eq(1L), any(), anyInt(), any(), any(), any(), any());
+        assertEquals(1, writer.getPendingCount());
+    }
+
+    @Test
+    void testSubmitAllFlushesOnlyGivenTasks() {
+        TaskStateWriter writer = newWriter(false);
+        LocalDateTime start = LocalDateTime.now();
+        writer.submit(TaskTransition.ready(1L));
+        writer.submit(TaskTransition.running(2L, start));
+
+        assertEquals(2, writer.submitAll(List.of(
+                TaskTransition.completed(2L, start.plusSeconds(1), Map.of("x", 1)),
+                TaskTransition.failed(3L, start.plusSeconds(2), Map.of("message", "超时")))));
+
+        verify(mapper).updateTransition(2L, "COMPLETED", 4, start, start.plusSeconds(1), Map.of("x", 1), null);
+        verify(mapper).updateTransition(eq(3L), eq("FAILED"), eq(4), isNull(), any(), isNull(), any());
+        verify(mapper, never()).updateTransition(eq(1L), any(), anyInt(), any(), any(), any(), any());
+        assertEquals(1, writer.getPendingCount());
+    }
+
+    @Test
+    void testFailedFlushIsRetried() {
+        TaskStateWriter writer = newWriter(false);
+        doThrow(new RuntimeException("连接断开")).doNothing().when(session).commit();
+        writer.submit(TaskTransition.ready(1L));
+
+        assertThrows(RuntimeException.class, writer::flush);
+        assertEquals(1, writer.getPendingCount());
+
+        writer.submit(TaskTransition.running(1L, null));
+        assertEquals(1, writer.flush());
+        verify(mapper).updateTransition(eq(1L), eq("RUNNING"), eq(3), isNull(), isNull(), isNull(), isNull());
+        assertEquals(1L, writer.getStats().get("failures"));
+    }
+}
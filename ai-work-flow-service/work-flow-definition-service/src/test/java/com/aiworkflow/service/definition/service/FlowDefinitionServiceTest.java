@@ -0,0 +1,69 @@
+package com.aiworkflow.service.definition.service;
+
+import com.aiworkflow.common.web.exception.BusinessException;
+import com.aiworkflow.common.web.result.ResultCode;
+import com.aiworkflow.engine.core.parser.BpmnImporter;
+import com.aiworkflow.service.definition.cache.FlowDefinitionCache;
+import com.aiworkflow.service.definition.entity.AiFlowDefinition;
+import com.aiworkflow.service.definition.mapper.AiFlowDefinitionMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * FlowDefinitionService 测试
+ */
+class FlowDefinitionServiceTest {
+
+    private static final String BPMN = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <bpmn:definitions xmlns:bpmn="http://www.omg.org/spec/BPMN/20100524/MODEL">
+              <bpmn:process id="order" name="订单">
+                <bpmn:startEvent id="start"/>
+                <bpmn:endEvent id="end"/>
+                <bpmn:sequenceFlow id="f1" sourceRef="start" targetRef="end"/>
+              </bpmn:process>
+            </bpmn:definitions>
+            """;
+
+    private final AiFlowDefinitionMapper mapper = mock(AiFlowDefinitionMapper.class);
+
+    private final FlowDefinitionService service = new FlowDefinitionService(mapper, mock(FlowDefinitionCache.class),
+            new BpmnImporter());
+
+    @Test
+    void testConcurrentImportTakesNextVersion() {
+        // 另一个节点先写入了 v2
+        when(mapper.selectMaxVersion("order")).thenReturn(1, 2);
+        when(mapper.insert(any(AiFlowDefinition.class)))
+                .thenThrow(new DuplicateKeyException("uk_flow_key_version"))
+                .thenReturn(1);
+
+        AiFlowDefinition definition = service.importBpmn(bpmn(), null);
+
+        assertEquals(3, definition.getVersion());
+        verify(mapper, times(2)).insert(any(AiFlowDefinition.class));
+    }
+
+    @Test
+    void testPersistentConflictIsBusinessError() {
+        when(mapper.selectMaxVersion("order")).thenReturn(1);
+        when(mapper.insert(any(AiFlowDefinition.class))).thenThrow(new DuplicateKeyException("uk_flow_key_version"));
+
+        BusinessException e = assertThrows(BusinessException.class, () -> service.importBpmn(bpmn(), null));
+
+        assertEquals(ResultCode.FLOW_DEFINITION_VERSION_CONFLICT.getCode(), e.getCode());
+        verify(mapper, times(3)).insert(any(AiFlowDefinition.class));
+    }
+
+    private static InputStream bpmn() {
+        return new ByteArrayInputStream(BPMN.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,120 @@
+package com.aiworkflow.service.definition.service;
+
+import com.aiworkflow.engine.core.journal.JournalEventType;
+import com.aiworkflow.engine.journal.entity.AiInstanceEvent;
+import com.aiworkflow.engine.journal.mapper.InstanceJournalMapper;
+import com.aiworkflow.service.definition.analysis.InstanceAnalysis;
+import com.aiworkflow.service.definition.cache.FlowDefinitionCache;
+import com.aiworkflow.service.definition.entity.AiFlowExecution;
+import com.aiworkflow.service.definition.entity.AiFlowInstance;
+import com.aiworkflow.service.definition.entity.AiTaskInstance;
+import com.aiworkflow.service.definition.mapper.AiFlowExecutionMapper;
+import com.aiworkflow.service.definition.mapper.AiFlowInstanceMapper;
+import com.aiworkflow.service.definition.mapper.AiTaskInstanceMapper;
+import com.aiworkflow.service.definition.mapper.InstanceArchiveMapper;
+import com.aiworkflow.service.definition.mapper.InstanceVariableIndexMapper;
+import com.aiworkflow.service.definition.variable.VariableIndexer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * InstanceAnalysisService 测试
+ */
+class InstanceAnalysisServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 8, 0);
+
+    private final AiFlowInstanceMapper instanceMapper = mock(AiFlowInstanceMapper.class);
+
+    private final AiFlowExecutionMapper executionMapper = mock(AiFlowExecutionMapper.class);
+
+    private final AiTaskInstanceMapper taskMapper = mock(AiTaskInstanceMapper.class);
+
+    private final InstanceArchiveMapper archiveMapper = mock(InstanceArchiveMapper.class);
+
+    private final InstanceJournalMapper journalMapper = mock(InstanceJournalMapper.class);
+
+    private final InstanceAnalysisService service = new InstanceAnalysisService(
+            new FlowInstanceService(instanceMapper, executionMapper, taskMapper, archiveMapper,
+                    mock(InstanceVariableIndexMapper.class), mock(VariableIndexer.class), mock(FlowDefinitionCache.class)),
+            instanceMapper, taskMapper, executionMapper, journalMapper, archiveMapper);
+
+    @Test
+    void testArchivedInstanceKeepsExecutionTree() {
+        // 热表和事件日志中都已没有该实例，执行、任务和分叉事件都从归档表读
+        when(executionMapper.selectByFlowInstanceId(7L)).thenReturn(List.of());
+        when(taskMapper.selectByFlowInstanceId(7L)).thenReturn(List.of());
+        when(journalMapper.selectEventsByType(anyCollection(), anyString())).thenReturn(List.of());
+        when(archiveMapper.selectArchivedInstance(7L)).thenReturn(instance());
+        when(archiveMapper.selectArchivedExecutions(7L)).thenReturn(List.of(
+                execution(501L, 1L), execution(502L, 2L), execution(503L, 3L)));
+        when(archiveMapper.selectArchivedTasks(7L)).thenReturn(List.of(
+                task(11L, 501L, "A", 0, 2),
+                task(12L, 502L, "B", 2, 10),
+                task(13L, 503L, "C", 2, 5),
+                task(14L, 501L, "D", 10, 12)));
+        when(archiveMapper.selectArchivedEventsByType(7L, JournalEventType.EXECUTION_FORKED.name()))
+                .thenReturn(List.of(fork()));
+
+        InstanceAnalysis analysis = service.analyzeInstance(7L);
+
+        assertEquals(List.of(11L, 12L, 14L), analysis.getCriticalPath());
+        assertEquals(1, analysis.getParallelSections().size());
+        InstanceAnalysis.ParallelSection section = analysis.getParallelSections().get(0);
+        assertEquals(501L, section.getParentExecutionId());
+        assertEquals("A", section.getForkTaskKey());
+        assertEquals(2, section.getBranches().size());
+    }
+
+    private static AiFlowInstance instance() {
+        AiFlowInstance instance = new AiFlowInstance();
+        instance.setId(7L);
+        instance.setFlowDefinitionId(100L);
+        instance.setStatus("COMPLETED");
+        instance.setStartTime(T0);
+        instance.setEndTime(T0.plusSeconds(12));
+        return instance;
+    }
+
+    private static AiFlowExecution execution(Long id, Long engineExecutionId) {
+        AiFlowExecution execution = new AiFlowExecution();
+        execution.setId(id);
+        execution.setFlowInstanceId(7L);
+        execution.setEngineExecutionId(engineExecutionId);
+        return execution;
+    }
+
+    private static AiInstanceEvent fork() {
+        AiInstanceEvent event = new AiInstanceEvent();
+        event.setInstanceId(7L);
+        event.setEventType(JournalEventType.EXECUTION_FORKED.name());
+        event.setExecutionId(1L);
+        event.setNodeKey("fork");
+        event.setPayload(Map.of("children", List.of(2, 3)));
+        return event;
+    }
+
+    /**
+     * 时间为相对 T0 的秒数，创建即开始执行
+     */
+    private static AiTaskInstance task(Long id, Long executionId, String key, int started, int ended) {
+        AiTaskInstance task = new AiTaskInstance();
+        task.setId(id);
+        task.setFlowInstanceId(7L);
+        task.setExecutionId(executionId);
+        task.setTaskKey(key);
+        task.setTaskType("SERVICE_TASK");
+        task.setStatus("COMPLETED");
+        task.setCreateAt(T0.plusSeconds(started));
+        task.setStartTime(T0.plusSeconds(started));
+        task.setEndTime(T0.plusSeconds(ended));
+        return task;
+    }
+}
@@ -0,0 +1,94 @@
+package com.aiworkflow.service.definition.variable;
+
+import com.aiworkflow.engine.core.model.SearchableVariable;
+import com.aiworkflow.engine.core.model.VariableType;
+import com.aiworkflow.service.definition.cache.FlowDefinitionCache;
+import com.aiworkflow.service.definition.entity.AiInstanceVariableIndex;
+import com.aiworkflow.service.definition.mapper.AiFlowDefinitionMapper;
+import com.aiworkflow.service.definition.mapper.AiFlowInstanceMapper;
+import com.aiworkflow.service.definition.mapper.InstanceVariableIndexMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * VariableIndexer / VariableConditions 测试
+ */
+class VariableIndexerTest {
+
+    private static final List<SearchableVariable> DECLARATIONS = List.of(
+            new SearchableVariable("customer_id", VariableType.STRING),
+            new SearchableVariable("amount", VariableType.DECIMAL),
+            new SearchableVariable("retries", VariableType.LONG),
+            new SearchableVariable("due", VariableType.DATE));
+
+    private final InstanceVariableIndexMapper indexMapper = mock(InstanceVariableIndexMapper.class);
+
+    private final VariableIndexer indexer = new VariableIndexer(indexMapper, mock(AiFlowInstanceMapper.class),
+            mock(AiFlowDefinitionMapper.class), mock(FlowDefinitionCache.class));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUpdateWritesOnlyDeclaredAndChangedVariables() {
+        Map<String, Object> changed = new HashMap<>();
+        changed.put("customer_id", "c-1");
+        changed.put("amount", 12.5);
+        changed.put("due", "2026-01-02");
+        changed.put("retries", null);
+        changed.put("note", "未声明");
+
+        indexer.update(7L, DECLARATIONS, changed);
+
+        verify(indexMapper).deleteByNames(7L, List.of("retries"));
+        ArgumentCaptor<List<AiInstanceVariableIndex>> rows = ArgumentCaptor.forClass(List.class);
+        verify(indexMapper).upsert(rows.capture());
+        assertEquals(3, rows.getValue().size());
+        assertEquals("c-1", rows.getValue().get(0).getStringValue());
+        assertEquals(0, new BigDecimal("12.5").compareTo(rows.getValue().get(1).getDecimalValue()));
+        assertEquals(LocalDateTime.of(2026, 1, 2, 0, 0), rows.getValue().get(2).getDateValue());
+        assertEquals("DATE", rows.getValue().get(2).getValueType());
+    }
+
+    @Test
+    void testUnconvertibleValueIsSkipped() {
+        indexer.update(7L, DECLARATIONS, Map.of("retries", "1.5"));
+
+        verify(indexMapper, never()).upsert(anyList());
+        verify(indexMapper, never()).deleteByNames(any(), anyList());
+    }
+
+    @Test
+    void testConditionsAreTypedAndOrderedBySelectivity() {
+        List<VariableCondition> conditions = VariableConditions.resolve(DECLARATIONS, List.of(
+                new VariablePredicate("amount", VariableOperator.GE, "100"),
+                new VariablePredicate("customer_id", VariableOperator.PREFIX, "vip_"),
+                new VariablePredicate("retries", VariableOperator.EQ, 3)));
+
+        assertEquals("retries", conditions.get(0).getName());
+        assertEquals("long_value", conditions.get(0).getColumn());
+        assertEquals(3L, conditions.get(0).getValue());
+        assertEquals("LIKE", conditions.get(1).getOperator());
+        assertEquals("vip\\_%", conditions.get(1).getValue());
+        assertEquals(">=", conditions.get(2).getOperator());
+        assertEquals(new BigDecimal("100"), conditions.get(2).getValue());
+    }
+
+    @Test
+    void testUndeclaredOrMistypedPredicateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> VariableConditions.resolve(DECLARATIONS,
+                List.of(new VariablePredicate("user_id", VariableOperator.EQ, "u1"))));
+        assertThrows(IllegalArgumentException.class, () -> VariableConditions.resolve(DECLARATIONS,
+                List.of(new VariablePredicate("amount", VariableOperator.PREFIX, "1"))));
+        assertThrows(IllegalArgumentException.class, () -> VariableConditions.resolve(DECLARATIONS,
+                List.of(new VariablePredicate("retries", VariableOperator.IN, 3))));
+    }
+}
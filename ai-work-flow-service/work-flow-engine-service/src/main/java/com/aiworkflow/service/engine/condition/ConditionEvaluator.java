@@ -0,0 +1,16 @@
+package com.aiworkflow.service.engine.condition;
+
+import java.util.Map;
+
+/**
+ * 连线条件求值
+ */
+public interface ConditionEvaluator {
+
+    /**
+     * @param expression 连线上的条件表达式(非空)
+     * @param variables  流程变量
+     * @return 条件是否成立
+     */
+    boolean evaluate(String expression, Map<String, Object> variables);
+}
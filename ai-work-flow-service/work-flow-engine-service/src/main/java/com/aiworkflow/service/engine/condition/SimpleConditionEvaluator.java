@@ -0,0 +1,111 @@
+package com.aiworkflow.service.engine.condition;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * 简单条件求值：支持 ${...} 包裹、变量真值判断(flag / !flag)
+ * 以及变量与字面量的比较(==、!=、>、>=、<、<=)，例如 amount > 1000、level == 'VIP'
+ */
+public class SimpleConditionEvaluator implements ConditionEvaluator {
+
+    private static final String[] OPERATORS = {"==", "!=", ">=", "<=", ">", "<"};
+
+    @Override
+    public boolean evaluate(String expression, Map<String, Object> variables) {
+        String expr = unwrap(expression.trim());
+        for (String op : OPERATORS) {
+            int index = expr.indexOf(op);
+            if (index > 0) {
+                Object left = resolve(expr.substring(0, index).trim(), variables);
+                Object right = resolve(expr.substring(index + op.length()).trim(), variables);
+                return compare(op, left, right);
+            }
+        }
+        if (expr.startsWith("!")) {
+            return !truthy(resolve(expr.substring(1).trim(), variables));
+        }
+        return truthy(resolve(expr, variables));
+    }
+
+    private static String unwrap(String expr) {
+        if (expr.startsWith("${") && expr.endsWith("}")) {
+            return expr.substring(2, expr.length() - 1).trim();
+        }
+        return expr;
+    }
+
+    private static Object resolve(String token, Map<String, Object> variables) {
+        if (token.length() >= 2 && (token.startsWith("'") && token.endsWith("'")
+                || token.startsWith("\"") && token.endsWith("\""))) {
+            return token.substring(1, token.length() - 1);
+        }
+        if ("true".equals(token) || "false".equals(token)) {
+            return Boolean.valueOf(token);
+        }
+        if ("null".equals(token)) {
+            return null;
+        }
+        BigDecimal number = toNumber(token);
+        if (number != null) {
+            return number;
+        }
+        return variables.get(token);
+    }
+
+    private static boolean compare(String op, Object left, Object right) {
+        BigDecimal l = toNumber(left);
+        BigDecimal r = toNumber(right);
+        if (l != null && r != null) {
+            int c = l.compareTo(r);
+            return switch (op) {
+                case "==" -> c == 0;
+                case "!=" -> c != 0;
+                case ">=" -> c >= 0;
+                case "<=" -> c <= 0;
+                case ">" -> c > 0;
+                default -> c < 0;
+            };
+        }
+        String ls = left != null ? left.toString() : null;
+        String rs = right != null ? right.toString() : null;
+        return switch (op) {
+            case "==" -> ls == null ? rs == null : ls.equals(rs);
+            case "!=" -> ls == null ? rs != null : !ls.equals(rs);
+            default -> false;
+        };
+    }
+
+    private static BigDecimal toNumber(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString());
+        }
+        if (value instanceof String text && !text.isEmpty()) {
+            char c = text.charAt(0);
+            if (Character.isDigit(c) || (c == '-' && text.length() > 1)) {
+                try {
+                    return new BigDecimal(text);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean truthy(Object value) {
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+        if (value instanceof String text) {
+            return !text.isEmpty() && !"false".equalsIgnoreCase(text);
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue() != 0;
+        }
+        return value != null;
+    }
+}
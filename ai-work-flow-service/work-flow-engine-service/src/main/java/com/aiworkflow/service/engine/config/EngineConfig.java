@@ -0,0 +1,53 @@
+package com.aiworkflow.service.engine.config;
+
+import com.aiworkflow.common.core.metrics.MetricRegistry;
+import com.aiworkflow.common.core.metrics.TraceRecorder;
+import com.aiworkflow.common.core.spi.SPIManager;
+import com.aiworkflow.engine.core.journal.EventJournal;
+import com.aiworkflow.engine.journal.JdbcEventJournal;
+import com.aiworkflow.engine.journal.mapper.InstanceJournalMapper;
+import com.aiworkflow.service.engine.condition.ConditionEvaluator;
+import com.aiworkflow.service.engine.condition.SimpleConditionEvaluator;
+import com.aiworkflow.service.engine.journal.JournalProperties;
+import com.aiworkflow.service.engine.journal.JournalRecorder;
+import com.aiworkflow.service.engine.metrics.MetricsRecorder;
+import com.aiworkflow.service.engine.runtime.EngineListener;
+import com.aiworkflow.service.engine.runtime.FlowEngine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(JournalProperties.class)
+public class EngineConfig {
+
+    @Bean
+    public ConditionEvaluator conditionEvaluator() {
+        return new SimpleConditionEvaluator();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "aiworkflow.engine.journal", name = "enabled", havingValue = "true")
+    public JdbcEventJournal eventJournal(InstanceJournalMapper journalMapper, JournalProperties properties) {
+        return new JdbcEventJournal(journalMapper, properties.getSnapshotsToKeep());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "aiworkflow.engine.journal", name = "enabled", havingValue = "true")
+    public JournalRecorder journalRecorder(EventJournal eventJournal, JournalProperties properties) {
+        return new JournalRecorder(eventJournal, properties.getSnapshotInterval(), properties.getAppendAttempts());
+    }
+
+    @Bean
+    public MetricsRecorder metricsRecorder() {
+        return new MetricsRecorder(MetricRegistry.global(), TraceRecorder.global());
+    }
+
+    @Bean(destroyMethod = "close")
+    public FlowEngine flowEngine(SPIManager spiManager, ConditionEvaluator conditionEvaluator,
+                                 ObjectProvider<EngineListener> listeners) {
+        return new FlowEngine(spiManager, conditionEvaluator, listeners.orderedStream().toList());
+    }
+}
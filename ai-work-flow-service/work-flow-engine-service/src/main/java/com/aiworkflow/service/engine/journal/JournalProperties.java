@@ -0,0 +1,24 @@
+package com.aiworkflow.service.engine.journal;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 引擎事件日志配置
+ */
+@Data
+@ConfigurationProperties(prefix = "aiworkflow.engine.journal")
+public class JournalProperties {
+
+    // 是否记录事件日志，写入数据库(ai_instance_event / ai_instance_snapshot)；关闭后定义服务的读模型不再更新
+    private boolean enabled = true;
+
+    // 每个实例每追加多少个事件保存一次快照
+    private int snapshotInterval = 200;
+
+    // 事件追加的最多尝试次数，仍失败时实例以失败结束
+    private int appendAttempts = 3;
+
+    // 每个实例保留的快照个数
+    private int snapshotsToKeep = 2;
+}
@@ -0,0 +1,307 @@
+package com.aiworkflow.service.engine.journal;
+
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.engine.core.context.ContextDelta;
+import com.aiworkflow.engine.core.graph.FlowGraph;
+import com.aiworkflow.engine.core.journal.EventJournal;
+import com.aiworkflow.engine.core.journal.InstanceState;
+import com.aiworkflow.engine.core.journal.JournalEvent;
+import com.aiworkflow.engine.core.journal.JournalEventType;
+import com.aiworkflow.service.engine.runtime.EngineListener;
+import com.aiworkflow.service.engine.runtime.Execution;
+import com.aiworkflow.service.engine.runtime.InstanceAbortException;
+import com.aiworkflow.service.engine.runtime.RuntimeInstance;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 把引擎回调记录为只追加的实例事件
+ * <p>
+ * 一个步骤内的事件先缓存在当前线程，步骤结束时分配连续的 seq 并整批追加一次；
+ * 同一实例的追加串行，日志中的顺序就是 seq 顺序。每个实例在内存中维护一份重放状态，
+ * 每追加 snapshotInterval 个事件以及实例结束时保存快照，恢复时只需重放快照之后的事件。
+ * 分叉事件在子执行启动前立即追加，子执行的事件 seq 总在分叉之后。
+ * 追加失败时按退避重试，仍失败则保留未写入的事件(seq 不变，下次追加时一并重写)，
+ * 并抛出 {@link InstanceAbortException} 让引擎以失败结束实例；实例结束后迟到的事件(如终止时仍在执行的节点)被丢弃。
+ */
+@Slf4j
+public class JournalRecorder implements EngineListener {
+
+    // 重试间隔按次数递增
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+
+    private final EventJournal journal;
+
+    private final int snapshotInterval;
+
+    private final int appendAttempts;
+
+    private final Map<Long, Stream> streams = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<List<JournalEvent>> pending = ThreadLocal.withInitial(ArrayList::new);
+
+    private final LongAdder appendedEvents = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder snapshots = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    public JournalRecorder(EventJournal journal, int snapshotInterval) {
+        this(journal, snapshotInterval, 3);
+    }
+
+    public JournalRecorder(EventJournal journal, int snapshotInterval, int appendAttempts) {
+        this.journal = journal;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+        this.appendAttempts = Math.max(1, appendAttempts);
+    }
+
+    @Override
+    public void onInstanceStarted(RuntimeInstance instance) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("flowKey", instance.getGraph().flowKey());
+        payload.put("variables", new LinkedHashMap<>(instance.getVariables()));
+        streams.put(instance.getId(), new Stream(instance.getId()));
+        record(instance, JournalEventType.INSTANCE_STARTED, instance.getRootExecution().getId(), null, payload);
+        flush();
+    }
+
+    @Override
+    public void onTokenMoved(RuntimeInstance instance, Execution execution, int node) {
+        record(instance, JournalEventType.TOKEN_MOVED, execution.getId(), instance.getGraph().nodeKey(node), null);
+    }
+
+    @Override
+    public void onTaskStarted(RuntimeInstance instance, Execution execution, int node) {
+        FlowGraph graph = instance.getGraph();
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("name", graph.nodeName(node));
+        payload.put("taskType", graph.nodeType(node));
+        record(instance, JournalEventType.TASK_STARTED, execution.getId(), graph.nodeKey(node), payload);
+    }
+
+    @Override
+    public void onTaskCompleted(RuntimeInstance instance, Execution execution, int node, ExecutionResult result) {
+        Map<String, Object> payload = null;
+        if (result != null && result.getOutputs() != null && !result.getOutputs().isEmpty()) {
+            payload = new HashMap<>();
+            payload.put("output", result.getOutputs());
+        }
+        record(instance, JournalEventType.TASK_COMPLETED, execution.getId(), instance.getGraph().nodeKey(node), payload);
+    }
+
+    @Override
+    public void onTaskFailed(RuntimeInstance instance, Execution execution, int node, String errorMessage) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("error", errorMessage);
+        record(instance, JournalEventType.TASK_FAILED, execution.getId(), instance.getGraph().nodeKey(node), payload);
+    }
+
+    @Override
+    public void onVariablesChanged(RuntimeInstance instance, Execution execution, ContextDelta delta) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("set", delta.getSet());
+        payload.put("removed", List.copyOf(delta.getRemoved()));
+        record(instance, JournalEventType.VARIABLES_SET, execution.getId(), null, payload);
+    }
+
+    @Override
+    public void onExecutionForked(RuntimeInstance instance, Execution parent, List<Execution> children) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("children", children.stream().map(Execution::getId).toList());
+        record(instance, JournalEventType.EXECUTION_FORKED, parent.getId(),
+                instance.getGraph().nodeKey(parent.getActivity()), payload);
+        // 引擎在回调返回后才启动子执行，这里落盘保证子执行的事件排在分叉之后
+        flush();
+    }
+
+    @Override
+    public void onExecutionJoined(RuntimeInstance instance, Execution parent, int node) {
+        record(instance, JournalEventType.EXECUTION_JOINED, parent.getId(), instance.getGraph().nodeKey(node), null);
+    }
+
+    @Override
+    public void onStepEnded(RuntimeInstance instance) {
+        flush();
+    }
+
+    @Override
+    public void onInstanceEnded(RuntimeInstance instance) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("status", instance.getStatus().name());
+        payload.put("error", instance.getErrorMessage());
+        record(instance, JournalEventType.INSTANCE_ENDED, null, null, payload);
+        try {
+            flush();
+        } finally {
+            Stream stream = streams.remove(instance.getId());
+            if (stream != null) {
+                stream.snapshot();
+            }
+        }
+    }
+
+    /**
+     * 运行中实例的内存重放状态(副本)，实例不在运行时返回 null
+     */
+    public InstanceState getState(long instanceId) {
+        Stream stream = streams.get(instanceId);
+        return stream != null ? stream.copyState() : null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("appendedEvents", appendedEvents.sum());
+        stats.put("batches", batches.sum());
+        stats.put("snapshots", snapshots.sum());
+        stats.put("failures", failures.sum());
+        stats.put("retries", retries.sum());
+        stats.put("openStreams", streams.size());
+        stats.put("snapshotInterval", snapshotInterval);
+        return stats;
+    }
+
+    private void record(RuntimeInstance instance, JournalEventType type, Long executionId, String nodeKey,
+                        Map<String, Object> payload) {
+        pending.get().add(JournalEvent.of(type, instance.getId(), executionId, nodeKey, payload));
+    }
+
+    private void flush() {
+        List<JournalEvent> buffered = pending.get();
+        if (buffered.isEmpty()) {
+            return;
+        }
+        List<JournalEvent> events = new ArrayList<>(buffered);
+        buffered.clear();
+        // 一个线程只推进一个实例的令牌，通常只有一组
+        int from = 0;
+        for (int i = 1; i <= events.size(); i++) {
+            if (i == events.size() || events.get(i).getInstanceId() != events.get(from).getInstanceId()) {
+                long instanceId = events.get(from).getInstanceId();
+                Stream stream = streams.get(instanceId);
+                if (stream != null) {
+                    stream.append(events.subList(from, i));
+                } else {
+                    // 实例已被其他线程结束，结束事件之后的迟到事件不再记录
+                    log.debug("实例 {} 已结束，丢弃 {} 个迟到事件", instanceId, i - from);
+                }
+                from = i;
+            }
+        }
+    }
+
+    /**
+     * 单个实例的事件流：seq 分配、追加和重放状态在同一把锁下串行
+     */
+    private final class Stream {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final long instanceId;
+
+        private final InstanceState state;
+
+        // 已分配 seq 但尚未写入的事件
+        private final List<JournalEvent> unwritten = new ArrayList<>();
+
+        private long seq;
+
+        private int sinceSnapshot;
+
+        Stream(long instanceId) {
+            this.instanceId = instanceId;
+            this.state = new InstanceState(instanceId);
+        }
+
+        void append(List<JournalEvent> batch) {
+            lock.lock();
+            try {
+                for (JournalEvent event : batch) {
+                    event.setSeq(++seq);
+                }
+                unwritten.addAll(batch);
+                write();
+                unwritten.forEach(state::apply);
+                appendedEvents.add(unwritten.size());
+                batches.increment();
+                sinceSnapshot += unwritten.size();
+                unwritten.clear();
+                if (sinceSnapshot >= snapshotInterval) {
+                    saveSnapshot();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void write() {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    journal.append(instanceId, unwritten);
+                    return;
+                } catch (RuntimeException e) {
+                    if (attempt >= appendAttempts || !backoff(attempt)) {
+                        failures.increment();
+                        throw new InstanceAbortException("实例 " + instanceId + " 事件日志写入失败(seq "
+                                + unwritten.get(0).getSeq() + "-" + seq + ")", e);
+                    }
+                    retries.increment();
+                    log.warn("实例 {} 事件日志第 {} 次写入失败，稍后重试", instanceId, attempt, e);
+                }
+            }
+        }
+
+        private boolean backoff(int attempt) {
+            try {
+                Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        void snapshot() {
+            lock.lock();
+            try {
+                if (sinceSnapshot > 0) {
+                    saveSnapshot();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        InstanceState copyState() {
+            lock.lock();
+            try {
+                return state.copy();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void saveSnapshot() {
+            try {
+                journal.saveSnapshot(state.copy());
+                snapshots.increment();
+                sinceSnapshot = 0;
+            } catch (RuntimeException e) {
+                // 快照只是加速恢复，失败时下个周期再试
+                log.warn("保存实例 {} 快照失败(seq={})", instanceId, seq, e);
+            }
+        }
+    }
+}
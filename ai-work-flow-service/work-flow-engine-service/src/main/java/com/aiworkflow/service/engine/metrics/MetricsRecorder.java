@@ -0,0 +1,127 @@
+package com.aiworkflow.service.engine.metrics;
+
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.common.core.metrics.MetricRegistry;
+import com.aiworkflow.common.core.metrics.TraceRecorder;
+import com.aiworkflow.common.core.spi.LatencyHistogram;
+import com.aiworkflow.engine.core.graph.FlowGraph;
+import com.aiworkflow.service.engine.runtime.EngineListener;
+import com.aiworkflow.service.engine.runtime.Execution;
+import com.aiworkflow.service.engine.runtime.RuntimeInstance;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 把引擎回调记录为指标和追踪
+ * <ul>
+ *     <li>aiworkflow_engine_instance_seconds{flow, status}：实例从开始到终态的耗时</li>
+ *     <li>aiworkflow_engine_task_seconds{flow, node_type, outcome}：任务节点从令牌进入到结果处理的耗时，
+ *     包含排队等待执行器的时间；执行器本身的耗时见 aiworkflow_node_execution_seconds</li>
+ *     <li>每个实例一条 trace，任务节点为子跨度，由 /metrics/traces 查看(需要服务引入 web 模块)</li>
+ * </ul>
+ * 实例结束时仍未返回的任务(如终止时正在执行的节点)以失败结束跨度，迟到的结果不再记录。
+ */
+public class MetricsRecorder implements EngineListener {
+
+    private final MetricRegistry registry;
+
+    private final TraceRecorder tracer;
+
+    // 运行中的实例，实例内按执行和节点索引未返回的任务
+    private final Map<Long, RunningInstance> instances = new ConcurrentHashMap<>();
+
+    // 直方图按标签缓存，避免每个事件都构造并排序指标标识
+    private final Map<InstanceLabels, LatencyHistogram> instanceHistograms = new ConcurrentHashMap<>();
+
+    private final Map<TaskLabels, LatencyHistogram> taskHistograms = new ConcurrentHashMap<>();
+
+    public MetricsRecorder(MetricRegistry registry, TraceRecorder tracer) {
+        this.registry = registry;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void onInstanceStarted(RuntimeInstance instance) {
+        instances.put(instance.getId(), new RunningInstance(System.nanoTime(), new ConcurrentHashMap<>()));
+        tracer.beginTrace(instance.getId(), instance.getGraph().flowKey());
+    }
+
+    @Override
+    public void onTaskStarted(RuntimeInstance instance, Execution execution, int node) {
+        RunningInstance running = instances.get(instance.getId());
+        if (running == null) {
+            // 实例已结束
+            return;
+        }
+        FlowGraph graph = instance.getGraph();
+        TraceRecorder.Span span = tracer.startSpan(instance.getId(), graph.nodeKey(node))
+                .attribute("nodeType", graph.nodeType(node))
+                .attribute("executionId", execution.getId());
+        running.tasks().put(new TaskKey(execution.getId(), node), new RunningTask(span, System.nanoTime()));
+    }
+
+    @Override
+    public void onTaskCompleted(RuntimeInstance instance, Execution execution, int node, ExecutionResult result) {
+        RunningTask task = removeTask(instance, execution, node);
+        if (task != null) {
+            recordTask(instance, node, task, "success");
+            task.span().end();
+        }
+    }
+
+    @Override
+    public void onTaskFailed(RuntimeInstance instance, Execution execution, int node, String errorMessage) {
+        // 网关求值失败等没有经过 onTaskStarted 的失败不计入任务耗时
+        RunningTask task = removeTask(instance, execution, node);
+        if (task != null) {
+            recordTask(instance, node, task, "failure");
+            task.span().fail(errorMessage);
+        }
+    }
+
+    @Override
+    public void onInstanceEnded(RuntimeInstance instance) {
+        long id = instance.getId();
+        String status = instance.getStatus().name();
+        RunningInstance running = instances.remove(id);
+        if (running != null) {
+            instanceHistograms.computeIfAbsent(new InstanceLabels(instance.getGraph().flowKey(), status),
+                            labels -> registry.histogram("aiworkflow_engine_instance_seconds",
+                                    "flow", labels.flow(), "status", labels.status()))
+                    .record(System.nanoTime() - running.startNanos());
+            for (RunningTask task : running.tasks().values()) {
+                task.span().fail("实例已结束: " + status);
+            }
+        }
+        tracer.endTrace(id, status, instance.getErrorMessage());
+    }
+
+    private RunningTask removeTask(RuntimeInstance instance, Execution execution, int node) {
+        RunningInstance running = instances.get(instance.getId());
+        return running != null ? running.tasks().remove(new TaskKey(execution.getId(), node)) : null;
+    }
+
+    private void recordTask(RuntimeInstance instance, int node, RunningTask task, String outcome) {
+        FlowGraph graph = instance.getGraph();
+        taskHistograms.computeIfAbsent(new TaskLabels(graph.flowKey(), graph.nodeType(node), outcome),
+                        labels -> registry.histogram("aiworkflow_engine_task_seconds",
+                                "flow", labels.flow(), "node_type", labels.nodeType(), "outcome", labels.outcome()))
+                .record(System.nanoTime() - task.startNanos());
+    }
+
+    private record RunningInstance(long startNanos, Map<TaskKey, RunningTask> tasks) {
+    }
+
+    private record TaskKey(long executionId, int node) {
+    }
+
+    private record RunningTask(TraceRecorder.Span span, long startNanos) {
+    }
+
+    private record InstanceLabels(String flow, String status) {
+    }
+
+    private record TaskLabels(String flow, String nodeType, String outcome) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.aiworkflow.service.engine.runtime;
+
+import com.aiworkflow.common.core.spi.DispatchTable;
+import com.aiworkflow.engine.core.graph.FlowGraph;
+
+/**
+ * 流程图节点到执行器槽位的绑定
+ * <p>
+ * 每个节点的类型只在绑定时解析一次，执行时按节点编号直接取槽位；绑定由引擎按流程图缓存，
+ * 分派表重建(注册或重新加载执行器)后旧绑定失效，下次执行时重新绑定。
+ *
+ * @param table 绑定时使用的分派表
+ * @param slots 节点编号 -> 执行器槽位编号，非任务节点或没有执行器时为 -1
+ */
+record DispatchBinding(DispatchTable table, int[] slots) {
+
+    static DispatchBinding bind(FlowGraph graph, DispatchTable table) {
+        int[] slots = new int[graph.nodeCount()];
+        for (int v = 0; v < slots.length; v++) {
+            String nodeType = graph.nodeType(v);
+            slots[v] = nodeType != null ? table.ordinalOf(nodeType) : -1;
+        }
+        return new DispatchBinding(table, slots);
+    }
+}
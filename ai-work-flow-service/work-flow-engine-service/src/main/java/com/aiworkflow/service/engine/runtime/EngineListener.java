@@ -0,0 +1,65 @@
+package com.aiworkflow.service.engine.runtime;
+
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.engine.core.context.ContextDelta;
+
+import java.util.List;
+
+/**
+ * 引擎事件监听器，回调在令牌所在的虚拟线程上同步执行，实现需保证线程安全且不要长时间阻塞；
+ * 回调抛出的异常只记日志，抛出 {@link InstanceAbortException} 时引擎以失败结束实例
+ */
+public interface EngineListener {
+
+    default void onInstanceStarted(RuntimeInstance instance) {
+    }
+
+    /**
+     * 令牌进入节点(任何类型的节点)
+     */
+    default void onTokenMoved(RuntimeInstance instance, Execution execution, int node) {
+    }
+
+    /**
+     * 令牌进入任务节点(对应 ai_task_instance 创建并开始)
+     */
+    default void onTaskStarted(RuntimeInstance instance, Execution execution, int node) {
+    }
+
+    default void onTaskCompleted(RuntimeInstance instance, Execution execution, int node, ExecutionResult result) {
+    }
+
+    /**
+     * 任务输出写入流程变量后，delta 为本次实际变化的键(持久化时只需写出这些键)
+     */
+    default void onVariablesChanged(RuntimeInstance instance, Execution execution, ContextDelta delta) {
+    }
+
+    default void onTaskFailed(RuntimeInstance instance, Execution execution, int node, String errorMessage) {
+    }
+
+    /**
+     * 并行网关分叉，parent 失活，children 为新建的并发子执行
+     */
+    default void onExecutionForked(RuntimeInstance instance, Execution parent, List<Execution> children) {
+    }
+
+    /**
+     * 并行网关汇聚完成，parent 被重新激活
+     */
+    default void onExecutionJoined(RuntimeInstance instance, Execution parent, int node) {
+    }
+
+    /**
+     * 当前线程上的一个引擎步骤结束(令牌处理完一个节点，或异步结果处理完毕)，
+     * 同一步骤内的回调都发生在此之前的同一线程上，可据此成批落盘
+     */
+    default void onStepEnded(RuntimeInstance instance) {
+    }
+
+    /**
+     * 实例进入终态(COMPLETED、FAILED、TERMINATED)
+     */
+    default void onInstanceEnded(RuntimeInstance instance) {
+    }
+}
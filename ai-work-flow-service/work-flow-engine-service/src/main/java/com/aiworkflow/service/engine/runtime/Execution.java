@@ -0,0 +1,67 @@
+package com.aiworkflow.service.engine.runtime;
+
+/**
+ * 执行实例(令牌)，对应 ai_flow_execution 一行
+ * <p>
+ * 并行网关分叉时，当前执行失活并作为父执行，每条分支创建一个 concurrent 子执行；
+ * 汇聚时子执行全部失活，最后到达的分支唤醒父执行继续向下流转。
+ */
+public final class Execution {
+
+    private final long id;
+
+    private final Execution parent;
+
+    private final boolean concurrent;
+
+    private volatile int activity;
+
+    private volatile boolean active = true;
+
+    Execution(long id, Execution parent, boolean concurrent, int activity) {
+        this.id = id;
+        this.parent = parent;
+        this.concurrent = concurrent;
+        this.activity = activity;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Execution getParent() {
+        return parent;
+    }
+
+    public Long getParentId() {
+        return parent != null ? parent.id : null;
+    }
+
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * 当前所在节点编号
+     */
+    public int getActivity() {
+        return activity;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    void moveTo(int node) {
+        this.activity = node;
+    }
+
+    void activate(int node) {
+        this.activity = node;
+        this.active = true;
+    }
+
+    void deactivate() {
+        this.active = false;
+    }
+}
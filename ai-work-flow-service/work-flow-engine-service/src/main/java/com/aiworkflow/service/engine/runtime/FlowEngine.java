@@ -0,0 +1,504 @@
+package com.aiworkflow.service.engine.runtime;
+
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.common.core.spi.DispatchTable;
+import com.aiworkflow.common.core.spi.SPIManager;
+import com.aiworkflow.engine.core.context.ContextDelta;
+import com.aiworkflow.engine.core.graph.FlowGraph;
+import com.aiworkflow.service.engine.condition.ConditionEvaluator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于令牌的内存流程引擎
+ * <p>
+ * 每个令牌(执行实例)在一个虚拟线程上沿编译后的 FlowGraph 顺序推进，节点执行器可以直接阻塞等待 I/O；
+ * 并行网关分叉时，除第一条分支外的每条分支各起一个虚拟线程，汇聚时通过原子计数判断最后到达者，无锁。
+ * 异步执行器({@link com.aiworkflow.common.core.execution.AsyncNodeExecutor})的调用未完成时令牌挂起、线程退出，
+ * 结果返回后在新的虚拟线程上从该节点继续推进；实例结束时取消所有挂起的调用。
+ */
+@Slf4j
+public class FlowEngine implements AutoCloseable {
+
+    private static final ExecutionResult BUILTIN_RESULT = ExecutionResult.success();
+
+    // step 返回值：令牌已挂起等待异步结果，当前线程退出
+    private static final int PARKED = -2;
+
+    private final SPIManager spiManager;
+
+    private final ConditionEvaluator conditionEvaluator;
+
+    private final List<EngineListener> listeners;
+
+    private final ExecutorService tokenExecutor;
+
+    private final AtomicLong instanceIds = new AtomicLong();
+
+    private final Map<Long, RuntimeInstance> runningInstances = new ConcurrentHashMap<>();
+
+    // 流程图 -> 执行器槽位绑定；流程图由定义缓存共享且不可变，弱引用键随流程图回收
+    private final Cache<FlowGraph, DispatchBinding> bindings = Caffeine.newBuilder().weakKeys().build();
+
+    public FlowEngine(SPIManager spiManager, ConditionEvaluator conditionEvaluator, List<EngineListener> listeners) {
+        this.spiManager = spiManager;
+        this.conditionEvaluator = conditionEvaluator;
+        this.listeners = listeners != null ? List.copyOf(listeners) : List.of();
+        this.tokenExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("flow-token-", 0).factory());
+    }
+
+    /**
+     * 启动流程实例，立即返回；通过 {@link RuntimeInstance#completion()} 等待结束
+     */
+    public RuntimeInstance start(FlowGraph graph, Map<String, Object> variables) {
+        return start(instanceIds.incrementAndGet(), graph, variables);
+    }
+
+    /**
+     * 以调用方指定的 ID 启动(通常是已持久化的 ai_flow_instance.id)，事件日志和读模型投影按同一个 ID 关联；
+     * 不要与自动分配 ID 的启动方式混用
+     */
+    public RuntimeInstance start(long instanceId, FlowGraph graph, Map<String, Object> variables) {
+        RuntimeInstance instance = new RuntimeInstance(instanceId, graph, variables);
+        if (runningInstances.putIfAbsent(instanceId, instance) != null) {
+            throw new IllegalStateException("实例已在运行: " + instanceId);
+        }
+        for (EngineListener listener : listeners) {
+            try {
+                listener.onInstanceStarted(instance);
+            } catch (Exception e) {
+                listenerFailed(instance, listener, "实例启动", e);
+            }
+        }
+        spawn(instance, instance.getRootExecution(), graph.startNode());
+        return instance;
+    }
+
+    public Optional<RuntimeInstance> getInstance(long instanceId) {
+        return Optional.ofNullable(runningInstances.get(instanceId));
+    }
+
+    public int getRunningCount() {
+        return runningInstances.size();
+    }
+
+    /**
+     * 终止实例，挂起中的异步调用被取消，正在执行的同步节点结束后令牌不再推进
+     */
+    public boolean terminate(long instanceId) {
+        RuntimeInstance instance = runningInstances.get(instanceId);
+        return instance != null && end(instance, InstanceStatus.TERMINATED, null);
+    }
+
+    @Override
+    public void close() {
+        runningInstances.values().forEach(instance -> end(instance, InstanceStatus.TERMINATED, "引擎关闭"));
+        tokenExecutor.shutdownNow();
+        // 等令牌线程收尾(步骤结束事件、日志刷写)后再返回
+        try {
+            if (!tokenExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("引擎关闭时仍有令牌线程未退出");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void spawn(RuntimeInstance instance, Execution execution, int node) {
+        tokenExecutor.execute(() -> run(instance, execution, node));
+    }
+
+    /**
+     * 令牌主循环：顺序节点在同一个虚拟线程上连续推进，直到令牌被消耗(结束事件/非最后到达的汇聚)或实例终止
+     */
+    private void run(RuntimeInstance instance, Execution execution, int node) {
+        advance(instance, new Token(execution, node));
+    }
+
+    private void advance(RuntimeInstance instance, Token token) {
+        // 最近一个步骤是否已触发结束事件，每个步骤只触发一次；循环一次都没执行时没有需要收尾的步骤
+        boolean stepEnded = true;
+        try {
+            while (token.node >= 0 && instance.isRunning()) {
+                stepEnded = false;
+                token.execution.moveTo(token.node);
+                fireTokenMoved(instance, token.execution, token.node);
+                token.node = step(instance, token);
+                fireStepEnded(instance);
+                stepEnded = true;
+            }
+        } catch (Throwable t) {
+            log.error("流程实例 {} 令牌执行异常", instance.getId(), t);
+            end(instance, InstanceStatus.FAILED, t.getMessage());
+        } finally {
+            // 步骤中途异常时，这里收尾
+            if (!stepEnded) {
+                fireStepEnded(instance);
+            }
+        }
+    }
+
+    /**
+     * 异步调用完成后继续推进挂起的令牌
+     */
+    private void resume(RuntimeInstance instance, Token token, int node, CompletableFuture<ExecutionResult> call) {
+        instance.unpark(token.execution);
+        if (!instance.isRunning()) {
+            return;
+        }
+        try {
+            token.node = completeTask(instance, token, node, call);
+        } catch (Throwable t) {
+            log.error("流程实例 {} 令牌执行异常", instance.getId(), t);
+            end(instance, InstanceStatus.FAILED, t.getMessage());
+            token.node = -1;
+        }
+        // 异步结果单独成为一个步骤，不等下一个节点执行完；任务失败或实例已结束时不再有后续步骤
+        fireStepEnded(instance);
+        if (token.node >= 0 && instance.isRunning()) {
+            advance(instance, token);
+        }
+    }
+
+    /**
+     * 执行当前节点，返回下一个节点编号，-1 表示令牌结束，{@link #PARKED} 表示令牌挂起
+     */
+    private int step(RuntimeInstance instance, Token token) {
+        FlowGraph graph = instance.getGraph();
+        int node = token.node;
+        switch (graph.nodeKind(node)) {
+            case START_EVENT -> {
+                builtin(instance, token.execution, node);
+                return leave(instance, token, node);
+            }
+            case TASK -> {
+                return executeTask(instance, token, node);
+            }
+            case EXCLUSIVE_GATEWAY -> {
+                builtin(instance, token.execution, node);
+                return choose(instance, token.execution, node);
+            }
+            case PARALLEL_GATEWAY -> {
+                if (graph.isJoin(node) && !join(instance, token, node)) {
+                    return -1;
+                }
+                builtin(instance, token.execution, node);
+                return leave(instance, token, node);
+            }
+            case END_EVENT -> {
+                builtin(instance, token.execution, node);
+                token.execution.deactivate();
+                if (instance.consumeToken() == 0) {
+                    end(instance, InstanceStatus.COMPLETED, null);
+                }
+                return -1;
+            }
+            default -> throw new IllegalStateException("未知节点类型: " + graph.nodeKind(node));
+        }
+    }
+
+    private int executeTask(RuntimeInstance instance, Token token, int node) {
+        FlowGraph graph = instance.getGraph();
+        Execution execution = token.execution;
+        fireTaskStarted(instance, execution, node);
+
+        String nodeType = graph.nodeType(node);
+        DispatchBinding binding = bindingOf(graph);
+        int ordinal = binding.slots()[node];
+        if (ordinal < 0) {
+            failTask(instance, execution, node, "未找到节点类型 " + nodeType + " 的执行器");
+            return -1;
+        }
+
+        ExecutionContext context = new ExecutionContext();
+        context.setFlowInstanceId(instance.getId());
+        context.setExecutionId(execution.getId());
+        context.setNodeKey(graph.nodeKey(node));
+        context.setNodeName(graph.nodeName(node));
+        context.setNodeType(nodeType);
+        context.setConfig(graph.nodeConfig(node));
+        context.setVariables(instance.getVariables());
+
+        CompletableFuture<ExecutionResult> call = binding.table().slot(ordinal).executeAsync(context);
+        if (call.isDone()) {
+            // 同步执行器或已完成的异步调用，在当前线程继续
+            return completeTask(instance, token, node, call);
+        }
+        if (!instance.park(execution, call)) {
+            return -1;
+        }
+        call.whenComplete((result, error) -> {
+            try {
+                tokenExecutor.execute(() -> resume(instance, token, node, call));
+            } catch (RejectedExecutionException e) {
+                // 引擎已关闭，实例已被终止
+                instance.unpark(token.execution);
+            }
+        });
+        return PARKED;
+    }
+
+    /**
+     * 处理任务节点的执行结果，成功时合并输出并离开节点
+     */
+    private int completeTask(RuntimeInstance instance, Token token, int node, CompletableFuture<ExecutionResult> call) {
+        Execution execution = token.execution;
+        ExecutionResult result;
+        try {
+            result = call.join();
+        } catch (CancellationException e) {
+            failTask(instance, execution, node, "节点执行被取消");
+            return -1;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof InterruptedException) {
+                failTask(instance, execution, node, "节点执行被中断");
+                return -1;
+            }
+            log.error("节点 {} 执行失败", instance.getGraph().nodeKey(node), cause);
+            failTask(instance, execution, node, cause.getMessage());
+            return -1;
+        }
+        if (result == null || !result.isSuccess()) {
+            failTask(instance, execution, node, result != null ? result.getErrorMessage() : "执行器返回空结果");
+            return -1;
+        }
+        if (result.getOutputs() != null) {
+            ContextDelta delta = instance.applyVariables(result.getOutputs());
+            if (!delta.isEmpty()) {
+                fireVariablesChanged(instance, execution, delta);
+            }
+        }
+        fireTaskCompleted(instance, execution, node, result);
+        return leave(instance, token, node);
+    }
+
+    /**
+     * 沿出线离开节点：单出线直接前进，多出线分叉为并发子执行
+     */
+    private int leave(RuntimeInstance instance, Token token, int node) {
+        FlowGraph graph = instance.getGraph();
+        int start = graph.outStart(node);
+        int end = graph.outEnd(node);
+        if (end - start == 1) {
+            return graph.edgeTarget(start);
+        }
+
+        Execution parent = token.execution;
+        parent.deactivate();
+        instance.addTokens(end - start - 1);
+        List<Execution> children = new ArrayList<>(end - start);
+        for (int e = start; e < end; e++) {
+            children.add(instance.newExecution(parent, true, graph.edgeTarget(e)));
+        }
+        fireForked(instance, parent, children);
+
+        // 当前线程继续第一条分支，其余分支各起一个虚拟线程
+        for (int i = 1; i < children.size(); i++) {
+            Execution child = children.get(i);
+            spawn(instance, child, child.getActivity());
+        }
+        token.execution = children.get(0);
+        return graph.edgeTarget(start);
+    }
+
+    /**
+     * 并行网关汇聚，返回当前令牌是否继续向下流转
+     */
+    private boolean join(RuntimeInstance instance, Token token, int node) {
+        Execution arriving = token.execution;
+        arriving.deactivate();
+        if (!instance.arrive(node, instance.getGraph().joinCount(node))) {
+            instance.consumeToken();
+            return false;
+        }
+        Execution parent = arriving.getParent();
+        if (parent != null) {
+            parent.activate(node);
+            token.execution = parent;
+            fireJoined(instance, parent, node);
+        } else {
+            arriving.activate(node);
+        }
+        return true;
+    }
+
+    /**
+     * 排他网关：按顺序选择第一条条件成立的出线，都不成立时走无条件的默认出线
+     */
+    private int choose(RuntimeInstance instance, Execution execution, int node) {
+        FlowGraph graph = instance.getGraph();
+        int defaultEdge = -1;
+        for (int e = graph.outStart(node); e < graph.outEnd(node); e++) {
+            String condition = graph.edgeCondition(e);
+            if (condition == null) {
+                if (defaultEdge < 0) {
+                    defaultEdge = e;
+                }
+            } else if (conditionEvaluator.evaluate(condition, instance.getVariables())) {
+                return graph.edgeTarget(e);
+            }
+        }
+        if (defaultEdge >= 0) {
+            return graph.edgeTarget(defaultEdge);
+        }
+        failTask(instance, execution, node, "排他网关 " + graph.nodeKey(node) + " 没有满足条件的分支");
+        return -1;
+    }
+
+    private void builtin(RuntimeInstance instance, Execution execution, int node) {
+        fireTaskStarted(instance, execution, node);
+        fireTaskCompleted(instance, execution, node, BUILTIN_RESULT);
+    }
+
+    private void failTask(RuntimeInstance instance, Execution execution, int node, String errorMessage) {
+        execution.deactivate();
+        for (EngineListener listener : listeners) {
+            try {
+                listener.onTaskFailed(instance, execution, node, errorMessage);
+            } catch (Exception e) {
+                listenerFailed(instance, listener, "任务失败", e);
+            }
+        }
+        end(instance, InstanceStatus.FAILED, errorMessage);
+    }
+
+    private boolean end(RuntimeInstance instance, InstanceStatus status, String errorMessage) {
+        if (!instance.finish(status, errorMessage)) {
+            return false;
+        }
+        runningInstances.remove(instance.getId());
+        instance.cancelInFlight();
+        for (EngineListener listener : listeners) {
+            try {
+                listener.onInstanceEnded(instance);
+            } catch (Exception e) {
+                listenerFailed(instance, listener, "实例结束", e);
+            }
+        }
+        instance.complete();
+        return true;
+    }
+
+    /**
+     * 监听器异常只记日志，不影响令牌推进；{@link InstanceAbortException} 表示监听器已无法继续跟踪该实例，以失败结束实例
+     */
+    private void listenerFailed(RuntimeInstance instance, EngineListener listener, String event, Exception e) {
+        log.error("引擎监听器 {} 处理{}事件失败", listener.getClass().getSimpleName(), event, e);
+        if (e instanceof InstanceAbortException) {
+            end(instance, InstanceStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private DispatchBinding bindingOf(FlowGraph graph) {
+        DispatchTable table = spiManager.getDispatchTable();
+        DispatchBinding binding = bindings.getIfPresent(graph);
+        if (binding == null || binding.table() != table) {
+            // 并发线程可能各自绑定一次，结果相同，后写者覆盖即可
+            binding = DispatchBinding.bind(graph, table);
+            bindings.put(graph, binding);
+        }
+        return binding;
+    }
+
+    private void fireTokenMoved(RuntimeInstance instance, Execution execution, int node) {
+        for (EngineListener listener : listeners) {
+            try {
+                listener.onTokenMoved(instance, execution, node);
+            } catch (Exception e) {
+                listenerFailed(instance, listener, "令牌移动", e);
+            }
+        }
+    }
+
+    private void fireStepEnded(RuntimeInstance instance) {
+        for (EngineListener listener : listeners) {
+            try {
+                listener.onStepEnded(instance);
+            } catch (Exception e) {
+                listenerFailed(instance, listener, "步骤结束", e);
+            }
+        }
+    }
+
+    private void fireTaskStarted(RuntimeInstance instance, Execution execution, int node) {
+        for (EngineListener listener : listeners) {
+            try {
+                listener.onTaskStarted(instance, execution, node);
+            } catch (Exception e) {
+                listenerFailed(instance, listener, "任务开始", e);
+            }
+        }
+    }
+
+    private void fireTaskCompleted(RuntimeInstance instance, Execution execution, int node, ExecutionResult result) {
+        for (EngineListener listener : listeners) {
+            try {
+                listener.onTaskCompleted(instance, execution, node, result);
+            } catch (Exception e) {
+                listenerFailed(instance, listener, "任务完成", e);
+            }
+        }
+    }
+
+    private void fireVariablesChanged(RuntimeInstance instance, Execution execution, ContextDelta delta) {
+        for (EngineListener listener : listeners) {
+            try {
+                listener.onVariablesChanged(instance, execution, delta);
+            } catch (Exception e) {
+                listenerFailed(instance, listener, "变量变化", e);
+            }
+        }
+    }
+
+    private void fireForked(RuntimeInstance instance, Execution parent, List<Execution> children) {
+        for (EngineListener listener : listeners) {
+            try {
+                listener.onExecutionForked(instance, parent, children);
+            } catch (Exception e) {
+                listenerFailed(instance, listener, "分叉", e);
+            }
+        }
+    }
+
+    private void fireJoined(RuntimeInstance instance, Execution parent, int node) {
+        for (EngineListener listener : listeners) {
+            try {
+                listener.onExecutionJoined(instance, parent, node);
+            } catch (Exception e) {
+                listenerFailed(instance, listener, "汇聚", e);
+            }
+        }
+    }
+
+    /**
+     * 当前线程持有的令牌位置，分叉/汇聚时执行实例会切换
+     */
+    private static final class Token {
+
+        private Execution execution;
+
+        private int node;
+
+        private Token(Execution execution, int node) {
+            this.execution = execution;
+            this.node = node;
+        }
+    }
+}
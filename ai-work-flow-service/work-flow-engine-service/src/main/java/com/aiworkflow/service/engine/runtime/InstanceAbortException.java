@@ -0,0 +1,12 @@
+package com.aiworkflow.service.engine.runtime;
+
+/**
+ * 监听器无法继续跟踪实例时抛出(如事件日志重试后仍写入失败)，引擎收到后以失败结束实例；
+ * 监听器抛出的其他异常只记日志
+ */
+public class InstanceAbortException extends RuntimeException {
+
+    public InstanceAbortException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package com.aiworkflow.service.engine.runtime;
+
+/**
+ * 流程实例状态，与 ai_flow_instance.status 一致
+ */
+public enum InstanceStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    TERMINATED
+}
@@ -0,0 +1,197 @@
+package com.aiworkflow.service.engine.runtime;
+
+import com.aiworkflow.engine.core.context.ContextDelta;
+import com.aiworkflow.engine.core.context.PersistentMap;
+import com.aiworkflow.engine.core.graph.FlowGraph;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 内存中的流程实例运行态
+ * <p>
+ * 汇聚计数、活跃令牌数和状态都通过原子变量维护，并行分支之间不加锁。
+ * 流程变量是持久化 Map，每次写入 CAS 替换根引用，读到的总是一致的不可变快照；
+ * 新旧版本共享未变化的部分，可按引用快速比较出变化的键。
+ */
+public final class RuntimeInstance {
+
+    private final long id;
+
+    private final FlowGraph graph;
+
+    private final AtomicReference<PersistentMap<String, Object>> variables;
+
+    private final AtomicReference<InstanceStatus> status = new AtomicReference<>(InstanceStatus.RUNNING);
+
+    // 每个节点已到达的令牌数，仅汇聚节点使用
+    private final AtomicIntegerArray joinArrivals;
+
+    private final AtomicInteger activeTokens = new AtomicInteger(1);
+
+    private final AtomicLong executionIds = new AtomicLong();
+
+    private final CompletableFuture<RuntimeInstance> completion = new CompletableFuture<>();
+
+    // 挂起中的异步节点调用，执行实例 id -> future，实例结束时统一取消
+    private final Map<Long, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final Execution rootExecution;
+
+    private final LocalDateTime startTime = LocalDateTime.now();
+
+    private volatile LocalDateTime endTime;
+
+    private volatile String errorMessage;
+
+    RuntimeInstance(long id, FlowGraph graph, Map<String, Object> initialVariables) {
+        this.id = id;
+        this.graph = graph;
+        this.joinArrivals = new AtomicIntegerArray(graph.nodeCount());
+        this.variables = new AtomicReference<>(initialVariables != null
+                ? PersistentMap.copyOf(initialVariables) : PersistentMap.empty());
+        this.rootExecution = new Execution(executionIds.incrementAndGet(), null, false, graph.startNode());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public FlowGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * 流程变量的当前快照(不可变)
+     */
+    public PersistentMap<String, Object> getVariables() {
+        return variables.get();
+    }
+
+    public InstanceStatus getStatus() {
+        return status.get();
+    }
+
+    public boolean isRunning() {
+        return status.get() == InstanceStatus.RUNNING;
+    }
+
+    public Execution getRootExecution() {
+        return rootExecution;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * 实例进入终态时完成
+     */
+    public CompletableFuture<RuntimeInstance> completion() {
+        return completion;
+    }
+
+    /**
+     * 原子地写入一组变量(值为 null 表示删除)，返回本次写入造成的变化
+     */
+    ContextDelta applyVariables(Map<String, Object> values) {
+        for (;;) {
+            PersistentMap<String, Object> base = variables.get();
+            PersistentMap<String, Object> next = base.plusAll(values);
+            if (next == base) {
+                return ContextDelta.EMPTY;
+            }
+            if (variables.compareAndSet(base, next)) {
+                return ContextDelta.between(base, next);
+            }
+        }
+    }
+
+    Execution newExecution(Execution parent, boolean concurrent, int node) {
+        return new Execution(executionIds.incrementAndGet(), parent, concurrent, node);
+    }
+
+    /**
+     * 令牌到达汇聚节点，返回是否为最后一个到达者；到齐后计数归零，支持循环再次进入
+     */
+    boolean arrive(int node, int joinCount) {
+        for (;;) {
+            int current = joinArrivals.get(node);
+            int next = current + 1 == joinCount ? 0 : current + 1;
+            if (joinArrivals.compareAndSet(node, current, next)) {
+                return next == 0;
+            }
+        }
+    }
+
+    void addTokens(int count) {
+        activeTokens.addAndGet(count);
+    }
+
+    /**
+     * 消耗一个令牌，返回剩余活跃令牌数
+     */
+    int consumeToken() {
+        return activeTokens.decrementAndGet();
+    }
+
+    /**
+     * 从 RUNNING 切换到终态，只有第一次调用生效
+     */
+    boolean finish(InstanceStatus finalStatus, String error) {
+        if (!status.compareAndSet(InstanceStatus.RUNNING, finalStatus)) {
+            return false;
+        }
+        this.errorMessage = error;
+        this.endTime = LocalDateTime.now();
+        return true;
+    }
+
+    /**
+     * 记录挂起的异步调用；实例已不在运行时立即取消并返回 false
+     */
+    boolean park(Execution execution, CompletableFuture<?> call) {
+        inFlight.put(execution.getId(), call);
+        if (!isRunning()) {
+            // 与 finish 竞争：结束时可能已经扫过 inFlight
+            inFlight.remove(execution.getId());
+            call.cancel(true);
+            return false;
+        }
+        return true;
+    }
+
+    void unpark(Execution execution) {
+        inFlight.remove(execution.getId());
+    }
+
+    /**
+     * 挂起中的异步调用数
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    void cancelInFlight() {
+        inFlight.values().forEach(call -> call.cancel(true));
+        inFlight.clear();
+    }
+
+    void complete() {
+        completion.complete(this);
+    }
+}
@@ -0,0 +1,394 @@
+package com.aiworkflow.service.engine.journal;
+
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.common.core.execution.NodeExecutor;
+import com.aiworkflow.common.core.spi.SPIManager;
+import com.aiworkflow.engine.core.graph.FlowGraph;
+import com.aiworkflow.engine.core.graph.FlowGraphBuilder;
+import com.aiworkflow.engine.core.model.*;
+import com.aiworkflow.engine.core.journal.JournalEventType;
+import com.aiworkflow.engine.journal.JdbcEventJournal;
+import com.aiworkflow.engine.journal.entity.AiInstanceEvent;
+import com.aiworkflow.engine.journal.entity.AiInstanceSnapshot;
+import com.aiworkflow.engine.journal.mapper.InstanceJournalMapper;
+import com.aiworkflow.service.definition.analysis.TimelineAnalyzer;
+import com.aiworkflow.service.definition.entity.AiFlowExecution;
+import com.aiworkflow.service.definition.entity.AiFlowInstance;
+import com.aiworkflow.service.definition.entity.AiTaskInstance;
+import com.aiworkflow.service.definition.journal.InstanceProjector;
+import com.aiworkflow.service.definition.journal.JournalProperties;
+import com.aiworkflow.service.definition.mapper.AiFlowExecutionMapper;
+import com.aiworkflow.service.definition.mapper.AiFlowInstanceMapper;
+import com.aiworkflow.service.definition.mapper.AiTaskInstanceMapper;
+import com.aiworkflow.service.definition.persistence.ContextPatchWriter;
+import com.aiworkflow.service.definition.persistence.TaskStateWriter;
+import com.aiworkflow.service.definition.persistence.TaskWriteBehindProperties;
+import com.aiworkflow.service.definition.variable.VariableIndexer;
+import com.aiworkflow.service.engine.condition.SimpleConditionEvaluator;
+import com.aiworkflow.service.engine.runtime.FlowEngine;
+import com.aiworkflow.service.engine.runtime.RuntimeInstance;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 引擎 -> JournalRecorder -> JdbcEventJournal -> InstanceProjector 读模型的端到端测试
+ * <p>
+ * 日志表和读模型表用内存中的行模拟，映射器的行为与 XML 中的 SQL 一致。
+ */
+class JournalProjectionTest {
+
+    private static final long INSTANCE_ID = 42L;
+
+    private final SPIManager spiManager = new SPIManager();
+
+    private final MemoryJournalMapper journalMapper = new MemoryJournalMapper();
+
+    private final FlowEngine engine = new FlowEngine(spiManager, new SimpleConditionEvaluator(),
+            List.of(new JournalRecorder(new JdbcEventJournal(journalMapper), 100)));
+
+    private final AiFlowInstance instanceRow = new AiFlowInstance();
+
+    private final List<AiFlowExecution> executionRows = new ArrayList<>();
+
+    private final List<AiTaskInstance> taskRows = new ArrayList<>();
+
+    private final List<Map<String, String>> patches = new ArrayList<>();
+
+    private final AiFlowInstanceMapper instanceMapper = mock(AiFlowInstanceMapper.class);
+
+    private final AiFlowExecutionMapper executionMapper = mock(AiFlowExecutionMapper.class);
+
+    private final AiTaskInstanceMapper taskMapper = mock(AiTaskInstanceMapper.class);
+
+    private final VariableIndexer variableIndexer = mock(VariableIndexer.class);
+
+    // 真实的增量写，变量变化从引擎的 onVariablesChanged 一路写到 context_data
+    private final ContextPatchWriter contextPatchWriter = new ContextPatchWriter(instanceMapper, variableIndexer,
+            TransactionOperations.withoutTransaction());
+
+    private TaskStateWriter taskStateWriter;
+
+    private InstanceProjector projector;
+
+    @BeforeEach
+    void setUp() {
+        // 实例行由调用方在启动引擎前创建，引擎以它的 ID 运行
+        instanceRow.setId(INSTANCE_ID);
+        instanceRow.setFlowDefinitionId(3L);
+        instanceRow.setStatus("RUNNING");
+        instanceRow.setProjectedSeq(0L);
+        stubReadModel();
+
+        // 任务状态变更经延迟写组件的批量会话写到同一个任务表映射器
+        SqlSession session = mock(SqlSession.class);
+        when(session.getMapper(AiTaskInstanceMapper.class)).thenReturn(taskMapper);
+        SqlSessionFactory sessionFactory = mock(SqlSessionFactory.class);
+        when(sessionFactory.openSession(ExecutorType.BATCH, false)).thenReturn(session);
+        taskStateWriter = new TaskStateWriter(sessionFactory, new TaskWriteBehindProperties());
+
+        JournalProperties properties = new JournalProperties();
+        properties.setProjectorEnabled(false);
+        // 小批次让任务的开始和结束落在不同的批次
+        properties.setBatchSize(4);
+        projector = new InstanceProjector(journalMapper, instanceMapper, executionMapper, taskMapper,
+                taskStateWriter, contextPatchWriter, TransactionOperations.withoutTransaction(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        projector.shutdown();
+        taskStateWriter.shutdown();
+        engine.close();
+    }
+
+    @Test
+    void testForkJoinFlowIsProjected() throws Exception {
+        spiManager.registerExecutor(new NodeExecutor() {
+            @Override
+            public String[] getSupportedNodeTypes() {
+                return new String[]{"SERVICE_TASK"};
+            }
+
+            @Override
+            public ExecutionResult execute(ExecutionContext context) {
+                return ExecutionResult.success(Map.of(context.getNodeKey(), "done"));
+            }
+        });
+        RuntimeInstance instance = engine.start(INSTANCE_ID, forkJoinGraph(), Map.of("input", "hello"));
+        instance.completion().get(5, TimeUnit.SECONDS);
+
+        int events = journalMapper.events.size();
+        assertEquals(events, projector.project());
+
+        // 根执行和两个分支执行，任务行的 execution_id 指向执行行
+        assertEquals(3, executionRows.size());
+        AiFlowExecution root = execution(1L);
+        assertNull(root.getParentExecutionId());
+        assertEquals(Set.of(2L, 3L), executionRows.stream()
+                .filter(e -> Objects.equals(e.getParentExecutionId(), root.getId()))
+                .map(AiFlowExecution::getEngineExecutionId)
+                .collect(Collectors.toSet()));
+        assertTrue(executionRows.stream().noneMatch(AiFlowExecution::getIsActive));
+
+        assertEquals(6, taskRows.size());
+        assertTrue(taskRows.stream().allMatch(t -> "COMPLETED".equals(t.getStatus()) && t.getEndTime() != null));
+        Map<String, AiTaskInstance> tasks = taskRows.stream()
+                .collect(Collectors.toMap(AiTaskInstance::getTaskKey, t -> t));
+        assertEquals(root.getId(), tasks.get("fork").getExecutionId());
+        assertEquals(root.getId(), tasks.get("end").getExecutionId());
+        assertEquals(Set.of(execution(2L).getId(), execution(3L).getId()),
+                Set.of(tasks.get("a").getExecutionId(), tasks.get("b").getExecutionId()));
+        assertEquals(Map.of("a", "done"), tasks.get("a").getOutputData());
+        assertEquals(Map.of("b", "done"), tasks.get("b").getOutputData());
+        // 时间线分析由分叉事件和执行行还原出同样的执行树
+        Map<Long, Long> parents = TimelineAnalyzer.executionParents(journalMapper.selectEventsByType(
+                List.of(INSTANCE_ID), JournalEventType.EXECUTION_FORKED.name()), executionRows);
+        assertEquals(Map.of(execution(2L).getId(), root.getId(), execution(3L).getId(), root.getId()), parents);
+
+        // 启动变量和两个分支的输出写入上下文，并交给变量索引
+        Map<String, String> written = new HashMap<>();
+        patches.forEach(written::putAll);
+        assertEquals(Map.of("$.variables.\"input\"", "\"hello\"", "$.variables.\"a\"", "\"done\"",
+                "$.variables.\"b\"", "\"done\""), written);
+        verify(variableIndexer, atLeastOnce()).update(eq(INSTANCE_ID), any(),
+                argThat(changes -> changes.containsKey("a")));
+        verify(variableIndexer, atLeastOnce()).update(eq(INSTANCE_ID), any(),
+                argThat(changes -> changes.containsKey("b")));
+
+        // 跨批次结束的任务由延迟写组件写出
+        assertTrue((long) taskStateWriter.getStats().get("flushedRows") > 0);
+        assertEquals(0, taskStateWriter.getPendingCount());
+
+        verify(instanceMapper).updateEnded(eq(INSTANCE_ID), eq("COMPLETED"), any(), isNull());
+        assertEquals(events, instanceRow.getProjectedSeq());
+        assertEquals(journalMapper.events.get(events - 1).getId(), journalMapper.checkpoint);
+
+        // 从头重新扫描：所有事件按实例序号跳过，读模型不变
+        journalMapper.checkpoint = 0;
+        assertEquals(events, projector.project());
+        assertEquals(3, executionRows.size());
+        assertEquals(6, taskRows.size());
+        assertEquals((long) events, projector.getStats().get("duplicateEvents"));
+    }
+
+    private AiFlowExecution execution(long engineExecutionId) {
+        return executionRows.stream()
+                .filter(e -> e.getEngineExecutionId() == engineExecutionId)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void stubReadModel() {
+        when(instanceMapper.selectProjectionState(anyLong())).thenAnswer(invocation ->
+                Objects.equals(invocation.getArgument(0), INSTANCE_ID) ? instanceRow : null);
+        doAnswer(invocation -> {
+            instanceRow.setProjectedSeq(Math.max(instanceRow.getProjectedSeq(), invocation.<Long>getArgument(1)));
+            return 1;
+        }).when(instanceMapper).updateProjectedSeq(eq(INSTANCE_ID), anyLong());
+
+        doAnswer(invocation -> {
+            patches.add(invocation.getArgument(1));
+            return 1;
+        }).when(instanceMapper).patchContextVariables(eq(INSTANCE_ID), any(), any());
+
+        doAnswer(invocation -> {
+            AiFlowExecution execution = invocation.getArgument(0);
+            execution.setId(1000L + executionRows.size());
+            executionRows.add(execution);
+            return 1;
+        }).when(executionMapper).insert(any(AiFlowExecution.class));
+        when(executionMapper.selectIdByEngineExecutionId(anyLong(), anyLong())).thenAnswer(invocation ->
+                executionRows.stream()
+                        .filter(e -> e.getFlowInstanceId().equals(invocation.getArgument(0))
+                                && e.getEngineExecutionId().equals(invocation.getArgument(1)))
+                        .map(AiFlowExecution::getId)
+                        .findFirst()
+                        .orElse(null));
+        doAnswer(invocation -> {
+            executionRows.stream().filter(e -> e.getId().equals(invocation.getArgument(0)))
+                    .forEach(e -> e.setIsActive(invocation.getArgument(1)));
+            return 1;
+        }).when(executionMapper).updateActive(anyLong(), anyBoolean(), any());
+        doAnswer(invocation -> {
+            executionRows.stream().filter(e -> invocation.getArgument(0).equals(e.getParentExecutionId()))
+                    .forEach(e -> e.setIsActive(false));
+            return 1;
+        }).when(executionMapper).deactivateChildren(anyLong());
+        doAnswer(invocation -> {
+            executionRows.forEach(e -> e.setIsActive(false));
+            return 1;
+        }).when(executionMapper).deactivateByFlowInstanceId(anyLong());
+
+        doAnswer(invocation -> {
+            List<AiTaskInstance> tasks = invocation.getArgument(0);
+            for (AiTaskInstance task : tasks) {
+                task.setId(2000L + taskRows.size());
+                taskRows.add(task);
+            }
+            return tasks.size();
+        }).when(taskMapper).insertBatch(any());
+        when(taskMapper.selectRunningTaskId(anyLong(), anyLong(), any())).thenAnswer(invocation ->
+                taskRows.stream()
+                        .filter(t -> t.getFlowInstanceId().equals(invocation.getArgument(0))
+                                && t.getExecutionId().equals(invocation.getArgument(1))
+                                && t.getTaskKey().equals(invocation.getArgument(2))
+                                && "RUNNING".equals(t.getStatus()))
+                        .map(AiTaskInstance::getId)
+                        .max(Comparator.naturalOrder())
+                        .orElse(null));
+        doAnswer(invocation -> {
+            taskRows.stream()
+                    .filter(t -> t.getId().equals(invocation.getArgument(0)) && "RUNNING".equals(t.getStatus()))
+                    .forEach(t -> {
+                        t.setStatus(invocation.getArgument(1));
+                        t.setEndTime(invocation.getArgument(4));
+                        t.setOutputData(invocation.getArgument(5));
+                        t.setErrorInfo(invocation.getArgument(6));
+                    });
+            return 1;
+        }).when(taskMapper).updateTransition(anyLong(), any(), anyInt(), any(), any(), any(), any());
+    }
+
+    private static FlowGraph forkJoinGraph() {
+        return new FlowGraphBuilder("fork_join")
+                .add(node(new StartEvent(), "start"))
+                .add(node(new ParallelGateway(), "fork"))
+                .add(task("a"))
+                .add(task("b"))
+                .add(node(new ParallelGateway(), "join"))
+                .add(node(new EndEvent(), "end"))
+                .add(flow("start", "fork"))
+                .add(flow("fork", "a"))
+                .add(flow("fork", "b"))
+                .add(flow("a", "join"))
+                .add(flow("b", "join"))
+                .add(flow("join", "end"))
+                .build();
+    }
+
+    private static FlowNode node(FlowNode node, String key) {
+        node.setKey(key);
+        return node;
+    }
+
+    private static FlowNode task(String key) {
+        Task task = new Task();
+        task.setTaskType("SERVICE_TASK");
+        return node(task, key);
+    }
+
+    private static SequenceFlow flow(String source, String target) {
+        SequenceFlow flow = new SequenceFlow();
+        flow.setKey(source + "_" + target);
+        flow.setSourceRef(source);
+        flow.setTargetRef(target);
+        return flow;
+    }
+
+    /**
+     * 内存中的 ai_instance_event / ai_instance_snapshot / ai_journal_checkpoint，所有事件都视为已稳定
+     */
+    private static final class MemoryJournalMapper implements InstanceJournalMapper {
+
+        private final List<AiInstanceEvent> events = new ArrayList<>();
+
+        private final List<AiInstanceSnapshot> snapshots = new ArrayList<>();
+
+        private long checkpoint;
+
+        @Override
+        public synchronized int insertEvents(List<AiInstanceEvent> rows) {
+            for (AiInstanceEvent row : rows) {
+                row.setId(events.size() + 1L);
+                row.setCreateAt(LocalDateTime.now());
+                events.add(row);
+            }
+            return rows.size();
+        }
+
+        @Override
+        public synchronized List<AiInstanceEvent> selectEvents(long instanceId, long afterSeq) {
+            return events.stream().filter(e -> e.getInstanceId() == instanceId && e.getSeq() > afterSeq).toList();
+        }
+
+        @Override
+        public synchronized List<AiInstanceEvent> selectEventsAfterId(long afterId, int limit) {
+            return events.stream().filter(e -> e.getId() > afterId).limit(limit).toList();
+        }
+
+        @Override
+        public synchronized List<AiInstanceEvent> selectEventsByType(Collection<Long> instanceIds, String eventType) {
+            return events.stream()
+                    .filter(e -> instanceIds.contains(e.getInstanceId()) && e.getEventType().equals(eventType))
+                    .toList();
+        }
+
+        @Override
+        public synchronized int insertSnapshot(long instanceId, long seq, Object state) {
+            AiInstanceSnapshot snapshot = new AiInstanceSnapshot();
+            snapshot.setInstanceId(instanceId);
+            snapshot.setSeq(seq);
+            snapshot.setState(state);
+            snapshots.add(snapshot);
+            return 1;
+        }
+
+        @Override
+        public synchronized AiInstanceSnapshot selectLatestSnapshot(long instanceId) {
+            return snapshots.stream().filter(s -> s.getInstanceId() == instanceId)
+                    .max(Comparator.comparing(AiInstanceSnapshot::getSeq))
+                    .orElse(null);
+        }
+
+        @Override
+        public int deleteOldSnapshots(long instanceId, int keep) {
+            return 0;
+        }
+
+        @Override
+        public int insertCheckpointIfAbsent(String name) {
+            return 0;
+        }
+
+        @Override
+        public Long selectCheckpointForUpdate(String name) {
+            return checkpoint;
+        }
+
+        @Override
+        public int updateCheckpoint(String name, long lastEventId) {
+            checkpoint = Math.max(checkpoint, lastEventId);
+            return 1;
+        }
+
+        @Override
+        public synchronized Long selectSettledEventId(long afterId, long upToId, long settleSeconds) {
+            return events.stream().map(AiInstanceEvent::getId)
+                    .filter(id -> id > afterId && id <= upToId)
+                    .max(Comparator.naturalOrder())
+                    .orElse(null);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.aiworkflow.service.engine.journal;
+
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.common.core.execution.NodeExecutor;
+import com.aiworkflow.common.core.spi.SPIManager;
+import com.aiworkflow.engine.core.graph.FlowGraph;
+import com.aiworkflow.engine.core.graph.FlowGraphBuilder;
+import com.aiworkflow.engine.core.journal.InMemoryEventJournal;
+import com.aiworkflow.engine.core.journal.InstanceState;
+import com.aiworkflow.engine.core.journal.JournalEvent;
+import com.aiworkflow.engine.core.journal.JournalEventType;
+import com.aiworkflow.engine.core.model.*;
+import com.aiworkflow.service.engine.condition.SimpleConditionEvaluator;
+import com.aiworkflow.service.engine.runtime.FlowEngine;
+import com.aiworkflow.service.engine.runtime.InstanceStatus;
+import com.aiworkflow.service.engine.runtime.RuntimeInstance;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JournalRecorder 测试
+ */
+class JournalRecorderTest {
+
+    private final SPIManager spiManager = new SPIManager();
+
+    // 启动事件之外的前 failingAppends 次追加失败
+    private final AtomicInteger failingAppends = new AtomicInteger();
+
+    private final InMemoryEventJournal journal = new InMemoryEventJournal() {
+        @Override
+        public void append(long instanceId, List<JournalEvent> batch) {
+            if (batch.get(0).getType() != JournalEventType.INSTANCE_STARTED
+                    && failingAppends.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new IllegalStateException("数据库不可用");
+            }
+            super.append(instanceId, batch);
+        }
+    };
+
+    // 间隔为 3，线性流程中途至少产生一个快照
+    private final JournalRecorder recorder = new JournalRecorder(journal, 3);
+
+    private final FlowEngine engine = new FlowEngine(spiManager, new SimpleConditionEvaluator(), List.of(recorder));
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        spiManager.registerExecutor(new NodeExecutor() {
+            @Override
+            public String[] getSupportedNodeTypes() {
+                return new String[]{"SERVICE_TASK"};
+            }
+
+            @Override
+            public ExecutionResult execute(ExecutionContext context) {
+                return ExecutionResult.success(Map.of(context.getNodeKey(), "done"));
+            }
+        });
+    }
+
+    @Test
+    void testLinearFlowIsJournaledAndRecoverable() throws Exception {
+        RuntimeInstance instance = engine.start(42L, linearGraph(), Map.of("input", "hello"));
+        instance.completion().get(5, TimeUnit.SECONDS);
+
+        List<JournalEvent> events = journal.read(42L, 0);
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(i + 1, events.get(i).getSeq());
+        }
+        assertEquals(JournalEventType.INSTANCE_STARTED, events.get(0).getType());
+        assertEquals(JournalEventType.INSTANCE_ENDED, events.get(events.size() - 1).getType());
+        assertEquals(List.of("start", "a", "b", "end"), events.stream()
+                .filter(e -> e.getType() == JournalEventType.TASK_COMPLETED)
+                .map(JournalEvent::getNodeKey)
+                .toList());
+
+        assertNotNull(journal.loadSnapshot(42L));
+        InstanceState state = journal.recover(42L);
+        assertEquals("COMPLETED", state.getStatus());
+        assertEquals(Map.of("input", "hello", "a", "done", "b", "done"), state.getVariables());
+        assertEquals(events.size(), state.getLastSeq());
+        assertEquals(0, recorder.getStats().get("openStreams"));
+    }
+
+    @Test
+    void testChildEventsFollowFork() throws Exception {
+        FlowGraph graph = new FlowGraphBuilder("fork_join")
+                .add(node(new StartEvent(), "start"))
+                .add(node(new ParallelGateway(), "fork"))
+                .add(task("a"))
+                .add(task("b"))
+                .add(node(new ParallelGateway(), "join"))
+                .add(node(new EndEvent(), "end"))
+                .add(flow("start", "fork"))
+                .add(flow("fork", "a"))
+                .add(flow("fork", "b"))
+                .add(flow("a", "join"))
+                .add(flow("b", "join"))
+                .add(flow("join", "end"))
+                .build();
+
+        RuntimeInstance instance = engine.start(43L, graph, Map.of());
+        instance.completion().get(5, TimeUnit.SECONDS);
+
+        List<JournalEvent> events = journal.read(43L, 0);
+        JournalEvent fork = events.stream()
+                .filter(e -> e.getType() == JournalEventType.EXECUTION_FORKED)
+                .findFirst().orElseThrow();
+        List<?> children = (List<?>) fork.getPayload().get("children");
+        assertEquals(2, children.size());
+        // 子执行的事件都排在分叉之后，投影时子执行行总能挂到父执行下
+        events.stream()
+                .filter(e -> children.contains(e.getExecutionId()))
+                .forEach(e -> assertTrue(e.getSeq() > fork.getSeq(), e.getType() + " seq " + e.getSeq()));
+    }
+
+    @Test
+    void testAppendIsRetried() throws Exception {
+        failingAppends.set(2);
+
+        RuntimeInstance instance = engine.start(44L, linearGraph(), Map.of());
+        instance.completion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(InstanceStatus.COMPLETED, instance.getStatus());
+        assertEquals(2L, recorder.getStats().get("retries"));
+        assertEquals(0L, recorder.getStats().get("failures"));
+        assertEquals("COMPLETED", journal.recover(44L).getStatus());
+    }
+
+    @Test
+    void testAppendFailureFailsInstance() throws Exception {
+        failingAppends.set(Integer.MAX_VALUE);
+
+        RuntimeInstance instance = engine.start(45L, linearGraph(), Map.of());
+        instance.completion().get(5, TimeUnit.SECONDS);
+
+        // 日志写不进去时实例以失败结束，而不是无记录地继续执行
+        assertEquals(InstanceStatus.FAILED, instance.getStatus());
+        assertTrue(instance.getErrorMessage().contains("事件日志写入失败"));
+        assertTrue((Long) recorder.getStats().get("failures") >= 1);
+        assertEquals(1, journal.read(45L, 0).size());
+        assertEquals(0, recorder.getStats().get("openStreams"));
+    }
+
+    private static FlowGraph linearGraph() {
+        return new FlowGraphBuilder("linear")
+                .add(node(new StartEvent(), "start"))
+                .add(task("a"))
+                .add(task("b"))
+                .add(node(new EndEvent(), "end"))
+                .add(flow("start", "a"))
+                .add(flow("a", "b"))
+                .add(flow("b", "end"))
+                .build();
+    }
+
+    private static FlowNode node(FlowNode node, String key) {
+        node.setKey(key);
+        return node;
+    }
+
+    private static FlowNode task(String key) {
+        Task task = new Task();
+        task.setTaskType("SERVICE_TASK");
+        return node(task, key);
+    }
+
+    private static SequenceFlow flow(String source, String target) {
+        SequenceFlow flow = new SequenceFlow();
+        flow.setKey(source + "_" + target);
+        flow.setSourceRef(source);
+        flow.setTargetRef(target);
+        return flow;
+    }
+}
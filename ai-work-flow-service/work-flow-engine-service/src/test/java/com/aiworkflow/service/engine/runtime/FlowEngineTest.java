@@ -0,0 +1,379 @@
+package com.aiworkflow.service.engine.runtime;
+
+import com.aiworkflow.common.core.execution.AsyncNodeExecutor;
+import com.aiworkflow.common.core.execution.ExecutionContext;
+import com.aiworkflow.common.core.execution.ExecutionResult;
+import com.aiworkflow.common.core.execution.NodeExecutor;
+import com.aiworkflow.common.core.spi.SPIManager;
+import com.aiworkflow.engine.core.context.ContextDelta;
+import com.aiworkflow.engine.core.graph.FlowGraph;
+import com.aiworkflow.engine.core.graph.FlowGraphBuilder;
+import com.aiworkflow.engine.core.model.*;
+import com.aiworkflow.service.engine.condition.SimpleConditionEvaluator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FlowEngine 测试
+ */
+class FlowEngineTest {
+
+    private final SPIManager spiManager = new SPIManager();
+
+    private final List<String> forks = new CopyOnWriteArrayList<>();
+
+    private final List<Long> joinedParents = new CopyOnWriteArrayList<>();
+
+    private final List<String> changedVariables = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger tokenMoves = new AtomicInteger();
+
+    // 每个步骤结束释放一个许可，测试按许可数等待步骤推进，不轮询
+    private final Semaphore stepEnds = new Semaphore(0);
+
+    private final FlowEngine engine = new FlowEngine(spiManager, new SimpleConditionEvaluator(), List.of(new EngineListener() {
+        @Override
+        public void onExecutionForked(RuntimeInstance instance, Execution parent, List<Execution> children) {
+            forks.add(instance.getGraph().nodeKey(parent.getActivity()) + ":" + children.size());
+        }
+
+        @Override
+        public void onExecutionJoined(RuntimeInstance instance, Execution parent, int node) {
+            joinedParents.add(parent.getId());
+        }
+
+        @Override
+        public void onVariablesChanged(RuntimeInstance instance, Execution execution, ContextDelta delta) {
+            changedVariables.add(String.join(",", delta.getSet().keySet()));
+        }
+
+        @Override
+        public void onTokenMoved(RuntimeInstance instance, Execution execution, int node) {
+            tokenMoves.incrementAndGet();
+        }
+
+        @Override
+        public void onStepEnded(RuntimeInstance instance) {
+            stepEnds.release();
+        }
+    }));
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    @Test
+    void testLinearFlow() throws Exception {
+        spiManager.registerExecutor(executor("SERVICE_TASK", ctx -> ExecutionResult.success(Map.of("visited", ctx.getNodeKey()))));
+        FlowGraph graph = new FlowGraphBuilder("linear")
+                .add(node(new StartEvent(), "start"))
+                .add(task("SERVICE_TASK", "a"))
+                .add(node(new EndEvent(), "end"))
+                .add(flow("start", "a", null))
+                .add(flow("a", "end", null))
+                .build();
+
+        RuntimeInstance instance = engine.start(graph, Map.of("input", "hello"));
+        instance.completion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(InstanceStatus.COMPLETED, instance.getStatus());
+        assertEquals("a", instance.getVariables().get("visited"));
+        assertEquals("hello", instance.getVariables().get("input"));
+        assertEquals(0, engine.getRunningCount());
+        // 每个节点一个步骤，步骤结束事件只触发一次；结束节点的步骤在实例完成之后才收尾，关闭引擎等它结束
+        engine.close();
+        assertEquals(3, tokenMoves.get());
+        assertEquals(3, stepEnds.availablePermits());
+    }
+
+    @Test
+    void testAsyncStepsEndOnce() throws Exception {
+        CompletableFuture<ExecutionResult> call = new CompletableFuture<>();
+        spiManager.registerExecutor(asyncExecutor("LLM_AGENT", ctx -> call));
+
+        RuntimeInstance instance = engine.start(asyncGraph(), Map.of());
+        // start 一步，任务挂起一步
+        assertTrue(stepEnds.tryAcquire(2, 5, TimeUnit.SECONDS));
+        call.complete(ExecutionResult.success(Map.of("done", true)));
+        instance.completion().get(5, TimeUnit.SECONDS);
+        engine.close();
+
+        assertEquals(InstanceStatus.COMPLETED, instance.getStatus());
+        // 异步结果一步，结束节点一步
+        assertEquals(3, tokenMoves.get());
+        assertEquals(2, stepEnds.availablePermits());
+    }
+
+    @Test
+    void testAsyncFailureEndsStepOnce() throws Exception {
+        CompletableFuture<ExecutionResult> call = new CompletableFuture<>();
+        spiManager.registerExecutor(asyncExecutor("LLM_AGENT", ctx -> call));
+
+        RuntimeInstance instance = engine.start(asyncGraph(), Map.of());
+        assertTrue(stepEnds.tryAcquire(2, 5, TimeUnit.SECONDS));
+        call.complete(ExecutionResult.fail("模型拒绝"));
+        instance.completion().get(5, TimeUnit.SECONDS);
+        engine.close();
+
+        assertEquals(InstanceStatus.FAILED, instance.getStatus());
+        // 失败的异步结果只收尾一次，实例已结束，不再有后续步骤
+        assertEquals(2, tokenMoves.get());
+        assertEquals(1, stepEnds.availablePermits());
+    }
+
+    @Test
+    void testParallelBranchesRunConcurrently() throws Exception {
+        // 两条分支必须同时在途才能通过屏障，顺序执行会超时
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        spiManager.registerExecutor(executor("LLM_AGENT", ctx -> {
+            barrier.await(5, TimeUnit.SECONDS);
+            return ExecutionResult.success(Map.of(ctx.getNodeKey(), true));
+        }));
+        FlowGraph graph = forkJoinGraph();
+
+        RuntimeInstance instance = engine.start(graph, Map.of());
+        instance.completion().get(10, TimeUnit.SECONDS);
+
+        assertEquals(InstanceStatus.COMPLETED, instance.getStatus());
+        assertEquals(true, instance.getVariables().get("a"));
+        assertEquals(true, instance.getVariables().get("b"));
+        // 每个分支只上报自己写入的变量
+        assertEquals(List.of("a", "b"), changedVariables.stream().sorted().toList());
+        assertEquals(List.of("fork:2"), forks);
+        // 汇聚后恢复的是分叉前的根执行
+        assertEquals(List.of(instance.getRootExecution().getId()), joinedParents);
+    }
+
+    @Test
+    void testExclusiveGateway() throws Exception {
+        spiManager.registerExecutor(executor("SERVICE_TASK", ctx -> ExecutionResult.success(Map.of("branch", ctx.getNodeKey()))));
+        FlowGraph graph = new FlowGraphBuilder("exclusive")
+                .add(node(new StartEvent(), "start"))
+                .add(node(new ExclusiveGateway(), "gw"))
+                .add(task("SERVICE_TASK", "high"))
+                .add(task("SERVICE_TASK", "low"))
+                .add(node(new EndEvent(), "end"))
+                .add(flow("start", "gw", null))
+                .add(flow("gw", "low", null))
+                .add(flow("gw", "high", "amount > 1000"))
+                .add(flow("high", "end", null))
+                .add(flow("low", "end", null))
+                .build();
+
+        RuntimeInstance high = engine.start(graph, Map.of("amount", 5000));
+        RuntimeInstance low = engine.start(graph, Map.of("amount", 10));
+        high.completion().get(5, TimeUnit.SECONDS);
+        low.completion().get(5, TimeUnit.SECONDS);
+
+        assertEquals("high", high.getVariables().get("branch"));
+        assertEquals("low", low.getVariables().get("branch"));
+    }
+
+    @Test
+    void testTaskFailureFailsInstance() throws Exception {
+        spiManager.registerExecutor(executor("LLM_AGENT", ctx -> {
+            if ("b".equals(ctx.getNodeKey())) {
+                throw new IllegalStateException("模型调用超时");
+            }
+            return ExecutionResult.success();
+        }));
+
+        RuntimeInstance instance = engine.start(forkJoinGraph(), Map.of());
+        instance.completion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(InstanceStatus.FAILED, instance.getStatus());
+        assertEquals("模型调用超时", instance.getErrorMessage());
+    }
+
+    @Test
+    void testManyBlockingInstances() throws Exception {
+        // 每个分支阻塞 200ms，虚拟线程下数千个分支可同时等待
+        spiManager.registerExecutor(executor("LLM_AGENT", ctx -> {
+            Thread.sleep(200);
+            return ExecutionResult.success();
+        }));
+        FlowGraph graph = forkJoinGraph();
+
+        List<RuntimeInstance> instances = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            instances.add(engine.start(graph, Map.of()));
+        }
+        for (RuntimeInstance instance : instances) {
+            instance.completion().get(10, TimeUnit.SECONDS);
+            assertEquals(InstanceStatus.COMPLETED, instance.getStatus());
+        }
+    }
+
+    @Test
+    void testAsyncExecutorParksExecution() throws Exception {
+        // 调用全部挂起，不占用线程；由测试线程统一完成
+        List<CompletableFuture<ExecutionResult>> calls = new CopyOnWriteArrayList<>();
+        spiManager.registerExecutor(asyncExecutor("LLM_AGENT", ctx -> {
+            CompletableFuture<ExecutionResult> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        }));
+        FlowGraph graph = forkJoinGraph();
+
+        List<RuntimeInstance> instances = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            instances.add(engine.start(graph, Map.of()));
+        }
+        // 每个实例 start、fork 和两个挂起的分支各一步，挂起的步骤在登记挂起之后才结束
+        assertTrue(stepEnds.tryAcquire(2000, 5, TimeUnit.SECONDS));
+        assertEquals(1000, calls.size());
+        assertEquals(1000, instances.stream().mapToInt(RuntimeInstance::getInFlightCount).sum());
+
+        calls.forEach(call -> call.complete(ExecutionResult.success(Map.of("done", true))));
+        for (RuntimeInstance instance : instances) {
+            instance.completion().get(10, TimeUnit.SECONDS);
+            assertEquals(InstanceStatus.COMPLETED, instance.getStatus());
+            assertEquals(0, instance.getInFlightCount());
+        }
+    }
+
+    @Test
+    void testAsyncTimeoutCancelsCall() throws Exception {
+        CompletableFuture<ExecutionResult> call = new CompletableFuture<>();
+        spiManager.registerExecutor(asyncExecutor("MCP_TOOL", ctx -> call));
+        Task task = (Task) task("MCP_TOOL", "tool");
+        task.setConfig(Map.of("timeoutMs", 100));
+        FlowGraph graph = new FlowGraphBuilder("timeout")
+                .add(node(new StartEvent(), "start"))
+                .add(task)
+                .add(node(new EndEvent(), "end"))
+                .add(flow("start", "tool", null))
+                .add(flow("tool", "end", null))
+                .build();
+
+        RuntimeInstance instance = engine.start(graph, Map.of());
+        instance.completion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(InstanceStatus.FAILED, instance.getStatus());
+        assertEquals("节点执行超时(100ms)", instance.getErrorMessage());
+        assertTrue(call.isCancelled());
+    }
+
+    @Test
+    void testTerminateCancelsInFlightCall() throws Exception {
+        CompletableFuture<ExecutionResult> call = new CompletableFuture<>();
+        CountDownLatch started = new CountDownLatch(1);
+        spiManager.registerExecutor(asyncExecutor("AI_DECISION", ctx -> {
+            started.countDown();
+            return call;
+        }));
+        FlowGraph graph = new FlowGraphBuilder("terminate")
+                .add(node(new StartEvent(), "start"))
+                .add(task("AI_DECISION", "decide"))
+                .add(node(new EndEvent(), "end"))
+                .add(flow("start", "decide", null))
+                .add(flow("decide", "end", null))
+                .build();
+
+        RuntimeInstance instance = engine.start(graph, Map.of());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // 执行器返回后令牌才挂起，挂起的步骤结束时调用已登记为挂起中
+        assertTrue(stepEnds.tryAcquire(2, 5, TimeUnit.SECONDS));
+        assertEquals(1, instance.getInFlightCount());
+        assertTrue(engine.terminate(instance.getId()));
+
+        assertEquals(InstanceStatus.TERMINATED, instance.getStatus());
+        assertTrue(call.isCancelled());
+        assertEquals(0, instance.getInFlightCount());
+    }
+
+    private FlowGraph asyncGraph() {
+        return new FlowGraphBuilder("async")
+                .add(node(new StartEvent(), "start"))
+                .add(task("LLM_AGENT", "call"))
+                .add(node(new EndEvent(), "end"))
+                .add(flow("start", "call", null))
+                .add(flow("call", "end", null))
+                .build();
+    }
+
+    private FlowGraph forkJoinGraph() {
+        return new FlowGraphBuilder("fork_join")
+                .add(node(new StartEvent(), "start"))
+                .add(node(new ParallelGateway(), "fork"))
+                .add(task("LLM_AGENT", "a"))
+                .add(task("LLM_AGENT", "b"))
+                .add(node(new ParallelGateway(), "join"))
+                .add(node(new EndEvent(), "end"))
+                .add(flow("start", "fork", null))
+                .add(flow("fork", "a", null))
+                .add(flow("fork", "b", null))
+                .add(flow("a", "join", null))
+                .add(flow("b", "join", null))
+                .add(flow("join", "end", null))
+                .build();
+    }
+
+    private static FlowNode node(FlowNode node, String key) {
+        node.setKey(key);
+        return node;
+    }
+
+    private static FlowNode task(String type, String key) {
+        Task task = new Task();
+        task.setTaskType(type);
+        return node(task, key);
+    }
+
+    private static SequenceFlow flow(String source, String target, String condition) {
+        SequenceFlow flow = new SequenceFlow();
+        flow.setKey(source + "_" + target);
+        flow.setSourceRef(source);
+        flow.setTargetRef(target);
+        flow.setConditionExpression(condition);
+        return flow;
+    }
+
+    private static NodeExecutor executor(String type, Body body) {
+        return new NodeExecutor() {
+            @Override
+            public String[] getSupportedNodeTypes() {
+                return new String[]{type};
+            }
+
+            @Override
+            public ExecutionResult execute(ExecutionContext context) throws Exception {
+                return body.apply(context);
+            }
+        };
+    }
+
+    private static NodeExecutor asyncExecutor(String type, Function<ExecutionContext, CompletionStage<ExecutionResult>> body) {
+        return new AsyncNodeExecutor() {
+            @Override
+            public String[] getSupportedNodeTypes() {
+                return new String[]{type};
+            }
+
+            @Override
+            public CompletionStage<ExecutionResult> executeAsync(ExecutionContext context) {
+                return body.apply(context);
+            }
+        };
+    }
+
+    private interface Body {
+        ExecutionResult apply(ExecutionContext context) throws Exception;
+    }
+}
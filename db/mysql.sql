@@ -6,7 +6,7 @@ create table ai_flow_definition
     flow_key    varchar(100)                          not null comment '流程标识',
     name        varchar(255)                          not null comment '流程名称',
     version     int         default 1                 not null comment '版本号',
-    flow_model  json                                  not null comment 'BPMN流程模型JSON',
+    flow_model  longblob                              not null comment 'BPMN流程模型(二进制JSON，见 BinaryJsonCodec)',
     status      varchar(20) default 'DRAFT'           null comment '状态:DRAFT,ACTIVE,INACTIVE',
     description text                                  null comment '描述',
     create_at   datetime    default CURRENT_TIMESTAMP null comment '创建时间',
@@ -22,6 +22,10 @@ create index idx_flow_definition_key
 create index idx_flow_definition_status
     on ai_flow_definition (status);
 
+-- 各节点定时按更新时间轮询定义变更，失效本地缓存
+create index idx_flow_definition_update_at
+    on ai_flow_definition (update_at);
+
 
 
 
@@ -32,10 +36,11 @@ create table ai_flow_execution
         primary key,
     flow_instance_id    bigint                               not null comment '流程实例ID',
     parent_execution_id bigint                               null comment '父执行ID(支持简单分支)',
+    engine_execution_id bigint                               null comment '引擎内执行ID(实例内从1递增)',
     activity_id         varchar(100)                         null comment '当前活动ID',
     is_active           tinyint(1) default 1                 null comment '是否活跃',
     is_concurrent       tinyint(1) default 0                 null comment '是否并发分支',
-    execution_data      json                                 null comment '执行数据',
+    execution_data      longblob                             null comment '执行数据(二进制JSON)',
     create_at           datetime   default CURRENT_TIMESTAMP null comment '创建时间',
     update_at           datetime   default CURRENT_TIMESTAMP null on update CURRENT_TIMESTAMP comment '更新时间'
 )
@@ -53,6 +58,9 @@ create index idx_execution_is_active
 create index idx_execution_parent_execution_id
     on ai_flow_execution (parent_execution_id);
 
+create unique index uk_execution_engine_id
+    on ai_flow_execution (flow_instance_id, engine_execution_id);
+
 -- auto-generated definition
 create table ai_flow_instance
 (
@@ -65,11 +73,12 @@ create table ai_flow_instance
     current_activity_id varchar(100)                       null comment '当前节点ID',
     start_time          datetime default CURRENT_TIMESTAMP null comment '开始时间',
     end_time            datetime                           null comment '结束时间',
-    input_data          json                               null comment '输入数据',
-    output_data         json                               null comment '输出数据',
+    input_data          longblob                           null comment '输入数据(二进制JSON)',
+    output_data         longblob                           null comment '输出数据(二进制JSON)',
     context_data        json                               null comment '上下文数据(变量、执行路径、元数据等)',
     rollback_info       json                               null comment '回滚信息',
     error_message       text                               null comment '错误信息',
+    projected_seq       bigint   default 0                 not null comment '已投影的最后一个事件序号',
     create_at           datetime default CURRENT_TIMESTAMP null comment '创建时间',
     update_at           datetime default CURRENT_TIMESTAMP null on update CURRENT_TIMESTAMP comment '更新时间',
     user_id_virtual     varchar(100) as (json_unquote(json_extract(`context_data`, _utf8mb4'$.variables.user_id'))),
@@ -83,11 +92,14 @@ create index idx_flow_instance_business_key
 create index idx_flow_instance_current_activity
     on ai_flow_instance (current_activity_id);
 
-create index idx_flow_instance_definition_id
-    on ai_flow_instance (flow_definition_id);
+create index idx_flow_instance_definition_create
+    on ai_flow_instance (flow_definition_id, create_at);
+
+create index idx_flow_instance_status_create
+    on ai_flow_instance (status, create_at);
 
-create index idx_flow_instance_status
-    on ai_flow_instance (status);
+create index idx_flow_instance_create_at
+    on ai_flow_instance (create_at);
 
 create index idx_priority_virtual
     on ai_flow_instance (priority_virtual);
@@ -106,10 +118,13 @@ create table ai_task_instance
     task_name        varchar(255)                          not null comment '任务名称',
     task_type        varchar(50)                           not null comment '任务类型:START_EVENT,END_EVENT,USER_TASK,SERVICE_TASK,LLM_AGENT,MCP_TOOL,AI_DECISION,EXCLUSIVE_GATEWAY,PARALLEL_GATEWAY',
     status           varchar(20) default 'CREATED'         not null comment '任务状态:CREATED,READY,RUNNING,COMPLETED,FAILED,CANCELLED',
+    lease_owner      varchar(64)                           null comment '租约持有者(执行节点ID)',
+    lease_until      datetime(3)                           null comment '租约到期时间',
+    attempt          int         default 0                 not null comment '领取次数',
     start_time       datetime                              null comment '开始时间',
     end_time         datetime                              null comment '结束时间',
-    input_data       json                                  null comment '输入数据',
-    output_data      json                                  null comment '输出数据',
+    input_data       longblob                              null comment '输入数据(二进制JSON)',
+    output_data      longblob                              null comment '输出数据(二进制JSON)',
     config_data      json                                  null comment '配置数据(AI配置、工具配置等)',
     rollback_data    json                                  null comment '回滚数据(策略、状态、记录)',
     error_info       json                                  null comment '错误信息',
@@ -121,15 +136,181 @@ create table ai_task_instance
 create index idx_task_execution_id
     on ai_task_instance (execution_id);
 
-create index idx_task_flow_instance_id
-    on ai_task_instance (flow_instance_id);
+create index idx_task_flow_instance_create
+    on ai_task_instance (flow_instance_id, create_at);
 
-create index idx_task_status
-    on ai_task_instance (status);
+create index idx_task_status_create
+    on ai_task_instance (status, create_at);
+
+create index idx_task_create_at
+    on ai_task_instance (create_at);
 
 create index idx_task_task_key
     on ai_task_instance (task_key);
 
-create index idx_task_task_type
-    on ai_task_instance (task_type);
+create index idx_task_type_create
+    on ai_task_instance (task_type, create_at);
+
+create index idx_task_status_lease
+    on ai_task_instance (status, lease_until);
+
+
+-- 按状态和结束时间挑选待归档实例
+create index idx_flow_instance_status_end_time
+    on ai_flow_instance (status, end_time);
+
+-- 已结束实例的归档表(冷数据)，由 InstanceArchiver 从热表迁入；结构与热表一致，只保留按实例查询所需的索引
+create table ai_flow_instance_archive
+(
+    id                  bigint       not null comment '主键ID(沿用热表ID)'
+        primary key,
+    flow_definition_id  bigint       not null comment '流程定义ID',
+    business_key        varchar(255) null comment '业务标识',
+    name                varchar(255) null comment '实例名称',
+    status              varchar(20)  not null comment '状态:COMPLETED,FAILED,TERMINATED',
+    current_activity_id varchar(100) null comment '当前节点ID',
+    start_time          datetime     null comment '开始时间',
+    end_time            datetime     null comment '结束时间',
+    input_data          longblob     null comment '输入数据(二进制JSON)',
+    output_data         longblob     null comment '输出数据(二进制JSON)',
+    context_data        json         null comment '上下文数据(变量、执行路径、元数据等)',
+    rollback_info       json         null comment '回滚信息',
+    error_message       text         null comment '错误信息',
+    projected_seq       bigint       null comment '已投影的最后一个事件序号',
+    create_at           datetime     null comment '创建时间',
+    update_at           datetime     null comment '更新时间',
+    archived_at         datetime default CURRENT_TIMESTAMP null comment '归档时间'
+)
+    comment '流程实例归档表' charset = utf8mb4 row_format = compressed;
+
+create index idx_flow_instance_archive_business_key
+    on ai_flow_instance_archive (business_key);
+
+create table ai_flow_execution_archive
+(
+    id                  bigint       not null comment '主键ID(沿用热表ID)'
+        primary key,
+    flow_instance_id    bigint       not null comment '流程实例ID',
+    parent_execution_id bigint       null comment '父执行ID',
+    engine_execution_id bigint       null comment '引擎内执行ID(实例内从1递增)',
+    activity_id         varchar(100) null comment '当前活动ID',
+    is_active           tinyint(1)   null comment '是否活跃',
+    is_concurrent       tinyint(1)   null comment '是否并发分支',
+    execution_data      longblob     null comment '执行数据(二进制JSON)',
+    create_at           datetime     null comment '创建时间',
+    update_at           datetime     null comment '更新时间'
+)
+    comment '执行实例归档表' charset = utf8mb4 row_format = compressed;
+
+create index idx_execution_archive_flow_instance_id
+    on ai_flow_execution_archive (flow_instance_id);
+
+create table ai_task_instance_archive
+(
+    id               bigint       not null comment '主键ID(沿用热表ID)'
+        primary key,
+    flow_instance_id bigint       not null comment '流程实例ID',
+    execution_id     bigint       null comment '执行实例ID',
+    task_key         varchar(100) not null comment '任务标识',
+    task_name        varchar(255) not null comment '任务名称',
+    task_type        varchar(50)  not null comment '任务类型',
+    status           varchar(20)  not null comment '任务状态',
+    lease_owner      varchar(64)  null comment '租约持有者(执行节点ID)',
+    lease_until      datetime(3)  null comment '租约到期时间',
+    attempt          int          null comment '领取次数',
+    start_time       datetime     null comment '开始时间',
+    end_time         datetime     null comment '结束时间',
+    input_data       longblob     null comment '输入数据(二进制JSON)',
+    output_data      longblob     null comment '输出数据(二进制JSON)',
+    config_data      json         null comment '配置数据',
+    rollback_data    json         null comment '回滚数据',
+    error_info       json         null comment '错误信息',
+    create_at        datetime     null comment '创建时间',
+    update_at        datetime     null comment '更新时间'
+)
+    comment 'AI任务实例归档表' charset = utf8mb4 row_format = compressed;
+
+create index idx_task_archive_flow_instance_id
+    on ai_task_instance_archive (flow_instance_id);
 
+-- 已归档实例的事件日志，时间线分析据此还原执行的分叉关系；快照只用于恢复运行中的实例，归档时直接删除
+create table ai_instance_event_archive
+(
+    id           bigint       not null comment '主键ID(沿用热表ID)'
+        primary key,
+    instance_id  bigint       not null comment '流程实例ID',
+    seq          bigint       not null comment '实例内序号',
+    event_type   varchar(30)  not null comment '事件类型',
+    execution_id bigint       null comment '执行ID',
+    node_key     varchar(100) null comment '节点标识',
+    payload      longblob     null comment '事件数据(二进制JSON)',
+    event_time   datetime(3)  not null comment '事件发生时间',
+    create_at    datetime     null comment '创建时间',
+    constraint uk_instance_event_archive_seq
+        unique (instance_id, seq)
+)
+    comment '实例事件日志归档表' charset = utf8mb4 row_format = compressed;
+
+-- 可检索流程变量的窄表索引，每个实例每个声明变量一行，按类型写入对应的值列
+create table ai_instance_variable_index
+(
+    flow_instance_id bigint         not null comment '流程实例ID',
+    name             varchar(100)   not null comment '变量名',
+    value_type       varchar(10)    not null comment '值类型:STRING,LONG,DECIMAL,DATE',
+    string_value     varchar(255)   null comment '字符串值(超长截断)',
+    long_value       bigint         null comment '整数值',
+    decimal_value    decimal(30, 10) null comment '小数值',
+    date_value       datetime(3)    null comment '日期时间值',
+    update_at        datetime default CURRENT_TIMESTAMP null on update CURRENT_TIMESTAMP comment '更新时间',
+    primary key (flow_instance_id, name)
+)
+    comment '流程变量检索索引表' charset = utf8mb4;
+
+create index idx_variable_string
+    on ai_instance_variable_index (name, string_value);
+
+create index idx_variable_long
+    on ai_instance_variable_index (name, long_value);
+
+create index idx_variable_decimal
+    on ai_instance_variable_index (name, decimal_value);
+
+create index idx_variable_date
+    on ai_instance_variable_index (name, date_value);
+
+-- 实例事件日志与快照
+create table ai_instance_event
+(
+    id           bigint auto_increment comment '主键ID(全局追加顺序，投影器按它读取)'
+        primary key,
+    instance_id  bigint                             not null comment '流程实例ID',
+    seq          bigint                             not null comment '实例内序号，从1连续递增',
+    event_type   varchar(30)                        not null comment '事件类型:INSTANCE_STARTED,TOKEN_MOVED,TASK_STARTED,TASK_COMPLETED,TASK_FAILED,VARIABLES_SET,EXECUTION_FORKED,EXECUTION_JOINED,INSTANCE_ENDED',
+    execution_id bigint                             null comment '执行ID',
+    node_key     varchar(100)                       null comment '节点标识',
+    payload      longblob                           null comment '事件数据(二进制JSON)',
+    event_time   datetime(3)                        not null comment '事件发生时间',
+    create_at    datetime default CURRENT_TIMESTAMP null comment '创建时间',
+    constraint uk_instance_event_seq
+        unique (instance_id, seq)
+)
+    comment '实例事件日志表' charset = utf8mb4;
+
+create table ai_instance_snapshot
+(
+    instance_id bigint                             not null comment '流程实例ID',
+    seq         bigint                             not null comment '快照包含的最后一个事件序号',
+    state       longblob                           not null comment '实例状态(二进制JSON)',
+    create_at   datetime default CURRENT_TIMESTAMP null comment '创建时间',
+    primary key (instance_id, seq)
+)
+    comment '实例状态快照表' charset = utf8mb4;
+
+create table ai_journal_checkpoint
+(
+    name          varchar(50)                        not null comment '投影名称'
+        primary key,
+    last_event_id bigint   default 0                 not null comment '已投影的最后一个事件ID',
+    update_at     datetime default CURRENT_TIMESTAMP null on update CURRENT_TIMESTAMP comment '更新时间'
+)
+    comment '事件投影进度表' charset = utf8mb4;
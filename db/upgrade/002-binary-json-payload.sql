@@ -0,0 +1,22 @@
+-- 负载列由 json 改为 longblob，配合 BinaryJsonTypeHandler 存储二进制 JSON
+-- 已有数据保持文本 JSON，读取时自动识别，下次写入时转为二进制；无需回填
+--
+-- 必须执行且不可回退：
+-- 1. 实体的负载字段固定使用 BinaryJsonTypeHandler，没有开关；不执行本脚本时二进制内容写不进 json 列
+-- 2. 新版本写入过的行是二进制格式，旧版本读不出来，也不能再改回 json 列
+--    执行后、新版本写入前可以用 modify ... json 改回；之后只能从执行前的备份恢复
+-- context_data 仍为 json：user_id_virtual / priority_virtual 虚拟列依赖 json_extract
+
+alter table ai_flow_definition
+    modify flow_model longblob not null comment 'BPMN流程模型(二进制JSON，见 BinaryJsonCodec)';
+
+alter table ai_flow_execution
+    modify execution_data longblob null comment '执行数据(二进制JSON)';
+
+alter table ai_flow_instance
+    modify input_data  longblob null comment '输入数据(二进制JSON)',
+    modify output_data longblob null comment '输出数据(二进制JSON)';
+
+alter table ai_task_instance
+    modify input_data  longblob null comment '输入数据(二进制JSON)',
+    modify output_data longblob null comment '输出数据(二进制JSON)';
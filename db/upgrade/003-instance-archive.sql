@@ -0,0 +1,73 @@
+-- 已结束实例冷热分离：新增归档表和挑选归档候选的索引
+
+create index idx_flow_instance_status_end_time
+    on ai_flow_instance (status, end_time);
+
+-- 已结束实例的归档表(冷数据)，由 InstanceArchiver 从热表迁入；结构与热表一致，只保留按实例查询所需的索引
+create table ai_flow_instance_archive
+(
+    id                  bigint       not null comment '主键ID(沿用热表ID)'
+        primary key,
+    flow_definition_id  bigint       not null comment '流程定义ID',
+    business_key        varchar(255) null comment '业务标识',
+    name                varchar(255) null comment '实例名称',
+    status              varchar(20)  not null comment '状态:COMPLETED,FAILED,TERMINATED',
+    current_activity_id varchar(100) null comment '当前节点ID',
+    start_time          datetime     null comment '开始时间',
+    end_time            datetime     null comment '结束时间',
+    input_data          longblob     null comment '输入数据(二进制JSON)',
+    output_data         longblob     null comment '输出数据(二进制JSON)',
+    context_data        json         null comment '上下文数据(变量、执行路径、元数据等)',
+    rollback_info       json         null comment '回滚信息',
+    error_message       text         null comment '错误信息',
+    create_at           datetime     null comment '创建时间',
+    update_at           datetime     null comment '更新时间',
+    archived_at         datetime default CURRENT_TIMESTAMP null comment '归档时间'
+)
+    comment '流程实例归档表' charset = utf8mb4 row_format = compressed;
+
+create index idx_flow_instance_archive_business_key
+    on ai_flow_instance_archive (business_key);
+
+create table ai_flow_execution_archive
+(
+    id                  bigint       not null comment '主键ID(沿用热表ID)'
+        primary key,
+    flow_instance_id    bigint       not null comment '流程实例ID',
+    parent_execution_id bigint       null comment '父执行ID',
+    activity_id         varchar(100) null comment '当前活动ID',
+    is_active           tinyint(1)   null comment '是否活跃',
+    is_concurrent       tinyint(1)   null comment '是否并发分支',
+    execution_data      longblob     null comment '执行数据(二进制JSON)',
+    create_at           datetime     null comment '创建时间',
+    update_at           datetime     null comment '更新时间'
+)
+    comment '执行实例归档表' charset = utf8mb4 row_format = compressed;
+
+create index idx_execution_archive_flow_instance_id
+    on ai_flow_execution_archive (flow_instance_id);
+
+create table ai_task_instance_archive
+(
+    id               bigint       not null comment '主键ID(沿用热表ID)'
+        primary key,
+    flow_instance_id bigint       not null comment '流程实例ID',
+    execution_id     bigint       null comment '执行实例ID',
+    task_key         varchar(100) not null comment '任务标识',
+    task_name        varchar(255) not null comment '任务名称',
+    task_type        varchar(50)  not null comment '任务类型',
+    status           varchar(20)  not null comment '任务状态',
+    start_time       datetime     null comment '开始时间',
+    end_time         datetime     null comment '结束时间',
+    input_data       longblob     null comment '输入数据(二进制JSON)',
+    output_data      longblob     null comment '输出数据(二进制JSON)',
+    config_data      json         null comment '配置数据',
+    rollback_data    json         null comment '回滚数据',
+    error_info       json         null comment '错误信息',
+    create_at        datetime     null comment '创建时间',
+    update_at        datetime     null comment '更新时间'
+)
+    comment 'AI任务实例归档表' charset = utf8mb4 row_format = compressed;
+
+create index idx_task_archive_flow_instance_id
+    on ai_task_instance_archive (flow_instance_id);
@@ -0,0 +1,18 @@
+-- 列表接口改为按 (create_at, id) 键集分页：过滤列后追加 create_at，InnoDB 二级索引隐含主键，
+-- 因此 (过滤列, create_at) 即可按 (create_at, id) 有序定位。新索引以原单列索引为前缀，原索引删除。
+
+alter table ai_flow_instance
+    drop index idx_flow_instance_status,
+    drop index idx_flow_instance_definition_id,
+    add index idx_flow_instance_status_create (status, create_at),
+    add index idx_flow_instance_definition_create (flow_definition_id, create_at),
+    add index idx_flow_instance_create_at (create_at);
+
+alter table ai_task_instance
+    drop index idx_task_status,
+    drop index idx_task_flow_instance_id,
+    drop index idx_task_task_type,
+    add index idx_task_status_create (status, create_at),
+    add index idx_task_flow_instance_create (flow_instance_id, create_at),
+    add index idx_task_type_create (task_type, create_at),
+    add index idx_task_create_at (create_at);
@@ -0,0 +1,29 @@
+-- 流程定义声明的可检索变量写入窄表，替代逐个增加的 json_extract 虚拟列
+-- 现有 user_id_virtual / priority_virtual 保留，已有实例可通过 PUT /api/instances/{id}/variables/index 重建索引
+
+-- 可检索流程变量的窄表索引，每个实例每个声明变量一行，按类型写入对应的值列
+create table ai_instance_variable_index
+(
+    flow_instance_id bigint         not null comment '流程实例ID',
+    name             varchar(100)   not null comment '变量名',
+    value_type       varchar(10)    not null comment '值类型:STRING,LONG,DECIMAL,DATE',
+    string_value     varchar(255)   null comment '字符串值(超长截断)',
+    long_value       bigint         null comment '整数值',
+    decimal_value    decimal(30, 10) null comment '小数值',
+    date_value       datetime(3)    null comment '日期时间值',
+    update_at        datetime default CURRENT_TIMESTAMP null on update CURRENT_TIMESTAMP comment '更新时间',
+    primary key (flow_instance_id, name)
+)
+    comment '流程变量检索索引表' charset = utf8mb4;
+
+create index idx_variable_string
+    on ai_instance_variable_index (name, string_value);
+
+create index idx_variable_long
+    on ai_instance_variable_index (name, long_value);
+
+create index idx_variable_decimal
+    on ai_instance_variable_index (name, decimal_value);
+
+create index idx_variable_date
+    on ai_instance_variable_index (name, date_value);
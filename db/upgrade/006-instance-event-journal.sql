@@ -0,0 +1,38 @@
+-- 实例事件日志：引擎每个步骤整批追加一次，ai_flow_instance / ai_task_instance 由投影器按事件 ID 顺序异步更新
+-- 恢复时读取最近快照，再重放其后的事件
+
+create table ai_instance_event
+(
+    id           bigint auto_increment comment '主键ID(全局追加顺序，投影器按它读取)'
+        primary key,
+    instance_id  bigint                             not null comment '流程实例ID',
+    seq          bigint                             not null comment '实例内序号，从1连续递增',
+    event_type   varchar(30)                        not null comment '事件类型:INSTANCE_STARTED,TOKEN_MOVED,TASK_STARTED,TASK_COMPLETED,TASK_FAILED,VARIABLES_SET,EXECUTION_FORKED,EXECUTION_JOINED,INSTANCE_ENDED',
+    execution_id bigint                             null comment '执行ID',
+    node_key     varchar(100)                       null comment '节点标识',
+    payload      longblob                           null comment '事件数据(二进制JSON)',
+    event_time   datetime(3)                        not null comment '事件发生时间',
+    create_at    datetime default CURRENT_TIMESTAMP null comment '创建时间',
+    constraint uk_instance_event_seq
+        unique (instance_id, seq)
+)
+    comment '实例事件日志表' charset = utf8mb4;
+
+create table ai_instance_snapshot
+(
+    instance_id bigint                             not null comment '流程实例ID',
+    seq         bigint                             not null comment '快照包含的最后一个事件序号',
+    state       longblob                           not null comment '实例状态(二进制JSON)',
+    create_at   datetime default CURRENT_TIMESTAMP null comment '创建时间',
+    primary key (instance_id, seq)
+)
+    comment '实例状态快照表' charset = utf8mb4;
+
+create table ai_journal_checkpoint
+(
+    name          varchar(50)                        not null comment '投影名称'
+        primary key,
+    last_event_id bigint   default 0                 not null comment '已投影的最后一个事件ID',
+    update_at     datetime default CURRENT_TIMESTAMP null on update CURRENT_TIMESTAMP comment '更新时间'
+)
+    comment '事件投影进度表' charset = utf8mb4;
@@ -0,0 +1,11 @@
+-- task-execution-service 以 ai_task_instance 作为工作队列：READY 行被领取为 RUNNING 并挂上租约
+-- 引擎内直接执行的任务 lease_until 为空，不参与租约回收
+
+alter table ai_task_instance
+    add column lease_owner varchar(64) null comment '租约持有者(执行节点ID)' after status,
+    add column lease_until datetime(3) null comment '租约到期时间' after lease_owner,
+    add column attempt     int default 0 not null comment '领取次数' after lease_until;
+
+-- 回收过期租约
+create index idx_task_status_lease
+    on ai_task_instance (status, lease_until);
@@ -0,0 +1,20 @@
+-- 投影改为按实例序号幂等：ai_flow_instance.projected_seq 记录每个实例已投影到的事件序号，
+-- 全局进度 ai_journal_checkpoint 只用于确定从哪里开始扫描，可以安全地重复扫描
+-- ai_flow_execution 由投影器按引擎的分叉事件写入，engine_execution_id 是引擎内的执行ID
+
+alter table ai_flow_instance
+    add column projected_seq bigint default 0 not null comment '已投影的最后一个事件序号' after error_message;
+
+alter table ai_flow_execution
+    add column engine_execution_id bigint null comment '引擎内执行ID(实例内从1递增)' after parent_execution_id;
+
+create unique index uk_execution_engine_id
+    on ai_flow_execution (flow_instance_id, engine_execution_id);
+
+-- 已投影过的实例从原全局进度处继续，否则这些实例之后的事件会因序号不连续一直等待
+update ai_flow_instance i
+    join (select e.instance_id, max(e.seq) as seq
+          from ai_instance_event e
+                   join ai_journal_checkpoint c on c.name = 'instance-projector' and e.id <= c.last_event_id
+          group by e.instance_id) p on p.instance_id = i.id
+set i.projected_seq = p.seq;
@@ -0,0 +1,31 @@
+-- 归档表补齐 007/008 给热表新增的列，并新增事件日志归档表：
+-- 执行的 engine_execution_id 和事件日志一起归档后，已归档实例的时间线分析仍能还原执行的分叉关系；
+-- 实例快照只用于恢复运行中的实例，归档时直接删除
+
+alter table ai_flow_instance_archive
+    add column projected_seq bigint null comment '已投影的最后一个事件序号' after error_message;
+
+alter table ai_flow_execution_archive
+    add column engine_execution_id bigint null comment '引擎内执行ID(实例内从1递增)' after parent_execution_id;
+
+alter table ai_task_instance_archive
+    add column lease_owner varchar(64) null comment '租约持有者(执行节点ID)' after status,
+    add column lease_until datetime(3) null comment '租约到期时间' after lease_owner,
+    add column attempt     int         null comment '领取次数' after lease_until;
+
+create table ai_instance_event_archive
+(
+    id           bigint       not null comment '主键ID(沿用热表ID)'
+        primary key,
+    instance_id  bigint       not null comment '流程实例ID',
+    seq          bigint       not null comment '实例内序号',
+    event_type   varchar(30)  not null comment '事件类型',
+    execution_id bigint       null comment '执行ID',
+    node_key     varchar(100) null comment '节点标识',
+    payload      longblob     null comment '事件数据(二进制JSON)',
+    event_time   datetime(3)  not null comment '事件发生时间',
+    create_at    datetime     null comment '创建时间',
+    constraint uk_instance_event_archive_seq
+        unique (instance_id, seq)
+)
+    comment '实例事件日志归档表' charset = utf8mb4 row_format = compressed;
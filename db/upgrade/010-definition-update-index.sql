@@ -0,0 +1,4 @@
+-- 各节点定时按 update_at 轮询 ai_flow_definition 的变更，失效本地的已编译定义缓存
+
+create index idx_flow_definition_update_at
+    on ai_flow_definition (update_at);